@@ -24,12 +24,14 @@ import com.rollbar.notifier.telemetry.TelemetryEventTracker;
 import com.rollbar.notifier.uncaughtexception.RollbarUncaughtExceptionHandler;
 import com.rollbar.android.provider.NotifierProvider;
 import com.rollbar.android.provider.PersonProvider;
+import com.rollbar.api.payload.Payload;
 import com.rollbar.api.payload.data.Level;
 import com.rollbar.notifier.config.Config;
 import com.rollbar.notifier.config.ConfigBuilder;
 import com.rollbar.notifier.sender.BufferedSender;
 import com.rollbar.notifier.sender.SyncSender;
 import com.rollbar.notifier.sender.queue.DiskQueue;
+import com.rollbar.notifier.sender.queue.JournalQueue;
 import com.rollbar.notifier.util.ObjectsUtils;
 import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
 import com.rollbar.notifier.wrapper.ThrowableWrapper;
@@ -42,13 +44,16 @@ import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 
 public class Rollbar implements Closeable {
 
   private static final String ITEM_DIR_NAME = "rollbar-items";
+  private static final String JOURNAL_DIR_NAME = "rollbar-journal";
   private static final String ANDROID = "android";
   private static final String DEFAULT_ENVIRONMENT = "production";
 
@@ -441,13 +446,9 @@ public class Rollbar implements Closeable {
         .maxLogcatSize(maxLogcatSize)
         .build();
 
-    File folder = new File(context.getCacheDir(), ITEM_DIR_NAME);
-
-    // DiskQueue allows uncaught exceptions to be handled for Android.
+    // The disk queue allows uncaught exceptions to be handled for Android.
     // The payload is saved before app exit and transmitted on next app start.
-    DiskQueue queue = new DiskQueue.Builder()
-        .queueFolder(folder)
-        .build();
+    Queue<Payload> queue = createQueue(context.getCacheDir());
 
     SyncSender innerSender = new SyncSender.Builder()
         .accessToken(accessToken)
@@ -1235,6 +1236,67 @@ public class Rollbar implements Closeable {
     notifier.log(throwableWrapper, new HashMap<>(), "ANR", Level.CRITICAL, false);
   }
 
+  private static Queue<Payload> createQueue(File cacheDir) {
+    final File legacyFolder = new File(cacheDir, ITEM_DIR_NAME);
+    JournalQueue queue;
+    try {
+      queue = new JournalQueue.Builder()
+          .queueFolder(new File(cacheDir, JOURNAL_DIR_NAME))
+          .build();
+    } catch (IllegalStateException e) {
+      Log.e(TAG, "Error opening the item journal, saving a file per item.", e);
+      return new DiskQueue.Builder()
+          .queueFolder(legacyFolder)
+          .build();
+    }
+
+    // The items saved by a previous version are moved to the journal off the calling thread.
+    if (legacyFolder.isDirectory()) {
+      final DiskQueue legacyQueue = new DiskQueue.Builder()
+          .queueFolder(legacyFolder)
+          .build();
+      final JournalQueue journal = queue;
+      Thread migration = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          moveToJournal(legacyQueue, journal, legacyFolder);
+        }
+      }, "rollbar-journal_migration");
+      migration.setDaemon(true);
+      migration.start();
+    }
+    return queue;
+  }
+
+  private static void moveToJournal(DiskQueue legacyQueue, JournalQueue journal,
+      File legacyFolder) {
+    // The files are listed once, so each item is read once, and deleted once it is in the journal.
+    Iterator<Payload> items = legacyQueue.iterator();
+    while (items.hasNext()) {
+      Payload payload;
+      try {
+        payload = items.next();
+      } catch (RuntimeException e) {
+        // The unreadable item is discarded by the legacy queue.
+        Log.e(TAG, "Error reading a saved item, discarding it.", e);
+        continue;
+      }
+      try {
+        if (payload != null && !journal.offer(payload)) {
+          Log.w(TAG, "The item journal is full, the saved items left are kept.");
+          return;
+        }
+        items.remove();
+      } catch (RuntimeException e) {
+        Log.e(TAG, "Error moving a saved item to the journal, the items left are kept.", e);
+        return;
+      }
+    }
+    if (!legacyFolder.delete()) {
+      Log.w(TAG, "Could not delete the folder: " + legacyFolder);
+    }
+  }
+
   private static AndroidConfiguration makeDefaultAndroidConfiguration() {
     return new AndroidConfiguration.Builder().build();
   }
@@ -17,7 +17,7 @@ import com.rollbar.notifier.filter.Filter;
 import com.rollbar.notifier.sender.BufferedSender;
 import com.rollbar.notifier.sender.Sender;
 import com.rollbar.notifier.sender.SyncSender;
-import com.rollbar.notifier.sender.queue.DiskQueue;
+import com.rollbar.notifier.sender.queue.JournalQueue;
 import com.rollbar.notifier.transformer.Transformer;
 
 import java.util.HashMap;
@@ -102,7 +102,7 @@ public class RollbarTest {
   }
 
   @Test
-  public void shouldUseDefaultBufferedSenderAndDiskQueue() {
+  public void shouldUseDefaultBufferedSenderAndJournalQueue() {
     Config config;
 
     Rollbar sut = new Rollbar(mockApplicationContext, ACCESS_TOKEN, ENVIRONMENT, true);
@@ -110,7 +110,7 @@ public class RollbarTest {
     config = sut.config();
 
     assertThat(config.sender(), instanceOf(BufferedSender.class));
-    assertThat(((BufferedSender)config.sender()).queue(), instanceOf(DiskQueue.class));
+    assertThat(((BufferedSender)config.sender()).queue(), instanceOf(JournalQueue.class));
     assertThat(((BufferedSender)config.sender()).sender(), instanceOf(SyncSender.class));
   }
 
@@ -1,5 +1,6 @@
 package com.rollbar.api.json;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -13,4 +14,16 @@ public interface JsonSerializable extends Serializable {
    * @return the json equivalent representation.
    */
   Object asJson();
+
+  /**
+   * Writes the json representation of the object to the writer. The default implementation
+   * writes the result of {@link #asJson()}, implementations should override it to write their
+   * fields straight to the writer instead, without allocating an intermediate representation.
+   *
+   * @param writer the writer.
+   * @throws IOException if the json can not be written.
+   */
+  default void writeJson(JsonWriter writer) throws IOException {
+    writer.value(asJson());
+  }
 }
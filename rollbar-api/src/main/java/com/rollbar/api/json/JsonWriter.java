@@ -0,0 +1,119 @@
+package com.rollbar.api.json;
+
+import java.io.IOException;
+
+/**
+ * Writer of a json document, used by the {@link JsonSerializable json serializable} objects to
+ * write themselves field by field without building an intermediate representation.
+ *
+ * <p>The writer takes care of the separators between the members of objects and arrays, so a
+ * member of an object is written calling {@link #name(String)} followed by one of the value
+ * methods, and an element of an array calling just one of them.</p>
+ */
+public interface JsonWriter {
+
+  /**
+   * Begins a json object.
+   *
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter beginObject() throws IOException;
+
+  /**
+   * Ends the current json object.
+   *
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter endObject() throws IOException;
+
+  /**
+   * Begins a json array.
+   *
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter beginArray() throws IOException;
+
+  /**
+   * Ends the current json array.
+   *
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter endArray() throws IOException;
+
+  /**
+   * Writes the name of the next member of the current object.
+   *
+   * @param name the name.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter name(String name) throws IOException;
+
+  /**
+   * Writes a string value, or null.
+   *
+   * @param value the value.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter value(String value) throws IOException;
+
+  /**
+   * Writes a boolean value.
+   *
+   * @param value the value.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter value(boolean value) throws IOException;
+
+  /**
+   * Writes a number value.
+   *
+   * @param value the value.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter value(long value) throws IOException;
+
+  /**
+   * Writes a number value.
+   *
+   * @param value the value.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter value(double value) throws IOException;
+
+  /**
+   * Writes a number value, or null.
+   *
+   * @param value the value.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter value(Number value) throws IOException;
+
+  /**
+   * Writes any value: null, booleans, numbers, strings, {@link JsonSerializable json
+   * serializable} objects, maps, collections and arrays of them. Any other object is written as
+   * its string representation.
+   *
+   * @param value the value.
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter value(Object value) throws IOException;
+
+  /**
+   * Writes a null value.
+   *
+   * @return the writer.
+   * @throws IOException if the json can not be written.
+   */
+  JsonWriter nullValue() throws IOException;
+}
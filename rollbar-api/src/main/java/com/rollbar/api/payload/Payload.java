@@ -3,8 +3,10 @@ package com.rollbar.api.payload;
 import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInObject;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.payload.data.Data;
 import com.rollbar.api.truncation.StringTruncatable;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -105,6 +107,19 @@ public class Payload implements JsonSerializable, StringTruncatable<Payload> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (accessToken != null) {
+      writer.name("access_token").value(accessToken);
+    }
+    if (data != null) {
+      writer.name("data");
+      data.writeJson(writer);
+    }
+    writer.endObject();
+  }
+
   @Override
   public Payload truncateStrings(int maxLength) {
     if (this.data == null) {
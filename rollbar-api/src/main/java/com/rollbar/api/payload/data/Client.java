@@ -5,8 +5,10 @@ import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInNeste
 import static java.util.Collections.unmodifiableMap;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -53,6 +55,21 @@ public class Client implements JsonSerializable, StringTruncatable<Client> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    for (Map.Entry<String, Map<String, Object>> entry : data.entrySet()) {
+      // The top level data takes precedence over the data.
+      if (!topLevelData.containsKey(entry.getKey())) {
+        writer.name(entry.getKey()).value(entry.getValue());
+      }
+    }
+    for (Map.Entry<String, Object> entry : topLevelData.entrySet()) {
+      writer.name(entry.getKey()).value(entry.getValue());
+    }
+    writer.endObject();
+  }
+
 
   @Override
   public Client truncateStrings(int maxLength) {
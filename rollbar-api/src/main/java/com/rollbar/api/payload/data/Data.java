@@ -5,9 +5,11 @@ import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInMap;
 import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInObject;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.payload.data.body.Body;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -314,6 +316,73 @@ public class Data implements JsonSerializable, StringTruncatable<Data> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (environment != null) {
+      writer.name("environment").value(environment);
+    }
+    if (body != null) {
+      writer.name("body");
+      body.writeJson(writer);
+    }
+    if (level != null) {
+      writer.name("level").value(level.asJson());
+    }
+    if (timestamp != null) {
+      writer.name("timestamp").value(timestamp / 1000.0);
+    }
+    if (codeVersion != null) {
+      writer.name("code_version").value(codeVersion);
+    }
+    if (platform != null) {
+      writer.name("platform").value(platform);
+    }
+    if (language != null) {
+      writer.name("language").value(language);
+    }
+    if (framework != null) {
+      writer.name("framework").value(framework);
+    }
+    if (context != null) {
+      writer.name("context").value(context);
+    }
+    if (request != null) {
+      writer.name("request");
+      request.writeJson(writer);
+    }
+    if (person != null) {
+      writer.name("person");
+      person.writeJson(writer);
+    }
+    if (server != null) {
+      writer.name("server");
+      server.writeJson(writer);
+    }
+    if (client != null) {
+      writer.name("client");
+      client.writeJson(writer);
+    }
+    if (custom != null) {
+      writer.name("custom").value(custom);
+    }
+    if (fingerprint != null) {
+      writer.name("fingerprint").value(fingerprint);
+    }
+    if (title != null) {
+      writer.name("title").value(title);
+    }
+    if (uuid != null) {
+      writer.name("uuid").value(uuid);
+    }
+    if (notifier != null) {
+      writer.name("notifier");
+      notifier.writeJson(writer);
+    }
+    writer.name("is_uncaught").value(isUncaught);
+    writer.endObject();
+  }
+
   @Override
   public Data truncateStrings(int maxLength) {
     return new Builder(this)
@@ -1,7 +1,9 @@
 package com.rollbar.api.payload.data;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
 
 /**
@@ -70,4 +72,9 @@ public enum Level implements Comparable<Level>, JsonSerializable {
   public String asJson() {
     return jsonName;
   }
+
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.value(jsonName);
+  }
 }
@@ -3,8 +3,10 @@ package com.rollbar.api.payload.data;
 import static com.rollbar.api.truncation.TruncationHelper.truncateString;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -86,6 +88,18 @@ public class Notifier implements JsonSerializable, StringTruncatable<Notifier> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (name != null) {
+      writer.name("name").value(name);
+    }
+    if (version != null) {
+      writer.name("version").value(version);
+    }
+    writer.endObject();
+  }
+
 
   @Override
   public Notifier truncateStrings(int maxLength) {
@@ -5,8 +5,10 @@ import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInMap;
 import static java.util.Collections.unmodifiableMap;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -85,6 +87,42 @@ public class Person implements JsonSerializable, StringTruncatable<Person> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (metadata != null) {
+      for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+        if (!isSet(entry.getKey())) {
+          writer.name(entry.getKey()).value(entry.getValue());
+        }
+      }
+    }
+    if (id != null) {
+      writer.name("id").value(id);
+    }
+    if (username != null) {
+      writer.name("username").value(username);
+    }
+    if (email != null) {
+      writer.name("email").value(email);
+    }
+    writer.endObject();
+  }
+
+  // Whether the member is set by a field, which takes precedence over the metadata.
+  private boolean isSet(String name) {
+    switch (name) {
+      case "id":
+        return id != null;
+      case "username":
+        return username != null;
+      case "email":
+        return email != null;
+      default:
+        return false;
+    }
+  }
+
   @Override
   public Person truncateStrings(int maxLength) {
     return new Builder(this)
@@ -7,8 +7,10 @@ import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInStrin
 import static java.util.Collections.unmodifiableMap;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -172,6 +174,82 @@ public class Request implements JsonSerializable, StringTruncatable<Request> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (metadata != null) {
+      for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+        if (!isSet(entry.getKey())) {
+          writer.name(entry.getKey()).value(entry.getValue());
+        }
+      }
+    }
+    if (url != null) {
+      writer.name("url").value(url);
+    }
+    if (method != null) {
+      writer.name("method").value(method);
+    }
+    if (headers != null) {
+      writer.name("headers").value(headers);
+    }
+    if (params != null) {
+      writer.name("params").value(params);
+    }
+    if (get != null) {
+      writer.name("get").beginObject();
+      for (Map.Entry<String, List<String>> entry : get.entrySet()) {
+        List<String> values = entry.getValue();
+        writer.name(entry.getKey());
+        if (values.size() == 1) {
+          writer.value(values.get(0));
+        } else {
+          writer.value(values);
+        }
+      }
+      writer.endObject();
+    }
+    if (queryString != null) {
+      writer.name("query_string").value(queryString);
+    }
+    if (post != null) {
+      writer.name("post").value(post);
+    }
+    if (body != null) {
+      writer.name("body").value(body);
+    }
+    if (userIp != null) {
+      writer.name("user_ip").value(userIp);
+    }
+    writer.endObject();
+  }
+
+  // Whether the member is set by a field, which takes precedence over the metadata.
+  private boolean isSet(String name) {
+    switch (name) {
+      case "url":
+        return url != null;
+      case "method":
+        return method != null;
+      case "headers":
+        return headers != null;
+      case "params":
+        return params != null;
+      case "get":
+        return get != null;
+      case "query_string":
+        return queryString != null;
+      case "post":
+        return post != null;
+      case "body":
+        return body != null;
+      case "user_ip":
+        return userIp != null;
+      default:
+        return false;
+    }
+  }
+
   @Override
   public Request truncateStrings(int maxLength) {
     return new Builder(this)
@@ -6,8 +6,10 @@ import static java.util.Collections.max;
 import static java.util.Collections.unmodifiableMap;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -100,6 +102,47 @@ public class Server implements JsonSerializable, StringTruncatable<Server> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (metadata != null) {
+      for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+        if (!isSet(entry.getKey())) {
+          writer.name(entry.getKey()).value(entry.getValue());
+        }
+      }
+    }
+    if (host != null) {
+      writer.name("host").value(host);
+    }
+    if (root != null) {
+      writer.name("root").value(root);
+    }
+    if (branch != null) {
+      writer.name("branch").value(branch);
+    }
+    if (codeVersion != null) {
+      writer.name("code_version").value(codeVersion);
+    }
+    writer.endObject();
+  }
+
+  // Whether the member is set by a field, which takes precedence over the metadata.
+  private boolean isSet(String name) {
+    switch (name) {
+      case "host":
+        return host != null;
+      case "root":
+        return root != null;
+      case "branch":
+        return branch != null;
+      case "code_version":
+        return codeVersion != null;
+      default:
+        return false;
+    }
+  }
+
 
   @Override
   public Server truncateStrings(int maxLength) {
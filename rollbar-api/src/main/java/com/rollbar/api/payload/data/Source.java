@@ -1,6 +1,8 @@
 package com.rollbar.api.payload.data;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
+import java.io.IOException;
 
 /**
  * The Source of a payload.
@@ -27,4 +29,9 @@ public enum Source implements JsonSerializable {
   public Object asJson() {
     return jsonName;
   }
+
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.value(jsonName);
+  }
 }
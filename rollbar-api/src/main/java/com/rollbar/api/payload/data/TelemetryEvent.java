@@ -1,9 +1,11 @@
 package com.rollbar.api.payload.data;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 import com.rollbar.api.truncation.TruncationHelper;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -54,6 +56,17 @@ public class TelemetryEvent implements JsonSerializable, StringTruncatable<Telem
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name("type").value(type.asJson());
+    writer.name("level").value(level.asJson());
+    writer.name("source").value(source.asJson());
+    writer.name("timestamp_ms").value(timestamp);
+    writer.name("body").value(body);
+    writer.endObject();
+  }
+
   @Override
   public TelemetryEvent truncateStrings(int maxLength) {
     return new TelemetryEvent(
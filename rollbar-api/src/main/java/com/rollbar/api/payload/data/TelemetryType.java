@@ -1,6 +1,8 @@
 package com.rollbar.api.payload.data;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
+import java.io.IOException;
 
 /**
  * Represents the different types of {@link TelemetryEvent} available.
@@ -21,4 +23,9 @@ public enum TelemetryType implements JsonSerializable {
   public Object asJson() {
     return jsonName;
   }
+
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.value(jsonName);
+  }
 }
@@ -1,10 +1,12 @@
 package com.rollbar.api.payload.data.body;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.payload.data.TelemetryEvent;
 import com.rollbar.api.truncation.StringTruncatable;
 import com.rollbar.api.truncation.TruncationHelper;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
@@ -74,6 +76,21 @@ public class Body implements JsonSerializable, StringTruncatable<Body> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (bodyContent != null) {
+      writer.name(bodyContent.getKeyName()).value(bodyContent);
+    }
+    if (telemetryEvents != null) {
+      writer.name("telemetry").value(telemetryEvents);
+    }
+    if (rollbarThreads != null) {
+      writer.name("threads").value(rollbarThreads);
+    }
+    writer.endObject();
+  }
+
   @Override
   public Body truncateStrings(int maxSize) {
     if (bodyContent != null) {
@@ -4,8 +4,10 @@ import static com.rollbar.api.truncation.TruncationHelper.truncateStringsInList;
 import static java.util.Collections.unmodifiableList;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -58,6 +60,18 @@ public class CodeContext implements JsonSerializable, StringTruncatable<CodeCont
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (pre != null) {
+      writer.name("pre").value(pre);
+    }
+    if (post != null) {
+      writer.name("post").value(post);
+    }
+    writer.endObject();
+  }
+
   @Override
   public CodeContext truncateStrings(int maxLength) {
     return new CodeContext.Builder(this)
@@ -1,8 +1,10 @@
 package com.rollbar.api.payload.data.body;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.TruncationHelper;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -44,6 +46,15 @@ public class CrashReport implements BodyContent, JsonSerializable {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (raw != null) {
+      writer.name("raw").value(getRaw());
+    }
+    writer.endObject();
+  }
+
   @Override
   public CrashReport truncateStrings(int maxLength) {
     return new CrashReport.Builder(this)
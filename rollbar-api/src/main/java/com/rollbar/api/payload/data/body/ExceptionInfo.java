@@ -3,8 +3,10 @@ package com.rollbar.api.payload.data.body;
 import static com.rollbar.api.truncation.TruncationHelper.truncateString;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -69,6 +71,21 @@ public class ExceptionInfo implements JsonSerializable, StringTruncatable<Except
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (className != null) {
+      writer.name("class").value(className);
+    }
+    if (message != null) {
+      writer.name("message").value(message);
+    }
+    if (description != null) {
+      writer.name("description").value(description);
+    }
+    writer.endObject();
+  }
+
   @Override
   public ExceptionInfo truncateStrings(int maxLength) {
     if (className == null && message == null && description == null) {
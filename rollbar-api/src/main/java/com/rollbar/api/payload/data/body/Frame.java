@@ -8,8 +8,10 @@ import static java.util.Collections.unmodifiableList;
 import static java.util.Collections.unmodifiableMap;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -175,6 +177,41 @@ public class Frame implements JsonSerializable, StringTruncatable<Frame> {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name("filename").value(filename != null ? filename : "[unknown]");
+    if (lineNumber != null) {
+      writer.name("lineno").value(lineNumber);
+    }
+    if (columnNumber != null) {
+      writer.name("colno").value(columnNumber);
+    }
+    if (method != null) {
+      writer.name("method").value(method);
+    }
+    if (code != null) {
+      writer.name("code").value(code);
+    }
+    if (className != null) {
+      writer.name("class_name").value(className);
+    }
+    if (context != null) {
+      writer.name("context");
+      context.writeJson(writer);
+    }
+    if (args != null) {
+      writer.name("args").value(args);
+    }
+    if (keywordArgs != null) {
+      writer.name("kwargs").value(keywordArgs);
+    }
+    if (locals != null) {
+      writer.name("locals").value(locals);
+    }
+    writer.endObject();
+  }
+
   @Override
   public Frame truncateStrings(int maxLength) {
     return new Frame.Builder(this)
@@ -1,8 +1,10 @@
 package com.rollbar.api.payload.data.body;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Objects;
@@ -37,6 +39,15 @@ public class Group implements JsonSerializable, StringTruncatable<Group> {
     return traceChains;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginArray();
+    writer.beginObject();
+    writer.name("trace_chain").value(traceChain);
+    writer.endObject();
+    writer.endArray();
+  }
+
   @Override
   public Group truncateStrings(int maxLength) {
     return new Group(traceChain.truncateStrings(maxLength));
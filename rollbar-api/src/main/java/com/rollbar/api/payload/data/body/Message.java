@@ -3,8 +3,10 @@ package com.rollbar.api.payload.data.body;
 import static java.util.Collections.unmodifiableMap;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.TruncationHelper;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -55,6 +57,21 @@ public class Message implements BodyContent, JsonSerializable {
     return message;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (this.metadata != null) {
+      for (Map.Entry<String, Object> entry : this.metadata.entrySet()) {
+        // The body takes precedence over the metadata.
+        if (!"body".equals(entry.getKey())) {
+          writer.name(entry.getKey()).value(entry.getValue());
+        }
+      }
+    }
+    writer.name("body").value(this.body);
+    writer.endObject();
+  }
+
   @Override
   public Message truncateStrings(int maxLength) {
     if (this.metadata == null && this.body == null) {
@@ -1,8 +1,10 @@
 package com.rollbar.api.payload.data.body;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -125,6 +127,18 @@ public class RollbarThread implements JsonSerializable, StringTruncatable<Rollba
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name("name").value(name);
+    writer.name("id").value(id);
+    writer.name("priority").value(priority);
+    writer.name("state").value(state);
+    writer.name("is_main").value(isMain);
+    writer.name("group").value(group);
+    writer.endObject();
+  }
+
   @Override
   public RollbarThread truncateStrings(int maxLength) {
     return new RollbarThread(
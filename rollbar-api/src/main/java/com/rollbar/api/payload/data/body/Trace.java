@@ -3,8 +3,10 @@ package com.rollbar.api.payload.data.body;
 import static java.util.Collections.unmodifiableList;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
 import com.rollbar.api.truncation.StringTruncatable;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -61,6 +63,19 @@ public class Trace implements BodyContent, JsonSerializable {
     return values;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    if (frames != null) {
+      writer.name("frames").value(frames);
+    }
+    if (exception != null) {
+      writer.name("exception");
+      exception.writeJson(writer);
+    }
+    writer.endObject();
+  }
+
   @Override
   public Trace truncateStrings(int maxLength) {
     if ((frames == null || frames.isEmpty()) && exception == null) {
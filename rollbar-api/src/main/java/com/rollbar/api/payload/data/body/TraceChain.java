@@ -3,6 +3,8 @@ package com.rollbar.api.payload.data.body;
 import static java.util.Collections.unmodifiableList;
 
 import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,6 +40,11 @@ public class TraceChain implements BodyContent, JsonSerializable {
     return traces;
   }
 
+  @Override
+  public void writeJson(JsonWriter writer) throws IOException {
+    writer.value(traces);
+  }
+
   @Override
   public TraceChain truncateStrings(int maxLength) {
     if (traces == null || traces.isEmpty()) {
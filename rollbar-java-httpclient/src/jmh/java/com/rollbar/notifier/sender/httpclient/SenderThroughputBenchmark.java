@@ -0,0 +1,165 @@
+package com.rollbar.notifier.sender.httpclient;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Notifier;
+import com.rollbar.api.payload.data.body.Body;
+import com.rollbar.api.payload.data.body.ExceptionInfo;
+import com.rollbar.api.payload.data.body.Frame;
+import com.rollbar.api.payload.data.body.Trace;
+import com.rollbar.notifier.sender.AbstractSender;
+import com.rollbar.notifier.sender.SyncSender;
+import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.result.Response;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the {@link SyncSender} and the {@link HttpClientSender} sending a
+ * payload with a 50 frames trace, from several threads, to a local server answering as the
+ * Rollbar API does. The local server only speaks HTTP/1.1, so it measures the cost of the
+ * connections and the requests and not the multiplexing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SenderThroughputBenchmark {
+
+  private static final byte[] RESPONSE =
+      "{\"err\": 0, \"result\": {\"uuid\": \"1234\"}}".getBytes(StandardCharsets.UTF_8);
+
+  private HttpServer server;
+
+  private ExecutorService serverExecutor;
+
+  private SyncSender syncSender;
+
+  private HttpClientSender httpClientSender;
+
+  private HttpClientSender compressingHttpClientSender;
+
+  private Payload payload;
+
+  @Setup
+  public void setUp() throws IOException {
+    serverExecutor = Executors.newFixedThreadPool(8);
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+    server.setExecutor(serverExecutor);
+    server.createContext("/api/1/item/", exchange -> {
+      try (InputStream in = exchange.getRequestBody()) {
+        in.transferTo(OutputStream.nullOutputStream());
+      }
+      exchange.sendResponseHeaders(200, RESPONSE.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(RESPONSE);
+      }
+    });
+    server.start();
+    String url = "http://localhost:" + server.getAddress().getPort() + "/api/1/item/";
+
+    syncSender = failOnError(new SyncSender.Builder(url).accessToken("access_token").build());
+    httpClientSender = failOnError(new HttpClientSender.Builder(url)
+        .accessToken("access_token")
+        .version(HttpClient.Version.HTTP_1_1)
+        .build());
+    compressingHttpClientSender = failOnError(new HttpClientSender.Builder(url)
+        .accessToken("access_token")
+        .version(HttpClient.Version.HTTP_1_1)
+        .compress(true)
+        .build());
+
+    List<Frame> frames = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      frames.add(new Frame.Builder()
+          .filename("SenderThroughputBenchmark.java")
+          .lineNumber(i)
+          .method("method" + i)
+          .className("com.rollbar.notifier.sender.httpclient.SenderThroughputBenchmark")
+          .build());
+    }
+    payload = new Payload.Builder()
+        .accessToken("access_token")
+        .data(new Data.Builder()
+            .environment("production")
+            .level(Level.ERROR)
+            .platform("java")
+            .language("java")
+            .body(new Body.Builder()
+                .bodyContent(new Trace.Builder()
+                    .frames(frames)
+                    .exception(new ExceptionInfo.Builder()
+                        .className("java.lang.IllegalStateException")
+                        .message("Benchmark")
+                        .build())
+                    .build())
+                .build())
+            .notifier(new Notifier.Builder().name("rollbar-java").version("1.0.0").build())
+            .build())
+        .build();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    httpClientSender.close();
+    compressingHttpClientSender.close();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public void syncSender() {
+    syncSender.send(payload);
+  }
+
+  @Benchmark
+  public void httpClientSender() {
+    httpClientSender.send(payload);
+  }
+
+  @Benchmark
+  public void compressingHttpClientSender() {
+    compressingHttpClientSender.send(payload);
+  }
+
+  private static <T extends AbstractSender> T failOnError(T sender) {
+    sender.addListener(new SenderListener() {
+      @Override
+      public void onResponse(Payload payload, Response response) {
+      }
+
+      @Override
+      public void onError(Payload payload, Exception error) {
+        throw new IllegalStateException("The benchmark request failed", error);
+      }
+    });
+    return sender;
+  }
+}
@@ -0,0 +1,318 @@
+package com.rollbar.notifier.sender.httpclient;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.AbstractSender;
+import com.rollbar.notifier.sender.RequestBody;
+import com.rollbar.notifier.sender.SyncSender;
+import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
+import com.rollbar.notifier.sender.result.Response;
+import com.rollbar.notifier.sender.result.Result;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Synchronous implementation of the {@link com.rollbar.notifier.sender.Sender sender} built on
+ * the {@link HttpClient java.net.http client}, which keeps persistent connections to the Rollbar
+ * API and multiplexes concurrent requests over HTTP/2 when the server supports it.
+ *
+ * <p>The request with the headers common to every payload is built once, and copied for each
+ * payload.</p>
+ */
+public class HttpClientSender extends AbstractSender {
+
+  private final HttpClient httpClient;
+
+  private final boolean ownsHttpClient;
+
+  private final HttpRequest.Builder requestTemplate;
+
+  private final JsonSerializer jsonSerializer;
+
+  private final int compressionThreshold;
+
+  HttpClientSender(Builder builder) {
+    if (builder.httpClient != null) {
+      this.httpClient = builder.httpClient;
+      this.ownsHttpClient = false;
+    } else {
+      HttpClient.Builder client = HttpClient.newBuilder()
+          .version(builder.version)
+          .connectTimeout(builder.connectTimeout);
+      if (builder.executor != null) {
+        client.executor(builder.executor);
+      }
+      if (builder.proxySelector != null) {
+        client.proxy(builder.proxySelector);
+      }
+      this.httpClient = client.build();
+      this.ownsHttpClient = true;
+    }
+
+    HttpRequest.Builder template = HttpRequest.newBuilder(builder.uri)
+        .timeout(builder.requestTimeout)
+        .header("Accept-Charset", SyncSender.UTF_8)
+        .header("Content-Type", "application/json; charset=" + SyncSender.UTF_8)
+        .header("Accept", "application/json");
+    if (builder.accessToken != null && !"".equals(builder.accessToken)) {
+      template.header("x-rollbar-access-token", builder.accessToken);
+    }
+    this.requestTemplate = template;
+
+    this.jsonSerializer = builder.jsonSerializer;
+    this.compressionThreshold = builder.compress
+        ? builder.compressionThreshold : RequestBody.NEVER_COMPRESS;
+  }
+
+  @Override
+  protected Response doSend(Payload payload) throws Exception {
+    HttpRequest.Builder request = requestTemplate.copy();
+
+    RequestBody body = RequestBody.acquire(compressionThreshold);
+    int bodySize;
+    try {
+      jsonSerializer.writeJson(payload, body);
+      body.finish();
+      bodySize = body.size();
+      if (body.isCompressed()) {
+        request.header("Content-Encoding", "gzip");
+      }
+      // The client may publish the body again, to follow a redirect, so it gets its own copy.
+      request.POST(BodyPublishers.ofByteArray(body.toByteArray()));
+    } finally {
+      body.release();
+    }
+
+    HttpResponse<String> response =
+        httpClient.send(request.build(), BodyHandlers.ofString(StandardCharsets.UTF_8));
+    Result result = jsonSerializer.resultFrom(response.body());
+    return new Response.Builder()
+        .status(response.statusCode())
+        .result(result)
+        .headers(response.headers().map())
+        .bodySize(bodySize)
+        .build();
+  }
+
+  @Override
+  public void close() throws IOException {
+    // The client only releases its connections and threads explicitly from Java 21.
+    if (ownsHttpClient && httpClient instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) httpClient).close();
+      } catch (IOException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  /**
+   * Builder class for {@link HttpClientSender}.
+   */
+  public static final class Builder {
+
+    private URI uri;
+
+    private JsonSerializer jsonSerializer;
+
+    private String accessToken;
+
+    private HttpClient httpClient;
+
+    private HttpClient.Version version;
+
+    private Executor executor;
+
+    private ProxySelector proxySelector;
+
+    private Duration connectTimeout;
+
+    private Duration requestTimeout;
+
+    private boolean compress;
+
+    private int compressionThreshold;
+
+    public Builder() {
+      this(SyncSender.DEFAULT_API_ENDPOINT);
+    }
+
+    /**
+     * Constructor.
+     * @param url the url.
+     */
+    public Builder(String url) {
+      this.uri = parseUri(url);
+      this.jsonSerializer = new JsonSerializerImpl();
+      this.version = HttpClient.Version.HTTP_2;
+      this.connectTimeout = Duration.ofSeconds(10);
+      this.requestTimeout = Duration.ofSeconds(30);
+      this.compress = false;
+      this.compressionThreshold = SyncSender.DEFAULT_COMPRESSION_THRESHOLD;
+    }
+
+    /**
+     * The url as string.
+     * @param url the url
+     * @return the builder instance.
+     */
+    public Builder url(String url) {
+      this.uri = parseUri(url);
+      return this;
+    }
+
+    /**
+     * The url as {@link URI}.
+     * @param uri the uri
+     * @return the builder instance.
+     */
+    public Builder uri(URI uri) {
+      this.uri = uri;
+      return this;
+    }
+
+    /**
+     * The {@link JsonSerializer json serializer}.
+     * @param jsonSerializer the json serializer.
+     * @return the builder instance.
+     */
+    public Builder jsonSerializer(JsonSerializer jsonSerializer) {
+      this.jsonSerializer = jsonSerializer;
+      return this;
+    }
+
+    /**
+     * The rollbar access token.
+     * @param accessToken the access token.
+     * @return the builder instance.
+     */
+    public Builder accessToken(String accessToken) {
+      this.accessToken = accessToken;
+      return this;
+    }
+
+    /**
+     * The {@link HttpClient client} to send the requests with, shared with the application. The
+     * sender does not close it, and the version, executor, proxy and connect timeout of this
+     * builder are ignored.
+     * @param httpClient the client.
+     * @return the builder instance.
+     */
+    public Builder httpClient(HttpClient httpClient) {
+      this.httpClient = httpClient;
+      return this;
+    }
+
+    /**
+     * The preferred HTTP version. Default: HTTP/2, which falls back to HTTP/1.1 if the server
+     * does not support it.
+     * @param version the version.
+     * @return the builder instance.
+     */
+    public Builder version(HttpClient.Version version) {
+      this.version = version;
+      return this;
+    }
+
+    /**
+     * The {@link Executor executor} the client runs its asynchronous tasks on. Default: the
+     * client creates its own.
+     * @param executor the executor.
+     * @return the builder instance.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * The {@link ProxySelector proxy selector}. Default: no proxy.
+     * @param proxySelector the proxy selector.
+     * @return the builder instance.
+     */
+    public Builder proxySelector(ProxySelector proxySelector) {
+      this.proxySelector = proxySelector;
+      return this;
+    }
+
+    /**
+     * The timeout to establish a connection. Default: 10 seconds.
+     * @param connectTimeout the timeout.
+     * @return the builder instance.
+     */
+    public Builder connectTimeout(Duration connectTimeout) {
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    /**
+     * The timeout to receive the response to a request. Default: 30 seconds.
+     * @param requestTimeout the timeout.
+     * @return the builder instance.
+     */
+    public Builder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    /**
+     * Whether to compress the request bodies larger than the
+     * {@link #compressionThreshold(int) threshold} with gzip. Default: false.
+     * @param compress true to compress the request bodies.
+     * @return the builder instance.
+     */
+    public Builder compress(boolean compress) {
+      this.compress = compress;
+      return this;
+    }
+
+    /**
+     * The size, in bytes, past which the request body is compressed when
+     * {@link #compress(boolean) compression} is enabled. Default:
+     * {@link SyncSender#DEFAULT_COMPRESSION_THRESHOLD}.
+     * @param compressionThreshold the threshold in bytes.
+     * @return the builder instance.
+     */
+    public Builder compressionThreshold(int compressionThreshold) {
+      this.compressionThreshold = compressionThreshold;
+      return this;
+    }
+
+    /**
+     * Builds the {@link HttpClientSender sender}.
+     *
+     * @return the sender.
+     */
+    public HttpClientSender build() {
+      if (uri == null || jsonSerializer == null) {
+        throw new IllegalArgumentException("The url and the json serializer can not be null");
+      }
+      if (version == null || connectTimeout == null || requestTimeout == null) {
+        throw new IllegalArgumentException("The version and the timeouts can not be null");
+      }
+      if (compressionThreshold < 0) {
+        throw new IllegalArgumentException("The compression threshold can not be negative");
+      }
+      return new HttpClientSender(this);
+    }
+
+    private static URI parseUri(String url) {
+      try {
+        return URI.create(url);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("The url provided is not valid: " + url, e);
+      }
+    }
+  }
+}
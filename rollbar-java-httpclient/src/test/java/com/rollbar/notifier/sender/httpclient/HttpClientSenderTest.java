@@ -0,0 +1,166 @@
+package com.rollbar.notifier.sender.httpclient;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.sender.exception.SenderException;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
+import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.result.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class HttpClientSenderTest {
+
+  private static final String ACCESS_TOKEN = "access_token";
+
+  private HttpServer server;
+
+  private String url;
+
+  private final AtomicReference<HttpExchange> exchange = new AtomicReference<>();
+
+  private final AtomicReference<byte[]> requestBody = new AtomicReference<>();
+
+  private volatile int status = 200;
+
+  private volatile String responseBody = "{\"err\": 0, \"result\": {\"uuid\": \"1234\"}}";
+
+  private final SenderListener listener = mock(SenderListener.class);
+
+  private HttpClientSender sut;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/api/1/item/", httpExchange -> {
+      exchange.set(httpExchange);
+      requestBody.set(readAll(httpExchange.getRequestBody()));
+      byte[] response = responseBody.getBytes(StandardCharsets.UTF_8);
+      httpExchange.sendResponseHeaders(status, response.length);
+      try (OutputStream out = httpExchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    server.start();
+    url = "http://localhost:" + server.getAddress().getPort() + "/api/1/item/";
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (sut != null) {
+      sut.close();
+    }
+    server.stop(0);
+  }
+
+  @Test
+  public void shouldSendThePayloadWithTheHeaders() {
+    sut = new HttpClientSender.Builder(url)
+        .accessToken(ACCESS_TOKEN)
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+    sut.addListener(listener);
+
+    Payload payload = createPayload();
+    sut.send(payload);
+
+    ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+    verify(listener).onResponse(eq(payload), response.capture());
+    assertThat(response.getValue().getStatus(), is(200));
+    assertThat(response.getValue().getResult().getContent(), is("1234"));
+
+    HttpExchange request = exchange.get();
+    assertThat(request.getRequestMethod(), is("POST"));
+    assertThat(request.getRequestHeaders().getFirst("x-rollbar-access-token"), is(ACCESS_TOKEN));
+    assertThat(request.getRequestHeaders().getFirst("Content-Type"),
+        is("application/json; charset=UTF-8"));
+    assertThat(request.getRequestHeaders().getFirst("Content-Encoding"), nullValue());
+    assertThat(new String(requestBody.get(), StandardCharsets.UTF_8),
+        is(new JsonSerializerImpl().toJson(payload)));
+  }
+
+  @Test
+  public void shouldCompressThePayloadLargerThanTheThreshold() throws IOException {
+    sut = new HttpClientSender.Builder(url)
+        .accessToken(ACCESS_TOKEN)
+        .compress(true)
+        .compressionThreshold(0)
+        .build();
+    sut.addListener(listener);
+
+    Payload payload = createPayload();
+    sut.send(payload);
+
+    verify(listener).onResponse(eq(payload), any(Response.class));
+    assertThat(exchange.get().getRequestHeaders().getFirst("Content-Encoding"), is("gzip"));
+    byte[] json = readAll(new GZIPInputStream(new ByteArrayInputStream(requestBody.get())));
+    assertThat(new String(json, StandardCharsets.UTF_8),
+        is(new JsonSerializerImpl().toJson(payload)));
+  }
+
+  @Test
+  public void shouldNotifyTheApiErrors() {
+    status = 403;
+    responseBody = "{\"err\": 1, \"message\": \"invalid access token\"}";
+    sut = new HttpClientSender.Builder(url).accessToken(ACCESS_TOKEN).build();
+    sut.addListener(listener);
+
+    Payload payload = createPayload();
+    sut.send(payload);
+
+    ArgumentCaptor<Exception> error = ArgumentCaptor.forClass(Exception.class);
+    verify(listener).onError(eq(payload), error.capture());
+    assertThat(error.getValue(), instanceOf(SenderException.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANegativeCompressionThreshold() {
+    new HttpClientSender.Builder().compressionThreshold(-1).build();
+  }
+
+  private static Payload createPayload() {
+    return new Payload.Builder()
+        .accessToken(ACCESS_TOKEN)
+        .data(new Data.Builder()
+            .environment("test")
+            .level(Level.ERROR)
+            .platform("java")
+            .language("java")
+            .build())
+        .build();
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
@@ -3,6 +3,7 @@ import org.gradle.api.tasks.testing.Test
 
 plugins {
     id("com.netflix.nebula.integtest") version "10.0.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 val integTestArtifacts by configurations.creating
@@ -24,6 +25,12 @@ dependencies {
     "integTestImplementation"("com.google.code.gson:gson:2.13.2")
 }
 
+jmh {
+    jmhVersion.set("1.37")
+    // Allocation figures are as important as timings for the occurrence hot path.
+    profilers.add("gc")
+}
+
 val versionName = project.version.toString().ifEmpty { "unspecified" }
 
 /**
@@ -70,6 +77,10 @@ tasks.named("compileJava") {
     dependsOn(createVersionClass)
 }
 
+tasks.named("compileJmhJava") {
+    dependsOn(createVersionClass)
+}
+
 tasks.named("checkstyleMain") {
     dependsOn(createVersionClass)
 }
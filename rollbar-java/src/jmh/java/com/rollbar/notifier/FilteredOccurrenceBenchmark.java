@@ -0,0 +1,115 @@
+package com.rollbar.notifier;
+
+import static com.rollbar.notifier.config.ConfigBuilder.withAccessToken;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.filter.Filter;
+import com.rollbar.notifier.sender.Sender;
+import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of reporting an error that is dropped by the pre-filter, compared to the cost
+ * of capturing the error as if it were going to be sent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilteredOccurrenceBenchmark {
+
+  private Rollbar filtered;
+
+  private Rollbar disabled;
+
+  private Throwable error;
+
+  @Setup
+  public void setUp() {
+    filtered = new Rollbar(withAccessToken("access_token")
+        .handleUncaughtErrors(false)
+        .filter(new DropAllFilter())
+        .sender(new NoopSender())
+        .build());
+
+    disabled = new Rollbar(withAccessToken("access_token")
+        .handleUncaughtErrors(false)
+        .enabled(false)
+        .sender(new NoopSender())
+        .build());
+
+    error = new IllegalStateException("Filtered", new RuntimeException("Cause"));
+  }
+
+  @Benchmark
+  public void filteredError() {
+    filtered.error(error);
+  }
+
+  @Benchmark
+  public void disabledError() {
+    disabled.error(error);
+  }
+
+  /**
+   * The capture work a filtered occurrence used to pay before the pre-filter ran.
+   */
+  @Benchmark
+  public RollbarThrowableWrapper eagerCapture() {
+    return new RollbarThrowableWrapper(error);
+  }
+
+  private static final class DropAllFilter implements Filter {
+    @Override
+    public boolean preProcess(Level level, Throwable error, Map<String, Object> custom,
+        String description) {
+      return true;
+    }
+
+    @Override
+    public boolean postProcess(Data data) {
+      return true;
+    }
+  }
+
+  private static final class NoopSender implements Sender {
+    @Override
+    public void send(Payload payload) {
+    }
+
+    @Override
+    public void addListener(SenderListener listener) {
+    }
+
+    @Override
+    public List<SenderListener> getListeners() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public void close(boolean wait) {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.rollbar.notifier.sender.json;
+
+import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Notifier;
+import com.rollbar.api.payload.data.Server;
+import com.rollbar.api.payload.data.body.Body;
+import com.rollbar.api.payload.data.body.ExceptionInfo;
+import com.rollbar.api.payload.data.body.Frame;
+import com.rollbar.api.payload.data.body.Trace;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost, and with the gc profiler the allocation, of serializing a payload with a
+ * 200 frames trace. {@link #asJsonTree(Blackhole)} builds the map representation the serializer
+ * used to walk before the payloads wrote themselves to the {@link com.rollbar.api.json.JsonWriter
+ * json writer}, so its allocation is what every serialization paid on top of the json itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializerBenchmark {
+
+  private static final int FRAMES = 200;
+
+  private static final OutputStream DISCARD = new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  };
+
+  private JsonSerializerImpl serializer;
+
+  private Payload payload;
+
+  @Setup
+  public void setUp() {
+    serializer = new JsonSerializerImpl();
+
+    List<Frame> frames = new ArrayList<>(FRAMES);
+    for (int i = 0; i < FRAMES; i++) {
+      frames.add(new Frame.Builder()
+          .filename("JsonSerializerBenchmark.java")
+          .lineNumber(i)
+          .method("method" + i)
+          .className("com.rollbar.notifier.sender.json.JsonSerializerBenchmark")
+          .build());
+    }
+    Trace trace = new Trace.Builder()
+        .frames(frames)
+        .exception(new ExceptionInfo.Builder()
+            .className("java.lang.IllegalStateException")
+            .message("Benchmark")
+            .build())
+        .build();
+
+    Map<String, Object> custom = new HashMap<>();
+    custom.put("tenant", "benchmark");
+    custom.put("attempt", 3);
+
+    payload = new Payload.Builder()
+        .accessToken("access_token")
+        .data(new Data.Builder()
+            .environment("production")
+            .level(Level.ERROR)
+            .timestamp(System.currentTimeMillis())
+            .platform("java")
+            .language("java")
+            .body(new Body.Builder().bodyContent(trace).build())
+            .server(new Server.Builder().host("localhost").build())
+            .notifier(new Notifier.Builder().name("rollbar-java").version("1.0.0").build())
+            .custom(custom)
+            .build())
+        .build();
+  }
+
+  @Benchmark
+  public long writeJson() throws IOException {
+    return serializer.writeJson(payload, DISCARD);
+  }
+
+  @Benchmark
+  public String toJson() {
+    return serializer.toJson(payload);
+  }
+
+  @Benchmark
+  public void asJsonTree(Blackhole blackhole) {
+    walk(payload, blackhole);
+  }
+
+  private static void walk(Object value, Blackhole blackhole) {
+    if (value instanceof JsonSerializable) {
+      walk(((JsonSerializable) value).asJson(), blackhole);
+    } else if (value instanceof Map) {
+      for (Object element : ((Map<?, ?>) value).values()) {
+        walk(element, blackhole);
+      }
+    } else if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        walk(element, blackhole);
+      }
+    } else {
+      blackhole.consume(value);
+    }
+  }
+}
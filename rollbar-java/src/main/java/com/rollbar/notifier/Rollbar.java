@@ -2,9 +2,13 @@ package com.rollbar.notifier;
 
 import com.rollbar.api.payload.Payload;
 import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.assembly.AsyncAssemblyPolicy;
+import com.rollbar.notifier.assembly.PayloadAssembler;
 import com.rollbar.notifier.config.Config;
 import com.rollbar.notifier.config.ConfigBuilder;
+import com.rollbar.notifier.config.ConfigChangeListener;
 import com.rollbar.notifier.config.ConfigProvider;
+import com.rollbar.notifier.sender.result.FlushResult;
 import com.rollbar.notifier.uncaughtexception.RollbarUncaughtExceptionHandler;
 import com.rollbar.notifier.util.BodyFactory;
 import com.rollbar.notifier.util.ObjectsUtils;
@@ -12,6 +16,7 @@ import com.rollbar.notifier.wrapper.ThrowableWrapper;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +31,8 @@ public class Rollbar extends RollbarBase<Void, Config> {
 
   private static volatile Rollbar notifier;
 
+  private volatile PayloadAssembler payloadAssembler;
+
   /**
    * Constructor.
    *
@@ -37,6 +44,13 @@ public class Rollbar extends RollbarBase<Void, Config> {
 
   Rollbar(Config config, BodyFactory bodyFactory) {
     super(config, bodyFactory, VOID);
+    configureAssembly(config);
+    addConfigChangeListener(new ConfigChangeListener<Config>() {
+      @Override
+      public void onConfigChange(Config previous, Config current) {
+        configureAssembly(current);
+      }
+    });
 
     if (config.handleUncaughtErrors()) {
       this.handleUncaughtErrors();
@@ -88,20 +102,11 @@ public class Rollbar extends RollbarBase<Void, Config> {
    * Replace the configuration of this instance.
    * This {@link ConfigBuilder} passed to configProvider is
    * preconfigured with the values of the current configuration.
-   * This method potentially blocks to acquire a locks when
-   * safely work with the configuration.
    *
    * @param configProvider the provider of a new configuration
    */
   public void configure(ConfigProvider configProvider) {
-    ConfigBuilder builder;
-
-    this.configReadLock.lock();
-    try {
-      builder = ConfigBuilder.withConfig(this.config);
-    } finally {
-      this.configReadLock.unlock();
-    }
+    ConfigBuilder builder = ConfigBuilder.withConfig(this.config);
 
     Config newConfig = configProvider.provide(builder);
 
@@ -117,6 +122,19 @@ public class Rollbar extends RollbarBase<Void, Config> {
     super.configure(config);
   }
 
+  private void configureAssembly(Config config) {
+    AsyncAssemblyPolicy policy = config.asyncAssemblyPolicy();
+    PayloadAssembler current = this.payloadAssembler;
+    if (current != null && current.getPolicy() == policy) {
+      return;
+    }
+
+    this.payloadAssembler = policy != null ? new PayloadAssembler(policy) : null;
+    if (current != null) {
+      current.close();
+    }
+  }
+
   /**
    * Get the level of the error or message. The Config passed in contains the defaults
    * to use for the cases of an Error, Throwable, or a Message. The default in the Config
@@ -584,7 +602,7 @@ public class Rollbar extends RollbarBase<Void, Config> {
    */
   public void log(Throwable error, Map<String, Object> custom, String description, Level level,
       boolean isUncaught) {
-    this.log(wrapThrowable(error), custom, description, level, isUncaught);
+    this.log(error, null, custom, description, level, isUncaught);
   }
 
   /**
@@ -609,7 +627,11 @@ public class Rollbar extends RollbarBase<Void, Config> {
       Level level,
       boolean isUncaught
   ) {
-    this.log(wrapThrowable(error, thread), custom, description, level, isUncaught);
+    try {
+      process(error, thread, custom, description, level, isUncaught);
+    } catch (Exception e) {
+      LOGGER.error("Error while processing payload to send to Rollbar: {}", e);
+    }
   }
 
   /**
@@ -652,9 +674,37 @@ public class Rollbar extends RollbarBase<Void, Config> {
   }
 
   public void close(boolean wait) throws Exception {
+    closeBackgroundWork();
+    PayloadAssembler assembler = this.payloadAssembler;
+    if (assembler != null) {
+      assembler.close(wait);
+    }
     this.config.sender().close(wait);
   }
 
+  /**
+   * Sends the payloads buffered by the {@link Config#sender() sender} without closing it, waiting
+   * up to the timeout, e.g. to shut down gracefully within a grace period. The pending coalesced
+   * occurrences are reported, and the payloads being assembled are waited for, within the same
+   * timeout before, so they are sent too.
+   *
+   * @param timeout the maximum time to wait.
+   * @param unit the unit of the timeout.
+   * @return the payloads sent, failed and left.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public FlushResult flush(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    if (!flushBackgroundWork(timeout, unit)) {
+      LOGGER.warn("Timed out waiting for the coalesced occurrences to be reported.");
+    }
+    PayloadAssembler assembler = this.payloadAssembler;
+    if (assembler != null && !assembler.awaitIdle(remaining(deadline), TimeUnit.NANOSECONDS)) {
+      LOGGER.warn("Timed out waiting for the pending payloads to be assembled.");
+    }
+    return this.config.sender().flush(remaining(deadline), TimeUnit.NANOSECONDS);
+  }
+
   /**
    * Send JSON payload.
    *
@@ -662,16 +712,21 @@ public class Rollbar extends RollbarBase<Void, Config> {
    */
   public void sendJsonPayload(String json) {
     try {
-      this.configReadLock.lock();
-      Config config = this.config;
-      this.configReadLock.unlock();
-
-      sendPayload(config, new Payload(json));
+      sendPayload(this.config, new Payload(json));
     } catch (Exception e) {
       LOGGER.error("Error while sending payload to Rollbar: {}", e);
     }
   }
 
+  private static long remaining(long deadline) {
+    return Math.max(0L, deadline - System.nanoTime());
+  }
+
+  @Override
+  protected PayloadAssembler payloadAssembler() {
+    return payloadAssembler;
+  }
+
   @Override
   protected Void sendPayload(Config config, Payload payload) {
     if (config.sender() != null) {
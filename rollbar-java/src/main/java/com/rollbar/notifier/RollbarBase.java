@@ -4,22 +4,33 @@ import com.rollbar.api.annotations.Unstable;
 import com.rollbar.api.payload.Payload;
 import com.rollbar.api.payload.data.Data;
 import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Person;
+import com.rollbar.api.payload.data.Request;
 import com.rollbar.api.payload.data.Source;
 import com.rollbar.api.payload.data.TelemetryEvent;
 import com.rollbar.api.payload.data.TelemetryType;
 import com.rollbar.api.payload.data.body.Body;
 import com.rollbar.jvmti.ThrowableCache;
+import com.rollbar.notifier.assembly.PayloadAssembler;
+import com.rollbar.notifier.coalescing.CoalescingPolicy;
+import com.rollbar.notifier.coalescing.OccurrenceCoalescer;
 import com.rollbar.notifier.config.CommonConfig;
+import com.rollbar.notifier.config.ConfigChangeListener;
 import com.rollbar.notifier.telemetry.TelemetryEventTracker;
 import com.rollbar.notifier.truncation.PayloadTruncator;
+import com.rollbar.notifier.truncation.TruncationPolicy;
 import com.rollbar.notifier.util.BodyFactory;
 import com.rollbar.notifier.util.ObjectsUtils;
 import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy;
+import com.rollbar.notifier.wrapper.ThreadStackTraceCapture;
 import com.rollbar.notifier.wrapper.ThrowableWrapper;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -36,25 +47,49 @@ import org.slf4j.LoggerFactory;
 public abstract class RollbarBase<RESULT, C extends CommonConfig> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RollbarBase.class);
-  private static final int MAX_PAYLOAD_SIZE_BYTES = 512 * 1024; // 512kb
-
   protected BodyFactory bodyFactory;
-  protected PayloadTruncator payloadTruncator;
+  protected volatile PayloadTruncator payloadTruncator;
+  private volatile ThreadStackTraceCapture threadStackTraceCapture;
+  private volatile OccurrenceCoalescer occurrenceCoalescer;
 
-  protected C config;
+  protected volatile C config;
 
+  /**
+   * Lock that used to guard the configuration.
+   *
+   * @deprecated the configuration is now read without locking from an immutable snapshot, and
+   *     replaced as a whole by {@link #configure}.
+   */
+  @Deprecated
   protected final ReadWriteLock configReadWriteLock = new ReentrantReadWriteLock();
+  /**
+   * Read lock of the configuration.
+   *
+   * @deprecated see {@link #configReadWriteLock}.
+   */
+  @Deprecated
   protected final Lock configReadLock = configReadWriteLock.readLock();
+  /**
+   * Write lock of the configuration.
+   *
+   * @deprecated see {@link #configReadWriteLock}.
+   */
+  @Deprecated
   protected final Lock configWriteLock = configReadWriteLock.writeLock();
+  private final Object configureLock = new Object();
+  private final List<ConfigChangeListener<? super C>> configChangeListeners =
+      new CopyOnWriteArrayList<>();
+  private volatile ConfigSnapshot<C> snapshot;
   private final RESULT emptyResult;
   private final TelemetryEventTracker telemetryEventTracker;
 
   protected RollbarBase(C config, BodyFactory bodyFactory, RESULT emptyResult) {
-    this.config = config;
-    configureTruncation(config);
+    publish(new ConfigSnapshot<>(config, 1, truncator(config)));
+    configureThreadCapture(config);
     this.bodyFactory = bodyFactory;
     this.emptyResult = emptyResult;
     this.telemetryEventTracker = config.telemetryEventTracker();
+    configureCoalescing(config);
   }
 
   /**
@@ -112,29 +147,103 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
   }
 
   /**
-   * Replace the configuration of this instance directly.
+   * Get the version of the current configuration, which starts at 1 and increases every time the
+   * configuration is replaced.
+   *
+   * @return the configuration version.
+   */
+  public long getConfigVersion() {
+    return snapshot.version;
+  }
+
+  /**
+   * Adds a listener notified every time the configuration is replaced, so objects derived from
+   * it can be rebuilt once per change instead of checking the configuration on every occurrence.
+   *
+   * @param listener the listener.
+   */
+  public void addConfigChangeListener(ConfigChangeListener<? super C> listener) {
+    ObjectsUtils.requireNonNull(listener, "The listener can not be null");
+    configChangeListeners.add(listener);
+  }
+
+  /**
+   * Removes a config change listener.
+   *
+   * @param listener the listener.
+   */
+  public void removeConfigChangeListener(ConfigChangeListener<? super C> listener) {
+    configChangeListeners.remove(listener);
+  }
+
+  /**
+   * Replace the configuration of this instance directly. Occurrences being processed keep the
+   * configuration they started with, and the new one applies to the following ones.
    *
    * @param config the new configuration.
    */
   protected void configure(C config) {
     LOGGER.debug("Reloading configuration.");
-    this.configWriteLock.lock();
-    try {
-      this.config = config;
-      configureTruncation(config);
+    synchronized (configureLock) {
+      ConfigSnapshot<C> previous = this.snapshot;
+      publish(new ConfigSnapshot<>(config, previous.version + 1, truncator(config)));
+      configureThreadCapture(config);
+      configureCoalescing(config);
       processAppPackages(config);
-    } finally {
-      this.configWriteLock.unlock();
+
+      for (ConfigChangeListener<? super C> listener : configChangeListeners) {
+        try {
+          listener.onConfigChange(previous.config, config);
+        } catch (Exception e) {
+          LOGGER.error("Error notifying the configuration change.", e);
+        }
+      }
     }
   }
 
-  private void configureTruncation(C config) {
+  private void publish(ConfigSnapshot<C> snapshot) {
+    this.snapshot = snapshot;
+    // Kept in sync for the subclasses reading them directly.
+    this.config = snapshot.config;
+    this.payloadTruncator = snapshot.payloadTruncator;
+  }
+
+  private static PayloadTruncator truncator(CommonConfig config) {
     if (config.truncateLargePayloads()) {
       ObjectsUtils.requireNonNull(config.jsonSerializer(),
           "A JSON serializer is required when performing payload truncation.");
-      this.payloadTruncator = new PayloadTruncator(config.jsonSerializer());
-    } else {
-      this.payloadTruncator = null;
+      TruncationPolicy policy = config.truncationPolicy();
+      if (policy == null) {
+        policy = TruncationPolicy.defaultPolicy();
+      }
+      return new PayloadTruncator(config.jsonSerializer(), policy);
+    }
+    return null;
+  }
+
+  private void configureThreadCapture(C config) {
+    ThreadCapturePolicy policy = config.threadCapturePolicy();
+    if (policy == null) {
+      policy = ThreadCapturePolicy.defaultPolicy();
+    }
+    // Keep the current capture, and the snapshot it shares, if the policy did not change.
+    ThreadStackTraceCapture current = this.threadStackTraceCapture;
+    if (current == null || current.getPolicy() != policy) {
+      this.threadStackTraceCapture = new ThreadStackTraceCapture(policy);
+    }
+  }
+
+  private void configureCoalescing(C config) {
+    CoalescingPolicy policy = config.coalescingPolicy();
+    OccurrenceCoalescer current = this.occurrenceCoalescer;
+    if (current != null && current.getPolicy() == policy) {
+      return;
+    }
+
+    this.occurrenceCoalescer = policy != null
+        ? new OccurrenceCoalescer(policy, new SummaryHandler()) : null;
+    if (current != null) {
+      current.close();
     }
   }
 
@@ -174,35 +283,25 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
 
   protected Data buildData(CommonConfig config, ThrowableWrapper error, Map<String, Object> custom,
                            String description, Level level, boolean isUncaught) {
+    return buildData(config, new Occurrence(config, error, custom, description, level,
+        isUncaught));
+  }
 
+  private Data buildData(CommonConfig config, Occurrence occurrence) {
     Data.Builder dataBuilder = new Data.Builder()
         .environment(config.environment())
         .codeVersion(config.codeVersion())
         .platform(config.platform())
         .language(config.language())
         .framework(config.framework())
-        .level(getOccurrenceLevel(config, error, level))
-        .body(makeBody(error, description))
-        .isUncaught(isUncaught);
-    // Gather data from providers.
-
-    // Context
-    if (config.context() != null) {
-      LOGGER.debug("Gathering context info.");
-      dataBuilder.context(config.context().provide());
-    }
-
-    // Request
-    if (config.request() != null) {
-      LOGGER.debug("Gathering request info.");
-      dataBuilder.request(config.request().provide());
-    }
-
-    // Person
-    if (config.person() != null) {
-      LOGGER.debug("Gathering person info.");
-      dataBuilder.person(config.person().provide());
-    }
+        .level(getOccurrenceLevel(config, occurrence.error, occurrence.level))
+        .body(makeBody(occurrence.error, occurrence.description, occurrence.telemetryEvents))
+        .isUncaught(occurrence.isUncaught)
+        .context(occurrence.context)
+        .request(occurrence.request)
+        .person(occurrence.person)
+        .timestamp(occurrence.timestamp);
+    // Gather data from the providers not bound to the calling thread.
 
     // Server
     if (config.server() != null) {
@@ -217,19 +316,8 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
     }
 
     // Custom
-    Map<String, Object> tmpCustom = new HashMap<>();
-    if (config.custom() != null) {
-      LOGGER.debug("Gathering custom info.");
-      Map<String, Object> customProvided = config.custom().provide();
-      if (customProvided != null) {
-        tmpCustom.putAll(customProvided);
-      }
-    }
-    if (custom != null) {
-      tmpCustom.putAll(custom);
-    }
-    if (tmpCustom.size() > 0) {
-      dataBuilder.custom(tmpCustom);
+    if (occurrence.custom.size() > 0) {
+      dataBuilder.custom(occurrence.custom);
     }
 
     // Notifier
@@ -238,42 +326,107 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
       dataBuilder.notifier(config.notifier().provide());
     }
 
-    // Timestamp
-    if (config.timestamp() != null) {
-      LOGGER.debug("Gathering timestamp info.");
-      dataBuilder.timestamp(config.timestamp().provide());
+    return dataBuilder.build();
+  }
+
+  /**
+   * Process an occurrence for a raw {@link Throwable}. The enabled flag and the pre-filter are
+   * evaluated against the throwable before it is wrapped, so dropped occurrences never pay for
+   * walking the cause chain or capturing the stack traces of all the live threads.
+   *
+   * @param error the error (if any).
+   * @param thread the thread where the error happened (if any).
+   * @param custom the custom data (if any).
+   * @param description the description of the error, or the message to send.
+   * @param level the level to send it at.
+   * @param isUncaught whether this data comes from an uncaught exception.
+   * @return the result of the send operation.
+   */
+  protected RESULT process(Throwable error, Thread thread, Map<String, Object> custom,
+                           String description, Level level, boolean isUncaught) {
+    C config = currentConfig();
+
+    if (isDropped(config, error, custom, description, level)
+        || isCoalesced(error, null, description, level)) {
+      return emptyResult;
     }
 
-    return dataBuilder.build();
+    return process(config, wrapThrowable(error, thread, isUncaught), custom, description, level,
+        isUncaught);
   }
 
   protected RESULT process(ThrowableWrapper error, Map<String, Object> custom, String description,
                            Level level, boolean isUncaught) {
-    C config;
+    C config = currentConfig();
 
-    this.configReadLock.lock();
-    try {
-      config = this.config;
-    } finally {
-      this.configReadLock.unlock();
+    if (isDropped(config, error != null ? error.getThrowable() : null, custom, description,
+        level) || isCoalesced(null, error, description, level)) {
+      return emptyResult;
     }
 
+    return process(config, error, custom, description, level, isUncaught);
+  }
+
+  private C currentConfig() {
+    return this.snapshot.config;
+  }
+
+  private boolean isDropped(C config, Throwable error, Map<String, Object> custom,
+                            String description, Level level) {
     if (!config.isEnabled()) {
       LOGGER.debug("Notifier disabled.");
-      return emptyResult;
+      return true;
     }
 
     // Pre filter
-    if (config.filter() != null && config.filter().preProcess(level,
-            error != null ? error.getThrowable() : null, custom, description)) {
+    if (config.filter() != null && config.filter().preProcess(level, error, custom,
+        description)) {
       LOGGER.debug("Pre-filtered error: {}", error);
-      return emptyResult;
+      return true;
     }
 
-    LOGGER.debug("Gathering information to build the payload.");
-    // Gather information to build a payload.
-    Data data = buildData(config, error, custom, description, level, isUncaught);
+    return false;
+  }
 
+  private boolean isCoalesced(Throwable error, ThrowableWrapper wrapper, String description,
+                              Level level) {
+    OccurrenceCoalescer coalescer = this.occurrenceCoalescer;
+    if (coalescer != null && !coalescer.shouldSend(error, wrapper, description, level)) {
+      LOGGER.debug("Coalesced error: {}", error != null ? error : wrapper);
+      return true;
+    }
+    return false;
+  }
+
+  private RESULT process(final C config, ThrowableWrapper error, Map<String, Object> custom,
+                         String description, Level level, boolean isUncaught) {
+    PayloadAssembler assembler = payloadAssembler();
+    if (assembler == null || isUncaught) {
+      LOGGER.debug("Gathering information to build the payload.");
+      // Gather information to build a payload.
+      return process(config, buildData(config, error, custom, description, level, isUncaught));
+    }
+
+    // Only take what is bound to the calling thread, the rest is done by the workers.
+    final Occurrence occurrence = new Occurrence(config, error, custom, description, level,
+        isUncaught);
+    Runnable assembly = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          onBackgroundResult(process(config, buildData(config, occurrence)));
+        } catch (Exception e) {
+          LOGGER.error("Error while assembling the payload to send to Rollbar.", e);
+        }
+      }
+    };
+    if (assembler.submit(assembly)) {
+      return emptyResult;
+    }
+    return process(config, buildData(config, occurrence));
+  }
+
+  private RESULT process(C config, Data data) {
     // Transform the data
     if (config.transformer() != null) {
       LOGGER.debug("Transforming the data.");
@@ -300,7 +453,7 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
 
     // Post filter
     if (config.filter() != null && config.filter().postProcess(data)) {
-      LOGGER.debug("Post-filtered error: {}", error);
+      LOGGER.debug("Post-filtered data: {}", data);
       return emptyResult;
     }
 
@@ -318,16 +471,17 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
   }
 
   private Payload truncateIfNecessary(C config, Payload payload) {
-    boolean doTruncate = config.truncateLargePayloads();
-    PayloadTruncator truncator = this.payloadTruncator;
+    ConfigSnapshot<C> current = this.snapshot;
+    PayloadTruncator truncator = current.config == config
+        ? current.payloadTruncator : truncator(config);
 
-    if (doTruncate && truncator != null) {
-      PayloadTruncator.PayloadTruncationResult result =
-          truncator.truncate(payload, MAX_PAYLOAD_SIZE_BYTES);
+    if (truncator != null) {
+      int maxSize = truncator.getPolicy().getMaxPayloadSize();
+      PayloadTruncator.PayloadTruncationResult result = truncator.truncate(payload, maxSize);
       payload = result.getPayload();
-      if (result.finalSize > MAX_PAYLOAD_SIZE_BYTES) {
+      if (result.finalSize > maxSize) {
         LOGGER.warn("Sending payload with size " + result.finalSize + " bytes, "
-            + "which is over the limit of " + MAX_PAYLOAD_SIZE_BYTES + " bytes");
+            + "which is over the limit of " + maxSize + " bytes");
       }
     }
 
@@ -335,25 +489,78 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
   }
 
   protected RollbarThrowableWrapper wrapThrowable(Throwable error, Thread thread) {
-    if (error != null && thread != null) {
-      return new RollbarThrowableWrapper(error, thread);
-    } else {
-      return wrapThrowable(error);
-    }
+    return wrapThrowable(error, thread, false);
   }
 
   protected RollbarThrowableWrapper wrapThrowable(Throwable error) {
+    return wrapThrowable(error, null, false);
+  }
+
+  /**
+   * Wraps the error capturing the stack traces of the other live threads as allowed by the
+   * configured {@link ThreadCapturePolicy}.
+   *
+   * @param error the error.
+   * @param thread the thread where the error happened, or null for the current thread.
+   * @param isUncaught whether the error is an uncaught one.
+   * @return the wrapped error, or null if there is no error.
+   */
+  protected RollbarThrowableWrapper wrapThrowable(Throwable error, Thread thread,
+                                                  boolean isUncaught) {
     if (error == null) {
       return null;
     }
 
-    return new RollbarThrowableWrapper(error);
+    Thread source = thread != null ? thread : Thread.currentThread();
+    return new RollbarThrowableWrapper(error, source,
+        threadStackTraceCapture.capture(source, isUncaught));
   }
 
   protected abstract RESULT sendPayload(C config, Payload payload);
 
-  private Body makeBody(ThrowableWrapper error, String description) {
-    List<TelemetryEvent> telemetryEvents = telemetryEventTracker.getAll();
+  /**
+   * Called with the result of the occurrences that are sent in the background by the notifier,
+   * such as the summaries of coalesced occurrences, where there is no caller to hand it to.
+   *
+   * @param result the result of the send operation.
+   */
+  protected void onBackgroundResult(RESULT result) {
+  }
+
+  /**
+   * Closes the background work of the notifier, reporting any pending coalesced occurrence.
+   */
+  protected void closeBackgroundWork() {
+    OccurrenceCoalescer coalescer = this.occurrenceCoalescer;
+    if (coalescer != null) {
+      coalescer.close();
+    }
+  }
+
+  /**
+   * Reports the pending coalesced occurrences without closing the background work of the notifier.
+   *
+   * @param timeout the maximum time to wait.
+   * @param unit the unit of the timeout.
+   * @return true if all of them were reported, false if the timeout elapsed before.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  protected boolean flushBackgroundWork(long timeout, TimeUnit unit) throws InterruptedException {
+    OccurrenceCoalescer coalescer = this.occurrenceCoalescer;
+    return coalescer == null || coalescer.flush(timeout, unit);
+  }
+
+  /**
+   * Get the assembler where the payloads are built off the calling thread.
+   *
+   * @return the payload assembler, or null to build the payloads on the calling thread.
+   */
+  protected PayloadAssembler payloadAssembler() {
+    return null;
+  }
+
+  private Body makeBody(ThrowableWrapper error, String description,
+                        List<TelemetryEvent> telemetryEvents) {
     if (telemetryEvents.isEmpty()) {
       return bodyFactory.from(error, description);
     }
@@ -368,4 +575,119 @@ public abstract class RollbarBase<RESULT, C extends CommonConfig> {
       return Source.SERVER;
     }
   }
+
+  private class SummaryHandler implements OccurrenceCoalescer.SummaryHandler {
+    @Override
+    public void onSummary(ThrowableWrapper error, String description, Level level,
+                          int suppressed, long windowStart, long windowEnd) {
+      Map<String, Object> coalesced = new HashMap<>();
+      coalesced.put("suppressed", suppressed);
+      coalesced.put("window_start", windowStart);
+      coalesced.put("window_end", windowEnd);
+
+      Map<String, Object> custom = new HashMap<>();
+      custom.put(OccurrenceCoalescer.CUSTOM_KEY, coalesced);
+
+      C config = currentConfig();
+      if (config.isEnabled()) {
+        onBackgroundResult(process(config, error, custom, description, level, false));
+      }
+    }
+  }
+
+  /**
+   * The data of an occurrence that is bound to the thread where it happened.
+   */
+  private final class Occurrence {
+    private final ThrowableWrapper error;
+
+    private final String description;
+
+    private final Level level;
+
+    private final boolean isUncaught;
+
+    private final List<TelemetryEvent> telemetryEvents;
+
+    private final String context;
+
+    private final Request request;
+
+    private final Person person;
+
+    private final Map<String, Object> custom;
+
+    private final Long timestamp;
+
+    Occurrence(CommonConfig config, ThrowableWrapper error, Map<String, Object> custom,
+               String description, Level level, boolean isUncaught) {
+      this.error = error;
+      this.description = description;
+      this.level = level;
+      this.isUncaught = isUncaught;
+      this.telemetryEvents = telemetryEventTracker.getAll();
+
+      // Context
+      if (config.context() != null) {
+        LOGGER.debug("Gathering context info.");
+        this.context = config.context().provide();
+      } else {
+        this.context = null;
+      }
+
+      // Request
+      if (config.request() != null) {
+        LOGGER.debug("Gathering request info.");
+        this.request = config.request().provide();
+      } else {
+        this.request = null;
+      }
+
+      // Person
+      if (config.person() != null) {
+        LOGGER.debug("Gathering person info.");
+        this.person = config.person().provide();
+      } else {
+        this.person = null;
+      }
+
+      // Custom
+      this.custom = new HashMap<>();
+      if (config.custom() != null) {
+        LOGGER.debug("Gathering custom info.");
+        Map<String, Object> customProvided = config.custom().provide();
+        if (customProvided != null) {
+          this.custom.putAll(customProvided);
+        }
+      }
+      if (custom != null) {
+        this.custom.putAll(custom);
+      }
+
+      // Timestamp
+      if (config.timestamp() != null) {
+        LOGGER.debug("Gathering timestamp info.");
+        this.timestamp = config.timestamp().provide();
+      } else {
+        this.timestamp = null;
+      }
+    }
+  }
+
+  /**
+   * Immutable view of a configuration and the objects derived from it.
+   */
+  private static final class ConfigSnapshot<C> {
+    private final C config;
+
+    private final long version;
+
+    private final PayloadTruncator payloadTruncator;
+
+    ConfigSnapshot(C config, long version, PayloadTruncator payloadTruncator) {
+      this.config = config;
+      this.version = version;
+      this.payloadTruncator = payloadTruncator;
+    }
+  }
 }
@@ -0,0 +1,135 @@
+package com.rollbar.notifier.assembly;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy to assemble the payloads off the calling thread. The caller only takes a snapshot of
+ * the data bound to it, and the payload is built, transformed, truncated and sent by a bounded
+ * pool of workers. When the pool is saturated the payload is assembled on the calling thread.
+ */
+public final class AsyncAssemblyPolicy {
+
+  private static final int DEFAULT_THREADS = 1;
+
+  private static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+  private static final long DEFAULT_CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+  private final int threads;
+
+  private final int queueCapacity;
+
+  private final long closeTimeout;
+
+  private AsyncAssemblyPolicy(Builder builder) {
+    this.threads = builder.threads;
+    this.queueCapacity = builder.queueCapacity;
+    this.closeTimeout = builder.closeTimeout;
+  }
+
+  /**
+   * Get the number of worker threads.
+   *
+   * @return the number of threads.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Get the maximum number of occurrences waiting for a worker.
+   *
+   * @return the queue capacity.
+   */
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * Get the maximum time in millis to wait for the pending occurrences when closing.
+   *
+   * @return the close timeout in millis.
+   */
+  public long getCloseTimeout() {
+    return closeTimeout;
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncAssemblyPolicy{"
+        + "threads=" + threads
+        + ", queueCapacity=" + queueCapacity
+        + ", closeTimeout=" + closeTimeout
+        + '}';
+  }
+
+  /**
+   * Builder class for {@link AsyncAssemblyPolicy}.
+   */
+  public static final class Builder {
+
+    private int threads;
+
+    private int queueCapacity;
+
+    private long closeTimeout;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.threads = DEFAULT_THREADS;
+      this.queueCapacity = DEFAULT_QUEUE_CAPACITY;
+      this.closeTimeout = DEFAULT_CLOSE_TIMEOUT;
+    }
+
+    /**
+     * The number of worker threads.
+     *
+     * @param threads the number of threads.
+     * @return the builder instance.
+     */
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * The maximum number of occurrences waiting for a worker, past which the payloads are
+     * assembled on the calling thread.
+     *
+     * @param queueCapacity the queue capacity.
+     * @return the builder instance.
+     */
+    public Builder queueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * The maximum time in millis to wait for the pending occurrences when closing.
+     *
+     * @param closeTimeout the close timeout in millis.
+     * @return the builder instance.
+     */
+    public Builder closeTimeout(long closeTimeout) {
+      this.closeTimeout = closeTimeout;
+      return this;
+    }
+
+    /**
+     * Builds the {@link AsyncAssemblyPolicy async assembly policy}.
+     *
+     * @return the async assembly policy.
+     */
+    public AsyncAssemblyPolicy build() {
+      if (threads < 1 || queueCapacity < 1) {
+        throw new IllegalArgumentException("The threads and the queue capacity must be at least 1");
+      }
+      if (closeTimeout < 0) {
+        throw new IllegalArgumentException("The close timeout can not be negative");
+      }
+      return new AsyncAssemblyPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package com.rollbar.notifier.assembly;
+
+import com.rollbar.notifier.util.ObjectsUtils;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of workers where the payloads are assembled following an
+ * {@link AsyncAssemblyPolicy}.
+ */
+public class PayloadAssembler implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadAssembler.class);
+
+  private final AsyncAssemblyPolicy policy;
+
+  private final ExecutorService executorService;
+
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private final Object idle = new Object();
+
+  /**
+   * Constructor.
+   *
+   * @param policy the async assembly policy.
+   */
+  public PayloadAssembler(AsyncAssemblyPolicy policy) {
+    this(policy, new ThreadPoolExecutor(policy.getThreads(), policy.getThreads(), 0L,
+        TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(policy.getQueueCapacity()),
+        new AssemblerThreadFactory()));
+  }
+
+  PayloadAssembler(AsyncAssemblyPolicy policy, ExecutorService executorService) {
+    ObjectsUtils.requireNonNull(policy, "The policy can not be null");
+    this.policy = policy;
+    this.executorService = executorService;
+  }
+
+  /**
+   * Get the policy applied by this assembler.
+   *
+   * @return the policy.
+   */
+  public AsyncAssemblyPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Submits the assembly of a payload to the workers.
+   *
+   * @param assembly the assembly task.
+   * @return true if the task was accepted, false if the workers are saturated or closed and the
+   *     caller has to run it.
+   */
+  public boolean submit(final Runnable assembly) {
+    pending.incrementAndGet();
+    try {
+      executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            assembly.run();
+          } finally {
+            done();
+          }
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      done();
+      LOGGER.debug("Payload assembly rejected, assembling on the calling thread.");
+      return false;
+    }
+  }
+
+  /**
+   * Waits for the payloads submitted so far to be assembled, without closing the workers.
+   *
+   * @param timeout the maximum time to wait.
+   * @param unit the unit of the timeout.
+   * @return true if all the payloads were assembled, false if the timeout elapsed before.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (idle) {
+      while (pending.get() > 0) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(idle, left);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdown();
+  }
+
+  /**
+   * Closes the workers, optionally waiting for the pending payloads to be assembled.
+   *
+   * @param wait whether to wait for the pending payloads, up to the close timeout of the policy.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void close(boolean wait) throws InterruptedException {
+    close();
+    if (wait && !executorService.awaitTermination(policy.getCloseTimeout(),
+        TimeUnit.MILLISECONDS)) {
+      LOGGER.warn("Timed out waiting for the pending payloads to be assembled.");
+    }
+  }
+
+  private void done() {
+    if (pending.decrementAndGet() == 0) {
+      synchronized (idle) {
+        idle.notifyAll();
+      }
+    }
+  }
+
+  static final class AssemblerThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable);
+      thread.setName("rollbar-payload_assembler-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.rollbar.notifier.coalescing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy to coalesce repeated occurrences of the same error. Inside every window only the first
+ * occurrences of a signature (the exception class, its top frames and the level) are sent, the
+ * rest are counted and reported by a single summary occurrence when the window ends.
+ */
+public final class CoalescingPolicy {
+
+  private static final long DEFAULT_WINDOW = TimeUnit.MINUTES.toMillis(1);
+
+  private static final int DEFAULT_MAX_OCCURRENCES_PER_WINDOW = 10;
+
+  private static final int DEFAULT_SIGNATURE_FRAMES = 5;
+
+  private static final int DEFAULT_MAX_SIGNATURES = 1000;
+
+  private final long window;
+
+  private final int maxOccurrencesPerWindow;
+
+  private final int signatureFrames;
+
+  private final int maxSignatures;
+
+  private CoalescingPolicy(Builder builder) {
+    this.window = builder.window;
+    this.maxOccurrencesPerWindow = builder.maxOccurrencesPerWindow;
+    this.signatureFrames = builder.signatureFrames;
+    this.maxSignatures = builder.maxSignatures;
+  }
+
+  /**
+   * Get the length of the coalescing window in millis.
+   *
+   * @return the window in millis.
+   */
+  public long getWindow() {
+    return window;
+  }
+
+  /**
+   * Get the number of occurrences of a signature sent inside a window before the rest are
+   * suppressed.
+   *
+   * @return the maximum occurrences per window.
+   */
+  public int getMaxOccurrencesPerWindow() {
+    return maxOccurrencesPerWindow;
+  }
+
+  /**
+   * Get the number of top stack frames that are part of the signature.
+   *
+   * @return the number of frames.
+   */
+  public int getSignatureFrames() {
+    return signatureFrames;
+  }
+
+  /**
+   * Get the maximum number of signatures tracked at the same time. Occurrences of new
+   * signatures are not coalesced while the limit is reached.
+   *
+   * @return the maximum number of signatures.
+   */
+  public int getMaxSignatures() {
+    return maxSignatures;
+  }
+
+  @Override
+  public String toString() {
+    return "CoalescingPolicy{"
+        + "window=" + window
+        + ", maxOccurrencesPerWindow=" + maxOccurrencesPerWindow
+        + ", signatureFrames=" + signatureFrames
+        + ", maxSignatures=" + maxSignatures
+        + '}';
+  }
+
+  /**
+   * Builder class for {@link CoalescingPolicy}.
+   */
+  public static final class Builder {
+
+    private long window;
+
+    private int maxOccurrencesPerWindow;
+
+    private int signatureFrames;
+
+    private int maxSignatures;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.window = DEFAULT_WINDOW;
+      this.maxOccurrencesPerWindow = DEFAULT_MAX_OCCURRENCES_PER_WINDOW;
+      this.signatureFrames = DEFAULT_SIGNATURE_FRAMES;
+      this.maxSignatures = DEFAULT_MAX_SIGNATURES;
+    }
+
+    /**
+     * The length of the coalescing window in millis.
+     *
+     * @param window the window in millis.
+     * @return the builder instance.
+     */
+    public Builder window(long window) {
+      this.window = window;
+      return this;
+    }
+
+    /**
+     * The number of occurrences of a signature sent inside a window.
+     *
+     * @param maxOccurrencesPerWindow the maximum occurrences per window.
+     * @return the builder instance.
+     */
+    public Builder maxOccurrencesPerWindow(int maxOccurrencesPerWindow) {
+      this.maxOccurrencesPerWindow = maxOccurrencesPerWindow;
+      return this;
+    }
+
+    /**
+     * The number of top stack frames that are part of the signature.
+     *
+     * @param signatureFrames the number of frames.
+     * @return the builder instance.
+     */
+    public Builder signatureFrames(int signatureFrames) {
+      this.signatureFrames = signatureFrames;
+      return this;
+    }
+
+    /**
+     * The maximum number of signatures tracked at the same time.
+     *
+     * @param maxSignatures the maximum number of signatures.
+     * @return the builder instance.
+     */
+    public Builder maxSignatures(int maxSignatures) {
+      this.maxSignatures = maxSignatures;
+      return this;
+    }
+
+    /**
+     * Builds the {@link CoalescingPolicy coalescing policy}.
+     *
+     * @return the coalescing policy.
+     */
+    public CoalescingPolicy build() {
+      if (window <= 0) {
+        throw new IllegalArgumentException("The window must be positive");
+      }
+      if (maxOccurrencesPerWindow < 1 || maxSignatures < 1) {
+        throw new IllegalArgumentException(
+            "The occurrences per window and the signatures must be at least 1");
+      }
+      if (signatureFrames < 0) {
+        throw new IllegalArgumentException("The signature frames can not be negative");
+      }
+      return new CoalescingPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,328 @@
+package com.rollbar.notifier.coalescing;
+
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.provider.Provider;
+import com.rollbar.notifier.provider.timestamp.TimestampProvider;
+import com.rollbar.notifier.util.ObjectsUtils;
+import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
+import com.rollbar.notifier.wrapper.ThrowableWrapper;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces repeated occurrences of the same error following a {@link CoalescingPolicy}.
+ * Occurrences are counted per signature in a lock-free map, and the windows that suppressed any
+ * occurrence are reported to a {@link SummaryHandler} once they end, either when a new occurrence
+ * of the signature arrives or when the periodic sweep evicts them.
+ */
+public class OccurrenceCoalescer implements Closeable {
+
+  /**
+   * The key of the custom data that holds the coalescing information of a summary occurrence.
+   */
+  public static final String CUSTOM_KEY = "rollbar_coalesced";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OccurrenceCoalescer.class);
+
+  private static final int CLOSED = Integer.MIN_VALUE;
+
+  private final CoalescingPolicy policy;
+
+  private final SummaryHandler summaryHandler;
+
+  private final Provider<Long> timestamp;
+
+  private final ConcurrentMap<Signature, Window> windows = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * Constructor.
+   *
+   * @param policy the coalescing policy.
+   * @param summaryHandler the handler of the summary occurrences.
+   */
+  public OccurrenceCoalescer(CoalescingPolicy policy, SummaryHandler summaryHandler) {
+    this(policy, summaryHandler, new TimestampProvider(),
+        Executors.newSingleThreadScheduledExecutor(new CoalescerThreadFactory()));
+  }
+
+  OccurrenceCoalescer(CoalescingPolicy policy, SummaryHandler summaryHandler,
+      Provider<Long> timestamp, ScheduledExecutorService executorService) {
+    ObjectsUtils.requireNonNull(policy, "The policy can not be null");
+    ObjectsUtils.requireNonNull(summaryHandler, "The summary handler can not be null");
+    this.policy = policy;
+    this.summaryHandler = summaryHandler;
+    this.timestamp = timestamp;
+    this.executorService = executorService;
+    this.executorService.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        sweep();
+      }
+    }, policy.getWindow(), policy.getWindow(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Get the policy applied by this coalescer.
+   *
+   * @return the policy.
+   */
+  public CoalescingPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Records an occurrence and decides if it has to be sent.
+   *
+   * @param error the error, if the occurrence has not been wrapped yet.
+   * @param wrapper the wrapped error, if the occurrence was already wrapped.
+   * @param description the description of the error.
+   * @param level the level of the occurrence.
+   * @return true if the occurrence must be sent, false if it has been coalesced.
+   */
+  public boolean shouldSend(Throwable error, ThrowableWrapper wrapper, String description,
+      Level level) {
+    Signature signature;
+    if (error != null) {
+      signature = signature(error.getClass().getName(), error.getStackTrace(), level);
+    } else if (wrapper != null) {
+      signature = signature(wrapper.getClassName(), wrapper.getStackTrace(), level);
+    } else {
+      // Only errors are coalesced, messages are always sent.
+      return true;
+    }
+
+    long now = timestamp.provide();
+    while (true) {
+      Window window = windows.get(signature);
+      if (window == null) {
+        if (windows.size() >= policy.getMaxSignatures()) {
+          return true;
+        }
+        Window fresh = new Window(now, error, error == null ? wrapper : null, description);
+        window = windows.putIfAbsent(signature, fresh);
+        if (window == null) {
+          window = fresh;
+        }
+      } else if (window.isExpired(now, policy.getWindow())) {
+        if (windows.remove(signature, window)) {
+          end(signature, window, now, true);
+        }
+        continue;
+      }
+
+      int count = window.count.incrementAndGet();
+      if (count <= 0) {
+        // The window ended concurrently, count the occurrence in the next one.
+        continue;
+      }
+      return count <= policy.getMaxOccurrencesPerWindow();
+    }
+  }
+
+  /**
+   * Ends all the current windows reporting their suppressed occurrences on the calling thread.
+   */
+  public void flush() {
+    long now = timestamp.provide();
+    for (Map.Entry<Signature, Window> entry : windows.entrySet()) {
+      if (windows.remove(entry.getKey(), entry.getValue())) {
+        end(entry.getKey(), entry.getValue(), now, false);
+      }
+    }
+  }
+
+  /**
+   * Ends all the current windows, like {@link #flush()}, and waits for the summaries of the windows
+   * that already ended to be reported in the background.
+   *
+   * @param timeout the maximum time to wait.
+   * @param unit the unit of the timeout.
+   * @return true if all the summaries were reported, false if the timeout elapsed before.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+    flush();
+    final CountDownLatch reported = new CountDownLatch(1);
+    try {
+      // The summaries are reported in order on a single thread, so they are all done once this is.
+      executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          reported.countDown();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      return executorService.awaitTermination(timeout, unit);
+    }
+    return reported.await(timeout, unit);
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdown();
+    flush();
+  }
+
+  void sweep() {
+    long now = timestamp.provide();
+    for (Map.Entry<Signature, Window> entry : windows.entrySet()) {
+      Window window = entry.getValue();
+      if (window.isExpired(now, policy.getWindow())
+          && windows.remove(entry.getKey(), window)) {
+        end(entry.getKey(), window, now, false);
+      }
+    }
+  }
+
+  private Signature signature(String className, StackTraceElement[] frames, Level level) {
+    int length = Math.min(frames == null ? 0 : frames.length, policy.getSignatureFrames());
+    StackTraceElement[] top = length == 0 ? new StackTraceElement[0]
+        : Arrays.copyOf(frames, length);
+    return new Signature(className, top, level);
+  }
+
+  private void end(final Signature signature, final Window window, final long now,
+      boolean async) {
+    int total = window.count.getAndSet(CLOSED);
+    final int suppressed = total - policy.getMaxOccurrencesPerWindow();
+    if (suppressed <= 0) {
+      return;
+    }
+
+    Runnable summary = new Runnable() {
+      @Override
+      public void run() {
+        summarize(signature, window, suppressed, now);
+      }
+    };
+
+    if (async) {
+      try {
+        executorService.execute(summary);
+        return;
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Coalescer closed, reporting the summary on the calling thread.");
+      }
+    }
+    summary.run();
+  }
+
+  private void summarize(Signature signature, Window window, int suppressed, long now) {
+    ThrowableWrapper error = window.wrapper;
+    if (error == null) {
+      error = new RollbarThrowableWrapper(window.error, null, null);
+    }
+
+    try {
+      summaryHandler.onSummary(error, window.description, signature.level, suppressed,
+          window.start, now);
+    } catch (Exception e) {
+      LOGGER.error("Error reporting the coalesced occurrences.", e);
+    }
+  }
+
+  /**
+   * Handler of the summary occurrences.
+   */
+  public interface SummaryHandler {
+
+    /**
+     * Called when a window ends having suppressed some occurrences.
+     *
+     * @param error the first error of the window.
+     * @param description the description of the first occurrence of the window.
+     * @param level the level of the occurrences.
+     * @param suppressed the number of occurrences suppressed.
+     * @param windowStart the start of the window, in millis since epoch.
+     * @param windowEnd the end of the window, in millis since epoch.
+     */
+    void onSummary(ThrowableWrapper error, String description, Level level, int suppressed,
+        long windowStart, long windowEnd);
+  }
+
+  private static final class Signature {
+    private final String className;
+
+    private final StackTraceElement[] frames;
+
+    private final Level level;
+
+    private final int hash;
+
+    Signature(String className, StackTraceElement[] frames, Level level) {
+      this.className = className;
+      this.frames = frames;
+      this.level = level;
+      this.hash = ObjectsUtils.hash(className, Arrays.hashCode(frames), level);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Signature that = (Signature) o;
+      return hash == that.hash
+          && ObjectsUtils.equals(className, that.className)
+          && level == that.level
+          && Arrays.equals(frames, that.frames);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class Window {
+    private final long start;
+
+    private final Throwable error;
+
+    private final ThrowableWrapper wrapper;
+
+    private final String description;
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    Window(long start, Throwable error, ThrowableWrapper wrapper, String description) {
+      this.start = start;
+      this.error = error;
+      this.wrapper = wrapper;
+      this.description = description;
+    }
+
+    boolean isExpired(long now, long length) {
+      return now - start >= length;
+    }
+  }
+
+  static final class CoalescerThreadFactory implements ThreadFactory {
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable);
+      thread.setName("rollbar-occurrence_coalescer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -6,13 +6,16 @@ import com.rollbar.api.payload.data.Notifier;
 import com.rollbar.api.payload.data.Person;
 import com.rollbar.api.payload.data.Request;
 import com.rollbar.api.payload.data.Server;
+import com.rollbar.notifier.coalescing.CoalescingPolicy;
 import com.rollbar.notifier.filter.Filter;
 import com.rollbar.notifier.fingerprint.FingerprintGenerator;
 import com.rollbar.notifier.provider.Provider;
 import com.rollbar.notifier.sender.json.JsonSerializer;
 import com.rollbar.notifier.telemetry.TelemetryEventTracker;
 import com.rollbar.notifier.transformer.Transformer;
+import com.rollbar.notifier.truncation.TruncationPolicy;
 import com.rollbar.notifier.uuid.UuidGenerator;
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy;
 import java.util.List;
 import java.util.Map;
 
@@ -215,4 +218,28 @@ public interface CommonConfig {
   int maximumTelemetryData();
 
   TelemetryEventTracker telemetryEventTracker();
+
+  /**
+   * Get the {@link ThreadCapturePolicy policy} used to capture the stack traces of all the live
+   * threads along with an error.
+   *
+   * @return the thread capture policy.
+   */
+  ThreadCapturePolicy threadCapturePolicy();
+
+  /**
+   * Get the {@link CoalescingPolicy policy} used to coalesce repeated occurrences of the same
+   * error, or null if they are not coalesced.
+   *
+   * @return the coalescing policy.
+   */
+  CoalescingPolicy coalescingPolicy();
+
+  /**
+   * Get the {@link TruncationPolicy policy} used to truncate large payloads, with the maximum size
+   * of the payload, the budgets of its sections and the strategies applied in order.
+   *
+   * @return the truncation policy.
+   */
+  TruncationPolicy truncationPolicy();
 }
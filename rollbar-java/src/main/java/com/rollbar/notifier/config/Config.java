@@ -1,6 +1,7 @@
 package com.rollbar.notifier.config;
 
 import com.rollbar.notifier.Rollbar;
+import com.rollbar.notifier.assembly.AsyncAssemblyPolicy;
 import com.rollbar.notifier.sender.Sender;
 import com.rollbar.notifier.sender.json.JsonSerializer;
 
@@ -23,4 +24,11 @@ public interface Config extends CommonConfig {
    * @return the proxy.
    */
   Proxy proxy();
+
+  /**
+   * Get the {@link AsyncAssemblyPolicy policy} to assemble the payloads off the calling thread.
+   *
+   * @return the async assembly policy, or null to assemble them on the calling thread.
+   */
+  AsyncAssemblyPolicy asyncAssemblyPolicy();
 }
@@ -7,8 +7,11 @@ import com.rollbar.api.payload.data.Person;
 import com.rollbar.api.payload.data.Request;
 import com.rollbar.api.payload.data.Server;
 import com.rollbar.notifier.Rollbar;
+import com.rollbar.notifier.assembly.AsyncAssemblyPolicy;
+import com.rollbar.notifier.coalescing.CoalescingPolicy;
 import com.rollbar.notifier.filter.Filter;
 import com.rollbar.notifier.fingerprint.FingerprintGenerator;
+import com.rollbar.notifier.provider.CachedProvider;
 import com.rollbar.notifier.provider.Provider;
 import com.rollbar.notifier.provider.notifier.NotifierProvider;
 import com.rollbar.notifier.provider.timestamp.TimestampProvider;
@@ -18,9 +21,12 @@ import com.rollbar.notifier.sender.SyncSender;
 import com.rollbar.notifier.sender.json.JsonSerializer;
 import com.rollbar.notifier.sender.json.JsonSerializerImpl;
 import com.rollbar.notifier.telemetry.RollbarTelemetryEventTracker;
+import com.rollbar.notifier.telemetry.ScopedTelemetryEventTracker;
 import com.rollbar.notifier.telemetry.TelemetryEventTracker;
 import com.rollbar.notifier.transformer.Transformer;
+import com.rollbar.notifier.truncation.TruncationPolicy;
 import com.rollbar.notifier.uuid.UuidGenerator;
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.net.Proxy;
 import java.util.Collections;
@@ -88,10 +94,18 @@ public class ConfigBuilder {
   protected boolean truncateLargePayloads;
 
   private int maximumTelemetryData =
-      RollbarTelemetryEventTracker.MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS;
+      RollbarTelemetryEventTracker.DEFAULT_CAPACITY_FOR_TELEMETRY_EVENTS;
 
   private TelemetryEventTracker telemetryEventTracker;
 
+  private ThreadCapturePolicy threadCapturePolicy;
+
+  private CoalescingPolicy coalescingPolicy;
+
+  private AsyncAssemblyPolicy asyncAssemblyPolicy;
+
+  private TruncationPolicy truncationPolicy;
+
   /**
    * Constructor with an access token.
    */
@@ -138,6 +152,10 @@ public class ConfigBuilder {
     this.truncateLargePayloads = config.truncateLargePayloads();
     this.maximumTelemetryData = config.maximumTelemetryData();
     this.telemetryEventTracker = config.telemetryEventTracker();
+    this.threadCapturePolicy = config.threadCapturePolicy();
+    this.coalescingPolicy = config.coalescingPolicy();
+    this.asyncAssemblyPolicy = config.asyncAssemblyPolicy();
+    this.truncationPolicy = config.truncationPolicy();
   }
 
   /**
@@ -269,7 +287,8 @@ public class ConfigBuilder {
   }
 
   /**
-   * The provider to retrieve the {@link Server server}.
+   * The provider to retrieve the {@link Server server}. Providers of sections that rarely change
+   * can be wrapped in a {@link CachedProvider} so they are not computed for every occurrence.
    *
    * @param server the server provider.
    * @return the builder instance.
@@ -484,7 +503,8 @@ public class ConfigBuilder {
    * <p>
    * Maximum Telemetry events sent in a payload, only for the default TelemetryEventTracker, if
    * a custom implementation is used this value will be ignored. Default is
-   * {@value RollbarTelemetryEventTracker#MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS}.
+   * {@value RollbarTelemetryEventTracker#DEFAULT_CAPACITY_FOR_TELEMETRY_EVENTS}, and it can be
+   * raised up to {@value RollbarTelemetryEventTracker#MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS}.
    * </p>
    * @param maximumTelemetryData max quantity of telemetry events sent.
    * @return the builder instance.
@@ -497,7 +517,9 @@ public class ConfigBuilder {
   /**
    * <p>
    * Set a {@link TelemetryEventTracker} implementation.
-   * Default: {@link RollbarTelemetryEventTracker} with a {@link TimestampProvider}.
+   * Default: {@link ScopedTelemetryEventTracker} over a {@link RollbarTelemetryEventTracker},
+   * both with a {@link TimestampProvider}, so the events recorded inside a
+   * {@link com.rollbar.notifier.telemetry.TelemetryScope} are only attached to its occurrences.
    * </p>
    * @param telemetryEventTracker the TelemetryEventTracker implementation.
    * @return the builder instance.
@@ -507,6 +529,62 @@ public class ConfigBuilder {
     return this;
   }
 
+  /**
+   * <p>
+   * The {@link ThreadCapturePolicy policy} used to capture the stack traces of all the live
+   * threads along with an error. Default: {@link ThreadCapturePolicy#defaultPolicy()}, which
+   * captures every thread for every error.
+   * </p>
+   * @param threadCapturePolicy the thread capture policy.
+   * @return the builder instance.
+   */
+  public ConfigBuilder threadCapturePolicy(ThreadCapturePolicy threadCapturePolicy) {
+    this.threadCapturePolicy = threadCapturePolicy;
+    return this;
+  }
+
+  /**
+   * <p>
+   * The {@link CoalescingPolicy policy} used to coalesce repeated occurrences of the same error.
+   * Only the first occurrences of an error inside a window are sent, the rest are reported by a
+   * summary occurrence when the window ends. Default: null, nothing is coalesced.
+   * </p>
+   * @param coalescingPolicy the coalescing policy.
+   * @return the builder instance.
+   */
+  public ConfigBuilder coalescingPolicy(CoalescingPolicy coalescingPolicy) {
+    this.coalescingPolicy = coalescingPolicy;
+    return this;
+  }
+
+  /**
+   * The {@link AsyncAssemblyPolicy policy} to assemble the payloads on a bounded pool of workers
+   * instead of the calling thread. Only the data bound to the calling thread, like the request,
+   * the person or the custom data, is gathered before returning. Uncaught errors are always
+   * assembled on the calling thread.
+   *
+   * @param asyncAssemblyPolicy the async assembly policy, or null to disable it.
+   * @return the builder instance.
+   */
+  public ConfigBuilder asyncAssemblyPolicy(AsyncAssemblyPolicy asyncAssemblyPolicy) {
+    this.asyncAssemblyPolicy = asyncAssemblyPolicy;
+    return this;
+  }
+
+  /**
+   * The {@link TruncationPolicy policy} used to truncate large payloads when
+   * {@link #truncateLargePayloads(boolean) truncation is enabled}. It sets the maximum size of the
+   * payload, the budgets of its sections, like the threads, the locals or the request, and the
+   * order of the strategies applied. Default: {@link TruncationPolicy#defaultPolicy()}.
+   *
+   * @param truncationPolicy the truncation policy.
+   * @return the builder instance.
+   */
+  public ConfigBuilder truncationPolicy(TruncationPolicy truncationPolicy) {
+    this.truncationPolicy = truncationPolicy;
+    return this;
+  }
+
   /**
    * Builds the {@link Config config}.
    *
@@ -530,16 +608,28 @@ public class ConfigBuilder {
       if (this.jsonSerializer != null) {
         innerSender.jsonSerializer(this.jsonSerializer);
       }
-      this.sender =
-        new BufferedSender.Builder().sender(innerSender.build()).build();
+      this.sender = new BufferedSender.Builder()
+          .sender(innerSender.build())
+          .maxLatency(BufferedSender.DEFAULT_MAX_LATENCY)
+          .build();
     }
     if (this.timestamp == null) {
       this.timestamp = new TimestampProvider();
     }
 
     if (telemetryEventTracker == null) {
-      telemetryEventTracker =
-        new RollbarTelemetryEventTracker(new TimestampProvider(), maximumTelemetryData);
+      telemetryEventTracker = new ScopedTelemetryEventTracker(
+          new RollbarTelemetryEventTracker(new TimestampProvider(), maximumTelemetryData),
+          new TimestampProvider(), maximumTelemetryData,
+          ScopedTelemetryEventTracker.DEFAULT_MAXIMUM_SCOPES);
+    }
+
+    if (this.threadCapturePolicy == null) {
+      this.threadCapturePolicy = ThreadCapturePolicy.defaultPolicy();
+    }
+
+    if (this.truncationPolicy == null) {
+      this.truncationPolicy = TruncationPolicy.defaultPolicy();
     }
 
     return new ConfigImpl(this);
@@ -605,6 +695,14 @@ public class ConfigBuilder {
 
     private final TelemetryEventTracker telemetryEventTracker;
 
+    private final ThreadCapturePolicy threadCapturePolicy;
+
+    private final CoalescingPolicy coalescingPolicy;
+
+    private final AsyncAssemblyPolicy asyncAssemblyPolicy;
+
+    private final TruncationPolicy truncationPolicy;
+
     ConfigImpl(ConfigBuilder builder) {
       this.accessToken = builder.accessToken;
       this.endpoint = builder.endpoint;
@@ -639,6 +737,10 @@ public class ConfigBuilder {
       this.truncateLargePayloads = builder.truncateLargePayloads;
       this.maximumTelemetryData = builder.maximumTelemetryData;
       this.telemetryEventTracker = builder.telemetryEventTracker;
+      this.threadCapturePolicy = builder.threadCapturePolicy;
+      this.coalescingPolicy = builder.coalescingPolicy;
+      this.asyncAssemblyPolicy = builder.asyncAssemblyPolicy;
+      this.truncationPolicy = builder.truncationPolicy;
     }
 
     @Override
@@ -795,5 +897,25 @@ public class ConfigBuilder {
     public TelemetryEventTracker telemetryEventTracker() {
       return this.telemetryEventTracker;
     }
+
+    @Override
+    public ThreadCapturePolicy threadCapturePolicy() {
+      return this.threadCapturePolicy;
+    }
+
+    @Override
+    public CoalescingPolicy coalescingPolicy() {
+      return this.coalescingPolicy;
+    }
+
+    @Override
+    public AsyncAssemblyPolicy asyncAssemblyPolicy() {
+      return this.asyncAssemblyPolicy;
+    }
+
+    @Override
+    public TruncationPolicy truncationPolicy() {
+      return this.truncationPolicy;
+    }
   }
 }
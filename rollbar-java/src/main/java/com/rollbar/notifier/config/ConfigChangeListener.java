@@ -0,0 +1,17 @@
+package com.rollbar.notifier.config;
+
+/**
+ * Listener notified when the configuration of a notifier is replaced.
+ *
+ * @param <C> the configuration class of the notifier.
+ */
+public interface ConfigChangeListener<C extends CommonConfig> {
+
+  /**
+   * Called once the new configuration is in use.
+   *
+   * @param previous the configuration that was replaced.
+   * @param current the new configuration.
+   */
+  void onConfigChange(C previous, C current);
+}
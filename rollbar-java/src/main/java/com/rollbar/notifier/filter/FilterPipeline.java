@@ -3,13 +3,14 @@ package com.rollbar.notifier.filter;
 import com.rollbar.api.payload.data.Data;
 import com.rollbar.api.payload.data.Level;
 import com.rollbar.notifier.transformer.Transformer;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 public class FilterPipeline implements Filter {
 
-  private final List<Filter> pipeline;
+  private static final Filter[] EMPTY = new Filter[0];
+
+  private final Filter[] pipeline;
 
   /**
    * Constructor.
@@ -23,7 +24,8 @@ public class FilterPipeline implements Filter {
    * @param pipeline the list of filers.
    */
   public FilterPipeline(List<Filter> pipeline) {
-    this.pipeline = pipeline;
+    // Copied to an array so evaluating the pipeline does not allocate an iterator.
+    this.pipeline = pipeline != null ? pipeline.toArray(new Filter[pipeline.size()]) : EMPTY;
   }
 
   @Override
@@ -46,13 +48,13 @@ public class FilterPipeline implements Filter {
   }
 
   private boolean usePipeline() {
-    return pipeline != null && !pipeline.isEmpty();
+    return pipeline.length > 0;
   }
 
   private boolean pipeline(Level level, Throwable error, Map<String, Object> custom,
       String description) {
-    for (Filter filter : pipeline) {
-      boolean result = filter.preProcess(level, error, custom, description);
+    for (int i = 0; i < pipeline.length; i++) {
+      boolean result = pipeline[i].preProcess(level, error, custom, description);
       if (result) {
         return true;
       }
@@ -61,8 +63,8 @@ public class FilterPipeline implements Filter {
   }
 
   private boolean pipeline(Data data) {
-    for (Filter filter : pipeline) {
-      boolean result = filter.postProcess(data);
+    for (int i = 0; i < pipeline.length; i++) {
+      boolean result = pipeline[i].postProcess(data);
       if (result) {
         return true;
       }
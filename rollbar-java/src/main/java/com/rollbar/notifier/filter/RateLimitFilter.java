@@ -0,0 +1,319 @@
+package com.rollbar.notifier.filter;
+
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Filter} that throttles the occurrences with token buckets before any payload is built.
+ * An occurrence goes through the bucket of its exception class, then the bucket of its level and
+ * then the global bucket, and it is filtered as soon as one of them is empty, giving back the
+ * permits taken from the buckets before, so only the limit that rejects it is spent. The buckets
+ * are lock-free and taking a permit does not allocate, so it can be called for every occurrence.
+ */
+public class RateLimitFilter implements Filter {
+
+  private final Clock clock;
+
+  private final TokenBucket global;
+
+  private final Map<Level, TokenBucket> levels;
+
+  private final Map<Class<?>, TokenBucket> exceptionClasses;
+
+  private final ConcurrentMap<Class<?>, TokenBucket> defaultExceptionClasses;
+
+  private final double defaultExceptionRate;
+
+  private final int defaultExceptionBurst;
+
+  private final int maxExceptionClasses;
+
+  private final AtomicLong rejectedByExceptionClass = new AtomicLong();
+
+  private final AtomicLong rejectedByLevel = new AtomicLong();
+
+  private RateLimitFilter(Builder builder) {
+    this.clock = builder.clock;
+    long now = clock.nanoTime();
+
+    this.global = builder.globalRate > 0
+        ? new TokenBucket(builder.globalRate, builder.globalBurst, now) : null;
+
+    this.levels = new EnumMap<>(Level.class);
+    for (Map.Entry<Level, Rate> entry : builder.levelRates.entrySet()) {
+      this.levels.put(entry.getKey(), entry.getValue().bucket(now));
+    }
+
+    this.exceptionClasses = new HashMap<>();
+    for (Map.Entry<Class<?>, Rate> entry : builder.exceptionRates.entrySet()) {
+      this.exceptionClasses.put(entry.getKey(), entry.getValue().bucket(now));
+    }
+
+    this.defaultExceptionClasses = new ConcurrentHashMap<>();
+    this.defaultExceptionRate = builder.defaultExceptionRate;
+    this.defaultExceptionBurst = builder.defaultExceptionBurst;
+    this.maxExceptionClasses = builder.maxExceptionClasses;
+  }
+
+  @Override
+  public boolean preProcess(Level level, Throwable error, Map<String, Object> custom,
+      String description) {
+    long now = clock.nanoTime();
+
+    TokenBucket exceptionBucket = error != null ? exceptionBucket(error.getClass(), now) : null;
+    if (exceptionBucket != null && !exceptionBucket.tryAcquire(now)) {
+      rejectedByExceptionClass.incrementAndGet();
+      return true;
+    }
+
+    TokenBucket levelBucket = level != null ? levels.get(level) : null;
+    if (levelBucket != null && !levelBucket.tryAcquire(now)) {
+      release(exceptionBucket);
+      rejectedByLevel.incrementAndGet();
+      return true;
+    }
+
+    if (global != null && !global.tryAcquire(now)) {
+      release(exceptionBucket);
+      release(levelBucket);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean postProcess(Data data) {
+    return false;
+  }
+
+  /**
+   * Get the total number of occurrences rejected by this filter.
+   *
+   * @return the number of rejected occurrences.
+   */
+  public long getRejected() {
+    return getRejectedByGlobalRate() + rejectedByLevel.get() + rejectedByExceptionClass.get();
+  }
+
+  /**
+   * Get the number of occurrences rejected by the global rate.
+   *
+   * @return the number of rejected occurrences.
+   */
+  public long getRejectedByGlobalRate() {
+    return global != null ? global.getRejected() : 0;
+  }
+
+  /**
+   * Get the number of occurrences rejected by the rate of a level.
+   *
+   * @param level the level.
+   * @return the number of rejected occurrences.
+   */
+  public long getRejectedByLevel(Level level) {
+    TokenBucket bucket = levels.get(level);
+    return bucket != null ? bucket.getRejected() : 0;
+  }
+
+  /**
+   * Get the number of occurrences rejected by the rate of an exception class.
+   *
+   * @param exceptionClass the exception class.
+   * @return the number of rejected occurrences.
+   */
+  public long getRejectedByExceptionClass(Class<? extends Throwable> exceptionClass) {
+    TokenBucket bucket = exceptionClasses.get(exceptionClass);
+    if (bucket == null) {
+      bucket = defaultExceptionClasses.get(exceptionClass);
+    }
+    return bucket != null ? bucket.getRejected() : 0;
+  }
+
+  private TokenBucket exceptionBucket(Class<?> exceptionClass, long now) {
+    TokenBucket bucket = exceptionClasses.get(exceptionClass);
+    if (bucket != null || defaultExceptionRate <= 0) {
+      return bucket;
+    }
+
+    bucket = defaultExceptionClasses.get(exceptionClass);
+    if (bucket == null) {
+      if (defaultExceptionClasses.size() >= maxExceptionClasses) {
+        // Classes past the limit are only throttled by the level and global rates.
+        return null;
+      }
+      TokenBucket fresh = new TokenBucket(defaultExceptionRate, defaultExceptionBurst, now);
+      bucket = defaultExceptionClasses.putIfAbsent(exceptionClass, fresh);
+      if (bucket == null) {
+        bucket = fresh;
+      }
+    }
+    return bucket;
+  }
+
+  private static void release(TokenBucket bucket) {
+    if (bucket != null) {
+      bucket.release();
+    }
+  }
+
+  interface Clock {
+    long nanoTime();
+  }
+
+  private static final class Rate {
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    Rate(double permitsPerSecond, int burst) {
+      this.permitsPerSecond = permitsPerSecond;
+      this.burst = burst;
+    }
+
+    TokenBucket bucket(long now) {
+      return new TokenBucket(permitsPerSecond, burst, now);
+    }
+  }
+
+  /**
+   * Builder class for {@link RateLimitFilter}.
+   */
+  public static final class Builder {
+
+    private static final int DEFAULT_MAX_EXCEPTION_CLASSES = 1000;
+
+    private Clock clock;
+
+    private double globalRate;
+
+    private int globalBurst;
+
+    private final Map<Level, Rate> levelRates;
+
+    private final Map<Class<?>, Rate> exceptionRates;
+
+    private double defaultExceptionRate;
+
+    private int defaultExceptionBurst;
+
+    private int maxExceptionClasses;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.clock = new Clock() {
+        @Override
+        public long nanoTime() {
+          return System.nanoTime();
+        }
+      };
+      this.levelRates = new EnumMap<>(Level.class);
+      this.exceptionRates = new HashMap<>();
+      this.maxExceptionClasses = DEFAULT_MAX_EXCEPTION_CLASSES;
+    }
+
+    /**
+     * The rate of all the occurrences.
+     *
+     * @param permitsPerSecond the occurrences allowed per second.
+     * @param burst the occurrences allowed at once after being idle.
+     * @return the builder instance.
+     */
+    public Builder globalRate(double permitsPerSecond, int burst) {
+      validate(permitsPerSecond, burst);
+      this.globalRate = permitsPerSecond;
+      this.globalBurst = burst;
+      return this;
+    }
+
+    /**
+     * The rate of the occurrences of a level.
+     *
+     * @param level the level.
+     * @param permitsPerSecond the occurrences allowed per second.
+     * @param burst the occurrences allowed at once after being idle.
+     * @return the builder instance.
+     */
+    public Builder levelRate(Level level, double permitsPerSecond, int burst) {
+      validate(permitsPerSecond, burst);
+      this.levelRates.put(level, new Rate(permitsPerSecond, burst));
+      return this;
+    }
+
+    /**
+     * The rate of the occurrences of an exception class. Subclasses are not included.
+     *
+     * @param exceptionClass the exception class.
+     * @param permitsPerSecond the occurrences allowed per second.
+     * @param burst the occurrences allowed at once after being idle.
+     * @return the builder instance.
+     */
+    public Builder exceptionRate(Class<? extends Throwable> exceptionClass,
+        double permitsPerSecond, int burst) {
+      validate(permitsPerSecond, burst);
+      this.exceptionRates.put(exceptionClass, new Rate(permitsPerSecond, burst));
+      return this;
+    }
+
+    /**
+     * The rate applied to every exception class without its own
+     * {@link #exceptionRate(Class, double, int) rate}, each class having its own bucket.
+     *
+     * @param permitsPerSecond the occurrences allowed per second.
+     * @param burst the occurrences allowed at once after being idle.
+     * @return the builder instance.
+     */
+    public Builder defaultExceptionRate(double permitsPerSecond, int burst) {
+      validate(permitsPerSecond, burst);
+      this.defaultExceptionRate = permitsPerSecond;
+      this.defaultExceptionBurst = burst;
+      return this;
+    }
+
+    /**
+     * The maximum number of exception classes tracked with the
+     * {@link #defaultExceptionRate(double, int) default exception rate}.
+     *
+     * @param maxExceptionClasses the maximum number of exception classes.
+     * @return the builder instance.
+     */
+    public Builder maxExceptionClasses(int maxExceptionClasses) {
+      if (maxExceptionClasses < 0) {
+        throw new IllegalArgumentException("The maximum exception classes can not be negative");
+      }
+      this.maxExceptionClasses = maxExceptionClasses;
+      return this;
+    }
+
+    Builder clock(Clock clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    /**
+     * Builds the {@link RateLimitFilter rate limit filter}.
+     *
+     * @return the rate limit filter.
+     */
+    public RateLimitFilter build() {
+      return new RateLimitFilter(this);
+    }
+
+    private static void validate(double permitsPerSecond, int burst) {
+      if (permitsPerSecond <= 0) {
+        throw new IllegalArgumentException("The rate must be positive");
+      }
+      if (burst < 1) {
+        throw new IllegalArgumentException("The burst must be at least 1");
+      }
+    }
+  }
+}
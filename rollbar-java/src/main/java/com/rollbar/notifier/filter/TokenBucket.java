@@ -0,0 +1,58 @@
+package com.rollbar.notifier.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. It is implemented as a generic cell rate algorithm, keeping only the
+ * theoretical arrival time of the next permit, so acquiring a permit is a single compare and set
+ * and does not allocate.
+ */
+final class TokenBucket {
+
+  private final long emissionInterval;
+
+  private final long tolerance;
+
+  private final AtomicLong theoreticalArrival;
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  TokenBucket(double permitsPerSecond, int burst, long now) {
+    this.emissionInterval = Math.max(1L,
+        (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    this.tolerance = emissionInterval * burst;
+    this.theoreticalArrival = new AtomicLong(now);
+  }
+
+  /**
+   * Takes a permit from the bucket.
+   *
+   * @param now the current time in nanos.
+   * @return true if the permit was granted, false if the bucket is empty.
+   */
+  boolean tryAcquire(long now) {
+    while (true) {
+      long current = theoreticalArrival.get();
+      long next = (current - now > 0 ? current : now) + emissionInterval;
+      if (next - now > tolerance) {
+        rejected.incrementAndGet();
+        return false;
+      }
+      if (theoreticalArrival.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives back a permit taken from the bucket, e.g. when the occurrence is rejected by another one.
+   */
+  void release() {
+    theoreticalArrival.addAndGet(-emissionInterval);
+  }
+
+  long getRejected() {
+    return rejected.get();
+  }
+}
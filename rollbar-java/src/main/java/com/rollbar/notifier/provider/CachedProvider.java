@@ -0,0 +1,260 @@
+package com.rollbar.notifier.provider;
+
+import com.rollbar.notifier.provider.timestamp.TimestampProvider;
+import com.rollbar.notifier.util.ObjectsUtils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Provider} decorator that caches the value of another provider for a time to live, so
+ * sections that rarely change are not computed for every occurrence. Any provider of the config
+ * can be wrapped, except the ones bound to the calling thread like the request or the person.
+ *
+ * <p>Once the value expires it is refreshed on the calling thread, or, with the async refresh
+ * enabled, the expired value keeps being returned while a single background refresh runs.</p>
+ *
+ * @param <T> the type of the value.
+ */
+public class CachedProvider<T> implements Provider<T> {
+
+  /**
+   * Value used to indicate that the value never expires.
+   */
+  public static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CachedProvider.class);
+
+  private final Provider<T> delegate;
+
+  private final long ttl;
+
+  private final boolean asyncRefresh;
+
+  private final Executor executor;
+
+  private final Provider<Long> timestamp;
+
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  private final Object loadLock = new Object();
+
+  private volatile Entry<T> entry;
+
+  private CachedProvider(Builder<T> builder) {
+    this.delegate = builder.delegate;
+    this.ttl = builder.ttl;
+    this.asyncRefresh = builder.asyncRefresh;
+    this.executor = builder.executor != null ? builder.executor : RefreshExecutor.INSTANCE;
+    this.timestamp = builder.timestamp;
+  }
+
+  /**
+   * Wraps a provider caching its value for a time to live, refreshing it in the background.
+   *
+   * @param delegate the provider to cache.
+   * @param ttl the time to live in millis.
+   * @param <T> the type of the value.
+   * @return the cached provider.
+   */
+  public static <T> CachedProvider<T> cached(Provider<T> delegate, long ttl) {
+    return new Builder<>(delegate).ttl(ttl).asyncRefresh(true).build();
+  }
+
+  @Override
+  public T provide() {
+    Entry<T> current = this.entry;
+    if (current == null) {
+      return load();
+    }
+
+    long now = timestamp.provide();
+    if (!current.isExpired(now, ttl)) {
+      return current.value;
+    }
+
+    if (asyncRefresh) {
+      scheduleRefresh();
+      return current.value;
+    }
+    return refresh(current);
+  }
+
+  /**
+   * Discards the cached value so it is computed again on the next call.
+   */
+  public void invalidate() {
+    this.entry = null;
+  }
+
+  private T load() {
+    synchronized (loadLock) {
+      Entry<T> current = this.entry;
+      if (current == null) {
+        current = new Entry<>(delegate.provide(), timestamp.provide());
+        this.entry = current;
+      }
+      return current.value;
+    }
+  }
+
+  private T refresh(Entry<T> expired) {
+    synchronized (loadLock) {
+      Entry<T> current = this.entry;
+      if (current == null || current == expired) {
+        try {
+          current = new Entry<>(delegate.provide(), timestamp.provide());
+          this.entry = current;
+        } catch (RuntimeException e) {
+          if (current == null) {
+            throw e;
+          }
+          LOGGER.warn("Error refreshing the cached value, keeping the expired one.", e);
+        }
+      }
+      return current.value;
+    }
+  }
+
+  private void scheduleRefresh() {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+
+    final Entry<T> expired = this.entry;
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            refresh(expired);
+          } catch (Exception e) {
+            LOGGER.warn("Error refreshing the cached value.", e);
+          } finally {
+            refreshing.set(false);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      refreshing.set(false);
+      LOGGER.debug("Refresh of the cached value rejected.");
+    }
+  }
+
+  private static final class Entry<T> {
+    private final T value;
+
+    private final long created;
+
+    Entry(T value, long created) {
+      this.value = value;
+      this.created = created;
+    }
+
+    boolean isExpired(long now, long ttl) {
+      return ttl != NEVER_EXPIRES && now - created >= ttl;
+    }
+  }
+
+  private static final class RefreshExecutor {
+    private static final ExecutorService INSTANCE =
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable);
+            thread.setName("rollbar-provider_refresh");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+  }
+
+  /**
+   * Builder class for {@link CachedProvider}.
+   *
+   * @param <T> the type of the value.
+   */
+  public static final class Builder<T> {
+
+    private final Provider<T> delegate;
+
+    private long ttl;
+
+    private boolean asyncRefresh;
+
+    private Executor executor;
+
+    private Provider<Long> timestamp;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate the provider to cache.
+     */
+    public Builder(Provider<T> delegate) {
+      ObjectsUtils.requireNonNull(delegate, "The provider to cache can not be null");
+      this.delegate = delegate;
+      this.ttl = NEVER_EXPIRES;
+      this.asyncRefresh = false;
+      this.timestamp = new TimestampProvider();
+    }
+
+    /**
+     * The time to live of the value in millis.
+     *
+     * @param ttl the time to live in millis, or {@link #NEVER_EXPIRES}.
+     * @return the builder instance.
+     */
+    public Builder<T> ttl(long ttl) {
+      if (ttl <= 0) {
+        throw new IllegalArgumentException("The time to live must be positive");
+      }
+      this.ttl = ttl;
+      return this;
+    }
+
+    /**
+     * Whether the expired values are refreshed in the background instead of on the calling
+     * thread.
+     *
+     * @param asyncRefresh true to refresh the values in the background.
+     * @return the builder instance.
+     */
+    public Builder<T> asyncRefresh(boolean asyncRefresh) {
+      this.asyncRefresh = asyncRefresh;
+      return this;
+    }
+
+    /**
+     * The executor where the background refreshes run. Defaults to a single daemon thread shared
+     * by all the cached providers.
+     *
+     * @param executor the executor.
+     * @return the builder instance.
+     */
+    public Builder<T> executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    Builder<T> timestamp(Provider<Long> timestamp) {
+      this.timestamp = timestamp;
+      return this;
+    }
+
+    /**
+     * Builds the {@link CachedProvider cached provider}.
+     *
+     * @return the cached provider.
+     */
+    public CachedProvider<T> build() {
+      return new CachedProvider<>(this);
+    }
+  }
+}
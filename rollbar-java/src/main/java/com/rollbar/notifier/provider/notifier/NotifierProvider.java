@@ -4,7 +4,8 @@ import com.rollbar.api.payload.data.Notifier;
 import com.rollbar.notifier.provider.Provider;
 
 /**
- * Default implementation to provide the {@link Notifier}.
+ * Default implementation to provide the {@link Notifier}. The notifier is built once and the
+ * same instance is returned for every occurrence.
  */
 public class NotifierProvider implements Provider<Notifier> {
 
@@ -1,26 +1,60 @@
 package com.rollbar.notifier.provider.server;
 
 import com.rollbar.api.payload.data.Server;
+import com.rollbar.notifier.provider.CachedProvider;
 import com.rollbar.notifier.provider.Provider;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Server provider that populates the server's hostname.
+ * Server provider that populates the server's hostname. The hostname lookup can be slow on hosts
+ * without a working reverse DNS, so it is cached and refreshed in the background once expired.
  */
 public class ServerProvider implements Provider<Server> {
+
+  /**
+   * The default time to live of the hostname in millis.
+   */
+  public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5);
+
+  private final Provider<Server> cached;
+
+  /**
+   * Constructor.
+   */
+  public ServerProvider() {
+    this(DEFAULT_TTL);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param ttl the time to live of the hostname in millis.
+   */
+  public ServerProvider(long ttl) {
+    this.cached = CachedProvider.cached(new HostProvider(), ttl);
+  }
+
   @Override
   public Server provide() {
-    try {
-      InetAddress host = InetAddress.getLocalHost();
-      return new Server.Builder()
-              .host(host.getHostName())
-              .build();
-    } catch (UnknownHostException e) {
-      return new Server.Builder()
-              .host("localhost")
-              .build();
+    return cached.provide();
+  }
+
+  private static final class HostProvider implements Provider<Server> {
+    @Override
+    public Server provide() {
+      try {
+        InetAddress host = InetAddress.getLocalHost();
+        return new Server.Builder()
+                .host(host.getHostName())
+                .build();
+      } catch (UnknownHostException e) {
+        return new Server.Builder()
+                .host("localhost")
+                .build();
+      }
     }
   }
 }
@@ -1,19 +1,42 @@
 package com.rollbar.notifier.sender;
 
 import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
 import com.rollbar.notifier.sender.exception.SenderException;
 import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.queue.JournalQueue;
+import com.rollbar.notifier.sender.queue.PriorityLaneQueue;
+import com.rollbar.notifier.sender.queue.RingBufferQueue;
+import com.rollbar.notifier.sender.result.FlushResult;
 import com.rollbar.notifier.sender.result.Response;
 import com.rollbar.notifier.util.ObjectsUtils;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,16 +51,38 @@ public class BufferedSender implements Sender {
   private static final long DEFAULT_FLUSH_FREQ = TimeUnit.SECONDS.toMillis(5);
   private static final long DEFAULT_INITIAL_FLUSH_DELAY = DEFAULT_FLUSH_FREQ;
 
+  /**
+   * The max latency of the buffered sender the notifier builds when no sender is configured.
+   */
+  public static final long DEFAULT_MAX_LATENCY = DEFAULT_FLUSH_FREQ;
+
+  private static final int DEFAULT_FLUSH_SIZE = 20;
+
   // We only retry payloads when we suspect the failure is caused by the network being unavailable,
   // so it makes sense to keep this high. In the case of android for example, when users enable
   // connectivity detection, sending occurrences is suspended for up to 5 minutes when the network
   // is down. So 30 retries gives us 2.5 hours of downtime before a payload is discarded.
   private static final int DEFAULT_MAX_SEND_ATTEMPT_COUNT = 30;
 
+  private static final int DEFAULT_MAX_IN_FLIGHT = 1;
+
+  // Idle worker threads are stopped after this time, so a quiet application holds no threads.
+  private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+  // Bounds the shutdown even if the endpoint never responds, as the sender may set no timeouts.
+  private static final long DEFAULT_CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+  private static final int DEFAULT_REPLAY_RATE = 20;
+
+  // The spool is replayed in at most this many batches per second.
+  private static final int MAX_REPLAY_BATCHES = 100;
+
   private final int batchSize;
 
   private final int maxSendAttemptCount;
 
+  private final long closeTimeout;
+
   private Sender sender;
 
   private Queue<Payload> queue;
@@ -46,8 +91,34 @@ public class BufferedSender implements Sender {
 
   private ScheduledExecutorService executorService;
 
+  private ExecutorService workerService;
+
   private SendTask sendTask;
 
+  // The payloads to retry, until their retry delay expires.
+  private final DelayQueue<Retry> retries = new DelayQueue<>();
+
+  // Flushes the queue on demand, or null to flush it every flushFreq.
+  private FlushScheduler flushScheduler;
+
+  // The payloads left at close, replayed once the next sender is built, or null.
+  private JournalQueue spool;
+
+  // Held moving a payload between the spool and the queue.
+  private final Object spoolLock = new Object();
+
+  // Guarded by spoolLock.
+  private boolean spoolClosed;
+
+  // A flush at a time.
+  private final Object flushLock = new Object();
+
+  // Registered with the sender on the first flush. Guarded by flushLock.
+  private boolean flushListenerAdded;
+
+  // Counts the outcomes while flushing, or null.
+  private volatile FlushCounter flushCounter;
+
   private static Logger LOGGER = LoggerFactory.getLogger(BufferedSender.class);
 
   BufferedSender(Builder builder) {
@@ -60,22 +131,67 @@ public class BufferedSender implements Sender {
 
     this.batchSize = builder.batchSize;
     this.maxSendAttemptCount = DEFAULT_MAX_SEND_ATTEMPT_COUNT;
+    this.closeTimeout = builder.closeTimeout;
     this.sender = builder.sender;
     this.queue = builder.queue;
     this.senderFailureStrategy = builder.senderFailureStrategy;
 
+    RingBufferQueue.DropListener dropListener = new RingBufferQueue.DropListener() {
+      @Override
+      public void onDrop(Payload payload) {
+        notifyError(payload, new SenderException(new IllegalStateException("Queue full")));
+      }
+    };
+    if (this.queue instanceof RingBufferQueue) {
+      ((RingBufferQueue) this.queue).setDropListener(dropListener);
+    } else if (this.queue instanceof PriorityLaneQueue) {
+      ((PriorityLaneQueue) this.queue).setDropListener(dropListener);
+    }
+
     if (this.senderFailureStrategy != null) {
       FailureListener failureListener = new FailureListener(builder.senderFailureStrategy);
       this.sender.addListener(failureListener);
     }
 
-    this.sendTask = new SendTask(batchSize, queue, sender, this.senderFailureStrategy);
+    if (builder.maxInFlight > 1) {
+      ThreadPoolExecutor workers = new ThreadPoolExecutor(builder.maxInFlight,
+          builder.maxInFlight, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new SenderThreadFactory("rollbar-buffered_sender-worker"));
+      workers.allowCoreThreadTimeOut(true);
+      this.workerService = workers;
+      this.sendTask = new SendTask(batchSize, queue, sender, this.senderFailureStrategy,
+          retries, workers, builder.maxInFlight);
+    } else {
+      this.sendTask = new SendTask(batchSize, queue, sender, this.senderFailureStrategy,
+          retries, null, 1);
+    }
 
     // Schedule executor service to send events in background with a thread factory that sets the
     // thread as daemons to allow the jvm exit.
     this.executorService =  executorService;
-    this.executorService.scheduleWithFixedDelay(this.sendTask,
-        builder.initialFlushDelay, builder.flushFreq, TimeUnit.MILLISECONDS);
+    if (builder.maxLatency > 0) {
+      this.flushScheduler = new FlushScheduler(builder.flushSize,
+          TimeUnit.MILLISECONDS.toNanos(builder.maxLatency));
+    } else {
+      this.executorService.scheduleWithFixedDelay(this.sendTask,
+          builder.initialFlushDelay, builder.flushFreq, TimeUnit.MILLISECONDS);
+    }
+
+    if (builder.spoolFolder != null) {
+      try {
+        this.spool = new JournalQueue.Builder().queueFolder(builder.spoolFolder).build();
+      } catch (IllegalStateException e) {
+        LOGGER.error("Could not open the spool, the payloads left at close will be lost.", e);
+      }
+      if (this.spool != null && !this.spool.isEmpty()) {
+        LOGGER.info("Replaying {} payloads spooled at the last close.", this.spool.size());
+        ReplayTask replay = new ReplayTask(Math.max(1, builder.replayRate / MAX_REPLAY_BATCHES));
+        long period = TimeUnit.SECONDS.toNanos(1) * replay.batchSize / builder.replayRate;
+        replay.future = this.executorService.scheduleAtFixedRate(replay, period, period,
+            TimeUnit.NANOSECONDS);
+      }
+    }
   }
 
   /**
@@ -103,6 +219,10 @@ public class BufferedSender implements Sender {
       queue.add(payload);
     } catch (Exception e) {
       notifyError(payload, new SenderException(e));
+      return;
+    }
+    if (flushScheduler != null) {
+      flushScheduler.added(payload);
     }
   }
 
@@ -116,22 +236,100 @@ public class BufferedSender implements Sender {
     return sender.getListeners();
   }
 
+  /**
+   * Closes the sender: no more payloads are taken from the queue and, if there is a spool, the
+   * ones in flight are waited for, up to the {@link Builder#closeTimeout(long) close timeout}, and
+   * the payloads left are spooled before the underlying sender is closed.
+   */
   @Override
   public void close() throws IOException {
-    if (this.senderFailureStrategy != null) {
-      this.senderFailureStrategy.close();
+    close(System.nanoTime());
+  }
+
+  /**
+   * Sends the queued payloads from the sender thread, so they are not taken concurrently by the
+   * scheduled sends, until the queue is empty, sending is
+   * {@link SenderFailureStrategy#isSendingSuspended() suspended} or the timeout elapses. The
+   * payloads waiting to be retried are not sent before they are due. Once the timeout elapses,
+   * the payloads in flight are still sent, and counted as remaining, but no more are taken.
+   */
+  @Override
+  public FlushResult flush(long timeout, TimeUnit unit) throws InterruptedException {
+    long start = System.nanoTime();
+    synchronized (flushLock) {
+      if (!flushListenerAdded) {
+        sender.addListener(new FlushListener());
+        flushListenerAdded = true;
+      }
+      FlushCounter counter = new FlushCounter();
+      flushCounter = counter;
+      try {
+        sendQueue(start + unit.toNanos(timeout));
+      } finally {
+        flushCounter = null;
+      }
+      return new FlushResult.Builder()
+          .sent(counter.sent.get())
+          .failed(counter.failed.get())
+          .remaining(queue.size() + retries.size() + sendTask.inFlightCount())
+          .bytes(counter.bytes.get())
+          .elapsed(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+          .build();
     }
-    this.executorService.shutdown();
-    this.sender.close();
   }
 
   @Override
   public void close(boolean wait) throws Exception {
+    long start = System.nanoTime();
     if (wait) {
       this.flushQueue();
     }
 
-    this.close();
+    this.close(start);
+  }
+
+  private void close(long start) throws IOException {
+    if (this.senderFailureStrategy != null) {
+      this.senderFailureStrategy.close();
+    }
+    if (this.flushScheduler != null) {
+      this.flushScheduler.cancel();
+    }
+    this.sendTask.stop();
+    this.executorService.shutdown();
+    if (this.workerService != null) {
+      this.workerService.shutdown();
+    }
+    if (spool != null) {
+      // The payloads in flight can still fail and be put back to be retried, so they are spooled.
+      if (!awaitTermination(start)) {
+        LOGGER.warn("Closing with {} payloads still in flight.", sendTask.inFlightCount());
+      }
+      spoolBacklog();
+    }
+    this.sender.close();
+    if (this.queue instanceof Closeable) {
+      ((Closeable) this.queue).close();
+    }
+  }
+
+  private boolean awaitTermination(long start) {
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(closeTimeout);
+    try {
+      for (ExecutorService executor : new ExecutorService[] {executorService, workerService}) {
+        if (executor == null) {
+          continue;
+        }
+        long timeout = Math.max(0, deadline - System.nanoTime());
+        if (!executor.awaitTermination(timeout, TimeUnit.NANOSECONDS)) {
+          return false;
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
   }
 
   private void notifyError(Payload payload, Exception e) {
@@ -140,10 +338,95 @@ public class BufferedSender implements Sender {
     }
   }
 
-  private void flushQueue() {
-    while (queue.size() > 0) {
-      this.sendTask.run();
+  private void flushQueue() throws Exception {
+    FlushResult result = flush(closeTimeout, TimeUnit.MILLISECONDS);
+    if (!result.isComplete()) {
+      LOGGER.warn("Could not send the queue in {} ms, {} payloads left.", closeTimeout,
+          result.getRemaining());
+    }
+  }
+
+  private void sendQueue(long deadline) throws InterruptedException {
+    final AtomicBoolean stopped = new AtomicBoolean();
+    Future<?> task;
+    try {
+      task = executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            sendQueue(stopped);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("The sender is closed, the queue is not sent.");
+      return;
+    }
+    try {
+      task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      LOGGER.error("Error sending the queue.", e.getCause());
+    } catch (TimeoutException e) {
+      // Not interrupted, the payloads in flight are still sent.
+    } finally {
+      stopped.set(true);
+    }
+  }
+
+  private void sendQueue(AtomicBoolean stopped) throws InterruptedException {
+    // The payloads in flight can be put back in the queue to be retried.
+    do {
+      while (queue.size() > 0) {
+        if (stopped.get() || sendTask.stopped
+            || senderFailureStrategy != null && senderFailureStrategy.isSendingSuspended()) {
+          // Left to the spool, if any.
+          return;
+        }
+        this.sendTask.run(stopped);
+      }
+      this.sendTask.awaitInFlight();
+    } while (queue.size() > 0);
+  }
+
+  private void spoolBacklog() {
+    if (spool == null) {
+      return;
+    }
+    int spooled;
+    synchronized (spoolLock) {
+      spoolClosed = true;
+      spooled = spoolBacklog(spool);
+    }
+    if (spooled > 0) {
+      LOGGER.info("Spooled {} payloads to send once the next sender is built.", spooled);
+    }
+  }
+
+  private int spoolBacklog(JournalQueue spool) {
+    int spooled = 0;
+    try {
+      // The payloads waiting to be retried were taken from the queue before the ones left in it.
+      List<Retry> pending = new ArrayList<>(retries);
+      retries.clear();
+      for (Retry retry : pending) {
+        if (spool.offer(retry.payload)) {
+          spooled++;
+        }
+      }
+      Payload payload;
+      while ((payload = queue.poll()) != null) {
+        if (spool.offer(payload)) {
+          spooled++;
+        }
+      }
+    } catch (RuntimeException e) {
+      LOGGER.error("Error spooling the payloads left.", e);
+    } finally {
+      spool.close();
     }
+    return spooled;
   }
 
   /**
@@ -162,6 +445,18 @@ public class BufferedSender implements Sender {
 
     private SenderFailureStrategy senderFailureStrategy;
 
+    private int maxInFlight;
+
+    private long maxLatency;
+
+    private int flushSize;
+
+    private long closeTimeout;
+
+    private File spoolFolder;
+
+    private int replayRate;
+
     /**
      * Constructor.
      */
@@ -170,6 +465,11 @@ public class BufferedSender implements Sender {
       this.initialFlushDelay = DEFAULT_INITIAL_FLUSH_DELAY;
       this.flushFreq = DEFAULT_FLUSH_FREQ;
       this.sender = null;
+      this.maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+      this.maxLatency = 0;
+      this.flushSize = DEFAULT_FLUSH_SIZE;
+      this.closeTimeout = DEFAULT_CLOSE_TIMEOUT;
+      this.replayRate = DEFAULT_REPLAY_RATE;
     }
 
     /**
@@ -203,7 +503,10 @@ public class BufferedSender implements Sender {
     }
 
     /**
-     * The queue.
+     * The queue. Default: a {@link PriorityLaneQueue} with its default lane capacity, which sends
+     * the payloads with higher levels first and drops the payloads sent while their lane is full.
+     * The payloads a {@link RingBufferQueue} or a {@link PriorityLaneQueue} drops to make room for
+     * others are notified to the listeners as errors.
      * @param queue the queue.
      * @return the builder instance.
      */
@@ -232,14 +535,102 @@ public class BufferedSender implements Sender {
       return this;
     }
 
+    /**
+     * The maximum number of payloads being sent at the same time. Above 1, each payload is sent
+     * from a pool of as many worker threads, so the {@link Sender sender} and its listeners have
+     * to be thread-safe. Default: 1, the payloads are sent one at a time from the thread flushing
+     * the queue.
+     * @param maxInFlight the maximum number of payloads in flight.
+     * @return the builder instance.
+     */
+    public Builder maxInFlight(int maxInFlight) {
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * The maximum time in millis a payload waits in the queue before it is flushed. When set,
+     * the queue is flushed on demand instead of every {@link #flushFreq(long) flush frequency}:
+     * once the oldest payload waited this long, as soon as the queue holds the
+     * {@link #flushSize(int) flush size}, and right away for critical and uncaught payloads. An
+     * idle sender then does not wake up at all. Default: 0, the queue is flushed every flush
+     * frequency.
+     * @param maxLatency the max latency in millis.
+     * @return the builder instance.
+     */
+    public Builder maxLatency(long maxLatency) {
+      this.maxLatency = maxLatency;
+      return this;
+    }
+
+    /**
+     * The number of payloads in the queue that triggers a flush, with a
+     * {@link #maxLatency(long) max latency}. Default: 20.
+     * @param flushSize the flush size.
+     * @return the builder instance.
+     */
+    public Builder flushSize(int flushSize) {
+      this.flushSize = flushSize;
+      return this;
+    }
+
+    /**
+     * The maximum time in millis {@link BufferedSender#close(boolean) closing} the sender waits
+     * for the queue to be sent. The payloads left are spooled to the
+     * {@link #spoolFolder(File) spool folder}, if any, once the payloads in flight are waited for
+     * within the same time. Default: 5 seconds.
+     * @param closeTimeout the close timeout in millis.
+     * @return the builder instance.
+     */
+    public Builder closeTimeout(long closeTimeout) {
+      this.closeTimeout = closeTimeout;
+      return this;
+    }
+
+    /**
+     * The folder the payloads left when the sender is closed are spooled to, in a
+     * {@link JournalQueue}. They are replayed through the queue, at the
+     * {@link #replayRate(int) replay rate}, by the next sender built with the same folder.
+     * Default: none, the payloads left are discarded.
+     * @param spoolFolder the spool folder.
+     * @return the builder instance.
+     */
+    public Builder spoolFolder(File spoolFolder) {
+      this.spoolFolder = spoolFolder;
+      return this;
+    }
+
+    /**
+     * The number of spooled payloads moved to the queue per second. Default: 20.
+     * @param replayRate the payloads per second.
+     * @return the builder instance.
+     */
+    public Builder replayRate(int replayRate) {
+      this.replayRate = replayRate;
+      return this;
+    }
+
     /**
      * Builds the {@link BufferedSender buffered sender}.
      *
      * @return the buffered sender.
      */
     public BufferedSender build() {
+      if (this.maxInFlight < 1) {
+        throw new IllegalArgumentException("The max in flight payloads must be at least 1");
+      }
+      if (this.maxLatency < 0 || this.flushSize < 1) {
+        throw new IllegalArgumentException(
+            "The max latency can not be negative and the flush size must be at least 1");
+      }
+      if (this.replayRate < 1) {
+        throw new IllegalArgumentException("The replay rate must be at least 1");
+      }
+      if (this.closeTimeout < 0) {
+        throw new IllegalArgumentException("The close timeout can not be negative");
+      }
       if (this.queue == null) {
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.queue = new PriorityLaneQueue.Builder().build();
       }
       if (this.sender == null) {
         this.sender = new SyncSender.Builder().build();
@@ -257,29 +648,77 @@ public class BufferedSender implements Sender {
 
     private final SenderFailureStrategy senderFailureStrategy;
 
+    // The payloads to retry, queued again once due, or null.
+    private final DelayQueue<Retry> retries;
+
+    // The workers the payloads are sent from, or null to send them from this task.
+    private final Executor workers;
+
+    private final int maxInFlight;
+
+    private final Semaphore inFlight;
+
+    // Set once the sender is closed, no more payloads are taken.
+    private volatile boolean stopped;
+
     public SendTask(int batchSize, Queue<Payload> queue, Sender sender,
                     SenderFailureStrategy senderFailureStrategy) {
+      this(batchSize, queue, sender, senderFailureStrategy, null, null, 1);
+    }
+
+    SendTask(int batchSize, Queue<Payload> queue, Sender sender,
+             SenderFailureStrategy senderFailureStrategy, DelayQueue<Retry> retries,
+             Executor workers, int maxInFlight) {
       this.batchSize = batchSize;
       this.queue = queue;
       this.sender = sender;
       this.senderFailureStrategy = senderFailureStrategy;
+      this.retries = retries;
+      this.workers = workers;
+      this.maxInFlight = maxInFlight;
+      this.inFlight = new Semaphore(maxInFlight);
     }
 
     @Override
     public void run() {
+      run(null);
+    }
+
+    /**
+     * Sends a batch of payloads, unless stopped before taking each one.
+     *
+     * @param stopped the flag to stop taking payloads, or null.
+     */
+    // Synchronized, the queue sent at close from the closing thread is not taken concurrently by
+    // the scheduled runs.
+    synchronized void run(AtomicBoolean stopped) {
       Payload payload = null;
       int numberOfSent = 0;
 
       try {
-        while (numberOfSent < batchSize && (payload = getItemFromQueue()) != null) {
+        requeueDueRetries();
+
+        // The queue is only polled from here, one payload per free slot, so a payload is never
+        // taken once sending is suspended by the failure of another one in flight.
+        while (numberOfSent < batchSize && !this.stopped && (stopped == null || !stopped.get())
+            && acquireSlot()) {
+          Payload next = null;
           try {
-            payload.incrementSendAttemptCount();
-            sender.send(payload);
-          } catch (Exception e) {
-            // Swallow it. The sender should notify of errors by itself and don't propagate them.
-            // The result is that the payload is discarded.
+            next = getItemFromQueue();
           } finally {
-            ++numberOfSent;
+            if (next == null) {
+              inFlight.release();
+            }
+          }
+          if (next == null) {
+            break;
+          }
+          payload = next;
+          ++numberOfSent;
+          if (workers == null) {
+            send(payload);
+          } else if (!dispatch(payload)) {
+            break;
           }
         }
       } catch (Exception e) {
@@ -304,6 +743,91 @@ public class BufferedSender implements Sender {
       }
     }
 
+    /**
+     * Waits until the payloads in flight are sent.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    void awaitInFlight() throws InterruptedException {
+      inFlight.acquire(maxInFlight);
+      inFlight.release(maxInFlight);
+    }
+
+    /**
+     * Stops taking payloads, for good.
+     */
+    void stop() {
+      stopped = true;
+    }
+
+    /**
+     * Get the number of payloads being sent.
+     *
+     * @return the number of payloads.
+     */
+    int inFlightCount() {
+      return maxInFlight - inFlight.availablePermits();
+    }
+
+    private void requeueDueRetries() {
+      if (retries == null) {
+        return;
+      }
+      Retry retry;
+      while ((retry = retries.poll()) != null) {
+        if (!queue.offer(retry.payload)) {
+          for (SenderListener senderListener : sender.getListeners()) {
+            senderListener.onError(retry.payload,
+                new SenderException(new IllegalStateException("Queue full")));
+          }
+        }
+      }
+    }
+
+    private boolean acquireSlot() {
+      try {
+        inFlight.acquire();
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    private void send(Payload payload) {
+      try {
+        payload.incrementSendAttemptCount();
+        sender.send(payload);
+      } catch (Exception e) {
+        // Swallow it. The sender should notify of errors by itself and don't propagate them.
+        // The result is that the payload is discarded.
+      } finally {
+        inFlight.release();
+      }
+    }
+
+    private boolean dispatch(final Payload payload) {
+      try {
+        workers.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              send(payload);
+            } catch (Throwable e) {
+              // Same as a fatal error on the task, but the worker thread is replaced.
+              LOGGER.error("Fatal error sending the payload.", e);
+            }
+          }
+        });
+        return true;
+      } catch (RejectedExecutionException e) {
+        // The sender is closed, the payload is kept in the queue.
+        inFlight.release();
+        queue.add(payload);
+        return false;
+      }
+    }
+
     private Payload getItemFromQueue() {
       if (isSuspended()) {
         return null;
@@ -320,17 +844,198 @@ public class BufferedSender implements Sender {
     }
   }
 
+  /**
+   * Schedules a single flush of the queue at a time, at the earliest deadline of the payloads
+   * added since the last one.
+   */
+  final class FlushScheduler implements Runnable {
+
+    private final int flushSize;
+
+    private final long maxLatencyNanos;
+
+    private final Object lock = new Object();
+
+    // Written under the lock, read without it when a payload is added.
+    private volatile boolean scheduled;
+
+    private volatile long deadline;
+
+    private ScheduledFuture<?> flush;
+
+    FlushScheduler(int flushSize, long maxLatencyNanos) {
+      this.flushSize = flushSize;
+      this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    void added(Payload payload) {
+      long now = System.nanoTime();
+      // Most payloads find a flush already due before their own deadline.
+      if (scheduled && deadline - now <= 0) {
+        return;
+      }
+      long due = isUrgent(payload) || queue.size() >= flushSize ? now : now + maxLatencyNanos;
+      if (scheduled && deadline - due <= 0) {
+        return;
+      }
+      schedule(now, due);
+    }
+
+    @Override
+    public void run() {
+      synchronized (lock) {
+        // The payloads added from now on are not guaranteed to be flushed by this run.
+        scheduled = false;
+        flush = null;
+      }
+      sendTask.run();
+
+      // What is left is flushed later: a full batch right away, unless sending is suspended.
+      long now = System.nanoTime();
+      if (!queue.isEmpty()) {
+        boolean backlog = queue.size() >= flushSize && (senderFailureStrategy == null
+            || !senderFailureStrategy.isSendingSuspended());
+        schedule(now, backlog ? now : now + maxLatencyNanos);
+      }
+      Retry retry = retries.peek();
+      if (retry != null) {
+        schedule(now, retry.due);
+      }
+    }
+
+    void cancel() {
+      synchronized (lock) {
+        if (flush != null) {
+          flush.cancel(false);
+        }
+        scheduled = false;
+      }
+    }
+
+    private void schedule(long now, long due) {
+      synchronized (lock) {
+        if (scheduled && deadline - due <= 0) {
+          return;
+        }
+        if (flush != null) {
+          flush.cancel(false);
+        }
+        try {
+          flush = executorService.schedule(this, Math.max(0, due - now), TimeUnit.NANOSECONDS);
+          deadline = due;
+          scheduled = true;
+        } catch (RejectedExecutionException e) {
+          // The sender is closed.
+          flush = null;
+          scheduled = false;
+        }
+      }
+    }
+
+    private boolean isUrgent(Payload payload) {
+      Data data = payload.getData();
+      return data != null && (data.isUncaught() || data.getLevel() == Level.CRITICAL);
+    }
+  }
+
+  /**
+   * Moves a batch of the spooled payloads to the queue at a time, until the spool is empty.
+   */
+  final class ReplayTask implements Runnable {
+
+    private final int batchSize;
+
+    private volatile ScheduledFuture<?> future;
+
+    ReplayTask(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (int i = 0; i < batchSize; i++) {
+          Payload payload;
+          // A payload is in the spool or the queue when it is spooled at close, never both.
+          synchronized (spoolLock) {
+            payload = spoolClosed ? null : spool.peek();
+            if (payload == null) {
+              if (future != null) {
+                future.cancel(false);
+              }
+              return;
+            }
+            if (!queue.offer(payload)) {
+              // Tried again with the next batch.
+              return;
+            }
+            // The journal takes the record peeked without reading it again.
+            spool.poll();
+          }
+          if (flushScheduler != null) {
+            flushScheduler.added(payload);
+          }
+        }
+      } catch (Exception e) {
+        // The spool is closed, or can not be read.
+        LOGGER.error("Error replaying the spooled payloads.", e);
+        if (future != null) {
+          future.cancel(false);
+        }
+      }
+    }
+  }
+
   static final class SenderThreadFactory implements ThreadFactory {
 
+    private final String name;
+
+    SenderThreadFactory() {
+      this("rollbar-buffered_sender");
+    }
+
+    SenderThreadFactory(String name) {
+      this.name = name;
+    }
+
     @Override
     public Thread newThread(Runnable runnable) {
       Thread thread = new Thread(runnable);
-      thread.setName("rollbar-buffered_sender");
+      thread.setName(name);
       thread.setDaemon(true);
       return thread;
     }
   }
 
+  private static final class FlushCounter {
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private final AtomicLong bytes = new AtomicLong();
+  }
+
+  private class FlushListener implements SenderListener {
+
+    @Override
+    public void onResponse(Payload payload, Response response) {
+      FlushCounter counter = flushCounter;
+      if (counter != null) {
+        counter.sent.incrementAndGet();
+        counter.bytes.addAndGet(response.getBodySize());
+      }
+    }
+
+    @Override
+    public void onError(Payload payload, Exception error) {
+      FlushCounter counter = flushCounter;
+      if (counter != null) {
+        counter.failed.incrementAndGet();
+      }
+    }
+  }
+
   private class FailureListener implements SenderListener {
     private final SenderFailureStrategy senderFailureStrategy;
 
@@ -358,7 +1063,12 @@ public class BufferedSender implements Sender {
           if (tooManySendAttempts(payload)) {
             LOGGER.warn("Discarding payload after " + payload.getSendAttemptCount() + " attempts");
           } else {
-            send(payload);
+            long delay = this.senderFailureStrategy.getRetryDelay(payload);
+            if (delay > 0) {
+              retry(payload, delay);
+            } else {
+              send(payload);
+            }
           }
           break;
         default:
@@ -370,4 +1080,39 @@ public class BufferedSender implements Sender {
   private boolean tooManySendAttempts(Payload payload) {
     return payload.getSendAttemptCount() >= maxSendAttemptCount;
   }
+
+  private void retry(Payload payload, long delayMillis) {
+    long now = System.nanoTime();
+    Retry retry = new Retry(payload, now + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    retries.add(retry);
+    if (flushScheduler != null) {
+      flushScheduler.schedule(now, retry.due);
+    }
+  }
+
+  static final class Retry implements Delayed {
+
+    private final Payload payload;
+
+    private final long due;
+
+    Retry(Payload payload, long due) {
+      this.payload = payload;
+      this.due = due;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      if (other instanceof Retry) {
+        long difference = due - ((Retry) other).due;
+        return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+      }
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
 }
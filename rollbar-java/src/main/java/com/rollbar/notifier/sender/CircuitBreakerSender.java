@@ -0,0 +1,411 @@
+package com.rollbar.notifier.sender;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.exception.ApiException;
+import com.rollbar.notifier.sender.exception.CircuitBreakerOpenException;
+import com.rollbar.notifier.sender.exception.SenderException;
+import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.listener.SenderListenerCollection;
+import com.rollbar.notifier.sender.result.FlushResult;
+import com.rollbar.notifier.sender.result.Response;
+import com.rollbar.notifier.util.ObjectsUtils;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A {@link Sender sender} decorator that stops calling the sender it wraps while the Rollbar API
+ * can not be reached.
+ * </p>
+ * <p>
+ *     The circuit breaker opens after a number of consecutive transport failures, network errors
+ *     or server errors. While open, the payloads are not sent but notified to the listeners as a
+ *     {@link CircuitBreakerOpenException}. Once the open timeout elapses, the next payload is sent
+ *     as a probe, and the others are rejected until its result: a success closes the circuit
+ *     breaker, and a failure opens it again.
+ * </p>
+ * <p>
+ *     Use it with its {@link #failureStrategy() failure strategy} in a {@link BufferedSender}, so
+ *     the payloads wait in the queue while the circuit breaker is open:
+ * </p>
+ * <pre>
+ * CircuitBreakerSender circuitBreaker = new CircuitBreakerSender.Builder(syncSender).build();
+ * Sender sender = new BufferedSender.Builder()
+ *     .sender(circuitBreaker)
+ *     .senderFailureStrategy(circuitBreaker.failureStrategy())
+ *     .build();
+ * </pre>
+ */
+public class CircuitBreakerSender implements Sender {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerSender.class);
+
+  private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+  private static final long DEFAULT_OPEN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+  /**
+   * The states of the circuit breaker.
+   */
+  public enum State {
+    /**
+     * The payloads are sent.
+     */
+    CLOSED,
+    /**
+     * The payloads are not sent.
+     */
+    OPEN,
+    /**
+     * A payload is sent to probe whether the payloads can be sent again.
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * Listener notified of the transitions of the circuit breaker.
+   */
+  public interface StateListener {
+
+    /**
+     * This method is called every time the circuit breaker changes its state.
+     * @param previous the previous state.
+     * @param current the current state.
+     */
+    void onStateChange(State previous, State current);
+  }
+
+  private final Sender sender;
+
+  private final int failureThreshold;
+
+  private final long openTimeoutNanos;
+
+  private final SenderFailureStrategy failureStrategy;
+
+  private final SenderListenerCollection listeners = new SenderListenerCollection();
+
+  private final List<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+
+  private final Object lock = new Object();
+
+  // Written under the lock, read without it when a payload is sent.
+  private volatile State state = State.CLOSED;
+
+  private volatile long openedAt;
+
+  // Guarded by the lock.
+  private int consecutiveFailures;
+
+  private CircuitBreakerSender(Builder builder) {
+    this.sender = builder.sender;
+    this.failureThreshold = builder.failureThreshold;
+    this.openTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.openTimeout);
+    this.failureStrategy = new CircuitBreakerFailureStrategy(builder.senderFailureStrategy);
+    this.sender.addListener(new ResultListener());
+  }
+
+  /**
+   * Get the state of the circuit breaker.
+   *
+   * @return the state.
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Registers a listener to get notifications of the transitions of the circuit breaker.
+   *
+   * @param listener the listener.
+   */
+  public void addStateListener(StateListener listener) {
+    stateListeners.add(listener);
+  }
+
+  /**
+   * Get the {@link SenderFailureStrategy failure strategy} that suspends sending while the circuit
+   * breaker is open, and marks the rejected payloads and the ones that failed to reach the API for
+   * retry.
+   *
+   * @return the failure strategy.
+   */
+  public SenderFailureStrategy failureStrategy() {
+    return failureStrategy;
+  }
+
+  @Override
+  public void send(Payload payload) {
+    if (tryAcquire()) {
+      try {
+        sender.send(payload);
+      } catch (RuntimeException e) {
+        // Not notified by the sender, the outcome of a probe would never be recorded otherwise.
+        LOGGER.error("Error sending the payload.", e);
+        record(true);
+        listeners.onError(payload, new SenderException(e));
+      }
+    } else {
+      LOGGER.debug("Circuit breaker {}, payload not sent.", state);
+      listeners.onError(payload, new SenderException(
+          new CircuitBreakerOpenException("The circuit breaker is " + state)));
+    }
+  }
+
+  @Override
+  public void addListener(SenderListener listener) {
+    listeners.addListener(listener);
+  }
+
+  @Override
+  public List<SenderListener> getListeners() {
+    return listeners.getListeners();
+  }
+
+  @Override
+  public FlushResult flush(long timeout, TimeUnit unit) throws InterruptedException {
+    return sender.flush(timeout, unit);
+  }
+
+  @Override
+  public void close() throws IOException {
+    sender.close();
+  }
+
+  @Override
+  public void close(boolean wait) throws Exception {
+    sender.close(wait);
+  }
+
+  private boolean tryAcquire() {
+    if (state == State.CLOSED) {
+      return true;
+    }
+    synchronized (lock) {
+      if (state == State.CLOSED) {
+        return true;
+      }
+      if (state == State.HALF_OPEN || !isOpenTimeoutElapsed()) {
+        return false;
+      }
+      state = State.HALF_OPEN;
+    }
+    notifyStateChange(State.OPEN, State.HALF_OPEN);
+    return true;
+  }
+
+  private boolean isOpenTimeoutElapsed() {
+    return System.nanoTime() - openedAt >= openTimeoutNanos;
+  }
+
+  private boolean isSuspended() {
+    State current = state;
+    return current == State.HALF_OPEN || (current == State.OPEN && !isOpenTimeoutElapsed());
+  }
+
+  private long remainingOpenMillis() {
+    if (state != State.OPEN) {
+      return 0;
+    }
+    long remaining = openTimeoutNanos - (System.nanoTime() - openedAt);
+    return remaining > 0 ? TimeUnit.NANOSECONDS.toMillis(remaining) : 0;
+  }
+
+  private void record(boolean failure) {
+    State previous;
+    State current;
+    synchronized (lock) {
+      previous = state;
+      if (failure) {
+        consecutiveFailures++;
+        if (previous == State.HALF_OPEN
+            || (previous == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+          openedAt = System.nanoTime();
+          state = State.OPEN;
+        }
+      } else {
+        // The API was reached, even by a payload sent before the circuit breaker opened.
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+      }
+      current = state;
+    }
+    if (previous != current) {
+      notifyStateChange(previous, current);
+    }
+  }
+
+  private void notifyStateChange(State previous, State current) {
+    if (current == State.OPEN) {
+      LOGGER.warn("Circuit breaker opened, payloads not sent for {} ms.",
+          TimeUnit.NANOSECONDS.toMillis(openTimeoutNanos));
+    } else if (current == State.CLOSED) {
+      LOGGER.info("Circuit breaker closed, sending payloads again.");
+    }
+    for (StateListener listener : stateListeners) {
+      try {
+        listener.onStateChange(previous, current);
+      } catch (Exception e) {
+        LOGGER.error("Error notifying the circuit breaker state change.", e);
+      }
+    }
+  }
+
+  static boolean isTransportFailure(Exception error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ApiException) {
+        Response response = ((ApiException) cause).getResponse();
+        return response != null && response.getStatus() >= 500;
+      }
+      if (cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static boolean isRejection(Exception error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof CircuitBreakerOpenException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private final class ResultListener implements SenderListener {
+
+    @Override
+    public void onResponse(Payload payload, Response response) {
+      record(false);
+      listeners.onResponse(payload, response);
+    }
+
+    @Override
+    public void onError(Payload payload, Exception error) {
+      record(isTransportFailure(error));
+      listeners.onError(payload, error);
+    }
+  }
+
+  private final class CircuitBreakerFailureStrategy implements SenderFailureStrategy {
+
+    // The strategy deciding on the payloads sent, or null.
+    private final SenderFailureStrategy delegate;
+
+    CircuitBreakerFailureStrategy(SenderFailureStrategy delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public PayloadAction getAction(Payload payload, Response response) {
+      return delegate != null ? delegate.getAction(payload, response) : PayloadAction.NONE;
+    }
+
+    @Override
+    public PayloadAction getAction(Payload payload, Exception error) {
+      if (isRejection(error)) {
+        return PayloadAction.CAN_BE_RETRIED;
+      }
+      if (delegate != null) {
+        return delegate.getAction(payload, error);
+      }
+      return isTransportFailure(error) ? PayloadAction.CAN_BE_RETRIED : PayloadAction.NONE;
+    }
+
+    @Override
+    public boolean isSendingSuspended() {
+      return isSuspended() || (delegate != null && delegate.isSendingSuspended());
+    }
+
+    @Override
+    public long getRetryDelay(Payload payload) {
+      long delay = delegate != null ? delegate.getRetryDelay(payload) : 0;
+      return Math.max(delay, remainingOpenMillis());
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (delegate != null) {
+        delegate.close();
+      }
+    }
+  }
+
+  /**
+   * Builder class for {@link CircuitBreakerSender}.
+   */
+  public static final class Builder {
+
+    private final Sender sender;
+
+    private int failureThreshold;
+
+    private long openTimeout;
+
+    private SenderFailureStrategy senderFailureStrategy;
+
+    /**
+     * Constructor.
+     *
+     * @param sender the sender to wrap.
+     */
+    public Builder(Sender sender) {
+      this.sender = sender;
+      this.failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+      this.openTimeout = DEFAULT_OPEN_TIMEOUT;
+    }
+
+    /**
+     * The number of consecutive transport failures that opens the circuit breaker. Default: 5.
+     * @param failureThreshold the number of failures.
+     * @return the builder instance.
+     */
+    public Builder failureThreshold(int failureThreshold) {
+      this.failureThreshold = failureThreshold;
+      return this;
+    }
+
+    /**
+     * The time in millis the circuit breaker stays open before a payload is sent as a probe.
+     * Default: 30 seconds.
+     * @param openTimeout the open timeout.
+     * @return the builder instance.
+     */
+    public Builder openTimeout(long openTimeout) {
+      this.openTimeout = openTimeout;
+      return this;
+    }
+
+    /**
+     * The {@link SenderFailureStrategy strategy} the {@link #failureStrategy() failure strategy}
+     * of the circuit breaker delegates to for the payloads sent, eg. a
+     * {@link RateLimitAwareSenderFailureStrategy}. Default: none, the transport failures are
+     * retried.
+     * @param senderFailureStrategy the strategy.
+     * @return the builder instance.
+     */
+    public Builder senderFailureStrategy(SenderFailureStrategy senderFailureStrategy) {
+      this.senderFailureStrategy = senderFailureStrategy;
+      return this;
+    }
+
+    /**
+     * Builds the {@link CircuitBreakerSender sender}.
+     *
+     * @return the sender.
+     */
+    public CircuitBreakerSender build() {
+      ObjectsUtils.requireNonNull(sender, "The sender cannot be null");
+      if (failureThreshold < 1 || openTimeout < 0) {
+        throw new IllegalArgumentException(
+            "The failure threshold must be positive and the open timeout not negative");
+      }
+      return new CircuitBreakerSender(this);
+    }
+  }
+}
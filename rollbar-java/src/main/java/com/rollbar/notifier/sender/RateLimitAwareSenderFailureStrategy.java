@@ -0,0 +1,305 @@
+package com.rollbar.notifier.sender;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.exception.ApiException;
+import com.rollbar.notifier.sender.result.Response;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * This class suspends sending occurrences while the Rollbar API is rate limiting or failing, and
+ * marks the payloads that failed for retry.
+ * </p>
+ * <p>
+ *     When the API answers 429 Too Many Requests, or reports that the rate limit is exhausted,
+ *     sending is suspended until the time given by the {@code Retry-After} or the
+ *     {@code X-Rate-Limit-*} headers. Server errors and network errors suspend sending with an
+ *     exponential backoff, with jitter, that grows with the consecutive failures and resets on the
+ *     first success. The failures while sending is already suspended, like the ones of the other
+ *     requests in flight, count as one.
+ * </p>
+ * <p>
+ *     Each payload marked for retry waits, with the same backoff based on its send attempts, at
+ *     least until sending resumes. Other client errors are not retried.
+ * </p>
+ */
+public class RateLimitAwareSenderFailureStrategy implements SenderFailureStrategy {
+
+  static final String RETRY_AFTER = "Retry-After";
+
+  static final String RATE_LIMIT_REMAINING = "X-Rate-Limit-Remaining";
+
+  static final String RATE_LIMIT_REMAINING_SECONDS = "X-Rate-Limit-Remaining-Seconds";
+
+  static final String RATE_LIMIT_RESET = "X-Rate-Limit-Reset";
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private static final long DEFAULT_INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+
+  private static final long DEFAULT_MAX_BACKOFF = TimeUnit.MINUTES.toMillis(5);
+
+  private static final long DEFAULT_MAX_SUSPENSION = TimeUnit.HOURS.toMillis(1);
+
+  private final long initialBackoffMillis;
+
+  private final long maxBackoffMillis;
+
+  private final long maxSuspensionMillis;
+
+  private final TimeProvider timeProvider;
+
+  private final Random random;
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+  private final AtomicLong resumeTime;
+
+  RateLimitAwareSenderFailureStrategy(Builder builder, TimeProvider timeProvider, Random random) {
+    this.initialBackoffMillis = builder.initialBackoff;
+    this.maxBackoffMillis = builder.maxBackoff;
+    this.maxSuspensionMillis = builder.maxSuspension;
+    this.timeProvider = timeProvider;
+    this.random = random;
+    this.resumeTime = new AtomicLong(timeProvider.nanoTime());
+  }
+
+  @Override
+  public PayloadAction getAction(Payload payload, Response response) {
+    if (response == null) {
+      return PayloadAction.NONE;
+    }
+
+    int status = response.getStatus();
+    if (status == TOO_MANY_REQUESTS) {
+      suspendAfterFailure(rateLimitWindow(response));
+      return PayloadAction.CAN_BE_RETRIED;
+    }
+    if (status >= 500) {
+      suspendAfterFailure(0);
+      return PayloadAction.CAN_BE_RETRIED;
+    }
+
+    if (response.getResult() != null && !response.getResult().isError()) {
+      consecutiveFailures.set(0);
+      // The item is accepted, but the next ones would not be.
+      if ("0".equals(trim(response.getHeader(RATE_LIMIT_REMAINING)))) {
+        suspend(rateLimitWindow(response));
+      }
+    }
+    return PayloadAction.NONE;
+  }
+
+  @Override
+  public PayloadAction getAction(Payload payload, Exception error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ApiException) {
+        return getAction(payload, ((ApiException) cause).getResponse());
+      }
+      if (cause instanceof IOException) {
+        suspendAfterFailure(0);
+        return PayloadAction.CAN_BE_RETRIED;
+      }
+    }
+    return PayloadAction.NONE;
+  }
+
+  @Override
+  public boolean isSendingSuspended() {
+    return timeProvider.nanoTime() - resumeTime.get() < 0;
+  }
+
+  @Override
+  public long getRetryDelay(Payload payload) {
+    long suspended = TimeUnit.NANOSECONDS.toMillis(resumeTime.get() - timeProvider.nanoTime());
+    return Math.max(suspended, jitter(backoff(payload.getSendAttemptCount())));
+  }
+
+  @Override
+  public void close() {
+  }
+
+  // Synchronized, so the requests in flight failing together for the same outage count once.
+  private synchronized void suspendAfterFailure(long minMillis) {
+    int failures = isSendingSuspended()
+        ? Math.max(1, consecutiveFailures.get())
+        : consecutiveFailures.incrementAndGet();
+    suspend(Math.max(minMillis, jitter(backoff(failures))));
+  }
+
+  private long backoff(int attempts) {
+    if (attempts <= 0) {
+      return 0;
+    }
+    // Doubles until it reaches the max, without overflowing.
+    int exponent = Math.min(attempts - 1, 30);
+    long backoff = initialBackoffMillis << exponent;
+    return backoff < 0 || backoff > maxBackoffMillis ? maxBackoffMillis : backoff;
+  }
+
+  private long jitter(long backoff) {
+    // Half of it is fixed, so the delay still grows, and the other half random, so the retries
+    // of several instances spread.
+    long half = backoff / 2;
+    return half + (long) (random().nextDouble() * (backoff - half));
+  }
+
+  private Random random() {
+    return random != null ? random : ThreadLocalRandom.current();
+  }
+
+  private void suspend(long millis) {
+    long until = timeProvider.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(Math.min(millis, maxSuspensionMillis));
+    long current;
+    do {
+      current = resumeTime.get();
+      if (until - current <= 0) {
+        return;
+      }
+    } while (!resumeTime.compareAndSet(current, until));
+  }
+
+  private long rateLimitWindow(Response response) {
+    String retryAfter = trim(response.getHeader(RETRY_AFTER));
+    if (retryAfter != null) {
+      try {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter));
+      } catch (NumberFormatException e) {
+        Date date = parseHttpDate(retryAfter);
+        if (date != null) {
+          return Math.max(0, date.getTime() - timeProvider.currentTimeMillis());
+        }
+      }
+    }
+
+    String remainingSeconds = trim(response.getHeader(RATE_LIMIT_REMAINING_SECONDS));
+    if (remainingSeconds != null) {
+      try {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(remainingSeconds));
+      } catch (NumberFormatException e) {
+        // Try the next one.
+      }
+    }
+
+    String reset = trim(response.getHeader(RATE_LIMIT_RESET));
+    if (reset != null) {
+      try {
+        long resetMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(reset));
+        return Math.max(0, resetMillis - timeProvider.currentTimeMillis());
+      } catch (NumberFormatException e) {
+        // No window then.
+      }
+    }
+    return 0;
+  }
+
+  private static Date parseHttpDate(String value) {
+    // SimpleDateFormat is not thread safe.
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return format.parse(value);
+    } catch (ParseException e) {
+      return null;
+    }
+  }
+
+  private static String trim(String value) {
+    return value == null ? null : value.trim();
+  }
+
+  interface TimeProvider {
+    long nanoTime();
+
+    long currentTimeMillis();
+  }
+
+  static class SystemTimeProvider implements TimeProvider {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Builder class for {@link RateLimitAwareSenderFailureStrategy}.
+   */
+  public static final class Builder {
+
+    private long initialBackoff;
+
+    private long maxBackoff;
+
+    private long maxSuspension;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.initialBackoff = DEFAULT_INITIAL_BACKOFF;
+      this.maxBackoff = DEFAULT_MAX_BACKOFF;
+      this.maxSuspension = DEFAULT_MAX_SUSPENSION;
+    }
+
+    /**
+     * The backoff in millis after the first failure, doubled with each consecutive one.
+     * Default: 1 second.
+     * @param initialBackoff the initial backoff.
+     * @return the builder instance.
+     */
+    public Builder initialBackoff(long initialBackoff) {
+      this.initialBackoff = initialBackoff;
+      return this;
+    }
+
+    /**
+     * The maximum backoff in millis. Default: 5 minutes.
+     * @param maxBackoff the max backoff.
+     * @return the builder instance.
+     */
+    public Builder maxBackoff(long maxBackoff) {
+      this.maxBackoff = maxBackoff;
+      return this;
+    }
+
+    /**
+     * The maximum time in millis sending is suspended for, whatever the API asks. Default: 1
+     * hour.
+     * @param maxSuspension the max suspension.
+     * @return the builder instance.
+     */
+    public Builder maxSuspension(long maxSuspension) {
+      this.maxSuspension = maxSuspension;
+      return this;
+    }
+
+    /**
+     * Builds the {@link RateLimitAwareSenderFailureStrategy strategy}.
+     *
+     * @return the strategy.
+     */
+    public RateLimitAwareSenderFailureStrategy build() {
+      if (initialBackoff <= 0 || maxBackoff < initialBackoff || maxSuspension < 0) {
+        throw new IllegalArgumentException("The initial backoff must be positive, the max "
+            + "backoff at least the initial one and the max suspension not negative");
+      }
+      return new RateLimitAwareSenderFailureStrategy(this, new SystemTimeProvider(), null);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.rollbar.notifier.sender;
+
+import com.rollbar.api.annotations.Unstable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Body of a request to the Rollbar API the payload is serialized into. Once the body grows past
+ * the compression threshold it is compressed with gzip as it is written, so the uncompressed json
+ * is never held in full.
+ *
+ * <p>Bodies are {@link #acquire(int) acquired} from, and {@link #release() released} back to,
+ * the calling thread, which reuses the buffers and the {@link Deflater deflater} of its body
+ * between requests.</p>
+ */
+@Unstable
+public final class RequestBody extends OutputStream {
+
+  /**
+   * Value of the compression threshold to never compress the body.
+   */
+  public static final int NEVER_COMPRESS = -1;
+
+  // Bodies larger than this are not kept for reuse once sent.
+  private static final int MAXIMUM_RETAINED_SIZE = 1024 * 1024;
+
+  private static final int INITIAL_SIZE = 16 * 1024;
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+
+  private static final ThreadLocal<RequestBody> BODIES = new ThreadLocal<>();
+
+  private final CRC32 crc = new CRC32();
+
+  private Deflater deflater;
+
+  // The uncompressed json written before the body goes past the threshold.
+  private byte[] raw = new byte[INITIAL_SIZE];
+
+  private int rawCount;
+
+  // The gzip stream, once the body is compressed.
+  private byte[] compressed;
+
+  private int compressedCount;
+
+  private int threshold;
+
+  private boolean compressing;
+
+  private boolean finished;
+
+  private RequestBody() {
+  }
+
+  /**
+   * Takes the body of the calling thread, or a new one if it is already in use.
+   *
+   * @param compressionThreshold the size, in bytes, past which the body is compressed, or
+   *     {@link #NEVER_COMPRESS}.
+   * @return the body.
+   */
+  public static RequestBody acquire(int compressionThreshold) {
+    RequestBody body = BODIES.get();
+    if (body == null) {
+      body = new RequestBody();
+    } else {
+      BODIES.set(null);
+    }
+    body.threshold = compressionThreshold;
+    return body;
+  }
+
+  /**
+   * Gives the body back to the calling thread, it can not be used after it.
+   */
+  public void release() {
+    rawCount = 0;
+    compressedCount = 0;
+    compressing = false;
+    finished = false;
+    crc.reset();
+    if (deflater != null) {
+      deflater.reset();
+    }
+
+    if (raw.length > MAXIMUM_RETAINED_SIZE
+        || (compressed != null && compressed.length > MAXIMUM_RETAINED_SIZE)) {
+      if (deflater != null) {
+        deflater.end();
+      }
+      return;
+    }
+    BODIES.set(this);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (finished) {
+      throw new IOException("The body is already finished");
+    }
+    if (compressing) {
+      deflate(b, off, len);
+      return;
+    }
+
+    raw = ensureCapacity(raw, rawCount + len);
+    System.arraycopy(b, off, raw, rawCount, len);
+    rawCount += len;
+    if (threshold != NEVER_COMPRESS && rawCount > threshold) {
+      startCompression();
+    }
+  }
+
+  /**
+   * Completes the body once the payload is written, writing the end of the gzip stream if it is
+   * compressed.
+   *
+   * @throws IOException if the body can not be completed.
+   */
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    if (compressing) {
+      deflater.finish();
+      while (!deflater.finished()) {
+        deflateBuffered();
+      }
+      writeIntLe((int) crc.getValue());
+      // The size of the json, modulo 2^32.
+      writeIntLe((int) deflater.getBytesRead());
+    }
+  }
+
+  /**
+   * Whether the body is compressed with gzip, so it is sent with {@code Content-Encoding: gzip}.
+   *
+   * @return true if the body is compressed.
+   */
+  public boolean isCompressed() {
+    return compressing;
+  }
+
+  /**
+   * Get the size of the body, compressed if it is.
+   *
+   * @return the size in bytes.
+   */
+  public int size() {
+    return compressing ? compressedCount : rawCount;
+  }
+
+  /**
+   * Writes the body to the stream.
+   *
+   * @param out the stream.
+   * @throws IOException if the stream can not be written.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    if (compressing) {
+      out.write(compressed, 0, compressedCount);
+    } else {
+      out.write(raw, 0, rawCount);
+    }
+  }
+
+  /**
+   * Copies the body, for requests that are sent once it is released.
+   *
+   * @return the body.
+   */
+  public byte[] toByteArray() {
+    return compressing
+        ? Arrays.copyOf(compressed, compressedCount) : Arrays.copyOf(raw, rawCount);
+  }
+
+  private void startCompression() {
+    if (deflater == null) {
+      // Raw deflate, the gzip header and trailer are written here.
+      deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+    if (compressed == null) {
+      compressed = new byte[INITIAL_SIZE];
+    }
+    compressing = true;
+
+    writeHeader();
+    deflate(raw, 0, rawCount);
+    rawCount = 0;
+  }
+
+  private void deflate(byte[] b, int off, int len) {
+    crc.update(b, off, len);
+    deflater.setInput(b, off, len);
+    while (!deflater.needsInput()) {
+      deflateBuffered();
+    }
+  }
+
+  private void deflateBuffered() {
+    if (compressedCount == compressed.length) {
+      compressed = Arrays.copyOf(compressed, compressed.length * 2);
+    }
+    compressedCount += deflater.deflate(compressed, compressedCount,
+        compressed.length - compressedCount);
+  }
+
+  private void writeHeader() {
+    compressed = ensureCapacity(compressed, compressedCount + 10);
+    compressed[compressedCount++] = (byte) GZIP_MAGIC;
+    compressed[compressedCount++] = (byte) (GZIP_MAGIC >> 8);
+    compressed[compressedCount++] = Deflater.DEFLATED;
+    // No flags, modification time, extra flags nor operating system.
+    for (int i = 0; i < 7; i++) {
+      compressed[compressedCount++] = 0;
+    }
+  }
+
+  private void writeIntLe(int value) {
+    compressed = ensureCapacity(compressed, compressedCount + 4);
+    for (int i = 0; i < 4; i++) {
+      compressed[compressedCount++] = (byte) (value >> (8 * i));
+    }
+  }
+
+  private static byte[] ensureCapacity(byte[] buffer, int capacity) {
+    if (capacity <= buffer.length) {
+      return buffer;
+    }
+    return Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+  }
+}
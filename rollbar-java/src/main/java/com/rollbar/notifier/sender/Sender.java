@@ -2,9 +2,11 @@ package com.rollbar.notifier.sender;
 
 import com.rollbar.api.payload.Payload;
 import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.result.FlushResult;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Sender interface to send the payload to Rollbar.
@@ -33,6 +35,21 @@ public interface Sender extends Closeable {
    */
   List<SenderListener> getListeners();
 
+  /**
+   * Sends the payloads buffered by the sender, without closing it, waiting up to the timeout.
+   * The default implementation sends each payload as it is received, so there is nothing to
+   * flush.
+   *
+   * @param timeout the maximum time to wait.
+   * @param unit the unit of the timeout.
+   * @return the payloads sent, failed and left.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  default FlushResult flush(long timeout, TimeUnit unit) throws InterruptedException {
+    return new FlushResult.Builder().build();
+  }
+
   /**
    * Closes the sender.
    *
@@ -38,6 +38,17 @@ public interface SenderFailureStrategy extends Closeable {
    */
   boolean isSendingSuspended();
 
+  /**
+   * Get the time to wait before a payload {@link PayloadAction#CAN_BE_RETRIED marked for retry}
+   * is queued again.
+   *
+   * @param payload The payload to retry
+   * @return the delay in milliseconds, or 0 to queue it again right away
+   */
+  default long getRetryDelay(Payload payload) {
+    return 0;
+  }
+
   enum PayloadAction {
     /**
      * No further action on the payload is necessary.
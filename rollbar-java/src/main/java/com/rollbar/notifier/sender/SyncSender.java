@@ -25,6 +25,12 @@ public class SyncSender extends AbstractSender {
 
   public static final String UTF_8 = "UTF-8";
 
+  /**
+   * The default size, in bytes, past which the request body is compressed when compression is
+   * enabled.
+   */
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
   private final URL url;
 
   private final JsonSerializer jsonSerializer;
@@ -33,17 +39,27 @@ public class SyncSender extends AbstractSender {
 
   private final Proxy proxy;
 
+  private final int compressionThreshold;
+
   SyncSender(Builder builder) {
     this.url = builder.url;
     this.jsonSerializer = builder.jsonSerializer;
     this.accessToken = builder.accessToken;
     this.proxy = builder.proxy != null ? builder.proxy : Proxy.NO_PROXY;
+    this.compressionThreshold = builder.compress
+        ? builder.compressionThreshold : RequestBody.NEVER_COMPRESS;
   }
 
   @Override
   public Response doSend(Payload payload) throws Exception {
-    String json = jsonSerializer.toJson(payload);
-    return send(json);
+    RequestBody body = RequestBody.acquire(compressionThreshold);
+    try {
+      jsonSerializer.writeJson(payload, body);
+      body.finish();
+      return send(body);
+    } finally {
+      body.release();
+    }
   }
 
   @Override
@@ -51,11 +67,15 @@ public class SyncSender extends AbstractSender {
     getConnection().disconnect();
   }
 
-  private Response send(String body) throws IOException {
+  private Response send(RequestBody body) throws IOException {
     HttpURLConnection connection = getConnection();
-    byte[] bytes = body.getBytes(UTF_8);
-    sendJson(connection, bytes);
-    return readResponse(connection);
+    if (body.isCompressed()) {
+      connection.setRequestProperty("Content-Encoding", "gzip");
+    }
+    // The size is known upfront, so the connection streams the body instead of buffering it.
+    connection.setFixedLengthStreamingMode(body.size());
+    sendJson(connection, body);
+    return readResponse(connection, body.size());
   }
 
   private HttpURLConnection getConnection() throws IOException {
@@ -75,11 +95,11 @@ public class SyncSender extends AbstractSender {
     return connection;
   }
 
-  private void sendJson(HttpURLConnection connection, byte[] bytes) throws IOException {
+  private void sendJson(HttpURLConnection connection, RequestBody body) throws IOException {
     OutputStream out = null;
     try {
       out = connection.getOutputStream();
-      out.write(bytes, 0, bytes.length);
+      body.writeTo(out);
     } catch (IOException e) {
       throw e;
     } finally {
@@ -88,12 +108,19 @@ public class SyncSender extends AbstractSender {
   }
 
   Response readResponse(HttpURLConnection connection) throws IOException {
+    return readResponse(connection, 0);
+  }
+
+  private Response readResponse(HttpURLConnection connection, long bodySize)
+      throws IOException {
     int status = connection.getResponseCode();
     String content = getResponseContent(connection);
     Result result = jsonSerializer.resultFrom(content);
     return new Response.Builder()
         .status(status)
         .result(result)
+        .headers(connection.getHeaderFields())
+        .bodySize(bodySize)
         .build();
   }
 
@@ -131,6 +158,10 @@ public class SyncSender extends AbstractSender {
 
     private Proxy proxy;
 
+    private boolean compress;
+
+    private int compressionThreshold;
+
     public Builder() {
       this(DEFAULT_API_ENDPOINT);
     }
@@ -143,6 +174,8 @@ public class SyncSender extends AbstractSender {
       this.url = parseUrl(url);
       this.jsonSerializer = new JsonSerializerImpl();
       this.proxy = null;
+      this.compress = false;
+      this.compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
     }
 
     /**
@@ -195,12 +228,38 @@ public class SyncSender extends AbstractSender {
       return this;
     }
 
+    /**
+     * Whether to compress the request bodies larger than the
+     * {@link #compressionThreshold(int) threshold} with gzip. Default: false.
+     * @param compress true to compress the request bodies.
+     * @return the builder instance.
+     */
+    public Builder compress(boolean compress) {
+      this.compress = compress;
+      return this;
+    }
+
+    /**
+     * The size, in bytes, past which the request body is compressed when
+     * {@link #compress(boolean) compression} is enabled. Default:
+     * {@link #DEFAULT_COMPRESSION_THRESHOLD}.
+     * @param compressionThreshold the threshold in bytes.
+     * @return the builder instance.
+     */
+    public Builder compressionThreshold(int compressionThreshold) {
+      this.compressionThreshold = compressionThreshold;
+      return this;
+    }
+
     /**
      * Builds the {@link SyncSender sync sender}.
      *
      * @return the sync sender.
      */
     public SyncSender build() {
+      if (compressionThreshold < 0) {
+        throw new IllegalArgumentException("The compression threshold can not be negative");
+      }
       return new SyncSender(this);
     }
 
@@ -19,6 +19,14 @@ public class ApiException extends RuntimeException {
     this.response = response;
   }
 
+  /**
+   * Get the response of the API.
+   * @return the response.
+   */
+  public Response getResponse() {
+    return response;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,18 @@
+package com.rollbar.notifier.sender.exception;
+
+import com.rollbar.notifier.sender.CircuitBreakerSender;
+
+/**
+ * Indicates that a payload was not sent because the {@link CircuitBreakerSender circuit breaker}
+ * is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+  /**
+   * Constructor.
+   * @param message the message.
+   */
+  public CircuitBreakerOpenException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,164 @@
+package com.rollbar.notifier.sender.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output the {@link JsonSerializerImpl json serializer} writes the json text to.
+ */
+abstract class JsonOutput {
+
+  abstract void write(char c) throws IOException;
+
+  void write(String str) throws IOException {
+    write(str, 0, str.length());
+  }
+
+  abstract void write(String str, int start, int end) throws IOException;
+
+  /**
+   * Output that appends the json to a {@link StringBuilder}.
+   */
+  static final class Text extends JsonOutput {
+
+    private final StringBuilder builder;
+
+    Text(StringBuilder builder) {
+      this.builder = builder;
+    }
+
+    @Override
+    void write(char c) {
+      builder.append(c);
+    }
+
+    @Override
+    void write(String str) {
+      builder.append(str);
+    }
+
+    @Override
+    void write(String str, int start, int end) {
+      builder.append(str, start, end);
+    }
+  }
+
+  /**
+   * Output that encodes the json as UTF-8 into a scratch buffer reused by the thread, writing the
+   * buffer to the stream every time it fills up, and counts the bytes written. Without a stream
+   * the bytes are only counted.
+   *
+   * <p>Unpaired surrogates are encoded as {@code '?'}, the same as
+   * {@link String#getBytes(java.nio.charset.Charset)} does.</p>
+   */
+  static final class Utf8 extends JsonOutput {
+
+    static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+
+    private final OutputStream out;
+
+    private byte[] buffer;
+
+    private int position;
+
+    private long count;
+
+    Utf8(OutputStream out) {
+      this.out = out;
+      byte[] scratch = BUFFERS.get();
+      if (scratch != null) {
+        // Taken while in use, so a nested serialization in the same thread gets its own buffer.
+        BUFFERS.set(null);
+      } else {
+        scratch = new byte[BUFFER_SIZE];
+      }
+      this.buffer = scratch;
+    }
+
+    @Override
+    void write(char c) throws IOException {
+      if (c < 0x80) {
+        if (position == buffer.length) {
+          drain();
+        }
+        buffer[position++] = (byte) c;
+      } else {
+        write(String.valueOf(c), 0, 1);
+      }
+    }
+
+    @Override
+    void write(String str, int start, int end) throws IOException {
+      byte[] buffer = this.buffer;
+      for (int i = start; i < end; i++) {
+        char c = str.charAt(i);
+        if (c < 0x80) {
+          if (position == buffer.length) {
+            drain();
+          }
+          buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+          ensure(2);
+          buffer[position++] = (byte) (0xc0 | (c >> 6));
+          buffer[position++] = (byte) (0x80 | (c & 0x3f));
+        } else if (!Character.isSurrogate(c)) {
+          ensure(3);
+          buffer[position++] = (byte) (0xe0 | (c >> 12));
+          buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          buffer[position++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && i + 1 < end
+            && Character.isLowSurrogate(str.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, str.charAt(++i));
+          ensure(4);
+          buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+          buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+          buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+          buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else {
+          if (position == buffer.length) {
+            drain();
+          }
+          buffer[position++] = (byte) '?';
+        }
+      }
+    }
+
+    /**
+     * Writes what is left in the buffer to the stream.
+     *
+     * @return the total number of bytes written.
+     */
+    long finish() throws IOException {
+      drain();
+      return count;
+    }
+
+    /**
+     * Gives the scratch buffer back to the thread, the output can not be used after it.
+     */
+    void release() {
+      if (buffer != null) {
+        BUFFERS.set(buffer);
+        buffer = null;
+      }
+    }
+
+    private void ensure(int length) throws IOException {
+      if (position + length > buffer.length) {
+        drain();
+      }
+    }
+
+    private void drain() throws IOException {
+      if (position > 0) {
+        if (out != null) {
+          out.write(buffer, 0, position);
+        }
+        count += position;
+        position = 0;
+      }
+    }
+  }
+}
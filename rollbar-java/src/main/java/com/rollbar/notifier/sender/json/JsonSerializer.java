@@ -3,6 +3,9 @@ package com.rollbar.notifier.sender.json;
 import com.rollbar.api.payload.Payload;
 import com.rollbar.notifier.sender.Sender;
 import com.rollbar.notifier.sender.result.Result;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
 
 /**
  * Serializer to be used by the {@link Sender sender}. the payload to send to Rollbar to json and
@@ -18,6 +21,40 @@ public interface JsonSerializer {
    */
   String toJson(Payload payload);
 
+  /**
+   * Writes the payload to be sent serialized to json, and encoded as UTF-8, to the stream.
+   *
+   * <p>The default implementation encodes the result of {@link #toJson(Payload)}, implementations
+   * should override it to encode the json straight to the stream instead.</p>
+   *
+   * @param payload the payload to send.
+   * @param out the stream to write to, which is neither flushed nor closed.
+   * @return the number of bytes written.
+   * @throws IOException if the stream can not be written.
+   */
+  default long writeJson(Payload payload, OutputStream out) throws IOException {
+    byte[] bytes = toJson(payload).getBytes(Charset.forName("UTF-8"));
+    out.write(bytes, 0, bytes.length);
+    return bytes.length;
+  }
+
+  /**
+   * Measures the size in bytes, encoded as UTF-8, of a value of the payload as this serializer
+   * writes it nested in the given number of objects and arrays of the payload. This allows to
+   * know how the size of the payload changes when the value is replaced, without serializing the
+   * whole payload again.
+   *
+   * <p>The default implementation can not measure values apart from the payload, and returns a
+   * negative size.</p>
+   *
+   * @param value the value.
+   * @param depth the number of objects and arrays of the payload the value is nested in.
+   * @return the size in bytes, or a negative value if the serializer can not measure it.
+   */
+  default long sizeInBytes(Object value, int depth) {
+    return -1;
+  }
+
   /**
    * Parses the response from Rollbar to a {@link Result result}.
    *
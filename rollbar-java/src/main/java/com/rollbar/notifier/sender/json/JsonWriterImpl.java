@@ -0,0 +1,298 @@
+package com.rollbar.notifier.sender.json;
+
+import com.rollbar.api.json.JsonSerializable;
+import com.rollbar.api.json.JsonWriter;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Implementation of the {@link JsonWriter json writer} used by the
+ * {@link JsonSerializerImpl json serializer}, that writes the json text to a {@link JsonOutput}.
+ */
+final class JsonWriterImpl implements JsonWriter {
+
+  private static final String[] REPLACEMENT_CHARS;
+
+  static {
+    REPLACEMENT_CHARS = new String[128];
+    for (int i = 0; i <= 0x1f; i++) {
+      REPLACEMENT_CHARS[i] = String.format("\\u%04x", (int) i);
+    }
+    REPLACEMENT_CHARS['"'] = "\\\"";
+    REPLACEMENT_CHARS['\\'] = "\\\\";
+    REPLACEMENT_CHARS['\t'] = "\\t";
+    REPLACEMENT_CHARS['\b'] = "\\b";
+    REPLACEMENT_CHARS['\n'] = "\\n";
+    REPLACEMENT_CHARS['\r'] = "\\r";
+    REPLACEMENT_CHARS['\f'] = "\\f";
+  }
+
+  private final JsonOutput output;
+
+  private final boolean prettyPrint;
+
+  // Whether the object or array at each nesting depth has no members written yet.
+  private boolean[] empty = new boolean[16];
+
+  private int depth;
+
+  private boolean afterName;
+
+  private final char[] digits = new char[20];
+
+  JsonWriterImpl(JsonOutput output, boolean prettyPrint) {
+    this(output, prettyPrint, 0);
+  }
+
+  /**
+   * Constructor of a writer for a value nested in the given number of objects and arrays, so it
+   * is written as it would be inside them.
+   */
+  JsonWriterImpl(JsonOutput output, boolean prettyPrint, int depth) {
+    this.output = output;
+    this.prettyPrint = prettyPrint;
+    this.depth = depth;
+    while (depth >= empty.length) {
+      empty = new boolean[empty.length * 2];
+    }
+    // The separator and the name of the value are outside of it.
+    this.afterName = depth > 0;
+  }
+
+  @Override
+  public JsonWriter beginObject() throws IOException {
+    beforeValue();
+    output.write('{');
+    push();
+    return this;
+  }
+
+  @Override
+  public JsonWriter endObject() throws IOException {
+    if (prettyPrint) {
+      output.write('\n');
+    }
+    output.write('}');
+    depth--;
+    return this;
+  }
+
+  @Override
+  public JsonWriter beginArray() throws IOException {
+    beforeValue();
+    output.write('[');
+    push();
+    return this;
+  }
+
+  @Override
+  public JsonWriter endArray() throws IOException {
+    output.write(']');
+    depth--;
+    return this;
+  }
+
+  @Override
+  public JsonWriter name(String name) throws IOException {
+    separate();
+    writeString(name);
+    output.write(':');
+    if (prettyPrint) {
+      output.write(' ');
+    }
+    afterName = true;
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(String value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    beforeValue();
+    writeString(value);
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(boolean value) throws IOException {
+    beforeValue();
+    output.write(value ? "true" : "false");
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(long value) throws IOException {
+    beforeValue();
+    if (value == Long.MIN_VALUE) {
+      output.write(String.valueOf(value));
+      return this;
+    }
+
+    long remaining = Math.abs(value);
+    int position = digits.length;
+    do {
+      digits[--position] = (char) ('0' + remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0);
+    if (value < 0) {
+      digits[--position] = '-';
+    }
+    for (int i = position; i < digits.length; i++) {
+      output.write(digits[i]);
+    }
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(double value) throws IOException {
+    beforeValue();
+    output.write(String.valueOf(value));
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(Number value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      return value(value.longValue());
+    }
+    beforeValue();
+    output.write(String.valueOf(value));
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(Object value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    } else if (value instanceof Boolean) {
+      return value(((Boolean) value).booleanValue());
+    } else if (value instanceof Number) {
+      return value((Number) value);
+    } else if (value instanceof String) {
+      return value((String) value);
+    } else if (value instanceof JsonSerializable) {
+      ((JsonSerializable) value).writeJson(this);
+      return this;
+    } else if (value instanceof Map) {
+      return writeMap((Map<?, ?>) value);
+    } else if (value instanceof Collection) {
+      return writeCollection((Collection<?>) value);
+    } else if (value instanceof Object[]) {
+      return writeArray((Object[]) value);
+    } else {
+      // Including throwables, whose string representation is their class name and message.
+      return value(value.toString());
+    }
+  }
+
+  @Override
+  public JsonWriter nullValue() throws IOException {
+    beforeValue();
+    output.write("null");
+    return this;
+  }
+
+  private JsonWriter writeMap(Map<?, ?> map) throws IOException {
+    beginObject();
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      name(String.valueOf(entry.getKey()));
+      value(entry.getValue());
+    }
+    return endObject();
+  }
+
+  private JsonWriter writeCollection(Collection<?> collection) throws IOException {
+    beginArray();
+    if (collection instanceof List && collection instanceof RandomAccess) {
+      List<?> list = (List<?>) collection;
+      for (int i = 0; i < list.size(); i++) {
+        value(list.get(i));
+      }
+    } else {
+      for (Object element : collection) {
+        value(element);
+      }
+    }
+    return endArray();
+  }
+
+  private JsonWriter writeArray(Object[] array) throws IOException {
+    beginArray();
+    for (Object element : array) {
+      value(element);
+    }
+    return endArray();
+  }
+
+  private void push() {
+    depth++;
+    if (depth == empty.length) {
+      boolean[] grown = new boolean[empty.length * 2];
+      System.arraycopy(empty, 0, grown, 0, empty.length);
+      empty = grown;
+    }
+    empty[depth] = true;
+  }
+
+  private void beforeValue() throws IOException {
+    if (afterName) {
+      afterName = false;
+    } else if (depth > 0) {
+      separate();
+    }
+  }
+
+  private void separate() throws IOException {
+    if (!empty[depth]) {
+      output.write(',');
+    }
+    empty[depth] = false;
+    if (prettyPrint) {
+      output.write('\n');
+      for (int i = 0; i < depth; i++) {
+        output.write("  ");
+      }
+    }
+  }
+
+  // Borrowed from
+  // https://github.com/google/gson/blob/59edfc1caf2bb30e30f523f8502f23e8f8edc38e/gson/src/main/java/com/google/gson/stream/JsonWriter.java
+  private void writeString(String str) throws IOException {
+    output.write('"');
+    int last = 0;
+    int length = str.length();
+    for (int i = 0; i < length; i++) {
+      char c = str.charAt(i);
+      String replacement;
+      if (c < 128) {
+        replacement = REPLACEMENT_CHARS[c];
+        if (replacement == null) {
+          continue;
+        }
+      } else if (c == '\u2028') {
+        replacement = "\\u2028";
+      } else if (c == '\u2029') {
+        replacement = "\\u2029";
+      } else {
+        continue;
+      }
+      if (last < i) {
+        output.write(str, last, i);
+      }
+      output.write(replacement);
+      last = i + 1;
+    }
+    if (last < length) {
+      output.write(str, last, length);
+    }
+    output.write('"');
+  }
+}
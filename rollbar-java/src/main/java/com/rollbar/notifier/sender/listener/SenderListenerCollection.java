@@ -4,15 +4,15 @@ import static java.util.Collections.unmodifiableList;
 
 import com.rollbar.api.payload.Payload;
 import com.rollbar.notifier.sender.result.Response;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * An append-only collection of listeners.
+ * An append-only collection of listeners, safe to notify from several threads at once.
  *
  */
 public class SenderListenerCollection implements SenderListener {
-  private final List<SenderListener> listeners = new ArrayList<>();
+  private final List<SenderListener> listeners = new CopyOnWriteArrayList<>();
 
   @Override
   public void onResponse(Payload payload, Response response) {
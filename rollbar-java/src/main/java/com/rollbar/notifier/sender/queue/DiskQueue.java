@@ -19,7 +19,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A {@link Queue queue} of {@link Payload payloads} persisted on disk.
+ * A {@link Queue queue} of {@link Payload payloads} persisted on disk, a file per payload.
+ *
+ * <p>Each operation lists the files of the queue folder, see {@link JournalQueue} for a queue
+ * that does not.</p>
  */
 public class DiskQueue extends AbstractQueue<Payload> {
 
@@ -218,10 +221,16 @@ public class DiskQueue extends AbstractQueue<Payload> {
     }
   }
 
+  /**
+   * Iterates over the files of the queue folder listed when it was created, removing a payload
+   * deletes its file.
+   */
   static final class PayloadIterator implements Iterator<Payload> {
 
     private final Iterator<File> it;
 
+    private File current;
+
     public PayloadIterator(Iterator<File> it) {
       this.it = it;
     }
@@ -233,12 +242,21 @@ public class DiskQueue extends AbstractQueue<Payload> {
 
     @Override
     public Payload next() {
-      return read(it.next(), false);
+      current = it.next();
+      return read(current, false);
     }
 
     @Override
     public void remove() {
+      if (current == null) {
+        throw new IllegalStateException("There is no payload to remove");
+      }
       it.remove();
+      File file = current;
+      current = null;
+      if (file.exists() && !file.delete()) {
+        throw new IllegalStateException("Can not delete the file: " + file.getPath());
+      }
     }
   }
 }
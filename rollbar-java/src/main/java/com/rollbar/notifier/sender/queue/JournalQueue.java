@@ -0,0 +1,810 @@
+package com.rollbar.notifier.sender.queue;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
+import com.rollbar.notifier.util.ObjectsUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Queue queue} of {@link Payload payloads} persisted on disk in an append-only journal.
+ *
+ * <p>The payloads are serialized to json once, when added, and appended as records to segment
+ * files of the queue folder, which are memory-mapped. A small index file keeps the position of
+ * the next payload to take, and a segment is deleted once all its payloads are taken, so adding,
+ * taking and counting the payloads do not depend on the number of payloads in the queue.</p>
+ *
+ * <p>Each record holds a checksum. When the queue is opened the records torn by a crash while
+ * they were written are discarded, and the corrupted records found later are skipped with the
+ * rest of their segment. The payloads taken right before a crash can be taken again after it,
+ * unless the index is synced on every payload taken.</p>
+ *
+ * <p>The payloads taken from the queue hold the json they were added with, and the number of
+ * times they were sent, but not their data. The queue must be {@link #close() closed} to sync
+ * it before the process exits.</p>
+ */
+public class JournalQueue extends AbstractQueue<Payload> implements Closeable {
+
+  /**
+   * The default size of the segment files, 4 MB.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The default interval in millis between syncs with the {@link SyncPolicy#PERIODIC} policy.
+   */
+  public static final long DEFAULT_SYNC_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+  /**
+   * When the payloads written to the queue are synced to the storage device.
+   */
+  public enum SyncPolicy {
+    /**
+     * After every payload added or taken, which survives a power loss, at the cost of a sync on
+     * each one.
+     */
+    ALWAYS,
+    /**
+     * With the next payload added or taken once the {@link Builder#syncInterval(long) interval}
+     * elapsed, and when the queue is closed.
+     */
+    PERIODIC,
+    /**
+     * When the operating system writes them back, which survives the process crashing but not
+     * the system.
+     */
+    NEVER
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JournalQueue.class);
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int UNBOUNDED_QUEUE = 0;
+
+  private static final String QUEUE_FOLDER = ".rollbar-journal";
+
+  private static final String SEGMENT_SUFFIX = ".segment";
+
+  private static final String INDEX_FILE = "journal.index";
+
+  // The length of the json, the checksum and the number of send attempts.
+  private static final int HEADER_SIZE = 12;
+
+  private static final Record END = new Record(0, null);
+
+  private static final Record CORRUPTED = new Record(0, null);
+
+  private final File queueFolder;
+
+  private final int maxSize;
+
+  private final int segmentSize;
+
+  private final SyncPolicy syncPolicy;
+
+  private final long syncIntervalNanos;
+
+  private final JsonSerializer jsonSerializer;
+
+  // The segments from the one payloads are taken from, the head, to the one they are added to,
+  // the tail. All the fields below are guarded by this.
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+  private final Index index;
+
+  private int headOffset;
+
+  // The sequence number of the next payload to take, and of the next payload to add.
+  private long headSequence;
+
+  private int tailOffset;
+
+  private long tailSequence;
+
+  // The record at the head read by peek, taken by the next poll without reading it again.
+  private Record peeked;
+
+  private long lastSync;
+
+  private boolean closed;
+
+  private JournalQueue(Builder builder) throws IOException {
+    this.queueFolder = builder.queueFolder;
+    this.maxSize = builder.maxSize;
+    this.segmentSize = builder.segmentSize;
+    this.syncPolicy = builder.syncPolicy;
+    this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.syncInterval);
+    this.jsonSerializer = builder.jsonSerializer;
+
+    if (!queueFolder.isDirectory() && !queueFolder.mkdirs()) {
+      throw new IOException("Could not create folder: " + queueFolder);
+    }
+    this.index = new Index(new File(queueFolder, INDEX_FILE));
+    recover();
+    this.lastSync = System.nanoTime();
+  }
+
+  @Override
+  public boolean offer(Payload payload) {
+    if (payload == null) {
+      throw new NullPointerException("The payload can not be null");
+    }
+
+    // Serialized out of the lock.
+    JsonBuffer json = new JsonBuffer();
+    try {
+      jsonSerializer.writeJson(payload, json);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not serialize the payload", e);
+    }
+    CRC32 checksum = new CRC32();
+    update(checksum, payload.getSendAttemptCount());
+    checksum.update(json.buffer(), 0, json.size());
+
+    synchronized (this) {
+      ensureOpen();
+      if (maxSize > UNBOUNDED_QUEUE && size() >= maxSize) {
+        return false;
+      }
+
+      int recordSize = HEADER_SIZE + json.size();
+      Segment tail = segments.getLast();
+      if (tailOffset + recordSize > tail.map.capacity()) {
+        tail = roll(recordSize);
+      }
+
+      ByteBuffer view = tail.map.duplicate();
+      view.position(tailOffset + HEADER_SIZE);
+      view.put(json.buffer(), 0, json.size());
+      tail.map.putInt(tailOffset + 4, (int) checksum.getValue());
+      tail.map.putInt(tailOffset + 8, payload.getSendAttemptCount());
+      // The length goes last, a record without it is the end of the segment.
+      tail.map.putInt(tailOffset, json.size());
+      tailOffset += recordSize;
+      tailSequence++;
+
+      if (syncPolicy == SyncPolicy.ALWAYS) {
+        tail.map.force();
+      } else {
+        syncIfDue();
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public synchronized Payload poll() {
+    ensureOpen();
+    Record record = peeked != null ? peeked : nextRecord();
+    peeked = null;
+    if (record == null) {
+      return null;
+    }
+
+    headOffset += record.size();
+    headSequence++;
+    index.write(segments.getFirst().base, headOffset, headSequence);
+    if (syncPolicy == SyncPolicy.ALWAYS) {
+      index.map.force();
+    } else {
+      syncIfDue();
+    }
+    return record.toPayload();
+  }
+
+  @Override
+  public synchronized Payload peek() {
+    ensureOpen();
+    if (peeked == null) {
+      peeked = nextRecord();
+    }
+    return peeked != null ? peeked.toPayload() : null;
+  }
+
+  @Override
+  public synchronized int size() {
+    return (int) Math.min(Integer.MAX_VALUE, tailSequence - headSequence);
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    return tailSequence == headSequence;
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the payloads in the queue, which does not support
+   * removing them.
+   */
+  @Override
+  public Iterator<Payload> iterator() {
+    return new RecordIterator();
+  }
+
+  /**
+   * Syncs the queue, unless its policy is {@link SyncPolicy#NEVER}, and closes it.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    if (syncPolicy != SyncPolicy.NEVER) {
+      sync();
+    }
+    closed = true;
+    // The files are unmapped once the buffers are garbage collected.
+    for (Segment segment : segments) {
+      segment.map = null;
+    }
+    index.map = null;
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("The queue is closed");
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Segment> found = findSegments();
+    long[] position = index.read();
+
+    int first = -1;
+    for (int i = 0; position != null && i < found.size(); i++) {
+      if (found.get(i).base == position[0]) {
+        first = i;
+      }
+    }
+    if (first >= 0) {
+      // The segments before it were taken, but not deleted yet.
+      for (int i = 0; i < first; i++) {
+        delete(found.get(i));
+      }
+      headOffset = (int) position[1];
+      headSequence = position[2];
+    } else {
+      // Without a valid index, the payloads are taken again from the start.
+      first = 0;
+      headOffset = 0;
+      headSequence = found.isEmpty() ? 0 : found.get(0).base;
+    }
+    segments.addAll(found.subList(first, found.size()));
+    if (segments.isEmpty()) {
+      segments.add(new Segment(new File(queueFolder, segmentName(0)), 0));
+    }
+
+    Segment head = segments.getFirst();
+    Segment tail = segments.getLast();
+    tail.map(segmentSize);
+    if (head != tail) {
+      head.map(0);
+    }
+
+    // Only the records of the tail can be torn, the ones of the other segments are checked as
+    // they are taken.
+    int offset = 0;
+    long count = 0;
+    for (;;) {
+      Record record = readRecord(tail.map, offset);
+      if (record == END) {
+        break;
+      }
+      if (record == CORRUPTED) {
+        LOGGER.warn("Discarding the records torn at {} of {}", offset, tail.file);
+        clear(tail.map, offset);
+        break;
+      }
+      offset += record.size();
+      count++;
+    }
+    tailOffset = offset;
+    tailSequence = tail.base + count;
+
+    if (headSequence > tailSequence || (head == tail && headOffset > tailOffset)) {
+      headOffset = head == tail ? tailOffset : headOffset;
+      headSequence = tailSequence;
+    }
+    index.write(head.base, headOffset, headSequence);
+  }
+
+  private List<Segment> findSegments() {
+    File[] files = queueFolder.listFiles();
+    List<Segment> found = new ArrayList<>();
+    if (files == null) {
+      return found;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(SEGMENT_SUFFIX)) {
+        try {
+          long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+          found.add(new Segment(file, base));
+        } catch (NumberFormatException e) {
+          LOGGER.warn("Ignoring the file: {}", file);
+        }
+      }
+    }
+    Collections.sort(found);
+    return found;
+  }
+
+  private Record nextRecord() {
+    while (headSequence < tailSequence) {
+      Segment head = segments.getFirst();
+      Record record = readRecord(head.map, headOffset);
+      if (record != END && record != CORRUPTED) {
+        return record;
+      }
+
+      if (head == segments.getLast()) {
+        // The records of the tail were checked when the queue was opened.
+        LOGGER.error("Discarding the corrupted records at {} of {}", headOffset, head.file);
+        headOffset = tailOffset;
+        headSequence = tailSequence;
+        index.write(head.base, headOffset, headSequence);
+        return null;
+      }
+      if (record == CORRUPTED) {
+        LOGGER.error("Discarding the corrupted records at {} of {}", headOffset, head.file);
+      }
+      nextSegment();
+    }
+    return null;
+  }
+
+  private void nextSegment() {
+    Segment consumed = segments.removeFirst();
+    Segment head = segments.getFirst();
+    while (head.map == null) {
+      try {
+        head.map(0);
+      } catch (IOException e) {
+        LOGGER.error("Discarding the segment that can not be read: {}", head.file, e);
+        delete(segments.removeFirst());
+        head = segments.getFirst();
+      }
+    }
+    headOffset = 0;
+    headSequence = head.base;
+    // The index moves to the next segment before the consumed one is deleted.
+    index.write(head.base, headOffset, headSequence);
+    delete(consumed);
+  }
+
+  private Segment roll(int recordSize) {
+    Segment tail = segments.getLast();
+    if (tailOffset == 0) {
+      // An empty segment is only too small for the record.
+      try {
+        tail.map(recordSize);
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not grow the segment: " + tail.file, e);
+      }
+      return tail;
+    }
+    Segment next = new Segment(new File(queueFolder, segmentName(tailSequence)), tailSequence);
+    try {
+      next.map(Math.max(segmentSize, recordSize));
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not create the segment: " + next.file, e);
+    }
+    if (syncPolicy != SyncPolicy.NEVER) {
+      tail.map.force();
+    }
+    if (tail != segments.getFirst()) {
+      // Mapped again once it is the head.
+      tail.map = null;
+    }
+    segments.addLast(next);
+    tailOffset = 0;
+    return next;
+  }
+
+  private void syncIfDue() {
+    if (syncPolicy == SyncPolicy.PERIODIC && System.nanoTime() - lastSync >= syncIntervalNanos) {
+      sync();
+    }
+  }
+
+  private void sync() {
+    segments.getLast().map.force();
+    index.map.force();
+    lastSync = System.nanoTime();
+  }
+
+  private static void delete(Segment segment) {
+    segment.map = null;
+    if (!segment.file.delete()) {
+      // Deleted the next time the queue is opened.
+      LOGGER.warn("Can not delete the file: {}", segment.file);
+    }
+  }
+
+  private static Record readRecord(ByteBuffer map, int offset) {
+    if (offset + HEADER_SIZE > map.capacity()) {
+      return END;
+    }
+    int length = map.getInt(offset);
+    if (length == 0) {
+      return END;
+    }
+    if (length < 0 || length > map.capacity() - offset - HEADER_SIZE) {
+      return CORRUPTED;
+    }
+
+    int attempts = map.getInt(offset + 8);
+    byte[] json = new byte[length];
+    ByteBuffer view = map.duplicate();
+    view.position(offset + HEADER_SIZE);
+    view.get(json);
+
+    CRC32 checksum = new CRC32();
+    update(checksum, attempts);
+    checksum.update(json, 0, json.length);
+    if ((int) checksum.getValue() != map.getInt(offset + 4)) {
+      return CORRUPTED;
+    }
+    return new Record(attempts, json);
+  }
+
+  private static void clear(ByteBuffer map, int offset) {
+    byte[] zeros = new byte[8192];
+    ByteBuffer view = map.duplicate();
+    view.position(offset);
+    while (view.hasRemaining()) {
+      view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+    }
+  }
+
+  private static void update(CRC32 checksum, int value) {
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      checksum.update(value >>> shift);
+    }
+  }
+
+  private static String segmentName(long base) {
+    return String.format("%020d%s", base, SEGMENT_SUFFIX);
+  }
+
+  private static MappedByteBuffer map(File file, long size, boolean readOnly) throws IOException {
+    RandomAccessFile access = new RandomAccessFile(file, readOnly ? "r" : "rw");
+    try {
+      // The mapping stays valid once the file is closed.
+      long length = Math.max(access.length(), size);
+      return access.getChannel()
+          .map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0,
+              length);
+    } finally {
+      ObjectsUtils.close(access);
+    }
+  }
+
+  private static final class Segment implements Comparable<Segment> {
+
+    private final File file;
+
+    // The sequence number of its first payload.
+    private final long base;
+
+    private MappedByteBuffer map;
+
+    Segment(File file, long base) {
+      this.file = file;
+      this.base = base;
+    }
+
+    void map(int size) throws IOException {
+      map = JournalQueue.map(file, size, false);
+    }
+
+    @Override
+    public int compareTo(Segment other) {
+      return base < other.base ? -1 : (base > other.base ? 1 : 0);
+    }
+  }
+
+  private static final class Record {
+
+    private final int attempts;
+
+    private final byte[] json;
+
+    private Payload payload;
+
+    Record(int attempts, byte[] json) {
+      this.attempts = attempts;
+      this.json = json;
+    }
+
+    int size() {
+      return HEADER_SIZE + json.length;
+    }
+
+    Payload toPayload() {
+      if (payload == null) {
+        payload = new Payload(new String(json, UTF_8));
+        for (int i = 0; i < attempts; i++) {
+          payload.incrementSendAttemptCount();
+        }
+      }
+      return payload;
+    }
+  }
+
+  /**
+   * The position of the head, in two slots written in turn, so a write torn by a crash leaves the
+   * previous position in the other one.
+   */
+  private static final class Index {
+
+    // The segment, the offset and the sequence number, followed by their checksum.
+    private static final int SLOT_SIZE = 32;
+
+    private MappedByteBuffer map;
+
+    private int slot;
+
+    Index(File file) throws IOException {
+      this.map = JournalQueue.map(file, 2 * SLOT_SIZE, false);
+    }
+
+    long[] read() {
+      long[] position = null;
+      for (int i = 0; i < 2; i++) {
+        int offset = i * SLOT_SIZE;
+        long[] candidate = {map.getLong(offset), map.getLong(offset + 8),
+            map.getLong(offset + 16)};
+        if (checksum(offset) == map.getInt(offset + 24) && candidate[2] >= 0
+            && (position == null || candidate[2] >= position[2])) {
+          position = candidate;
+          slot = 1 - i;
+        }
+      }
+      return position;
+    }
+
+    void write(long base, long offset, long sequence) {
+      int position = slot * SLOT_SIZE;
+      map.putLong(position, base);
+      map.putLong(position + 8, offset);
+      map.putLong(position + 16, sequence);
+      map.putInt(position + 24, checksum(position));
+      slot = 1 - slot;
+    }
+
+    private int checksum(int offset) {
+      byte[] bytes = new byte[24];
+      ByteBuffer view = map.duplicate();
+      view.position(offset);
+      view.get(bytes);
+      CRC32 checksum = new CRC32();
+      checksum.update(bytes, 0, bytes.length);
+      // Never 0, so an index never written is not valid.
+      return (int) checksum.getValue() | 1;
+    }
+  }
+
+  private static final class JsonBuffer extends ByteArrayOutputStream {
+
+    JsonBuffer() {
+      super(4096);
+    }
+
+    byte[] buffer() {
+      return buf;
+    }
+  }
+
+  private final class RecordIterator implements Iterator<Payload> {
+
+    private long base = -1;
+
+    private ByteBuffer map;
+
+    private int offset;
+
+    private Payload next;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = advance();
+      }
+      return next != null;
+    }
+
+    @Override
+    public Payload next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Payload payload = next;
+      next = null;
+      return payload;
+    }
+
+    private Payload advance() {
+      synchronized (JournalQueue.this) {
+        if (closed) {
+          return null;
+        }
+        Segment head = segments.getFirst();
+        if (map == null || base < head.base || (base == head.base && offset < headOffset)) {
+          // The payloads taken meanwhile are skipped.
+          base = head.base;
+          map = head.map;
+          offset = headOffset;
+        }
+        for (;;) {
+          Record record = readRecord(map, offset);
+          if (record != END && record != CORRUPTED) {
+            offset += record.size();
+            return record.toPayload();
+          }
+          Segment following = following(base);
+          if (following == null) {
+            return null;
+          }
+          base = following.base;
+          offset = 0;
+          try {
+            map = following.map != null ? following.map : JournalQueue.map(following.file, 0, true);
+          } catch (IOException e) {
+            LOGGER.error("Could not read the segment: {}", following.file, e);
+            return null;
+          }
+        }
+      }
+    }
+
+    private Segment following(long base) {
+      for (Segment segment : segments) {
+        if (segment.base > base) {
+          return segment;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Builder class for {@link JournalQueue}.
+   */
+  public static final class Builder {
+
+    private File queueFolder;
+
+    private int maxSize;
+
+    private int segmentSize;
+
+    private SyncPolicy syncPolicy;
+
+    private long syncInterval;
+
+    private JsonSerializer jsonSerializer;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.maxSize = UNBOUNDED_QUEUE;
+      this.segmentSize = DEFAULT_SEGMENT_SIZE;
+      this.syncPolicy = SyncPolicy.PERIODIC;
+      this.syncInterval = DEFAULT_SYNC_INTERVAL;
+    }
+
+    /**
+     * The queue folder where persist the payloads.
+     * @param queueFolder the queue folder.
+     * @return the builder instance.
+     */
+    public Builder queueFolder(File queueFolder) {
+      this.queueFolder = queueFolder;
+      return this;
+    }
+
+    /**
+     * The max size of the queue. Default: unbounded.
+     * @param maxSize the max size.
+     * @return the builder instance.
+     */
+    public Builder maxSize(int maxSize) {
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    /**
+     * The size in bytes of the segment files, larger for the payloads that do not fit in one.
+     * Default: {@link #DEFAULT_SEGMENT_SIZE}.
+     * @param segmentSize the segment size.
+     * @return the builder instance.
+     */
+    public Builder segmentSize(int segmentSize) {
+      this.segmentSize = segmentSize;
+      return this;
+    }
+
+    /**
+     * The {@link SyncPolicy policy} to sync the queue to the storage device. Default:
+     * {@link SyncPolicy#PERIODIC}.
+     * @param syncPolicy the sync policy.
+     * @return the builder instance.
+     */
+    public Builder syncPolicy(SyncPolicy syncPolicy) {
+      this.syncPolicy = syncPolicy;
+      return this;
+    }
+
+    /**
+     * The interval in millis between syncs with the {@link SyncPolicy#PERIODIC} policy. Default:
+     * {@link #DEFAULT_SYNC_INTERVAL}.
+     * @param syncInterval the sync interval.
+     * @return the builder instance.
+     */
+    public Builder syncInterval(long syncInterval) {
+      this.syncInterval = syncInterval;
+      return this;
+    }
+
+    /**
+     * The {@link JsonSerializer json serializer} the payloads are written with. Default:
+     * {@link JsonSerializerImpl}.
+     * @param jsonSerializer the json serializer.
+     * @return the builder instance.
+     */
+    public Builder jsonSerializer(JsonSerializer jsonSerializer) {
+      this.jsonSerializer = jsonSerializer;
+      return this;
+    }
+
+    /**
+     * Builds the {@link JournalQueue journal queue}, recovering the payloads persisted in the
+     * queue folder.
+     *
+     * @return the journal queue.
+     * @throws IllegalStateException if the queue folder can not be read or written.
+     */
+    public JournalQueue build() {
+      if (segmentSize <= HEADER_SIZE || syncInterval < 0) {
+        throw new IllegalArgumentException(
+            "The segment size must be larger than a record header and the interval not negative");
+      }
+      if (syncPolicy == null) {
+        throw new IllegalArgumentException("The sync policy can not be null");
+      }
+      if (queueFolder == null) {
+        queueFolder = new File(QUEUE_FOLDER);
+      }
+      if (jsonSerializer == null) {
+        jsonSerializer = new JsonSerializerImpl();
+      }
+      try {
+        return new JournalQueue(this);
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not open the queue in: " + queueFolder, e);
+      }
+    }
+  }
+}
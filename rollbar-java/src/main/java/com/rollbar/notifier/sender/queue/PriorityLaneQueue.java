@@ -0,0 +1,319 @@
+package com.rollbar.notifier.sender.queue;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import java.util.AbstractQueue;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded {@link Queue queue} of {@link Payload payloads} with a lane per {@link Level level},
+ * so the payloads with a higher level are taken before the backlog of lower ones. The payloads
+ * of uncaught exceptions go to the {@link Level#CRITICAL critical} lane, and the payloads without
+ * level to the {@link Level#ERROR error} one, the level the api gives them.
+ *
+ * <p>A lane with payloads waiting while the {@link Builder#starvationThreshold(int) threshold}
+ * of payloads is taken from the others is served next, so the lower lanes still progress.</p>
+ *
+ * <p>Each lane is a {@link RingBufferQueue} with the same capacity and overflow policy. A lane
+ * only holds the payloads of one level, and taking a payload from another lane does not make
+ * room in it, so the {@link RingBufferQueue.OverflowPolicy#DROP_LOWEST_LEVEL} policy is not
+ * supported: the lower levels are already the last ones taken.</p>
+ */
+public class PriorityLaneQueue extends AbstractQueue<Payload> {
+
+  /**
+   * The default number of payloads taken from other lanes before a waiting lane is served.
+   */
+  public static final int DEFAULT_STARVATION_THRESHOLD = 16;
+
+  // Highest level first.
+  private static final Level[] LEVELS = Level.values();
+
+  private final RingBufferQueue[] lanes;
+
+  private final int starvationThreshold;
+
+  // The payloads taken from other lanes while each lane was waiting. Guarded by this.
+  private final int[] skipped;
+
+  private PriorityLaneQueue(Builder builder) {
+    this.lanes = new RingBufferQueue[LEVELS.length];
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i] = new RingBufferQueue.Builder()
+          .capacity(builder.laneCapacity)
+          .overflowPolicy(builder.overflowPolicy)
+          .blockTimeout(builder.blockTimeoutNanos, TimeUnit.NANOSECONDS)
+          .build();
+    }
+    this.starvationThreshold = builder.starvationThreshold;
+    this.skipped = new int[lanes.length];
+  }
+
+  /**
+   * Sets the listener notified of the payloads the overflow policy of a lane drops to make room
+   * for another one.
+   *
+   * @param dropListener the listener.
+   */
+  public void setDropListener(RingBufferQueue.DropListener dropListener) {
+    for (RingBufferQueue lane : lanes) {
+      lane.setDropListener(dropListener);
+    }
+  }
+
+  /**
+   * Get the number of payloads waiting in the lane of a level.
+   *
+   * @param level the level.
+   * @return the number of payloads.
+   */
+  public int getDepth(Level level) {
+    return lanes[level.ordinal()].size();
+  }
+
+  /**
+   * Get the number of payloads waiting in each lane.
+   *
+   * @return the number of payloads by level.
+   */
+  public Map<Level, Integer> getDepths() {
+    Map<Level, Integer> depths = new EnumMap<>(Level.class);
+    for (int i = 0; i < lanes.length; i++) {
+      depths.put(LEVELS[i], lanes[i].size());
+    }
+    return depths;
+  }
+
+  /**
+   * Get the number of payloads dropped from the lane of a level because it was full.
+   *
+   * @param level the level.
+   * @return the number of dropped payloads.
+   */
+  public long getDroppedCount(Level level) {
+    return lanes[level.ordinal()].getDroppedCount();
+  }
+
+  /**
+   * Get the number of payloads dropped from all the lanes because they were full.
+   *
+   * @return the number of dropped payloads.
+   */
+  public long getDroppedCount() {
+    long count = 0;
+    for (RingBufferQueue lane : lanes) {
+      count += lane.getDroppedCount();
+    }
+    return count;
+  }
+
+  @Override
+  public boolean offer(Payload payload) {
+    if (payload == null) {
+      throw new NullPointerException("The payload can not be null");
+    }
+    return lanes[laneOf(payload)].offer(payload);
+  }
+
+  @Override
+  public synchronized Payload poll() {
+    for (;;) {
+      int lane = nextLane();
+      if (lane < 0) {
+        return null;
+      }
+      // The lane can be emptied meanwhile by its overflow policy.
+      Payload payload = lanes[lane].poll();
+      if (payload != null) {
+        for (int i = 0; i < lanes.length; i++) {
+          if (i == lane) {
+            skipped[i] = 0;
+          } else if (!lanes[i].isEmpty()) {
+            skipped[i]++;
+          }
+        }
+        return payload;
+      }
+    }
+  }
+
+  @Override
+  public synchronized Payload peek() {
+    int lane = nextLane();
+    return lane < 0 ? null : lanes[lane].peek();
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (RingBufferQueue lane : lanes) {
+      size += lane.size();
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (RingBufferQueue lane : lanes) {
+      if (!lane.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the payloads in the queue, lane by lane from the
+   * highest level, which does not support removing them.
+   */
+  @Override
+  public Iterator<Payload> iterator() {
+    return new LaneIterator();
+  }
+
+  private int nextLane() {
+    int first = -1;
+    for (int i = 0; i < lanes.length; i++) {
+      if (!lanes[i].isEmpty()) {
+        if (skipped[i] >= starvationThreshold) {
+          return i;
+        }
+        if (first < 0) {
+          first = i;
+        }
+      }
+    }
+    return first;
+  }
+
+  private static int laneOf(Payload payload) {
+    Data data = payload.getData();
+    if (data == null) {
+      return Level.ERROR.ordinal();
+    }
+    if (data.isUncaught()) {
+      return Level.CRITICAL.ordinal();
+    }
+    return data.getLevel() != null ? data.getLevel().ordinal() : Level.ERROR.ordinal();
+  }
+
+  private final class LaneIterator implements Iterator<Payload> {
+
+    private int lane;
+
+    private Iterator<Payload> current = lanes[0].iterator();
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext() && lane < lanes.length - 1) {
+        current = lanes[++lane].iterator();
+      }
+      return current.hasNext();
+    }
+
+    @Override
+    public Payload next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+  }
+
+  /**
+   * Builder class for {@link PriorityLaneQueue}.
+   */
+  public static final class Builder {
+
+    private int laneCapacity;
+
+    private RingBufferQueue.OverflowPolicy overflowPolicy;
+
+    private long blockTimeoutNanos;
+
+    private int starvationThreshold;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.laneCapacity = RingBufferQueue.DEFAULT_CAPACITY;
+      this.overflowPolicy = RingBufferQueue.OverflowPolicy.DROP_NEWEST;
+      this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(100);
+      this.starvationThreshold = DEFAULT_STARVATION_THRESHOLD;
+    }
+
+    /**
+     * The capacity of each lane, see {@link RingBufferQueue.Builder#capacity(int)}. Default:
+     * {@link RingBufferQueue#DEFAULT_CAPACITY}.
+     * @param laneCapacity the capacity of each lane.
+     * @return the builder instance.
+     */
+    public Builder laneCapacity(int laneCapacity) {
+      this.laneCapacity = laneCapacity;
+      return this;
+    }
+
+    /**
+     * The {@link RingBufferQueue.OverflowPolicy policy} when a lane is full, any but
+     * {@link RingBufferQueue.OverflowPolicy#DROP_LOWEST_LEVEL} since a lane holds a single level.
+     * Default: {@link RingBufferQueue.OverflowPolicy#DROP_NEWEST}.
+     * @param overflowPolicy the overflow policy.
+     * @return the builder instance.
+     */
+    public Builder overflowPolicy(RingBufferQueue.OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+      return this;
+    }
+
+    /**
+     * The maximum time to wait for room with the
+     * {@link RingBufferQueue.OverflowPolicy#BLOCK} policy. Default: 100 milliseconds.
+     * @param timeout the timeout.
+     * @param unit the unit of the timeout.
+     * @return the builder instance.
+     */
+    public Builder blockTimeout(long timeout, TimeUnit unit) {
+      this.blockTimeoutNanos = unit.toNanos(timeout);
+      return this;
+    }
+
+    /**
+     * The number of payloads taken from other lanes before a lane with payloads waiting is
+     * served. Default: {@link #DEFAULT_STARVATION_THRESHOLD}.
+     * @param starvationThreshold the number of payloads.
+     * @return the builder instance.
+     */
+    public Builder starvationThreshold(int starvationThreshold) {
+      this.starvationThreshold = starvationThreshold;
+      return this;
+    }
+
+    /**
+     * Builds the {@link PriorityLaneQueue queue}.
+     *
+     * @return the queue.
+     */
+    public PriorityLaneQueue build() {
+      if (starvationThreshold < 1) {
+        throw new IllegalArgumentException("The starvation threshold must be at least 1");
+      }
+      if (overflowPolicy == null
+          || overflowPolicy == RingBufferQueue.OverflowPolicy.DROP_LOWEST_LEVEL) {
+        throw new IllegalArgumentException(
+            "The overflow policy can not be null nor drop the lowest level, a lane holds one");
+      }
+      if (laneCapacity < 1 || blockTimeoutNanos < 0) {
+        throw new IllegalArgumentException(
+            "The lane capacity must be positive and the block timeout not negative");
+      }
+      return new PriorityLaneQueue(this);
+    }
+  }
+}
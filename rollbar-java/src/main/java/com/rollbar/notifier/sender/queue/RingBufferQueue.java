@@ -0,0 +1,455 @@
+package com.rollbar.notifier.sender.queue;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Level;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@link Queue queue} of {@link Payload payloads} backed by a ring of preallocated
+ * slots, for many threads adding payloads and the sender thread taking them. Taking from several
+ * threads is safe too, the overflow policies do it.
+ *
+ * <p>Adding and taking a payload claim a slot with a single compare and set, without locks nor
+ * allocation. When the queue is full the {@link OverflowPolicy overflow policy} decides which
+ * payload is dropped, and every dropped payload is counted.</p>
+ */
+public class RingBufferQueue extends AbstractQueue<Payload> {
+
+  /**
+   * The default capacity.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static final long DEFAULT_BLOCK_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final int mask;
+
+  private final AtomicReferenceArray<Payload> slots;
+
+  // The position each slot expects next: its position to be added, or its position + 1 to be
+  // taken.
+  private final AtomicLongArray sequences;
+
+  private final AtomicLong head = new AtomicLong();
+
+  private final AtomicLong tail = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final long blockTimeoutNanos;
+
+  private volatile DropListener dropListener;
+
+  private RingBufferQueue(Builder builder) {
+    int capacity = roundUpToPowerOfTwo(builder.capacity);
+    this.mask = capacity - 1;
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+    this.overflowPolicy = builder.overflowPolicy;
+    this.blockTimeoutNanos = builder.blockTimeoutNanos;
+  }
+
+  /**
+   * Sets the listener notified of the payloads the overflow policy drops from the queue to make
+   * room for another one. The payloads that are not added are not notified, {@link #offer}
+   * returns false for them.
+   *
+   * @param dropListener the listener.
+   */
+  public void setDropListener(DropListener dropListener) {
+    this.dropListener = dropListener;
+  }
+
+  /**
+   * Get the number of payloads dropped because the queue was full, either not added or removed
+   * to make room for another one.
+   *
+   * @return the number of dropped payloads.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Get the capacity of the queue.
+   *
+   * @return the capacity.
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Get the overflow policy.
+   *
+   * @return the overflow policy.
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  @Override
+  public boolean offer(Payload payload) {
+    if (payload == null) {
+      throw new NullPointerException("The payload can not be null");
+    }
+    if (tryAdd(payload)) {
+      return true;
+    }
+
+    boolean added;
+    switch (overflowPolicy) {
+      case DROP_OLDEST:
+        added = offerDroppingOldest(payload);
+        break;
+      case DROP_LOWEST_LEVEL:
+        added = offerDroppingLowestLevel(payload);
+        break;
+      case BLOCK:
+        added = offerBlocking(payload);
+        break;
+      default:
+        added = false;
+        break;
+    }
+    if (!added) {
+      droppedCount.incrementAndGet();
+    }
+    return added;
+  }
+
+  @Override
+  public Payload poll() {
+    long position = head.get();
+    for (;;) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          Payload payload = slots.getAndSet(index, null);
+          sequences.set(index, position + mask + 1);
+          return payload;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        return null;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  @Override
+  public Payload peek() {
+    for (;;) {
+      long position = head.get();
+      int index = (int) position & mask;
+      if (sequences.get(index) != position + 1) {
+        return null;
+      }
+      Payload payload = slots.get(index);
+      if (payload != null && head.get() == position) {
+        return payload;
+      }
+    }
+  }
+
+  /**
+   * Takes up to {@code maxPayloads} payloads from the head of the queue.
+   *
+   * @param target the collection to add the payloads to.
+   * @param maxPayloads the maximum number of payloads to take.
+   * @return the number of payloads taken.
+   */
+  public int drainTo(Collection<? super Payload> target, int maxPayloads) {
+    int count = 0;
+    Payload payload;
+    while (count < maxPayloads && (payload = poll()) != null) {
+      target.add(payload);
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public int size() {
+    for (;;) {
+      long currentHead = head.get();
+      long currentTail = tail.get();
+      if (head.get() == currentHead) {
+        return (int) Math.max(0, Math.min(currentTail - currentHead, mask + 1));
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return peek() == null;
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the payloads in the queue, which does not support
+   * removing them.
+   */
+  @Override
+  public Iterator<Payload> iterator() {
+    return new SlotIterator(head.get(), tail.get());
+  }
+
+  private boolean tryAdd(Payload payload) {
+    long position = tail.get();
+    for (;;) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots.set(index, payload);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  private boolean offerDroppingOldest(Payload payload) {
+    do {
+      Payload oldest = poll();
+      if (oldest != null) {
+        dropped(oldest);
+      }
+    } while (!tryAdd(payload));
+    return true;
+  }
+
+  private boolean offerDroppingLowestLevel(Payload payload) {
+    int level = levelOf(payload);
+    do {
+      // The oldest of the payloads with the lowest level.
+      int lowestIndex = -1;
+      Payload lowest = null;
+      long end = tail.get();
+      for (long position = head.get(); position < end; position++) {
+        int index = (int) position & mask;
+        Payload candidate = slots.get(index);
+        if (candidate != null && (lowest == null || levelOf(candidate) < levelOf(lowest))) {
+          lowest = candidate;
+          lowestIndex = index;
+        }
+      }
+      if (lowest != null) {
+        if (levelOf(lowest) >= level) {
+          return false;
+        }
+        // The payload takes the place of the dropped one, unless it was taken meanwhile.
+        if (slots.compareAndSet(lowestIndex, lowest, payload)) {
+          dropped(lowest);
+          return true;
+        }
+      }
+    } while (!tryAdd(payload));
+    return true;
+  }
+
+  private boolean offerBlocking(Payload payload) {
+    long deadline = System.nanoTime() + blockTimeoutNanos;
+    long parkNanos = 1000;
+    do {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      LockSupport.parkNanos(this, Math.min(parkNanos, remaining));
+      parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+    } while (!tryAdd(payload));
+    return true;
+  }
+
+  private void dropped(Payload payload) {
+    droppedCount.incrementAndGet();
+    DropListener listener = dropListener;
+    if (listener != null) {
+      listener.onDrop(payload);
+    }
+  }
+
+  private static int levelOf(Payload payload) {
+    Level level = payload.getData() != null ? payload.getData().getLevel() : null;
+    return level != null ? level.level() : 0;
+  }
+
+  private static int roundUpToPowerOfTwo(int value) {
+    // With a single slot its sequence once added would be the position of the next payload.
+    return value <= 2 ? 2 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  /**
+   * What to do with a payload added to a full queue.
+   */
+  public enum OverflowPolicy {
+    /**
+     * The payload added is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest payload in the queue is dropped.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The oldest of the payloads with the lowest {@link Level level} is dropped, or the payload
+     * added if no payload in the queue has a lower level than it.
+     */
+    DROP_LOWEST_LEVEL,
+
+    /**
+     * The thread adding the payload waits for room, up to the block timeout, then the payload
+     * added is dropped.
+     */
+    BLOCK
+  }
+
+  /**
+   * Listener of the payloads dropped from the queue to make room for another one.
+   */
+  public interface DropListener {
+
+    /**
+     * Called when a payload is dropped from the queue.
+     *
+     * @param payload the dropped payload.
+     */
+    void onDrop(Payload payload);
+  }
+
+  private final class SlotIterator implements Iterator<Payload> {
+
+    private final long end;
+
+    private long position;
+
+    private Payload next;
+
+    SlotIterator(long start, long end) {
+      this.position = start;
+      this.end = end;
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Payload next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Payload payload = next;
+      advance();
+      return payload;
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null && position < end) {
+        next = slots.get((int) position++ & mask);
+      }
+    }
+  }
+
+  /**
+   * Builder class for {@link RingBufferQueue}.
+   */
+  public static final class Builder {
+
+    private int capacity;
+
+    private OverflowPolicy overflowPolicy;
+
+    private long blockTimeoutNanos;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.capacity = DEFAULT_CAPACITY;
+      this.overflowPolicy = OverflowPolicy.DROP_NEWEST;
+      this.blockTimeoutNanos = DEFAULT_BLOCK_TIMEOUT;
+    }
+
+    /**
+     * The capacity of the queue, rounded up to a power of two of at least 2. Default:
+     * {@link #DEFAULT_CAPACITY}.
+     * @param capacity the capacity.
+     * @return the builder instance.
+     */
+    public Builder capacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    /**
+     * The {@link OverflowPolicy policy} when the queue is full. Default:
+     * {@link OverflowPolicy#DROP_NEWEST}.
+     * @param overflowPolicy the overflow policy.
+     * @return the builder instance.
+     */
+    public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+      return this;
+    }
+
+    /**
+     * The maximum time to wait for room with the {@link OverflowPolicy#BLOCK} policy. Default:
+     * 100 milliseconds.
+     * @param timeout the timeout.
+     * @param unit the unit of the timeout.
+     * @return the builder instance.
+     */
+    public Builder blockTimeout(long timeout, TimeUnit unit) {
+      this.blockTimeoutNanos = unit.toNanos(timeout);
+      return this;
+    }
+
+    /**
+     * Builds the {@link RingBufferQueue queue}.
+     *
+     * @return the queue.
+     */
+    public RingBufferQueue build() {
+      if (capacity < 1 || capacity > (1 << 30)) {
+        throw new IllegalArgumentException("The capacity must be between 1 and 2^30");
+      }
+      if (overflowPolicy == null) {
+        throw new IllegalArgumentException("The overflow policy can not be null");
+      }
+      if (blockTimeoutNanos < 0) {
+        throw new IllegalArgumentException("The block timeout can not be negative");
+      }
+      return new RingBufferQueue(this);
+    }
+  }
+}
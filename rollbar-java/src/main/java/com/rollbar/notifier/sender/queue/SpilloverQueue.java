@@ -0,0 +1,320 @@
+package com.rollbar.notifier.sender.queue;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.SenderFailureStrategy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Queue queue} of {@link Payload payloads} kept in memory while the backlog is small,
+ * which spills the oldest payloads to a queue on disk once the
+ * {@link Builder#memoryThreshold(int) threshold} of payloads in memory is crossed, and all of
+ * them while sending is {@link SenderFailureStrategy#isSendingSuspended() suspended}.
+ *
+ * <p>The payloads on disk are older than the ones in memory, so they are taken first, in order,
+ * until the backlog drains. While the disk is empty, adding and taking payloads does not touch
+ * it. The payloads are written to and read from disk without holding the lock of the payloads in
+ * memory, so the threads adding payloads while others are spilled are not held by the disk. A
+ * payload being spilled can then be taken after newer ones in memory.</p>
+ */
+public class SpilloverQueue extends AbstractQueue<Payload> implements Closeable {
+
+  /**
+   * The default number of payloads kept in memory.
+   */
+  public static final int DEFAULT_MEMORY_THRESHOLD = 512;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpilloverQueue.class);
+
+  private final int memoryThreshold;
+
+  private final Queue<Payload> diskQueue;
+
+  private final SenderFailureStrategy senderFailureStrategy;
+
+  // Guarded by this.
+  private final ArrayDeque<Payload> memory = new ArrayDeque<>();
+
+  // The payloads on disk, including the ones left by a previous process. Guarded by this.
+  private int onDisk;
+
+  // The payloads taken from memory, or added, being written to disk. Guarded by this.
+  private int spilling;
+
+  // The number of spills done, to tell if one ended while the disk was read. Guarded by this.
+  private long spills;
+
+  private SpilloverQueue(Builder builder) {
+    this.memoryThreshold = builder.memoryThreshold;
+    this.diskQueue = builder.diskQueue;
+    this.senderFailureStrategy = builder.senderFailureStrategy;
+    this.onDisk = diskQueue.size();
+  }
+
+  /**
+   * Get the number of payloads in memory.
+   *
+   * @return the number of payloads.
+   */
+  public synchronized int getMemoryDepth() {
+    return memory.size();
+  }
+
+  /**
+   * Get the number of payloads spilled to disk.
+   *
+   * @return the number of payloads.
+   */
+  public synchronized int getDiskDepth() {
+    return Math.max(0, onDisk);
+  }
+
+  @Override
+  public boolean offer(Payload payload) {
+    if (payload == null) {
+      throw new NullPointerException("The payload can not be null");
+    }
+    boolean suspended = isSuspended();
+
+    List<Payload> batch = null;
+    synchronized (this) {
+      while (!memory.isEmpty() && (suspended || memory.size() >= memoryThreshold)) {
+        if (batch == null) {
+          batch = new ArrayList<>();
+        }
+        batch.add(memory.pollFirst());
+      }
+      if (!suspended) {
+        memory.addLast(payload);
+        if (batch == null) {
+          return true;
+        }
+      } else {
+        // A payload goes to disk only after the older ones in memory.
+        if (batch == null) {
+          batch = new ArrayList<>(1);
+        }
+        batch.add(payload);
+      }
+      spilling += batch.size();
+    }
+
+    int written = spill(batch);
+
+    synchronized (this) {
+      spilling -= batch.size();
+      onDisk += written;
+      spills++;
+      if (written == batch.size()) {
+        return true;
+      }
+      // The payloads the disk did not take stay in memory, the older ones first.
+      for (int i = batch.size() - 1; i >= written; i--) {
+        if (batch.get(i) != payload) {
+          memory.addFirst(batch.get(i));
+        }
+      }
+      if (!suspended) {
+        // Unless taken meanwhile, the payload added gives its place back to an older one.
+        return memory.size() <= memoryThreshold || !memory.removeLastOccurrence(payload);
+      }
+      if (memory.size() >= memoryThreshold) {
+        return false;
+      }
+      memory.addLast(payload);
+      return true;
+    }
+  }
+
+  @Override
+  public Payload poll() {
+    long spillsBefore;
+    synchronized (this) {
+      if (onDisk + spilling <= 0) {
+        return memory.pollFirst();
+      }
+      spillsBefore = spills;
+    }
+    Payload payload = diskQueue.poll();
+    synchronized (this) {
+      if (payload != null) {
+        // Can be counted before its spill ends.
+        onDisk--;
+        return payload;
+      }
+      reconcile(spillsBefore);
+      return memory.pollFirst();
+    }
+  }
+
+  @Override
+  public Payload peek() {
+    long spillsBefore;
+    synchronized (this) {
+      if (onDisk + spilling <= 0) {
+        return memory.peekFirst();
+      }
+      spillsBefore = spills;
+    }
+    Payload payload = diskQueue.peek();
+    synchronized (this) {
+      if (payload != null) {
+        return payload;
+      }
+      reconcile(spillsBefore);
+      return memory.peekFirst();
+    }
+  }
+
+  @Override
+  public synchronized int size() {
+    return Math.max(0, onDisk + spilling) + memory.size();
+  }
+
+  /**
+   * Returns a weakly consistent iterator over the payloads on disk and then the payloads in
+   * memory, which does not support removing them.
+   */
+  @Override
+  public Iterator<Payload> iterator() {
+    final Iterator<Payload> disk = diskQueue.iterator();
+    final Iterator<Payload> inMemory;
+    synchronized (this) {
+      inMemory = new ArrayList<>(memory).iterator();
+    }
+    return new Iterator<Payload>() {
+      @Override
+      public boolean hasNext() {
+        return disk.hasNext() || inMemory.hasNext();
+      }
+
+      @Override
+      public Payload next() {
+        if (disk.hasNext()) {
+          return disk.next();
+        }
+        if (inMemory.hasNext()) {
+          return inMemory.next();
+        }
+        throw new NoSuchElementException();
+      }
+    };
+  }
+
+  /**
+   * Closes the queue on disk if it is {@link Closeable closeable}, the payloads in memory are not
+   * spilled.
+   *
+   * @throws IOException if the queue on disk can not be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (diskQueue instanceof Closeable) {
+      ((Closeable) diskQueue).close();
+    }
+  }
+
+  private int spill(List<Payload> batch) {
+    int written = 0;
+    try {
+      for (Payload payload : batch) {
+        if (!diskQueue.offer(payload)) {
+          break;
+        }
+        written++;
+      }
+    } catch (RuntimeException e) {
+      // The payloads stay in memory while the disk fails.
+      LOGGER.error("Error spilling the payload to disk.", e);
+    }
+    return written;
+  }
+
+  private void reconcile(long spillsBefore) {
+    // The disk is empty, the payloads counted were lost, e.g. corrupted, unless a spill ended or
+    // is still writing.
+    if (spilling == 0 && spills == spillsBefore && onDisk > 0) {
+      onDisk = 0;
+    }
+  }
+
+  private boolean isSuspended() {
+    return senderFailureStrategy != null && senderFailureStrategy.isSendingSuspended();
+  }
+
+  /**
+   * Builder class for {@link SpilloverQueue}.
+   */
+  public static final class Builder {
+
+    private int memoryThreshold;
+
+    private Queue<Payload> diskQueue;
+
+    private SenderFailureStrategy senderFailureStrategy;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+    }
+
+    /**
+     * The number of payloads kept in memory, past which the oldest ones are spilled to disk.
+     * Default: {@link #DEFAULT_MEMORY_THRESHOLD}.
+     * @param memoryThreshold the number of payloads.
+     * @return the builder instance.
+     */
+    public Builder memoryThreshold(int memoryThreshold) {
+      this.memoryThreshold = memoryThreshold;
+      return this;
+    }
+
+    /**
+     * The queue the payloads are spilled to. Default: a {@link JournalQueue} with its default
+     * folder.
+     * @param diskQueue the queue on disk.
+     * @return the builder instance.
+     */
+    public Builder diskQueue(Queue<Payload> diskQueue) {
+      this.diskQueue = diskQueue;
+      return this;
+    }
+
+    /**
+     * The {@link SenderFailureStrategy strategy} of the sender, all the payloads are spilled to
+     * disk while it suspends sending. Default: none.
+     * @param senderFailureStrategy the strategy.
+     * @return the builder instance.
+     */
+    public Builder senderFailureStrategy(SenderFailureStrategy senderFailureStrategy) {
+      this.senderFailureStrategy = senderFailureStrategy;
+      return this;
+    }
+
+    /**
+     * Builds the {@link SpilloverQueue queue}.
+     *
+     * @return the queue.
+     */
+    public SpilloverQueue build() {
+      if (memoryThreshold < 1) {
+        throw new IllegalArgumentException("The memory threshold must be positive");
+      }
+      if (diskQueue == null) {
+        diskQueue = new JournalQueue.Builder().build();
+      }
+      return new SpilloverQueue(this);
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package com.rollbar.notifier.sender.result;
+
+/**
+ * Represents the outcome of {@link com.rollbar.notifier.sender.Sender#flush flushing} a sender.
+ */
+public class FlushResult {
+
+  private final int sent;
+
+  private final int failed;
+
+  private final int remaining;
+
+  private final long bytes;
+
+  private final long elapsed;
+
+  private FlushResult(Builder builder) {
+    this.sent = builder.sent;
+    this.failed = builder.failed;
+    this.remaining = builder.remaining;
+    this.bytes = builder.bytes;
+    this.elapsed = builder.elapsed;
+  }
+
+  /**
+   * The number of payloads sent while flushing.
+   * @return the number of payloads.
+   */
+  public int getSent() {
+    return sent;
+  }
+
+  /**
+   * The number of attempts to send a payload which failed while flushing, the payloads to be
+   * retried are counted in the {@link #getRemaining() remaining} ones too.
+   * @return the number of attempts.
+   */
+  public int getFailed() {
+    return failed;
+  }
+
+  /**
+   * The number of payloads left to send once flushing is done.
+   * @return the number of payloads.
+   */
+  public int getRemaining() {
+    return remaining;
+  }
+
+  /**
+   * The size in bytes of the request bodies of the payloads sent, compressed if they were, as
+   * reported by the {@link Response#getBodySize() responses}.
+   * @return the bytes.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * The time spent flushing in millis.
+   * @return the elapsed time.
+   */
+  public long getElapsed() {
+    return elapsed;
+  }
+
+  /**
+   * Indicates if all the payloads were sent.
+   * @return true if none is left, otherwise false.
+   */
+  public boolean isComplete() {
+    return remaining == 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FlushResult that = (FlushResult) o;
+    return sent == that.sent
+            && failed == that.failed
+            && remaining == that.remaining
+            && bytes == that.bytes
+            && elapsed == that.elapsed;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = sent;
+    result = 31 * result + failed;
+    result = 31 * result + remaining;
+    result = 31 * result + (int) (bytes ^ (bytes >>> 32));
+    result = 31 * result + (int) (elapsed ^ (elapsed >>> 32));
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "FlushResult{"
+        + "sent=" + sent
+        + ", failed=" + failed
+        + ", remaining=" + remaining
+        + ", bytes=" + bytes
+        + ", elapsed=" + elapsed
+        + '}';
+  }
+
+  /**
+   * Builder class for {@link FlushResult}.
+   */
+  public static final class Builder {
+
+    private int sent;
+
+    private int failed;
+
+    private int remaining;
+
+    private long bytes;
+
+    private long elapsed;
+
+    /**
+     * The number of payloads sent.
+     * @param sent the number of payloads.
+     * @return the builder instance.
+     */
+    public Builder sent(int sent) {
+      this.sent = sent;
+      return this;
+    }
+
+    /**
+     * The number of failed attempts.
+     * @param failed the number of attempts.
+     * @return the builder instance.
+     */
+    public Builder failed(int failed) {
+      this.failed = failed;
+      return this;
+    }
+
+    /**
+     * The number of payloads left to send.
+     * @param remaining the number of payloads.
+     * @return the builder instance.
+     */
+    public Builder remaining(int remaining) {
+      this.remaining = remaining;
+      return this;
+    }
+
+    /**
+     * The size in bytes of the payloads sent.
+     * @param bytes the bytes.
+     * @return the builder instance.
+     */
+    public Builder bytes(long bytes) {
+      this.bytes = bytes;
+      return this;
+    }
+
+    /**
+     * The time spent flushing in millis.
+     * @param elapsed the elapsed time.
+     * @return the builder instance.
+     */
+    public Builder elapsed(long elapsed) {
+      this.elapsed = elapsed;
+      return this;
+    }
+
+    /**
+     * Builds the {@link FlushResult flush result}.
+     *
+     * @return the flush result.
+     */
+    public FlushResult build() {
+      return new FlushResult(this);
+    }
+  }
+}
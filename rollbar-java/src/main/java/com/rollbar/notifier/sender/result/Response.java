@@ -1,6 +1,11 @@
 package com.rollbar.notifier.sender.result;
 
 import com.rollbar.notifier.util.ObjectsUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Represents the Rollbar response.
@@ -11,9 +16,15 @@ public class Response {
 
   private Result result;
 
+  private final Map<String, List<String>> headers;
+
+  private final long bodySize;
+
   Response(Builder builder) {
     this.status = builder.status;
     this.result = builder.result;
+    this.headers = Collections.unmodifiableMap(builder.headers);
+    this.bodySize = builder.bodySize;
   }
 
   /**
@@ -32,6 +43,32 @@ public class Response {
     return result;
   }
 
+  /**
+   * The headers of the response, by case insensitive name.
+   * @return the headers.
+   */
+  public Map<String, List<String>> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * The first value of a header of the response.
+   * @param name the case insensitive name of the header.
+   * @return the value, or null if the response does not have the header.
+   */
+  public String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * The size of the body of the request sent, compressed if it was.
+   * @return the size in bytes, or 0 if unknown.
+   */
+  public long getBodySize() {
+    return bodySize;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -42,12 +79,14 @@ public class Response {
     }
     Response response = (Response) o;
     return status == response.status
-            && ObjectsUtils.equals(result, response.result);
+            && bodySize == response.bodySize
+            && ObjectsUtils.equals(result, response.result)
+            && headers.equals(response.headers);
   }
 
   @Override
   public int hashCode() {
-    return ObjectsUtils.hash(status, result);
+    return ObjectsUtils.hash(status, result, headers, bodySize);
   }
 
   @Override
@@ -55,6 +94,8 @@ public class Response {
     return "Response{"
         + "status=" + status
         + ", result=" + result
+        + ", headers=" + headers
+        + ", bodySize=" + bodySize
         + '}';
   }
 
@@ -67,6 +108,11 @@ public class Response {
 
     private Result result;
 
+    private final Map<String, List<String>> headers =
+        new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private long bodySize;
+
     /**
      * The status code of the response.
      * @param status the status.
@@ -87,6 +133,51 @@ public class Response {
       return this;
     }
 
+    /**
+     * Adds the values of the headers of the response. The entries without name, like the status
+     * line of a {@link java.net.HttpURLConnection connection}, are ignored.
+     * @param headers the values by header name.
+     * @return the builder instance.
+     */
+    public Builder headers(Map<String, List<String>> headers) {
+      if (headers != null) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+          if (header.getKey() != null && header.getValue() != null) {
+            for (String value : header.getValue()) {
+              header(header.getKey(), value);
+            }
+          }
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Adds a value of a header of the response.
+     * @param name the header name.
+     * @param value the value.
+     * @return the builder instance.
+     */
+    public Builder header(String name, String value) {
+      List<String> values = headers.get(name);
+      if (values == null) {
+        values = new ArrayList<>();
+        headers.put(name, values);
+      }
+      values.add(value);
+      return this;
+    }
+
+    /**
+     * The size of the body of the request sent, compressed if it was.
+     * @param bodySize the size in bytes.
+     * @return the builder instance.
+     */
+    public Builder bodySize(long bodySize) {
+      this.bodySize = bodySize;
+      return this;
+    }
+
     /**
      * Builds the {@link Response response}.
      *
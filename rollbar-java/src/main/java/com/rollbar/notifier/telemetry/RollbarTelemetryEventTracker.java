@@ -7,25 +7,29 @@ import com.rollbar.api.payload.data.TelemetryType;
 import com.rollbar.notifier.provider.Provider;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Default implementation of {@link TelemetryEventTracker}.
  *
- * <p>This tracker records telemetry events in memory using a bounded, thread-safe
- * buffer. When the configured maximum capacity is reached, the oldest events
- * are discarded to make room for new ones.
+ * <p>This tracker records telemetry events in memory using a fixed-capacity, lock-free ring
+ * buffer. When the configured maximum capacity is reached, the oldest events are overwritten by
+ * the new ones.
  *
- * <p>Recorded events are returned and cleared when {@link #dump()} is called.
+ * <p>The slots of the ring are preallocated and recording an event only stores its fields in
+ * them, so it takes constant time and does not allocate. The {@link TelemetryEvent events} are
+ * only built when {@link #getAll()} takes a snapshot for an occurrence.
  */
 public class RollbarTelemetryEventTracker implements TelemetryEventTracker {
-  public static final int MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS = 100;
+  public static final int DEFAULT_CAPACITY_FOR_TELEMETRY_EVENTS = 100;
+  public static final int MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS = 1000;
   private final int maximumTelemetryData;
-  private final Queue<TelemetryEvent> telemetryEvents = new ConcurrentLinkedQueue<>();
   private final Provider<Long> timestampProvider;
   private static final String LOG_KEY_MESSAGE = "message";
   private static final String NAVIGATION_KEY_FROM = "from";
@@ -35,13 +39,28 @@ public class RollbarTelemetryEventTracker implements TelemetryEventTracker {
   private static final String NETWORK_KEY_STATUS_CODE = "status_code";
   private static final int NO_CAPACITY = 0;
 
+  // Fields stored in each slot of the ring, besides the timestamp.
+  private static final int TYPE = 0;
+  private static final int LEVEL = 1;
+  private static final int SOURCE = 2;
+  private static final int VALUE_1 = 3;
+  private static final int VALUE_2 = 4;
+  private static final int VALUE_3 = 5;
+  private static final int FIELDS = 6;
+
+  private final AtomicLong head = new AtomicLong();
+  // Stamp of each slot: 2 * sequence + 1 while it is written, 2 * sequence + 2 once written.
+  private final AtomicLongArray stamps;
+  private final AtomicLongArray timestamps;
+  private final AtomicReferenceArray<Object> fields;
+
   /**
    * Construct a {@link RollbarTelemetryEventTracker}.
    *
    * @param timestampProvider    A Provider of timestamps for the events
    * @param maximumTelemetryData Maximum number of accumulated events (This value can be between 0
-   *                             and 100, exceed any of these thresholds and the closest will be
-   *                             taken)
+   *                             and {@value #MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS}, exceed any
+   *                             of these thresholds and the closest will be taken)
    */
   public RollbarTelemetryEventTracker(
       Provider<Long> timestampProvider,
@@ -54,33 +73,42 @@ public class RollbarTelemetryEventTracker implements TelemetryEventTracker {
           Math.min(maximumTelemetryData, MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS);
     }
     this.timestampProvider = timestampProvider;
+    this.stamps = new AtomicLongArray(this.maximumTelemetryData);
+    this.timestamps = new AtomicLongArray(this.maximumTelemetryData);
+    this.fields = new AtomicReferenceArray<>(this.maximumTelemetryData * FIELDS);
   }
 
   @Override
   public List<TelemetryEvent> getAll() {
-    return new ArrayList<>(telemetryEvents);
+    if (doNotRecordEvents()) {
+      return Collections.emptyList();
+    }
+
+    long last = head.get();
+    long first = Math.max(0, last - maximumTelemetryData);
+    List<TelemetryEvent> events = new ArrayList<>((int) (last - first));
+    for (long sequence = first; sequence < last; sequence++) {
+      TelemetryEvent event = read(sequence);
+      if (event != null) {
+        events.add(event);
+      }
+    }
+    return events;
   }
 
   @Override
   public void recordLogEventFor(Level level, Source source, String message) {
-    Map<String, String> body = new HashMap<>();
-    body.put(LOG_KEY_MESSAGE, message);
-    addEvent(new TelemetryEvent(TelemetryType.LOG, level, getTimestamp(), source, body));
+    addEvent(TelemetryType.LOG, level, source, message, null, null);
   }
 
   @Override
   public void recordManualEventFor(Level level, Source source, String message) {
-    Map<String, String> body = new HashMap<>();
-    body.put(LOG_KEY_MESSAGE, message);
-    addEvent(new TelemetryEvent(TelemetryType.MANUAL, level, getTimestamp(), source, body));
+    addEvent(TelemetryType.MANUAL, level, source, message, null, null);
   }
 
   @Override
   public void recordNavigationEventFor(Level level, Source source, String from, String to) {
-    Map<String, String> body = new HashMap<>();
-    body.put(NAVIGATION_KEY_FROM, from);
-    body.put(NAVIGATION_KEY_TO, to);
-    addEvent(new TelemetryEvent(TelemetryType.NAVIGATION, level, getTimestamp(), source, body));
+    addEvent(TelemetryType.NAVIGATION, level, source, from, to, null);
   }
 
   @Override
@@ -91,34 +119,99 @@ public class RollbarTelemetryEventTracker implements TelemetryEventTracker {
       String url,
       String statusCode
   ) {
-    Map<String, String> body = new HashMap<>();
-    body.put(NETWORK_KEY_METHOD, method);
-    body.put(NETWORK_KEY_URL, url);
-    body.put(NETWORK_KEY_STATUS_CODE, statusCode);
-    addEvent(new TelemetryEvent(TelemetryType.NETWORK, level, getTimestamp(), source, body));
+    addEvent(TelemetryType.NETWORK, level, source, method, url, statusCode);
   }
 
-  private void addEvent(TelemetryEvent telemetryEvent) {
+  private void addEvent(TelemetryType type, Level level, Source source, String value1,
+                        String value2, String value3) {
     if (doNotRecordEvents()) {
       return;
     }
 
-    if (maxCapacityReached()) {
-      removeOldestEvent();
+    long timestamp = getTimestamp();
+    long sequence = head.getAndIncrement();
+    int slot = (int) (sequence % maximumTelemetryData);
+    if (!acquire(slot, sequence)) {
+      return;
     }
-    telemetryEvents.add(telemetryEvent);
+
+    int offset = slot * FIELDS;
+    timestamps.lazySet(slot, timestamp);
+    fields.lazySet(offset + TYPE, type);
+    fields.lazySet(offset + LEVEL, level);
+    fields.lazySet(offset + SOURCE, source);
+    fields.lazySet(offset + VALUE_1, value1);
+    fields.lazySet(offset + VALUE_2, value2);
+    fields.lazySet(offset + VALUE_3, value3);
+    stamps.set(slot, 2 * sequence + 2);
   }
 
-  private boolean doNotRecordEvents() {
-    return maximumTelemetryData == NO_CAPACITY;
+  private boolean acquire(int slot, long sequence) {
+    long writing = 2 * sequence + 1;
+    while (true) {
+      long stamp = stamps.get(slot);
+      if (stamp >= writing) {
+        // A newer event already took the slot, this one would be overwritten anyway.
+        return false;
+      }
+      if ((stamp & 1) == 1) {
+        // An older event is still being written, which only happens when the ring wraps around
+        // while it is stored.
+        Thread.yield();
+        continue;
+      }
+      if (stamps.compareAndSet(slot, stamp, writing)) {
+        return true;
+      }
+    }
+  }
+
+  private TelemetryEvent read(long sequence) {
+    int slot = (int) (sequence % maximumTelemetryData);
+    long written = 2 * sequence + 2;
+    if (stamps.get(slot) != written) {
+      return null;
+    }
+
+    int offset = slot * FIELDS;
+    long timestamp = timestamps.get(slot);
+    TelemetryType type = (TelemetryType) fields.get(offset + TYPE);
+    Level level = (Level) fields.get(offset + LEVEL);
+    Source source = (Source) fields.get(offset + SOURCE);
+    String value1 = (String) fields.get(offset + VALUE_1);
+    String value2 = (String) fields.get(offset + VALUE_2);
+    String value3 = (String) fields.get(offset + VALUE_3);
+
+    if (stamps.get(slot) != written) {
+      // Overwritten while it was read.
+      return null;
+    }
+    return new TelemetryEvent(type, level, timestamp, source,
+        body(type, value1, value2, value3));
   }
 
-  private boolean maxCapacityReached() {
-    return telemetryEvents.size() >= maximumTelemetryData;
+  private static Map<String, String> body(TelemetryType type, String value1, String value2,
+                                          String value3) {
+    Map<String, String> body = new HashMap<>();
+    switch (type) {
+      case NAVIGATION:
+        body.put(NAVIGATION_KEY_FROM, value1);
+        body.put(NAVIGATION_KEY_TO, value2);
+        break;
+      case NETWORK:
+        body.put(NETWORK_KEY_METHOD, value1);
+        body.put(NETWORK_KEY_URL, value2);
+        body.put(NETWORK_KEY_STATUS_CODE, value3);
+        break;
+      default:
+        body.put(LOG_KEY_MESSAGE, value1);
+        break;
+    }
+    return body;
   }
 
-  private void removeOldestEvent() {
-    telemetryEvents.poll();
+  private boolean doNotRecordEvents() {
+    return maximumTelemetryData == NO_CAPACITY;
   }
 
   private long getTimestamp() {
@@ -0,0 +1,132 @@
+package com.rollbar.notifier.telemetry;
+
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Source;
+import com.rollbar.api.payload.data.TelemetryEvent;
+import com.rollbar.notifier.provider.Provider;
+import com.rollbar.notifier.util.ObjectsUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TelemetryEventTracker} that keeps the events recorded inside a {@link TelemetryScope}
+ * apart from the rest. Inside a scope the events are recorded into a buffer of the scope and only
+ * those are attached to the occurrences of the scope, outside of any scope the global tracker is
+ * used.
+ *
+ * <p>Every scope buffer holds a bounded number of events, and the number of scope buffers alive
+ * at the same time is bounded too. Scopes opened past that limit share the global tracker.</p>
+ */
+public class ScopedTelemetryEventTracker implements TelemetryEventTracker {
+
+  /**
+   * The default maximum number of scope buffers alive at the same time.
+   */
+  public static final int DEFAULT_MAXIMUM_SCOPES = 256;
+
+  private final TelemetryEventTracker global;
+
+  private final Provider<Long> timestampProvider;
+
+  private final int maximumEventsPerScope;
+
+  private final int maximumScopes;
+
+  private final AtomicInteger scopes = new AtomicInteger();
+
+  /**
+   * Constructor.
+   *
+   * @param global the tracker used outside of any scope.
+   * @param timestampProvider the provider of timestamps for the events of the scopes.
+   * @param maximumEventsPerScope the maximum number of events kept by each scope.
+   * @param maximumScopes the maximum number of scope buffers alive at the same time.
+   */
+  public ScopedTelemetryEventTracker(TelemetryEventTracker global,
+      Provider<Long> timestampProvider, int maximumEventsPerScope, int maximumScopes) {
+    ObjectsUtils.requireNonNull(global, "The global tracker can not be null");
+    this.global = global;
+    this.timestampProvider = timestampProvider;
+    this.maximumEventsPerScope = maximumEventsPerScope;
+    this.maximumScopes = maximumScopes;
+  }
+
+  /**
+   * Get the number of scope buffers alive.
+   *
+   * @return the number of scope buffers.
+   */
+  public int getScopeCount() {
+    return scopes.get();
+  }
+
+  @Override
+  public List<TelemetryEvent> getAll() {
+    TelemetryScope scope = TelemetryScope.current();
+    if (scope == null) {
+      return global.getAll();
+    }
+
+    TelemetryEventTracker buffer = scope.buffer(this);
+    if (buffer == null) {
+      // Nothing was recorded in this scope.
+      return Collections.emptyList();
+    }
+    return buffer.getAll();
+  }
+
+  @Override
+  public void recordLogEventFor(Level level, Source source, String message) {
+    target().recordLogEventFor(level, source, message);
+  }
+
+  @Override
+  public void recordManualEventFor(Level level, Source source, String message) {
+    target().recordManualEventFor(level, source, message);
+  }
+
+  @Override
+  public void recordNavigationEventFor(Level level, Source source, String from, String to) {
+    target().recordNavigationEventFor(level, source, from, to);
+  }
+
+  @Override
+  public void recordNetworkEventFor(Level level, Source source, String method, String url,
+      String statusCode) {
+    target().recordNetworkEventFor(level, source, method, url, statusCode);
+  }
+
+  void release(TelemetryEventTracker buffer) {
+    if (buffer != global) {
+      scopes.decrementAndGet();
+    }
+  }
+
+  private TelemetryEventTracker target() {
+    TelemetryScope scope = TelemetryScope.current();
+    if (scope == null) {
+      return global;
+    }
+
+    TelemetryEventTracker buffer = scope.buffer(this);
+    if (buffer != null) {
+      return buffer;
+    }
+
+    if (scopes.incrementAndGet() > maximumScopes) {
+      scopes.decrementAndGet();
+      // Past the limit the scope shares the global tracker.
+      buffer = global;
+    } else {
+      buffer = new RollbarTelemetryEventTracker(timestampProvider, maximumEventsPerScope);
+    }
+
+    TelemetryEventTracker attached = scope.attach(this, buffer);
+    if (attached != buffer) {
+      release(buffer);
+    }
+    return attached != null ? attached : global;
+  }
+}
@@ -0,0 +1,103 @@
+package com.rollbar.notifier.telemetry;
+
+import java.io.Closeable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Scope, like a request or a unit of work, bound to the current thread. While a scope is open the
+ * {@link ScopedTelemetryEventTracker scoped trackers} record the telemetry events of the thread
+ * into a buffer of the scope, and attach only those events to the occurrences of the thread.
+ * The buffers are released when the scope is closed.
+ *
+ * <p>Scopes can be nested, closing a scope restores the one that was open before it.</p>
+ */
+public final class TelemetryScope implements Closeable {
+
+  private static final ThreadLocal<TelemetryScope> CURRENT = new ThreadLocal<>();
+
+  private final TelemetryScope parent;
+
+  private final Map<ScopedTelemetryEventTracker, TelemetryEventTracker> buffers =
+      new IdentityHashMap<>(2);
+
+  private volatile boolean closed;
+
+  private TelemetryScope(TelemetryScope parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Opens a new scope bound to the current thread.
+   *
+   * @return the scope, which must be closed once the work it covers ends.
+   */
+  public static TelemetryScope open() {
+    TelemetryScope scope = new TelemetryScope(current());
+    CURRENT.set(scope);
+    return scope;
+  }
+
+  /**
+   * Get the scope open in the current thread.
+   *
+   * @return the current scope, or null if there is none.
+   */
+  public static TelemetryScope current() {
+    TelemetryScope scope = CURRENT.get();
+    while (scope != null && scope.closed) {
+      scope = scope.parent;
+    }
+    return scope;
+  }
+
+  /**
+   * Closes the scope releasing its buffers. If the scope is bound to the calling thread the
+   * previous scope is restored.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    if (CURRENT.get() == this) {
+      TelemetryScope previous = current();
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+
+    synchronized (buffers) {
+      for (Map.Entry<ScopedTelemetryEventTracker, TelemetryEventTracker> entry
+          : buffers.entrySet()) {
+        entry.getKey().release(entry.getValue());
+      }
+      buffers.clear();
+    }
+  }
+
+  TelemetryEventTracker buffer(ScopedTelemetryEventTracker tracker) {
+    synchronized (buffers) {
+      return buffers.get(tracker);
+    }
+  }
+
+  TelemetryEventTracker attach(ScopedTelemetryEventTracker tracker,
+                               TelemetryEventTracker buffer) {
+    synchronized (buffers) {
+      if (closed) {
+        return null;
+      }
+      TelemetryEventTracker current = buffers.get(tracker);
+      if (current != null) {
+        return current;
+      }
+      buffers.put(tracker, buffer);
+      return buffer;
+    }
+  }
+}
@@ -42,6 +42,11 @@ class FramesStrategy implements TruncationStrategy {
     return TruncationResult.none();
   }
 
+  @Override
+  public BodyMember replaces() {
+    return BodyMember.CONTENTS;
+  }
+
   TruncationResult<TraceChain> truncateTraceChain(TraceChain chain) {
     boolean truncated = false;
 
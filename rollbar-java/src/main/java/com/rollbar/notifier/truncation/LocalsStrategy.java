@@ -0,0 +1,108 @@
+package com.rollbar.notifier.truncation;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.body.Body;
+import com.rollbar.api.payload.data.body.BodyContent;
+import com.rollbar.api.payload.data.body.Frame;
+import com.rollbar.api.payload.data.body.Group;
+import com.rollbar.api.payload.data.body.RollbarThread;
+import com.rollbar.api.payload.data.body.Trace;
+import com.rollbar.api.payload.data.body.TraceChain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class LocalsStrategy implements TruncationStrategy {
+
+  @Override
+  public TruncationResult<Payload> truncate(Payload payload) {
+    if (payload == null || payload.getData() == null || payload.getData().getBody() == null) {
+      return TruncationResult.none();
+    }
+
+    Body body = payload.getData().getBody();
+    BodyContent content = body.getContents();
+    BodyContent newContent = content;
+    if (content instanceof Trace) {
+      newContent = dropLocals((Trace) content);
+    } else if (content instanceof TraceChain) {
+      newContent = dropLocals((TraceChain) content);
+    }
+    List<RollbarThread> threads = dropLocals(body.getRollbarThreads());
+
+    if (newContent == content && threads == body.getRollbarThreads()) {
+      return TruncationResult.none();
+    }
+
+    Payload newPayload = new Payload.Builder(payload).data(
+        new Data.Builder(payload.getData()).body(
+            new Body.Builder(body)
+                .bodyContent(newContent)
+                .rollbarThreads(threads)
+                .build()
+        ).build()
+    ).build();
+
+    return TruncationResult.truncated(newPayload);
+  }
+
+  /**
+   * Drops the locals of the frames of the threads.
+   * @param threads The threads, which may be null.
+   * @return The same threads if none of their frames has locals, otherwise new ones.
+   */
+  private static List<RollbarThread> dropLocals(List<RollbarThread> threads) {
+    if (threads == null) {
+      return null;
+    }
+
+    boolean truncated = false;
+    List<RollbarThread> updated = new ArrayList<>(threads.size());
+    for (RollbarThread thread : threads) {
+      TraceChain chain = thread.getGroup() != null ? thread.getGroup().getTraceChain() : null;
+      TraceChain newChain = chain != null ? dropLocals(chain) : null;
+      if (newChain != chain) {
+        updated.add(new RollbarThread.Builder(thread).group(new Group(newChain)).build());
+        truncated = true;
+      } else {
+        updated.add(thread);
+      }
+    }
+    return truncated ? updated : threads;
+  }
+
+  private static TraceChain dropLocals(TraceChain chain) {
+    if (chain.getTraces() == null) {
+      return chain;
+    }
+
+    boolean truncated = false;
+    List<Trace> updated = new ArrayList<>(chain.getTraces().size());
+    for (Trace trace : chain.getTraces()) {
+      Trace newTrace = dropLocals(trace);
+      updated.add(newTrace);
+      truncated |= newTrace != trace;
+    }
+    return truncated ? new TraceChain.Builder(chain).traces(updated).build() : chain;
+  }
+
+  private static Trace dropLocals(Trace trace) {
+    List<Frame> frames = trace.getFrames();
+    if (frames == null) {
+      return trace;
+    }
+
+    boolean truncated = false;
+    List<Frame> updated = new ArrayList<>(frames.size());
+    for (Frame frame : frames) {
+      if (frame.getLocals() != null) {
+        updated.add(new Frame.Builder(frame).locals(null).build());
+        truncated = true;
+      } else {
+        updated.add(frame);
+      }
+    }
+    return truncated ? new Trace.Builder(trace).frames(updated).build() : trace;
+  }
+}
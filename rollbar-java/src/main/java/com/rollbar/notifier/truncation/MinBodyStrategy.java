@@ -33,6 +33,11 @@ class MinBodyStrategy implements TruncationStrategy {
     return TruncationResult.none();
   }
 
+  @Override
+  public BodyMember replaces() {
+    return BodyMember.CONTENTS;
+  }
+
   private TruncationResult<Payload> tryTruncateTrace(Payload payload, Trace trace) {
     TruncationResult<Trace> traceResult = truncateTrace(trace);
     if (traceResult.wasTruncated) {
@@ -2,29 +2,83 @@ package com.rollbar.notifier.truncation;
 
 import com.rollbar.api.payload.Payload;
 import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.truncation.TruncationPolicy.Section;
+import com.rollbar.notifier.truncation.TruncationStrategy.BodyMember;
 import com.rollbar.notifier.util.ObjectsUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class PayloadTruncator {
   // We send data to Rollbar in UTF-8, so we use this to calculate payload size
   private static final Charset TRANSPORT_CHARSET = Charset.forName("UTF-8");
 
-  private static final TruncationStrategy[] STRATEGIES = {
-      new RollbarThreadStrategy(),
-      new FramesStrategy(),
-      new TelemetryEventsStrategy(),
-      new StringsStrategy(1024),
-      new StringsStrategy(512),
-      new StringsStrategy(256),
-      new MinBodyStrategy(),
+  // The payloads are only measured, so the bytes are counted and dropped.
+  private static final OutputStream DISCARD = new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
   };
 
+  // The members of the body are nested in the payload, the data and the body objects.
+  private static final int BODY_MEMBER_DEPTH = 3;
+
   private final JsonSerializer serializer;
 
+  private final TruncationPolicy policy;
+
+  private final TruncationStrategy[] budgets;
+
+  private final TruncationStrategy[] strategies;
+
   public PayloadTruncator(JsonSerializer serializer) {
+    this(serializer, TruncationPolicy.defaultPolicy());
+  }
+
+  /**
+   * Constructor.
+   * @param serializer The serializer used to measure the payloads.
+   * @param policy The policy with the budgets and the strategies to apply.
+   */
+  public PayloadTruncator(JsonSerializer serializer, TruncationPolicy policy) {
     ObjectsUtils.requireNonNull(serializer, "serializer cannot be null");
+    ObjectsUtils.requireNonNull(policy, "policy cannot be null");
     this.serializer = serializer;
+    this.policy = policy;
+
+    List<TruncationStrategy> budgets = new ArrayList<>();
+    for (Map.Entry<Section, Integer> budget : policy.getSectionBudgets().entrySet()) {
+      budgets.add(new SectionBudgetStrategy(budget.getKey(), budget.getValue(), serializer));
+    }
+    this.budgets = budgets.toArray(new TruncationStrategy[0]);
+    this.strategies = policy.getStrategies().toArray(new TruncationStrategy[0]);
+  }
+
+  /**
+   * Get the policy applied by this truncator.
+   * @return The truncation policy.
+   */
+  public TruncationPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Truncates the payload to the maximum size of the {@link #getPolicy() policy}.
+   * @param payload The payload to be truncated.
+   * @return The truncated payload.
+   * @see #truncate(Payload, int)
+   */
+  public PayloadTruncationResult truncate(Payload payload) {
+    return truncate(payload, policy.getMaxPayloadSize());
   }
 
   /**
@@ -32,25 +86,85 @@ public class PayloadTruncator {
    * Attempts to truncate the payload so that its JSON representation, encoded as UTF-8, has size
    * equal or less than the specified maximum size size.
    * </p>
+   * <p>
+   * The sections of the payload over their budget in the policy are truncated first, and then
+   * the strategies of the policy are applied in order until the payload fits.
+   * </p>
+   * <p>
+   * The payload is measured once by streaming it through the serializer without building its
+   * json string. After a strategy that only replaces a member of the body, like the frames or the
+   * telemetry events, the size is updated measuring the replaced and the new member instead of the
+   * whole payload, if the serializer {@link JsonSerializer#sizeInBytes(Object, int) supports it}.
+   * The sender serializes the resulting payload once more when it sends it.
+   * </p>
    * @param payload The payload to be truncated.
    * @param maxSizeInBytes The maximum size, in bytes, for the payload.
    * @return The truncated payload.
    */
   public PayloadTruncationResult truncate(Payload payload, int maxSizeInBytes) {
-    String json = serializer.toJson(payload);
-    int currentSize = sizeInBytes(json);
+    for (TruncationStrategy budget : budgets) {
+      TruncationStrategy.TruncationResult<Payload> result = budget.truncate(payload);
+      if (result.wasTruncated) {
+        payload = result.value;
+      }
+    }
 
-    for (int j = 0; currentSize > maxSizeInBytes && j < STRATEGIES.length; ++j) {
-      TruncationStrategy.TruncationResult<Payload> result = STRATEGIES[j].truncate(payload);
+    long currentSize = sizeInBytes(payload);
+    // Sizes of the members of the body measured so far, by identity.
+    Map<Object, Long> memberSizes = null;
+
+    for (int j = 0; currentSize > maxSizeInBytes && j < strategies.length; ++j) {
+      TruncationStrategy strategy = strategies[j];
+      TruncationStrategy.TruncationResult<Payload> result = strategy.truncate(payload);
       if (result.wasTruncated) {
+        long size = -1;
+        if (strategy.replaces() != null) {
+          if (memberSizes == null) {
+            memberSizes = new IdentityHashMap<>();
+          }
+          size = resize(currentSize, strategy.replaces(), payload, result.value, memberSizes);
+        }
         payload = result.value;
-        json = serializer.toJson(payload);
-        currentSize = sizeInBytes(json);
+        currentSize = size >= 0 ? size : sizeInBytes(payload);
       }
     }
 
-    // Skip serialization from now on and use a pre-serialized payload.
-    return new PayloadTruncationResult(new Payload(json), currentSize);
+    return new PayloadTruncationResult(payload, (int) Math.min(currentSize, Integer.MAX_VALUE));
+  }
+
+  private long resize(long size, BodyMember member, Payload previous, Payload truncated,
+                      Map<Object, Long> memberSizes) {
+    Object before = member.of(previous.getData().getBody());
+    Object after = member.of(truncated.getData().getBody());
+    if (before == null || after == null) {
+      // The name of the member and its separators are added or removed too.
+      return -1;
+    }
+
+    long sizeBefore = memberSize(before, memberSizes);
+    long sizeAfter = sizeBefore >= 0 ? memberSize(after, memberSizes) : -1;
+    if (sizeAfter < 0) {
+      return -1;
+    }
+    return size - sizeBefore + sizeAfter;
+  }
+
+  private long memberSize(Object member, Map<Object, Long> memberSizes) {
+    Long size = memberSizes.get(member);
+    if (size == null) {
+      size = serializer.sizeInBytes(member, BODY_MEMBER_DEPTH);
+      memberSizes.put(member, size);
+    }
+    return size;
+  }
+
+  private long sizeInBytes(Payload payload) {
+    try {
+      return serializer.writeJson(payload, DISCARD);
+    } catch (IOException e) {
+      // Writing to the discarding stream does not throw.
+      throw new IllegalStateException(e);
+    }
   }
 
   /**
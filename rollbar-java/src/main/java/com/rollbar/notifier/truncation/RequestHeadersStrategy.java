@@ -0,0 +1,28 @@
+package com.rollbar.notifier.truncation;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Request;
+
+class RequestHeadersStrategy implements TruncationStrategy {
+
+  @Override
+  public TruncationResult<Payload> truncate(Payload payload) {
+    if (payload == null || payload.getData() == null) {
+      return TruncationResult.none();
+    }
+
+    Request request = payload.getData().getRequest();
+    if (request == null || request.getHeaders() == null) {
+      return TruncationResult.none();
+    }
+
+    Payload newPayload = new Payload.Builder(payload).data(
+        new Data.Builder(payload.getData())
+            .request(new Request.Builder(request).headers(null).build())
+            .build()
+    ).build();
+
+    return TruncationResult.truncated(newPayload);
+  }
+}
@@ -40,6 +40,11 @@ public class RollbarThreadStrategy implements TruncationStrategy {
     return TruncationResult.truncated(newPayload);
   }
 
+  @Override
+  public BodyMember replaces() {
+    return BodyMember.ROLLBAR_THREADS;
+  }
+
   private TruncationResult<List<RollbarThread>> truncateRollbarThreads(
       List<RollbarThread> rollbarThreads
   ) {
@@ -0,0 +1,258 @@
+package com.rollbar.notifier.truncation;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Request;
+import com.rollbar.api.payload.data.TelemetryEvent;
+import com.rollbar.api.payload.data.body.Body;
+import com.rollbar.api.payload.data.body.BodyContent;
+import com.rollbar.api.payload.data.body.Frame;
+import com.rollbar.api.payload.data.body.RollbarThread;
+import com.rollbar.api.payload.data.body.Trace;
+import com.rollbar.api.payload.data.body.TraceChain;
+import com.rollbar.api.truncation.TruncationHelper;
+import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.truncation.TruncationPolicy.Section;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strategy that truncates a {@link Section section} of the payload only if it is over its budget,
+ * as described by the section.
+ */
+class SectionBudgetStrategy implements TruncationStrategy {
+  // The custom data and the request are members of the data, nested in the payload and the data.
+  private static final int DATA_MEMBER_DEPTH = 2;
+
+  // The members of the body are nested in the payload, the data and the body objects.
+  private static final int BODY_MEMBER_DEPTH = 3;
+
+  // The elements of the telemetry events and threads are nested in their arrays too.
+  private static final int BODY_ELEMENT_DEPTH = 4;
+
+  // The locals of the frames of a trace of the body. In chains and threads they are nested deeper,
+  // which only adds some indentation when the json is pretty printed.
+  private static final int LOCALS_DEPTH = 6;
+
+  private static final TruncationStrategy THREADS_STRATEGY = new RollbarThreadStrategy();
+
+  private static final TruncationStrategy[] FRAMES_STRATEGIES = {
+      new FramesStrategy(),
+      new FramesStrategy(1, 1),
+  };
+
+  private static final TruncationStrategy LOCALS_STRATEGY = new LocalsStrategy();
+
+  private static final int[] CUSTOM_STRING_LENGTHS = {1024, 512, 256};
+
+  private static final int REQUEST_STRING_LENGTH = 256;
+
+  private final Section section;
+
+  private final int budget;
+
+  private final JsonSerializer serializer;
+
+  SectionBudgetStrategy(Section section, int budget, JsonSerializer serializer) {
+    this.section = section;
+    this.budget = budget;
+    this.serializer = serializer;
+  }
+
+  @Override
+  public TruncationResult<Payload> truncate(Payload payload) {
+    if (payload == null || payload.getData() == null) {
+      return TruncationResult.none();
+    }
+
+    switch (section) {
+      case THREADS:
+        return truncateThreads(payload);
+      case FRAMES:
+        return truncateFrames(payload);
+      case LOCALS:
+        return truncateLocals(payload);
+      case TELEMETRY:
+        return truncateTelemetryEvents(payload);
+      case CUSTOM:
+        return truncateCustom(payload);
+      default:
+        return truncateRequest(payload);
+    }
+  }
+
+  private TruncationResult<Payload> truncateThreads(Payload payload) {
+    Body body = payload.getData().getBody();
+    if (body == null || fits(body.getRollbarThreads(), BODY_MEMBER_DEPTH)) {
+      return TruncationResult.none();
+    }
+
+    TruncationResult<Payload> result = THREADS_STRATEGY.truncate(payload);
+    if (result.wasTruncated) {
+      payload = result.value;
+      body = payload.getData().getBody();
+      if (fits(body.getRollbarThreads(), BODY_MEMBER_DEPTH)) {
+        return result;
+      }
+    }
+
+    List<RollbarThread> threads = keepFirst(body.getRollbarThreads());
+    return TruncationResult.truncated(withBody(payload,
+        new Body.Builder(body).rollbarThreads(threads).build()));
+  }
+
+  private TruncationResult<Payload> truncateFrames(Payload payload) {
+    Body body = payload.getData().getBody();
+    if (body == null || fits(body.getContents(), BODY_MEMBER_DEPTH)) {
+      return TruncationResult.none();
+    }
+
+    boolean truncated = false;
+    for (TruncationStrategy strategy : FRAMES_STRATEGIES) {
+      TruncationResult<Payload> result = strategy.truncate(payload);
+      if (result.wasTruncated) {
+        payload = result.value;
+        truncated = true;
+        if (fits(payload.getData().getBody().getContents(), BODY_MEMBER_DEPTH)) {
+          break;
+        }
+      }
+    }
+    return truncated ? TruncationResult.truncated(payload) : TruncationResult.<Payload>none();
+  }
+
+  private TruncationResult<Payload> truncateLocals(Payload payload) {
+    Body body = payload.getData().getBody();
+    if (body == null) {
+      return TruncationResult.none();
+    }
+
+    List<Map<String, Object>> locals = new ArrayList<>();
+    addLocals(body.getContents(), locals);
+    if (body.getRollbarThreads() != null) {
+      for (RollbarThread thread : body.getRollbarThreads()) {
+        if (thread.getGroup() != null) {
+          addLocals(thread.getGroup().getTraceChain(), locals);
+        }
+      }
+    }
+
+    long size = 0;
+    for (Map<String, Object> frameLocals : locals) {
+      long frameSize = serializer.sizeInBytes(frameLocals, LOCALS_DEPTH);
+      if (frameSize < 0) {
+        return TruncationResult.none();
+      }
+      size += frameSize;
+    }
+    if (size <= budget) {
+      return TruncationResult.none();
+    }
+    return LOCALS_STRATEGY.truncate(payload);
+  }
+
+  private TruncationResult<Payload> truncateTelemetryEvents(Payload payload) {
+    Body body = payload.getData().getBody();
+    if (body == null || fits(body.getTelemetryEvents(), BODY_MEMBER_DEPTH)) {
+      return TruncationResult.none();
+    }
+
+    List<TelemetryEvent> events = keepFirst(body.getTelemetryEvents());
+    return TruncationResult.truncated(withBody(payload,
+        new Body.Builder(body).telemetryEvents(events).build()));
+  }
+
+  private TruncationResult<Payload> truncateCustom(Payload payload) {
+    Map<String, Object> custom = payload.getData().getCustom();
+    if (fits(custom, DATA_MEMBER_DEPTH)) {
+      return TruncationResult.none();
+    }
+
+    Map<String, Object> truncated = null;
+    for (int length : CUSTOM_STRING_LENGTHS) {
+      Map<String, Object> candidate = TruncationHelper.truncateStringsInMap(custom, length);
+      if (fits(candidate, DATA_MEMBER_DEPTH)) {
+        truncated = candidate;
+        break;
+      }
+    }
+    return TruncationResult.truncated(new Payload.Builder(payload)
+        .data(new Data.Builder(payload.getData()).custom(truncated).build())
+        .build());
+  }
+
+  private TruncationResult<Payload> truncateRequest(Payload payload) {
+    Request request = payload.getData().getRequest();
+    if (fits(request, DATA_MEMBER_DEPTH)) {
+      return TruncationResult.none();
+    }
+
+    Request truncated = new Request.Builder(request).headers(null).build();
+    if (!fits(truncated, DATA_MEMBER_DEPTH)) {
+      truncated = truncated.truncateStrings(REQUEST_STRING_LENGTH);
+      if (!fits(truncated, DATA_MEMBER_DEPTH)) {
+        truncated = null;
+      }
+    }
+    return TruncationResult.truncated(new Payload.Builder(payload)
+        .data(new Data.Builder(payload.getData()).request(truncated).build())
+        .build());
+  }
+
+  /**
+   * Whether the value fits the budget. Missing values, and values the serializer can not measure,
+   * fit it.
+   */
+  private boolean fits(Object value, int depth) {
+    return value == null || serializer.sizeInBytes(value, depth) <= budget;
+  }
+
+  /**
+   * Keeps the first elements of the list that fit the budget.
+   * @return The elements, or null if none fits.
+   */
+  private <T> List<T> keepFirst(List<T> elements) {
+    List<T> kept = new ArrayList<>();
+    // The brackets of the array.
+    long size = 2;
+    for (T element : elements) {
+      // The element and its separator.
+      size += serializer.sizeInBytes(element, BODY_ELEMENT_DEPTH) + 1;
+      if (size > budget) {
+        break;
+      }
+      kept.add(element);
+    }
+    return kept.isEmpty() ? null : kept;
+  }
+
+  private static void addLocals(BodyContent content, List<Map<String, Object>> locals) {
+    if (content instanceof TraceChain) {
+      List<Trace> traces = ((TraceChain) content).getTraces();
+      if (traces != null) {
+        for (Trace trace : traces) {
+          addLocals(trace, locals);
+        }
+      }
+    } else if (content instanceof Trace && ((Trace) content).getFrames() != null) {
+      for (Frame frame : ((Trace) content).getFrames()) {
+        if (frame.getLocals() != null) {
+          locals.add(frame.getLocals());
+        }
+      }
+    }
+  }
+
+  private static Payload withBody(Payload payload, Body body) {
+    return new Payload.Builder(payload)
+        .data(new Data.Builder(payload.getData()).body(body).build())
+        .build();
+  }
+
+  @Override
+  public String toString() {
+    return "SectionBudgetStrategy{section=" + section + ", budget=" + budget + '}';
+  }
+}
@@ -39,4 +39,9 @@ public class TelemetryEventsStrategy implements TruncationStrategy {
 
     return TruncationResult.truncated(newPayload);
   }
+
+  @Override
+  public BodyMember replaces() {
+    return BodyMember.TELEMETRY_EVENTS;
+  }
 }
@@ -0,0 +1,268 @@
+package com.rollbar.notifier.truncation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Policy that decides how large payloads are truncated: the total size a payload can have, the
+ * sizes each section of the payload can have, and the {@link TruncationStrategy strategies}
+ * applied, in order, until the payload fits the total size.
+ *
+ * <p>The section budgets are enforced on every payload, before the strategies, and require the
+ * {@link com.rollbar.notifier.sender.json.JsonSerializer#sizeInBytes(Object, int) serializer to
+ * measure} the sections, otherwise they are ignored.</p>
+ */
+public final class TruncationPolicy {
+
+  /**
+   * Value used to indicate that a section has no budget.
+   */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  /**
+   * The maximum size of a payload Rollbar accepts.
+   */
+  public static final int DEFAULT_MAX_PAYLOAD_SIZE = 512 * 1024;
+
+  private static final List<TruncationStrategy> DEFAULT_STRATEGIES =
+      Collections.unmodifiableList(Arrays.asList(
+          TruncationStrategies.rollbarThreads(),
+          TruncationStrategies.frames(),
+          TruncationStrategies.telemetryEvents(),
+          TruncationStrategies.strings(1024),
+          TruncationStrategies.strings(512),
+          TruncationStrategies.strings(256),
+          TruncationStrategies.minBody()));
+
+  private static final TruncationPolicy DEFAULT = new Builder().build();
+
+  private final int maxPayloadSize;
+
+  private final Map<Section, Integer> sectionBudgets;
+
+  private final List<TruncationStrategy> strategies;
+
+  private TruncationPolicy(Builder builder) {
+    this.maxPayloadSize = builder.maxPayloadSize;
+    this.sectionBudgets = Collections.unmodifiableMap(new EnumMap<>(builder.sectionBudgets));
+    this.strategies = Collections.unmodifiableList(new ArrayList<>(builder.strategies));
+  }
+
+  /**
+   * The default policy, which truncates payloads over 512KB without section budgets.
+   *
+   * @return the default policy.
+   */
+  public static TruncationPolicy defaultPolicy() {
+    return DEFAULT;
+  }
+
+  /**
+   * The strategies used by default: the frames of the threads, the frames of the trace, the
+   * telemetry events, the strings to 1024, 512 and 256 characters, and the minimum body.
+   *
+   * @return the default strategies, in order.
+   */
+  public static List<TruncationStrategy> defaultStrategies() {
+    return DEFAULT_STRATEGIES;
+  }
+
+  /**
+   * Get the maximum size, in bytes, of the payload encoded as UTF-8.
+   *
+   * @return the maximum size in bytes.
+   */
+  public int getMaxPayloadSize() {
+    return maxPayloadSize;
+  }
+
+  /**
+   * Get the maximum size, in bytes, of a section of the payload.
+   *
+   * @param section the section.
+   * @return the maximum size in bytes, or {@link #UNLIMITED}.
+   */
+  public int getSectionBudget(Section section) {
+    Integer budget = sectionBudgets.get(section);
+    return budget != null ? budget : UNLIMITED;
+  }
+
+  /**
+   * Get the sections of the payload with a budget, along with it.
+   *
+   * @return the budgets by section.
+   */
+  public Map<Section, Integer> getSectionBudgets() {
+    return sectionBudgets;
+  }
+
+  /**
+   * Get the strategies applied, in order, until the payload fits the maximum size.
+   *
+   * @return the strategies.
+   */
+  public List<TruncationStrategy> getStrategies() {
+    return strategies;
+  }
+
+  @Override
+  public String toString() {
+    return "TruncationPolicy{"
+        + "maxPayloadSize=" + maxPayloadSize
+        + ", sectionBudgets=" + sectionBudgets
+        + ", strategies=" + strategies
+        + '}';
+  }
+
+  /**
+   * Section of the payload that can be given its own budget, and how it is truncated when it goes
+   * over it.
+   */
+  public enum Section {
+    /**
+     * The threads captured along with the error. Their frames are truncated first, and then the
+     * last threads are dropped.
+     */
+    THREADS,
+    /**
+     * The trace, or trace chain, of the error. Its frames are truncated keeping the first and
+     * last ten, and then the first and last one.
+     */
+    FRAMES,
+    /**
+     * The local variables of all the frames, which are dropped.
+     */
+    LOCALS,
+    /**
+     * The telemetry events, of which the first that fit are kept.
+     */
+    TELEMETRY,
+    /**
+     * The custom data. Its strings are truncated to 1024, 512 and 256 characters, and then it is
+     * dropped.
+     */
+    CUSTOM,
+    /**
+     * The HTTP request. Its headers are dropped, then its strings are truncated to 256
+     * characters, and then it is dropped.
+     */
+    REQUEST
+  }
+
+  /**
+   * Builder class for {@link TruncationPolicy}.
+   */
+  public static final class Builder {
+
+    private int maxPayloadSize;
+
+    private final Map<Section, Integer> sectionBudgets;
+
+    private List<TruncationStrategy> strategies;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.maxPayloadSize = DEFAULT_MAX_PAYLOAD_SIZE;
+      this.sectionBudgets = new EnumMap<>(Section.class);
+      this.strategies = DEFAULT_STRATEGIES;
+    }
+
+    /**
+     * Constructor initializing the builder with the values of the policy.
+     *
+     * @param policy the policy.
+     */
+    public Builder(TruncationPolicy policy) {
+      this.maxPayloadSize = policy.maxPayloadSize;
+      this.sectionBudgets = new EnumMap<>(Section.class);
+      this.sectionBudgets.putAll(policy.sectionBudgets);
+      this.strategies = policy.strategies;
+    }
+
+    /**
+     * The maximum size, in bytes, of the payload encoded as UTF-8. Rollbar does not accept
+     * payloads over 512KB, which is the default.
+     *
+     * @param maxPayloadSize the maximum size in bytes.
+     * @return the builder instance.
+     */
+    public Builder maxPayloadSize(int maxPayloadSize) {
+      this.maxPayloadSize = maxPayloadSize;
+      return this;
+    }
+
+    /**
+     * The maximum size, in bytes, of a section of the payload, or {@link #UNLIMITED} to remove
+     * its budget.
+     *
+     * @param section the section.
+     * @param budget the maximum size in bytes.
+     * @return the builder instance.
+     */
+    public Builder sectionBudget(Section section, int budget) {
+      if (section == null) {
+        throw new IllegalArgumentException("The section can not be null");
+      }
+      if (budget == UNLIMITED) {
+        this.sectionBudgets.remove(section);
+      } else {
+        this.sectionBudgets.put(section, budget);
+      }
+      return this;
+    }
+
+    /**
+     * The strategies applied, in order, until the payload fits the maximum size. They can be the
+     * {@link TruncationStrategies built-in ones} or custom implementations.
+     *
+     * @param strategies the strategies.
+     * @return the builder instance.
+     */
+    public Builder strategies(List<TruncationStrategy> strategies) {
+      this.strategies = strategies;
+      return this;
+    }
+
+    /**
+     * The strategies applied, in order, until the payload fits the maximum size.
+     *
+     * @param strategies the strategies.
+     * @return the builder instance.
+     * @see #strategies(List)
+     */
+    public Builder strategies(TruncationStrategy... strategies) {
+      return strategies(Arrays.asList(strategies));
+    }
+
+    /**
+     * Builds the {@link TruncationPolicy truncation policy}.
+     *
+     * @return the truncation policy.
+     */
+    public TruncationPolicy build() {
+      if (maxPayloadSize <= 0) {
+        throw new IllegalArgumentException("The maximum payload size must be positive");
+      }
+      for (Integer budget : sectionBudgets.values()) {
+        if (budget < 0) {
+          throw new IllegalArgumentException("The section budgets can not be negative");
+        }
+      }
+      if (strategies == null) {
+        throw new IllegalArgumentException("The strategies can not be null");
+      }
+      for (TruncationStrategy strategy : strategies) {
+        if (strategy == null) {
+          throw new IllegalArgumentException("The strategies can not contain null");
+        }
+      }
+      return new TruncationPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.rollbar.notifier.truncation;
+
+/**
+ * Factory of the built-in {@link TruncationStrategy truncation strategies}, to order them in a
+ * {@link TruncationPolicy truncation policy}.
+ */
+public final class TruncationStrategies {
+
+  private TruncationStrategies() {
+  }
+
+  /**
+   * Keeps the first and last ten frames of each thread captured along with the error.
+   *
+   * @return the strategy.
+   */
+  public static TruncationStrategy rollbarThreads() {
+    return new RollbarThreadStrategy();
+  }
+
+  /**
+   * Keeps the first and last ten frames of the trace, or of each trace of the chain.
+   *
+   * @return the strategy.
+   */
+  public static TruncationStrategy frames() {
+    return new FramesStrategy();
+  }
+
+  /**
+   * Keeps the given number of first and last frames of the trace, or of each trace of the chain.
+   *
+   * @param headFrameCount the number of first frames to keep.
+   * @param tailFrameCount the number of last frames to keep.
+   * @return the strategy.
+   */
+  public static TruncationStrategy frames(int headFrameCount, int tailFrameCount) {
+    if (headFrameCount < 0 || tailFrameCount < 0) {
+      throw new IllegalArgumentException("The number of frames to keep can not be negative");
+    }
+    return new FramesStrategy(headFrameCount, tailFrameCount);
+  }
+
+  /**
+   * Keeps the first ten telemetry events.
+   *
+   * @return the strategy.
+   */
+  public static TruncationStrategy telemetryEvents() {
+    return new TelemetryEventsStrategy();
+  }
+
+  /**
+   * Truncates every string of the payload to the given length.
+   *
+   * @param maxLength the maximum length of the strings.
+   * @return the strategy.
+   */
+  public static TruncationStrategy strings(int maxLength) {
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("The length of the strings can not be negative");
+    }
+    return new StringsStrategy(maxLength);
+  }
+
+  /**
+   * Drops the local variables of every frame, of the error and of the threads.
+   *
+   * @return the strategy.
+   */
+  public static TruncationStrategy locals() {
+    return new LocalsStrategy();
+  }
+
+  /**
+   * Drops the headers of the HTTP request.
+   *
+   * @return the strategy.
+   */
+  public static TruncationStrategy requestHeaders() {
+    return new RequestHeadersStrategy();
+  }
+
+  /**
+   * Keeps only the first and last frames of each trace, drops the description of the exceptions
+   * and truncates their messages to 255 characters.
+   *
+   * @return the strategy.
+   */
+  public static TruncationStrategy minBody() {
+    return new MinBodyStrategy();
+  }
+}
@@ -1,8 +1,13 @@
 package com.rollbar.notifier.truncation;
 
 import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.body.Body;
 
-interface TruncationStrategy {
+/**
+ * Strategy to truncate a payload that is too large, applied in the order of the
+ * {@link TruncationPolicy truncation policy}.
+ */
+public interface TruncationStrategy {
   /**
    * Truncate the payload.
    * @param payload The payload to be truncated.
@@ -10,6 +15,35 @@ interface TruncationStrategy {
    */
   TruncationResult<Payload> truncate(Payload payload);
 
+  /**
+   * The member of the payload body the strategy replaces, the rest of the payload is kept as it
+   * is. It allows to account the size of the truncated payload measuring only that member.
+   * @return The member, or null if the strategy may replace any part of the payload.
+   */
+  default BodyMember replaces() {
+    return null;
+  }
+
+  /**
+   * Member of the payload body that a strategy can replace.
+   */
+  enum BodyMember {
+    CONTENTS,
+    TELEMETRY_EVENTS,
+    ROLLBAR_THREADS;
+
+    Object of(Body body) {
+      switch (this) {
+        case CONTENTS:
+          return body.getContents();
+        case TELEMETRY_EVENTS:
+          return body.getTelemetryEvents();
+        default:
+          return body.getRollbarThreads();
+      }
+    }
+  }
+
   class TruncationResult<T> {
     /**
      * True if the value was truncated.
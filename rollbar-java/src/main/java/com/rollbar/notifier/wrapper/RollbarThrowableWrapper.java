@@ -65,6 +65,31 @@ public class RollbarThrowableWrapper implements ThrowableWrapper {
     );
   }
 
+  /**
+   * Constructor with the stack traces of the other live threads already captured, e.g. by a
+   * {@link ThreadStackTraceCapture}.
+   *
+   * @param throwable the throwable.
+   * @param thread the thread where the throwable happened.
+   * @param allStackTraces the stack traces of the other threads, or null if not captured.
+   */
+  public RollbarThrowableWrapper(
+      Throwable throwable,
+      Thread thread,
+      Map<Thread, StackTraceElement[]> allStackTraces
+  ) {
+    this(
+      throwable.getClass().getName(),
+      throwable.getMessage(),
+      throwable.getStackTrace(),
+      getInnerThrowableWrapper(throwable),
+      throwable,
+      allStackTraces != null ? thread : null,
+      allStackTraces,
+        null
+    );
+  }
+
   /**
    * Constructor.
    *
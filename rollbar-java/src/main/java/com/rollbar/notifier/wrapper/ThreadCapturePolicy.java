@@ -0,0 +1,286 @@
+package com.rollbar.notifier.wrapper;
+
+/**
+ * Policy that decides when the stack traces of all the live threads are captured along with an
+ * error, and how much of them is kept.
+ */
+public final class ThreadCapturePolicy {
+
+  /**
+   * Value used to indicate that a limit is not applied.
+   */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  private static final ThreadCapturePolicy DEFAULT = new Builder().build();
+
+  private final Mode mode;
+
+  private final int maxThreads;
+
+  private final int maxFramesPerThread;
+
+  private final long minCaptureInterval;
+
+  private final double sampleRate;
+
+  private final long snapshotReuseWindow;
+
+  private final boolean useThreadMxBean;
+
+  private ThreadCapturePolicy(Builder builder) {
+    this.mode = builder.mode;
+    this.maxThreads = builder.maxThreads;
+    this.maxFramesPerThread = builder.maxFramesPerThread;
+    this.minCaptureInterval = builder.minCaptureInterval;
+    this.sampleRate = builder.sampleRate;
+    this.snapshotReuseWindow = builder.snapshotReuseWindow;
+    this.useThreadMxBean = builder.useThreadMxBean;
+  }
+
+  /**
+   * The default policy, which captures every live thread for every error.
+   *
+   * @return the default policy.
+   */
+  public static ThreadCapturePolicy defaultPolicy() {
+    return DEFAULT;
+  }
+
+  /**
+   * Get the capture mode.
+   *
+   * @return the mode.
+   */
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Get the maximum number of threads, other than the one where the error happened, to capture.
+   *
+   * @return the maximum number of threads.
+   */
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * Get the maximum number of frames to keep for each captured thread.
+   *
+   * @return the maximum number of frames.
+   */
+  public int getMaxFramesPerThread() {
+    return maxFramesPerThread;
+  }
+
+  /**
+   * Get the minimum time, in millis, between two captures when using {@link Mode#RATE_LIMITED}.
+   *
+   * @return the minimum interval in millis.
+   */
+  public long getMinCaptureInterval() {
+    return minCaptureInterval;
+  }
+
+  /**
+   * Get the ratio of errors that capture the threads when using {@link Mode#SAMPLED}.
+   *
+   * @return the sample rate, between 0 and 1.
+   */
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Get the time window, in millis, during which a snapshot is shared by all the errors instead
+   * of each one taking its own.
+   *
+   * @return the reuse window in millis.
+   */
+  public long getSnapshotReuseWindow() {
+    return snapshotReuseWindow;
+  }
+
+  /**
+   * Whether the snapshot is taken through the {@link java.lang.management.ThreadMXBean} which
+   * only walks up to {@link #getMaxFramesPerThread()} frames of each thread.
+   *
+   * @return true to use the thread MX bean.
+   */
+  public boolean useThreadMxBean() {
+    return useThreadMxBean;
+  }
+
+  @Override
+  public String toString() {
+    return "ThreadCapturePolicy{"
+        + "mode=" + mode
+        + ", maxThreads=" + maxThreads
+        + ", maxFramesPerThread=" + maxFramesPerThread
+        + ", minCaptureInterval=" + minCaptureInterval
+        + ", sampleRate=" + sampleRate
+        + ", snapshotReuseWindow=" + snapshotReuseWindow
+        + ", useThreadMxBean=" + useThreadMxBean
+        + '}';
+  }
+
+  /**
+   * When the stack traces of all the live threads are captured.
+   */
+  public enum Mode {
+    /**
+     * Capture the threads for every error.
+     */
+    ALWAYS,
+    /**
+     * Never capture the threads.
+     */
+    OFF,
+    /**
+     * Capture the threads only for uncaught errors.
+     */
+    UNCAUGHT_ONLY,
+    /**
+     * Capture the threads at most once every
+     * {@link ThreadCapturePolicy#getMinCaptureInterval() interval}.
+     */
+    RATE_LIMITED,
+    /**
+     * Capture the threads for a {@link ThreadCapturePolicy#getSampleRate() ratio} of the errors.
+     */
+    SAMPLED
+  }
+
+  /**
+   * Builder class for {@link ThreadCapturePolicy}.
+   */
+  public static final class Builder {
+
+    private Mode mode;
+
+    private int maxThreads;
+
+    private int maxFramesPerThread;
+
+    private long minCaptureInterval;
+
+    private double sampleRate;
+
+    private long snapshotReuseWindow;
+
+    private boolean useThreadMxBean;
+
+    /**
+     * Constructor.
+     */
+    public Builder() {
+      this.mode = Mode.ALWAYS;
+      this.maxThreads = UNLIMITED;
+      this.maxFramesPerThread = UNLIMITED;
+      this.minCaptureInterval = 0;
+      this.sampleRate = 1.0;
+      this.snapshotReuseWindow = 0;
+      this.useThreadMxBean = false;
+    }
+
+    /**
+     * The capture mode.
+     *
+     * @param mode the mode.
+     * @return the builder instance.
+     */
+    public Builder mode(Mode mode) {
+      this.mode = mode;
+      return this;
+    }
+
+    /**
+     * The maximum number of threads, other than the one where the error happened, to capture.
+     *
+     * @param maxThreads the maximum number of threads.
+     * @return the builder instance.
+     */
+    public Builder maxThreads(int maxThreads) {
+      this.maxThreads = maxThreads;
+      return this;
+    }
+
+    /**
+     * The maximum number of frames to keep for each captured thread.
+     *
+     * @param maxFramesPerThread the maximum number of frames.
+     * @return the builder instance.
+     */
+    public Builder maxFramesPerThread(int maxFramesPerThread) {
+      this.maxFramesPerThread = maxFramesPerThread;
+      return this;
+    }
+
+    /**
+     * The minimum time between two captures in millis, used by {@link Mode#RATE_LIMITED}.
+     *
+     * @param minCaptureInterval the minimum interval in millis.
+     * @return the builder instance.
+     */
+    public Builder minCaptureInterval(long minCaptureInterval) {
+      this.minCaptureInterval = minCaptureInterval;
+      return this;
+    }
+
+    /**
+     * The ratio of errors that capture the threads, used by {@link Mode#SAMPLED}.
+     *
+     * @param sampleRate the sample rate, between 0 and 1.
+     * @return the builder instance.
+     */
+    public Builder sampleRate(double sampleRate) {
+      this.sampleRate = sampleRate;
+      return this;
+    }
+
+    /**
+     * The time window in millis during which errors share the same snapshot. Zero disables the
+     * sharing.
+     *
+     * @param snapshotReuseWindow the reuse window in millis.
+     * @return the builder instance.
+     */
+    public Builder snapshotReuseWindow(long snapshotReuseWindow) {
+      this.snapshotReuseWindow = snapshotReuseWindow;
+      return this;
+    }
+
+    /**
+     * Take the snapshot through the {@link java.lang.management.ThreadMXBean}, limiting the
+     * stack walk to the maximum number of frames per thread. Not available on Android.
+     *
+     * @param useThreadMxBean true to use the thread MX bean.
+     * @return the builder instance.
+     */
+    public Builder useThreadMxBean(boolean useThreadMxBean) {
+      this.useThreadMxBean = useThreadMxBean;
+      return this;
+    }
+
+    /**
+     * Builds the {@link ThreadCapturePolicy thread capture policy}.
+     *
+     * @return the thread capture policy.
+     */
+    public ThreadCapturePolicy build() {
+      if (mode == null) {
+        throw new IllegalArgumentException("The mode can not be null");
+      }
+      if (maxThreads < 0 || maxFramesPerThread < 0) {
+        throw new IllegalArgumentException("The thread and frame limits can not be negative");
+      }
+      if (minCaptureInterval < 0 || snapshotReuseWindow < 0) {
+        throw new IllegalArgumentException("The capture intervals can not be negative");
+      }
+      if (sampleRate < 0 || sampleRate > 1) {
+        throw new IllegalArgumentException("The sample rate must be between 0 and 1");
+      }
+      return new ThreadCapturePolicy(this);
+    }
+  }
+}
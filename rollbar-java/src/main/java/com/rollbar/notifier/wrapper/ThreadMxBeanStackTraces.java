@@ -0,0 +1,63 @@
+package com.rollbar.notifier.wrapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Takes a depth limited snapshot of the live threads through the {@link ThreadMXBean}. It is kept
+ * in its own class so the {@code java.lang.management} package is only loaded when requested,
+ * since it is not available on every platform (e.g. Android).
+ */
+final class ThreadMxBeanStackTraces {
+
+  private ThreadMxBeanStackTraces() {
+  }
+
+  static Map<Thread, StackTraceElement[]> dump(int maxDepth) {
+    Map<Long, Thread> threadsById = liveThreadsById();
+
+    ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+    long[] ids = new long[threadsById.size()];
+    int i = 0;
+    for (Long id : threadsById.keySet()) {
+      ids[i++] = id;
+    }
+
+    Map<Thread, StackTraceElement[]> result = new LinkedHashMap<>();
+    for (ThreadInfo info : threadMxBean.getThreadInfo(ids, maxDepth)) {
+      // Threads that died in between are reported as null.
+      if (info == null) {
+        continue;
+      }
+      Thread thread = threadsById.get(info.getThreadId());
+      if (thread != null) {
+        result.put(thread, info.getStackTrace());
+      }
+    }
+    return result;
+  }
+
+  private static Map<Long, Thread> liveThreadsById() {
+    ThreadGroup root = Thread.currentThread().getThreadGroup();
+    while (root.getParent() != null) {
+      root = root.getParent();
+    }
+
+    // Enumerating only fills the array, so grow it until every thread fits.
+    Thread[] threads = new Thread[root.activeCount() + 16];
+    int count;
+    while ((count = root.enumerate(threads, true)) == threads.length) {
+      threads = new Thread[threads.length * 2];
+    }
+
+    Map<Long, Thread> result = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      result.put(threads[i].getId(), threads[i]);
+    }
+    return result;
+  }
+}
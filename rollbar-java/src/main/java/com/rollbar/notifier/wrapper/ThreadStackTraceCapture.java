@@ -0,0 +1,173 @@
+package com.rollbar.notifier.wrapper;
+
+import com.rollbar.notifier.util.ObjectsUtils;
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy.Mode;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures the stack traces of the live threads according to a {@link ThreadCapturePolicy}.
+ * Errors happening within the policy's reuse window share the same snapshot, so an error storm
+ * triggers a single global thread dump instead of one per error.
+ */
+public class ThreadStackTraceCapture {
+
+  private final ThreadCapturePolicy policy;
+
+  private final long minCaptureIntervalNanos;
+
+  private final long snapshotReuseWindowNanos;
+
+  private final Object lock = new Object();
+
+  private boolean captured;
+
+  private long lastCaptureNanos;
+
+  private volatile Snapshot lastSnapshot;
+
+  /**
+   * Constructor.
+   *
+   * @param policy the policy to apply.
+   */
+  public ThreadStackTraceCapture(ThreadCapturePolicy policy) {
+    ObjectsUtils.requireNonNull(policy, "The policy can not be null");
+    this.policy = policy;
+    this.minCaptureIntervalNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMinCaptureInterval());
+    this.snapshotReuseWindowNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSnapshotReuseWindow());
+  }
+
+  /**
+   * Get the policy applied by this capture.
+   *
+   * @return the policy.
+   */
+  public ThreadCapturePolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Captures the stack traces of the live threads other than {@code thread}.
+   *
+   * @param thread the thread where the error happened.
+   * @param isUncaught whether the error is an uncaught one.
+   * @return the stack traces, or null if the policy skips the capture for this error.
+   */
+  public Map<Thread, StackTraceElement[]> capture(Thread thread, boolean isUncaught) {
+    if (thread == null || !isSelected(isUncaught)) {
+      return null;
+    }
+
+    Map<Thread, StackTraceElement[]> allStackTraces = snapshot();
+    if (allStackTraces == null) {
+      return null;
+    }
+
+    return limit(thread, allStackTraces);
+  }
+
+  private boolean isSelected(boolean isUncaught) {
+    switch (policy.getMode()) {
+      case ALWAYS:
+      case RATE_LIMITED:
+        return true;
+      case OFF:
+        return false;
+      case UNCAUGHT_ONLY:
+        return isUncaught;
+      case SAMPLED:
+        return ThreadLocalRandom.current().nextDouble() < policy.getSampleRate();
+      default:
+        throw new IllegalArgumentException("Unknown mode " + policy.getMode());
+    }
+  }
+
+  private Map<Thread, StackTraceElement[]> snapshot() {
+    boolean rateLimited = policy.getMode() == Mode.RATE_LIMITED;
+    if (snapshotReuseWindowNanos == 0 && !rateLimited) {
+      return dump();
+    }
+
+    Snapshot snapshot = lastSnapshot;
+    if (snapshot != null && snapshot.isFresh(System.nanoTime())) {
+      return snapshot.stackTraces;
+    }
+
+    // Concurrent errors wait for the snapshot being taken instead of triggering their own.
+    synchronized (lock) {
+      long now = System.nanoTime();
+      snapshot = lastSnapshot;
+      if (snapshot != null && snapshot.isFresh(now)) {
+        return snapshot.stackTraces;
+      }
+      if (rateLimited && captured && now - lastCaptureNanos < minCaptureIntervalNanos) {
+        return null;
+      }
+
+      Map<Thread, StackTraceElement[]> stackTraces = dump();
+      captured = true;
+      lastCaptureNanos = now;
+      if (snapshotReuseWindowNanos > 0) {
+        lastSnapshot = new Snapshot(stackTraces, System.nanoTime(), snapshotReuseWindowNanos);
+      }
+      return stackTraces;
+    }
+  }
+
+  private Map<Thread, StackTraceElement[]> dump() {
+    if (policy.useThreadMxBean()) {
+      return ThreadMxBeanStackTraces.dump(policy.getMaxFramesPerThread());
+    }
+    return Thread.getAllStackTraces();
+  }
+
+  private Map<Thread, StackTraceElement[]> limit(Thread thread,
+      Map<Thread, StackTraceElement[]> allStackTraces) {
+    int maxThreads = policy.getMaxThreads();
+    int maxFrames = policy.getMaxFramesPerThread();
+    Map<Thread, StackTraceElement[]> result = new LinkedHashMap<>();
+
+    for (Map.Entry<Thread, StackTraceElement[]> entry : allStackTraces.entrySet()) {
+      if (result.size() >= maxThreads) {
+        break;
+      }
+
+      Thread entryThread = entry.getKey();
+      if (thread.equals(entryThread)) {
+        continue;
+      }
+
+      StackTraceElement[] frames = entry.getValue();
+      if (frames.length > maxFrames) {
+        frames = Arrays.copyOf(frames, maxFrames);
+      }
+      result.put(entryThread, frames);
+    }
+
+    return result;
+  }
+
+  private static final class Snapshot {
+    private final Map<Thread, StackTraceElement[]> stackTraces;
+
+    private final long takenAtNanos;
+
+    private final long reuseWindowNanos;
+
+    Snapshot(Map<Thread, StackTraceElement[]> stackTraces, long takenAtNanos,
+        long reuseWindowNanos) {
+      this.stackTraces = stackTraces;
+      this.takenAtNanos = takenAtNanos;
+      this.reuseWindowNanos = reuseWindowNanos;
+    }
+
+    boolean isFresh(long now) {
+      return now - takenAtNanos < reuseWindowNanos;
+    }
+  }
+}
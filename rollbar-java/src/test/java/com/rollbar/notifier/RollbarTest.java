@@ -7,6 +7,7 @@ import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -21,7 +22,9 @@ import com.rollbar.api.payload.data.Person;
 import com.rollbar.api.payload.data.Request;
 import com.rollbar.api.payload.data.Server;
 import com.rollbar.api.payload.data.body.Body;
+import com.rollbar.notifier.assembly.AsyncAssemblyPolicy;
 import com.rollbar.notifier.config.Config;
+import com.rollbar.notifier.config.ConfigChangeListener;
 import com.rollbar.notifier.filter.Filter;
 import com.rollbar.notifier.fingerprint.FingerprintGenerator;
 import com.rollbar.notifier.provider.Provider;
@@ -33,12 +36,16 @@ import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
 import com.rollbar.notifier.wrapper.ThrowableWrapper;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
 
 public class RollbarTest {
 
@@ -271,6 +278,33 @@ public class RollbarTest {
     verify(sender, never()).send(any());
   }
 
+  @Test
+  public void shouldPrefilterWithoutWrappingTheThrowable() {
+    Level level = Level.ERROR;
+    Throwable error = new RuntimeException("Something went wrong.");
+    String description = "description";
+    Map<String, Object> custom = new HashMap<>();
+
+    when(filter.preProcess(level, error, custom, description)).thenReturn(true);
+
+    final AtomicInteger wrapped = new AtomicInteger();
+    Rollbar sut = new Rollbar(config, bodyFactory) {
+      @Override
+      protected RollbarThrowableWrapper wrapThrowable(Throwable error, Thread thread,
+          boolean isUncaught) {
+        wrapped.incrementAndGet();
+        return super.wrapThrowable(error, thread, isUncaught);
+      }
+    };
+
+    sut.log(error, custom, description, level);
+    sut.log(error, Thread.currentThread(), custom, description, level, true);
+
+    assertThat(wrapped.get(), is(0));
+    verify(bodyFactory, never()).from(any(ThrowableWrapper.class), any());
+    verify(sender, never()).send(any());
+  }
+
   @Test
   public void shouldPostFilterWithoutSendingPayload() {
     Level level = Level.ERROR;
@@ -550,6 +584,61 @@ public class RollbarTest {
     }
   }
 
+  @Test
+  public void shouldAssembleThePayloadOffTheCallingThread() throws Exception {
+    final Map<String, Thread> threads = new ConcurrentHashMap<>();
+    when(requestProvider.provide()).thenAnswer(new Answer<Request>() {
+      @Override
+      public Request answer(InvocationOnMock invocation) {
+        threads.put("request", Thread.currentThread());
+        return null;
+      }
+    });
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        threads.put("send", Thread.currentThread());
+        return null;
+      }
+    }).when(sender).send(any(Payload.class));
+
+    Config config = withConfig(this.config)
+        .asyncAssemblyPolicy(new AsyncAssemblyPolicy.Builder().build())
+        .build();
+
+    Rollbar sut = new Rollbar(config, bodyFactory);
+
+    sut.error(new RuntimeException("Something went wrong."));
+    sut.close(true);
+
+    verify(sender).send(any(Payload.class));
+    assertThat(threads.get("request"), is(Thread.currentThread()));
+    assertThat(threads.get("send") != Thread.currentThread(), is(true));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldNotifyTheConfigChanges() {
+    ConfigChangeListener<Config> listener = mock(ConfigChangeListener.class);
+    Rollbar sut = new Rollbar(config, bodyFactory);
+    sut.addConfigChangeListener(listener);
+
+    Config newConfig = withConfig(this.config)
+        .environment("other")
+        .build();
+    sut.configure(newConfig);
+
+    verify(listener).onConfigChange(config, newConfig);
+    assertThat(sut.config(), is(newConfig));
+    assertThat(sut.getConfigVersion(), is(2L));
+
+    sut.removeConfigChangeListener(listener);
+    sut.configure(config);
+
+    verify(listener, never()).onConfigChange(newConfig, config);
+    assertThat(sut.getConfigVersion(), is(3L));
+  }
+
   @Test
   public void shouldClose() throws Exception {
     Rollbar sut = new Rollbar(config, bodyFactory);
@@ -0,0 +1,87 @@
+package com.rollbar.notifier.assembly;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class PayloadAssemblerTest {
+
+  @Rule
+  public MockitoRule rule = MockitoJUnit.rule();
+
+  @Mock
+  ExecutorService executorService;
+
+  @Mock
+  Runnable assembly;
+
+  AsyncAssemblyPolicy policy;
+
+  PayloadAssembler sut;
+
+  @Before
+  public void setUp() {
+    policy = new AsyncAssemblyPolicy.Builder().closeTimeout(100).build();
+    sut = new PayloadAssembler(policy, executorService);
+  }
+
+  @Test
+  public void shouldSubmitTheAssemblyToTheWorkers() {
+    assertThat(sut.submit(assembly), is(true));
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+    captor.getValue().run();
+    verify(assembly).run();
+  }
+
+  @Test
+  public void shouldRejectTheAssemblyWhenSaturated() throws Exception {
+    doThrow(new RejectedExecutionException()).when(executorService).execute(any(Runnable.class));
+
+    assertThat(sut.submit(assembly), is(false));
+    assertThat(sut.awaitIdle(0, TimeUnit.MILLISECONDS), is(true));
+  }
+
+  @Test
+  public void shouldWaitForTheSubmittedAssembliesToBeDone() throws Exception {
+    sut.submit(assembly);
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+
+    assertThat(sut.awaitIdle(10, TimeUnit.MILLISECONDS), is(false));
+
+    captor.getValue().run();
+
+    assertThat(sut.awaitIdle(0, TimeUnit.MILLISECONDS), is(true));
+  }
+
+  @Test
+  public void shouldWaitForThePendingAssembliesOnClose() throws Exception {
+    when(executorService.awaitTermination(100, TimeUnit.MILLISECONDS)).thenReturn(true);
+
+    sut.close(true);
+
+    verify(executorService).shutdown();
+    verify(executorService).awaitTermination(100, TimeUnit.MILLISECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowAnEmptyQueue() {
+    new AsyncAssemblyPolicy.Builder().queueCapacity(0).build();
+  }
+}
@@ -0,0 +1,174 @@
+package com.rollbar.notifier.coalescing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.provider.Provider;
+import com.rollbar.notifier.wrapper.ThrowableWrapper;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
+
+public class OccurrenceCoalescerTest {
+
+  static final long WINDOW = 1000;
+
+  static final String DESCRIPTION = "description";
+
+  @Rule
+  public MockitoRule rule = MockitoJUnit.rule();
+
+  @Mock
+  OccurrenceCoalescer.SummaryHandler summaryHandler;
+
+  @Mock
+  Provider<Long> timestamp;
+
+  @Mock
+  ScheduledExecutorService executorService;
+
+  Throwable error;
+
+  OccurrenceCoalescer sut;
+
+  @Before
+  public void setUp() {
+    when(timestamp.provide()).thenReturn(0L);
+    error = new IllegalStateException("Dependency down");
+
+    CoalescingPolicy policy = new CoalescingPolicy.Builder()
+        .window(WINDOW)
+        .maxOccurrencesPerWindow(2)
+        .maxSignatures(2)
+        .build();
+    sut = new OccurrenceCoalescer(policy, summaryHandler, timestamp, executorService);
+  }
+
+  @Test
+  public void shouldSendTheFirstOccurrencesOfTheWindow() {
+    assertThat(sut.shouldSend(error, null, DESCRIPTION, Level.ERROR), is(true));
+    assertThat(sut.shouldSend(error, null, DESCRIPTION, Level.ERROR), is(true));
+    assertThat(sut.shouldSend(error, null, DESCRIPTION, Level.ERROR), is(false));
+    assertThat(sut.shouldSend(new IllegalStateException("Other"), null, DESCRIPTION,
+        Level.ERROR), is(true));
+  }
+
+  @Test
+  public void shouldNotCoalesceDifferentLevelsOrMessages() {
+    sut.shouldSend(error, null, DESCRIPTION, Level.ERROR);
+    sut.shouldSend(error, null, DESCRIPTION, Level.ERROR);
+
+    assertThat(sut.shouldSend(error, null, DESCRIPTION, Level.WARNING), is(true));
+    for (int i = 0; i < 5; i++) {
+      assertThat(sut.shouldSend(null, null, "message", Level.ERROR), is(true));
+    }
+  }
+
+  @Test
+  public void shouldReportTheSuppressedOccurrencesOnFlush() {
+    for (int i = 0; i < 5; i++) {
+      sut.shouldSend(error, null, DESCRIPTION, Level.ERROR);
+    }
+    when(timestamp.provide()).thenReturn(500L);
+
+    sut.flush();
+
+    ArgumentCaptor<ThrowableWrapper> captor = ArgumentCaptor.forClass(ThrowableWrapper.class);
+    verify(summaryHandler).onSummary(captor.capture(), eq(DESCRIPTION), eq(Level.ERROR), eq(3),
+        eq(0L), eq(500L));
+    assertThat(captor.getValue().getThrowable(), is(error));
+  }
+
+  @Test
+  public void shouldWaitForTheSummariesReportedInTheBackgroundOnFlush() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      sut.shouldSend(error, null, DESCRIPTION, Level.ERROR);
+    }
+
+    // The background summaries are never reported by the mocked executor.
+    assertThat(sut.flush(10, TimeUnit.MILLISECONDS), is(false));
+    verify(summaryHandler).onSummary(any(ThrowableWrapper.class), eq(DESCRIPTION),
+        eq(Level.ERROR), eq(1), eq(0L), eq(0L));
+
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ((Runnable) invocation.getArgument(0)).run();
+        return null;
+      }
+    }).when(executorService).execute(any(Runnable.class));
+
+    assertThat(sut.flush(10, TimeUnit.MILLISECONDS), is(true));
+  }
+
+  @Test
+  public void shouldWaitForTheSummariesReportedInTheBackgroundOnFlushOnceClosed()
+      throws Exception {
+    doThrow(new RejectedExecutionException()).when(executorService).execute(any(Runnable.class));
+    when(executorService.awaitTermination(100, TimeUnit.MILLISECONDS)).thenReturn(false);
+
+    assertThat(sut.flush(100, TimeUnit.MILLISECONDS), is(false));
+
+    verify(executorService).awaitTermination(100, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void shouldStartANewWindowAndReportThePreviousOne() {
+    for (int i = 0; i < 3; i++) {
+      sut.shouldSend(error, null, DESCRIPTION, Level.ERROR);
+    }
+    when(timestamp.provide()).thenReturn(WINDOW);
+
+    assertThat(sut.shouldSend(error, null, DESCRIPTION, Level.ERROR), is(true));
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).execute(captor.capture());
+    captor.getValue().run();
+    verify(summaryHandler).onSummary(any(ThrowableWrapper.class), eq(DESCRIPTION),
+        eq(Level.ERROR), eq(1), eq(0L), eq(WINDOW));
+  }
+
+  @Test
+  public void shouldEvictExpiredWindowsOnSweep() {
+    sut.shouldSend(error, null, DESCRIPTION, Level.ERROR);
+    when(timestamp.provide()).thenReturn(WINDOW);
+
+    sut.sweep();
+    sut.flush();
+
+    verify(summaryHandler, never()).onSummary(any(ThrowableWrapper.class), anyString(),
+        any(Level.class), anyInt(), anyLong(), anyLong());
+    assertThat(sut.shouldSend(error, null, DESCRIPTION, Level.ERROR), is(true));
+  }
+
+  @Test
+  public void shouldNotTrackMoreSignaturesThanTheLimit() {
+    sut.shouldSend(new IllegalStateException("One"), null, DESCRIPTION, Level.ERROR);
+    sut.shouldSend(new IllegalArgumentException("Two"), null, DESCRIPTION, Level.ERROR);
+
+    Throwable untracked = new UnsupportedOperationException("Three");
+    for (int i = 0; i < 5; i++) {
+      assertThat(sut.shouldSend(untracked, null, DESCRIPTION, Level.ERROR), is(true));
+    }
+  }
+}
@@ -21,6 +21,7 @@ import com.rollbar.notifier.sender.BufferedSender;
 import com.rollbar.notifier.sender.Sender;
 import com.rollbar.notifier.transformer.Transformer;
 import com.rollbar.notifier.uuid.UuidGenerator;
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy;
 import java.net.Proxy;
 import java.util.Map;
 import org.junit.Rule;
@@ -101,6 +102,7 @@ public class ConfigBuilderTest {
     assertThat(config.defaultMessageLevel(), equalTo(Level.WARNING));
     assertThat(config.defaultThrowableLevel(), equalTo(Level.ERROR));
     assertThat(config.defaultErrorLevel(), equalTo(Level.CRITICAL));
+    assertThat(config.threadCapturePolicy(), is(ThreadCapturePolicy.defaultPolicy()));
   }
 
   @Test
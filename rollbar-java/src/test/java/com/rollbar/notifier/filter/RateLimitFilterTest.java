@@ -0,0 +1,151 @@
+package com.rollbar.notifier.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.data.Level;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RateLimitFilterTest {
+
+  static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  long now;
+
+  RateLimitFilter.Clock clock;
+
+  @Before
+  public void setUp() {
+    now = 0;
+    clock = new RateLimitFilter.Clock() {
+      @Override
+      public long nanoTime() {
+        return now;
+      }
+    };
+  }
+
+  @Test
+  public void shouldLimitTheGlobalRate() {
+    RateLimitFilter sut = new RateLimitFilter.Builder()
+        .clock(clock)
+        .globalRate(1, 2)
+        .build();
+
+    assertThat(filtered(sut, Level.ERROR, new RuntimeException()), is(false));
+    assertThat(filtered(sut, Level.ERROR, null), is(false));
+    assertThat(filtered(sut, Level.ERROR, null), is(true));
+
+    now += SECOND;
+
+    assertThat(filtered(sut, Level.ERROR, null), is(false));
+    assertThat(filtered(sut, Level.ERROR, null), is(true));
+    assertThat(sut.getRejected(), is(2L));
+    assertThat(sut.getRejectedByGlobalRate(), is(2L));
+  }
+
+  @Test
+  public void shouldLimitEachLevelIndependently() {
+    RateLimitFilter sut = new RateLimitFilter.Builder()
+        .clock(clock)
+        .levelRate(Level.DEBUG, 1, 1)
+        .build();
+
+    assertThat(filtered(sut, Level.DEBUG, null), is(false));
+    assertThat(filtered(sut, Level.DEBUG, null), is(true));
+    assertThat(filtered(sut, Level.ERROR, null), is(false));
+    assertThat(filtered(sut, Level.ERROR, null), is(false));
+    assertThat(sut.getRejectedByLevel(Level.DEBUG), is(1L));
+    assertThat(sut.getRejectedByLevel(Level.ERROR), is(0L));
+  }
+
+  @Test
+  public void shouldLimitEachExceptionClassIndependently() {
+    RateLimitFilter sut = new RateLimitFilter.Builder()
+        .clock(clock)
+        .exceptionRate(IllegalStateException.class, 1, 1)
+        .defaultExceptionRate(1, 2)
+        .build();
+
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(false));
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(true));
+    assertThat(filtered(sut, Level.ERROR, new IllegalArgumentException()), is(false));
+    assertThat(filtered(sut, Level.ERROR, new IllegalArgumentException()), is(false));
+    assertThat(filtered(sut, Level.ERROR, new IllegalArgumentException()), is(true));
+    assertThat(filtered(sut, Level.ERROR, new NullPointerException()), is(false));
+    assertThat(sut.getRejectedByExceptionClass(IllegalStateException.class), is(1L));
+    assertThat(sut.getRejectedByExceptionClass(IllegalArgumentException.class), is(1L));
+    assertThat(sut.getRejected(), is(2L));
+  }
+
+  @Test
+  public void shouldGiveBackThePermitsTakenBeforeTheRejection() {
+    RateLimitFilter sut = new RateLimitFilter.Builder()
+        .clock(clock)
+        .globalRate(1, 1)
+        .levelRate(Level.ERROR, 1, 2)
+        .exceptionRate(IllegalStateException.class, 1, 2)
+        .build();
+
+    assertThat(filtered(sut, Level.WARNING, null), is(false));
+    for (int i = 0; i < 5; i++) {
+      assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(true));
+    }
+    assertThat(sut.getRejectedByGlobalRate(), is(5L));
+
+    now += SECOND;
+
+    // The class and level buckets are still full once the global flood ends.
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(false));
+    now += SECOND;
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(false));
+    assertThat(sut.getRejectedByExceptionClass(IllegalStateException.class), is(0L));
+    assertThat(sut.getRejectedByLevel(Level.ERROR), is(0L));
+  }
+
+  @Test
+  public void shouldGiveBackTheClassPermitWhenTheLevelRejects() {
+    RateLimitFilter sut = new RateLimitFilter.Builder()
+        .clock(clock)
+        .levelRate(Level.DEBUG, 1, 1)
+        .exceptionRate(IllegalStateException.class, 1, 1)
+        .build();
+
+    assertThat(filtered(sut, Level.DEBUG, null), is(false));
+    assertThat(filtered(sut, Level.DEBUG, new IllegalStateException()), is(true));
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(false));
+    assertThat(sut.getRejectedByExceptionClass(IllegalStateException.class), is(0L));
+  }
+
+  @Test
+  public void shouldNotTrackMoreExceptionClassesThanTheLimit() {
+    RateLimitFilter sut = new RateLimitFilter.Builder()
+        .clock(clock)
+        .defaultExceptionRate(1, 1)
+        .maxExceptionClasses(1)
+        .build();
+
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(false));
+    assertThat(filtered(sut, Level.ERROR, new IllegalStateException()), is(true));
+    assertThat(filtered(sut, Level.ERROR, new IllegalArgumentException()), is(false));
+    assertThat(filtered(sut, Level.ERROR, new IllegalArgumentException()), is(false));
+  }
+
+  @Test
+  public void shouldNotFilterThePayload() {
+    RateLimitFilter sut = new RateLimitFilter.Builder().clock(clock).globalRate(1, 1).build();
+
+    assertThat(sut.postProcess(null), is(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowANonPositiveRate() {
+    new RateLimitFilter.Builder().globalRate(0, 1);
+  }
+
+  private static boolean filtered(RateLimitFilter sut, Level level, Throwable error) {
+    return sut.preProcess(level, error, null, "description");
+  }
+}
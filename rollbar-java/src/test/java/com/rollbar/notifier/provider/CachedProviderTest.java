@@ -0,0 +1,122 @@
+package com.rollbar.notifier.provider;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class CachedProviderTest {
+
+  static final long TTL = 1000;
+
+  @Rule
+  public MockitoRule rule = MockitoJUnit.rule();
+
+  @Mock
+  Provider<String> delegate;
+
+  @Mock
+  Provider<Long> timestamp;
+
+  @Mock
+  Executor executor;
+
+  @Before
+  public void setUp() {
+    when(timestamp.provide()).thenReturn(0L);
+    when(delegate.provide()).thenReturn("first", "second");
+  }
+
+  @Test
+  public void shouldCacheTheValueUntilItExpires() {
+    CachedProvider<String> sut = new CachedProvider.Builder<>(delegate)
+        .ttl(TTL)
+        .timestamp(timestamp)
+        .build();
+
+    assertThat(sut.provide(), is("first"));
+    when(timestamp.provide()).thenReturn(TTL - 1);
+    assertThat(sut.provide(), is("first"));
+    verify(delegate).provide();
+
+    when(timestamp.provide()).thenReturn(TTL);
+    assertThat(sut.provide(), is("second"));
+    verify(delegate, times(2)).provide();
+  }
+
+  @Test
+  public void shouldNeverExpireByDefault() {
+    CachedProvider<String> sut = new CachedProvider.Builder<>(delegate)
+        .timestamp(timestamp)
+        .build();
+
+    sut.provide();
+    when(timestamp.provide()).thenReturn(Long.MAX_VALUE);
+
+    assertThat(sut.provide(), is("first"));
+    verify(delegate).provide();
+  }
+
+  @Test
+  public void shouldRefreshInTheBackgroundOnceExpired() {
+    CachedProvider<String> sut = new CachedProvider.Builder<>(delegate)
+        .ttl(TTL)
+        .asyncRefresh(true)
+        .executor(executor)
+        .timestamp(timestamp)
+        .build();
+
+    sut.provide();
+    when(timestamp.provide()).thenReturn(TTL);
+
+    assertThat(sut.provide(), is("first"));
+    assertThat(sut.provide(), is("first"));
+
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor).execute(captor.capture());
+    captor.getValue().run();
+
+    assertThat(sut.provide(), is("second"));
+  }
+
+  @Test
+  public void shouldKeepTheExpiredValueIfTheRefreshFails() {
+    when(delegate.provide()).thenReturn("first").thenThrow(new IllegalStateException());
+    CachedProvider<String> sut = new CachedProvider.Builder<>(delegate)
+        .ttl(TTL)
+        .timestamp(timestamp)
+        .build();
+
+    sut.provide();
+    when(timestamp.provide()).thenReturn(TTL);
+
+    assertThat(sut.provide(), is("first"));
+  }
+
+  @Test
+  public void shouldComputeTheValueAgainAfterInvalidating() {
+    CachedProvider<String> sut = new CachedProvider.Builder<>(delegate)
+        .asyncRefresh(true)
+        .executor(executor)
+        .timestamp(timestamp)
+        .build();
+
+    sut.provide();
+    sut.invalidate();
+
+    assertThat(sut.provide(), is("second"));
+    verify(executor, never()).execute(any(Runnable.class));
+  }
+}
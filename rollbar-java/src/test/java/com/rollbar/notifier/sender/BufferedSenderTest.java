@@ -11,24 +11,39 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
 import com.rollbar.notifier.sender.BufferedSender.SendTask;
 import com.rollbar.notifier.sender.BufferedSender.SenderThreadFactory;
 import com.rollbar.notifier.sender.exception.SenderException;
+import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
 import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.queue.JournalQueue;
+import com.rollbar.notifier.sender.queue.RingBufferQueue;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
+import com.rollbar.notifier.sender.result.FlushResult;
 import com.rollbar.notifier.sender.result.Response;
 import com.rollbar.notifier.sender.result.Result;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
@@ -41,6 +56,9 @@ public class BufferedSenderTest {
   @Rule
   public MockitoRule rule = MockitoJUnit.rule();
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Mock
   Queue<Payload> queue;
 
@@ -90,6 +108,86 @@ public class BufferedSenderTest {
     assertThat(argument.getValue().getCause(), is(queueFullError));
   }
 
+  @Test
+  public void shouldNotifyThePayloadsDroppedByTheQueue() {
+    when(sender.getListeners()).thenReturn(asList(listener));
+
+    Payload payload1 = mock(Payload.class);
+    Payload payload2 = mock(Payload.class);
+    Payload payload3 = mock(Payload.class);
+
+    RingBufferQueue queue = new RingBufferQueue.Builder()
+        .capacity(2)
+        .overflowPolicy(RingBufferQueue.OverflowPolicy.DROP_OLDEST)
+        .build();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(queue)
+        .sender(sender),
+        executorService);
+
+    sut.send(payload1);
+    sut.send(payload2);
+    sut.send(payload3);
+
+    ArgumentCaptor<SenderException> argument = ArgumentCaptor.forClass(SenderException.class);
+    verify(listener).onError(eq(payload1), argument.capture());
+    assertThat(argument.getValue().getCause(), is(instanceOf(IllegalStateException.class)));
+    assertThat(queue.getDroppedCount(), is(1L));
+  }
+
+  @Test
+  public void shouldScheduleTheFlushAtTheMaxLatencyOfTheFirstPayload() {
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(queue)
+        .sender(sender)
+        .maxLatency(1000),
+        executorService);
+
+    verify(executorService, never()).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+
+    sut.send(payload(Level.ERROR));
+    sut.send(payload(Level.WARNING));
+
+    verify(executorService, times(1)).schedule(any(Runnable.class),
+        eq(TimeUnit.MILLISECONDS.toNanos(1000)), eq(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void shouldFlushRightAwayForCriticalPayloadsAndAFullBatch() {
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(queue)
+        .sender(sender)
+        .maxLatency(1000)
+        .flushSize(3),
+        executorService);
+
+    sut.send(payload(Level.WARNING));
+    sut.send(payload(Level.CRITICAL));
+
+    verify(executorService).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.NANOSECONDS));
+
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService, times(2)).schedule(flush.capture(), anyLong(), any());
+    flush.getValue().run();
+
+    verify(sender, times(2)).send(any(Payload.class));
+    assertThat(queue, hasSize(0));
+
+    sut.send(payload(Level.INFO));
+    sut.send(payload(Level.INFO));
+    sut.send(payload(Level.INFO));
+
+    verify(executorService, times(2)).schedule(any(Runnable.class), eq(0L),
+        eq(TimeUnit.NANOSECONDS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANegativeMaxLatency() {
+    new BufferedSender.Builder().maxLatency(-1).build();
+  }
+
   @Test
   public void shouldDelegateAddListener() {
     sut.addListener(listener);
@@ -124,6 +222,7 @@ public class BufferedSenderTest {
         .queue(queue)
         .sender(sender),
         executorService);
+    runSubmittedTasks(executorService);
 
     sut.close(true);
 
@@ -160,6 +259,251 @@ public class BufferedSenderTest {
     verify(sender).close();
   }
 
+  @Test
+  public void shouldNotWaitForThePayloadsInFlightAtCloseWithoutASpool() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch responding = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      sending.countDown();
+      responding.await();
+      return null;
+    }).when(sender).send(any(Payload.class));
+
+    ScheduledExecutorService senderThread = Executors.newSingleThreadScheduledExecutor();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(new ConcurrentLinkedQueue<>())
+        .sender(sender)
+        .initialFlushDelay(0),
+        senderThread);
+    sut.send(payload(Level.ERROR));
+    sending.await();
+
+    long start = System.nanoTime();
+    sut.close(false);
+
+    assertThat(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), is(true));
+    verify(sender).close();
+    responding.countDown();
+  }
+
+  @Test
+  public void shouldWaitForThePayloadsInFlightAtCloseUpToTheCloseTimeout() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch responding = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      sending.countDown();
+      responding.await();
+      return null;
+    }).when(sender).send(any(Payload.class));
+
+    ScheduledExecutorService senderThread = Executors.newSingleThreadScheduledExecutor();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(new ConcurrentLinkedQueue<>())
+        .sender(sender)
+        .initialFlushDelay(0)
+        .closeTimeout(100)
+        .spoolFolder(folder.newFolder()),
+        senderThread);
+    sut.send(payload(Level.ERROR));
+    sending.await();
+
+    long start = System.nanoTime();
+    sut.close(false);
+
+    long elapsed = System.nanoTime() - start;
+    assertThat(elapsed >= TimeUnit.MILLISECONDS.toNanos(100), is(true));
+    assertThat(elapsed < TimeUnit.SECONDS.toNanos(1), is(true));
+    assertThat(senderThread.isTerminated(), is(false));
+    verify(sender).close();
+    responding.countDown();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANegativeCloseTimeout() {
+    new BufferedSender.Builder().closeTimeout(-1).build();
+  }
+
+  @Test
+  public void shouldSpoolThePayloadsLeftAtCloseAndReplayThemOnTheNextStart() throws Exception {
+    File spoolFolder = folder.newFolder();
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.WARNING);
+
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    queue.addAll(asList(payload1, payload2));
+
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(queue)
+        .sender(sender)
+        .spoolFolder(spoolFolder),
+        executorService);
+
+    sut.close(false);
+
+    assertThat(queue.size(), is(0));
+
+    ScheduledExecutorService nextExecutorService = mock(ScheduledExecutorService.class);
+    Queue<Payload> nextQueue = new ConcurrentLinkedQueue<>();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(nextQueue)
+        .sender(sender)
+        .spoolFolder(spoolFolder)
+        .replayRate(1),
+        nextExecutorService);
+
+    ArgumentCaptor<Runnable> replayCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(nextExecutorService).scheduleAtFixedRate(replayCaptor.capture(),
+        eq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.SECONDS.toNanos(1)),
+        eq(TimeUnit.NANOSECONDS));
+
+    replayCaptor.getValue().run();
+    assertThat(nextQueue, hasSize(1));
+    replayCaptor.getValue().run();
+    assertThat(nextQueue, hasSize(2));
+
+    JsonSerializer serializer = new JsonSerializerImpl();
+    List<String> replayed = new ArrayList<>();
+    for (Payload payload : nextQueue) {
+      replayed.add(payload.json);
+    }
+    assertThat(replayed, is(asList(serializer.toJson(payload1), serializer.toJson(payload2))));
+  }
+
+  @Test
+  public void shouldSpoolThePayloadsFailingInFlightAtClose() throws Exception {
+    File spoolFolder = folder.newFolder();
+    SenderFailureStrategy strategy = mock(SenderFailureStrategy.class);
+    when(strategy.getAction(any(Payload.class), any(Exception.class)))
+        .thenReturn(SenderFailureStrategy.PayloadAction.CAN_BE_RETRIED);
+    when(strategy.getRetryDelay(any(Payload.class))).thenReturn(60000L);
+
+    List<SenderListener> listeners = new ArrayList<>();
+    when(sender.getListeners()).thenReturn(listeners);
+    doAnswer(invocation -> listeners.add(invocation.getArgument(0)))
+        .when(sender).addListener(any(SenderListener.class));
+    CountDownLatch sending = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      sending.countDown();
+      Thread.sleep(100);
+      for (SenderListener listener : listeners) {
+        listener.onError(invocation.getArgument(0), new SenderException(new Exception("down")));
+      }
+      return null;
+    }).when(sender).send(any(Payload.class));
+
+    ScheduledExecutorService senderThread = Executors.newSingleThreadScheduledExecutor();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(new ConcurrentLinkedQueue<>())
+        .sender(sender)
+        .senderFailureStrategy(strategy)
+        .initialFlushDelay(0)
+        .spoolFolder(spoolFolder),
+        senderThread);
+    sut.send(payload(Level.ERROR));
+    sending.await();
+
+    sut.close();
+
+    assertThat(senderThread.isTerminated(), is(true));
+    JournalQueue spool = new JournalQueue.Builder().queueFolder(spoolFolder).build();
+    assertThat(spool.size(), is(1));
+    spool.close();
+  }
+
+  @Test
+  public void shouldStopWaitingAtCloseOnceSendingIsSuspended() throws Exception {
+    File spoolFolder = folder.newFolder();
+    SenderFailureStrategy strategy = mock(SenderFailureStrategy.class);
+    when(strategy.isSendingSuspended()).thenReturn(true);
+
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    queue.add(payload(Level.ERROR));
+
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(queue)
+        .sender(sender)
+        .senderFailureStrategy(strategy)
+        .spoolFolder(spoolFolder),
+        executorService);
+    runSubmittedTasks(executorService);
+
+    sut.close(true);
+
+    verify(sender, never()).send(any(Payload.class));
+    assertThat(queue.size(), is(0));
+
+    JournalQueue spool = new JournalQueue.Builder().queueFolder(spoolFolder).build();
+    assertThat(spool.size(), is(1));
+    spool.close();
+  }
+
+  @Test
+  public void shouldFlushTheQueueFromTheSenderThreadAndCountTheOutcomes() throws Exception {
+    Response response = new Response.Builder()
+        .result(new Result.Builder().build())
+        .bodySize(120)
+        .build();
+    setSenderMockToCallListeners(sender, response, null);
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.WARNING);
+
+    ScheduledExecutorService senderThread = Executors.newSingleThreadScheduledExecutor();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(new ConcurrentLinkedQueue<>())
+        .sender(sender)
+        .initialFlushDelay(60000),
+        senderThread);
+    sut.send(payload1);
+    sut.send(payload2);
+
+    FlushResult result = sut.flush(5, TimeUnit.SECONDS);
+
+    assertThat(result.getSent(), is(2));
+    assertThat(result.getFailed(), is(0));
+    assertThat(result.getRemaining(), is(0));
+    assertThat(result.getBytes(), is(240L));
+    assertThat(result.isComplete(), is(true));
+    sut.close();
+  }
+
+  @Test
+  public void shouldStopFlushingOnceTheTimeoutElapses() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      sending.await();
+      return null;
+    }).when(sender).send(any(Payload.class));
+
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    ScheduledExecutorService senderThread = Executors.newSingleThreadScheduledExecutor();
+    sut = new BufferedSender(new BufferedSender.Builder()
+        .queue(queue)
+        .sender(sender)
+        .initialFlushDelay(60000),
+        senderThread);
+    sut.send(payload(Level.ERROR));
+    sut.send(payload(Level.ERROR));
+    sut.send(payload(Level.ERROR));
+
+    FlushResult result = sut.flush(100, TimeUnit.MILLISECONDS);
+
+    // The payload in flight is still sent, and counted as remaining until it is.
+    assertThat(result.getSent(), is(0));
+    assertThat(result.getRemaining(), is(3));
+    assertThat(result.isComplete(), is(false));
+
+    sending.countDown();
+    sut.close();
+
+    verify(sender, times(1)).send(any(Payload.class));
+    assertThat(queue, hasSize(2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptAReplayRateLowerThanOne() {
+    new BufferedSender.Builder().replayRate(0).build();
+  }
+
   @Test
   public void threadFactoryShouldSetNameMakeThreadsDaemons() {
     Runnable runnable = mock(Runnable.class);
@@ -263,6 +607,82 @@ public class BufferedSenderTest {
     verify(sender, never()).send(any(Payload.class));
   }
 
+  @Test
+  public void sendTaskShouldSendUpToMaxInFlightPayloadsConcurrently() throws Exception {
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    for (int i = 0; i < 10; i++) {
+      queue.add(mock(Payload.class));
+    }
+
+    AtomicInteger sending = new AtomicInteger();
+    AtomicInteger maxSending = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(3);
+    CountDownLatch proceed = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      maxSending.accumulateAndGet(sending.incrementAndGet(), Math::max);
+      started.countDown();
+      proceed.await();
+      sending.decrementAndGet();
+      return null;
+    }).when(sender).send(any(Payload.class));
+
+    ExecutorService workers = Executors.newFixedThreadPool(3);
+    try {
+      SendTask sut = new SendTask(Integer.MAX_VALUE, queue, sender, null, null, workers, 3);
+      Thread dispatcher = new Thread(sut);
+      dispatcher.start();
+
+      assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+      // The other payloads wait in the queue for a free slot.
+      assertThat(queue, hasSize(7));
+
+      proceed.countDown();
+      dispatcher.join(5000);
+      sut.awaitInFlight();
+
+      assertThat(queue, hasSize(0));
+      assertThat(maxSending.get(), is(3));
+      verify(sender, times(10)).send(any(Payload.class));
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void sendTaskShouldNotDispatchPayloadsOnceSuspendedByOneInFlight() throws Exception {
+    Queue<Payload> queue = new ConcurrentLinkedQueue<>();
+    Payload payload1 = mock(Payload.class);
+    Payload payload2 = mock(Payload.class);
+    queue.addAll(asList(payload1, payload2));
+
+    AtomicBoolean suspended = new AtomicBoolean(false);
+    SenderFailureStrategy strategy = mock(SenderFailureStrategy.class);
+    when(strategy.isSendingSuspended()).thenAnswer(invocation -> suspended.get());
+    doAnswer(invocation -> {
+      suspended.set(true);
+      return null;
+    }).when(sender).send(payload1);
+
+    ExecutorService workers = Executors.newSingleThreadExecutor();
+    try {
+      // A single slot, so the second payload waits for the first one to be sent.
+      SendTask sut = new SendTask(Integer.MAX_VALUE, queue, sender, strategy, null, workers, 1);
+      sut.run();
+      sut.awaitInFlight();
+
+      verify(sender).send(payload1);
+      verify(sender, never()).send(payload2);
+      assertThat(queue, hasSize(1));
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptLessThanOnePayloadInFlight() {
+    new BufferedSender.Builder().maxInFlight(0).build();
+  }
+
   @Test
   public void ifFailureStrategyIsSetItShouldBeAppliedForEachOccurrenceSent() {
     SenderFailureStrategy strategy = mock(SenderFailureStrategy.class);
@@ -324,6 +744,22 @@ public class BufferedSenderTest {
     });
   }
 
+  @Test
+  public void ifFailureStrategyGivesARetryDelayPayloadShouldWaitBeforeBeingQueued() {
+    SenderFailureStrategy strategy = mock(SenderFailureStrategy.class);
+    Response response = new Response.Builder().result(new Result.Builder().build()).build();
+    when(strategy.getAction(any(Payload.class), eq(response)))
+        .thenReturn(SenderFailureStrategy.PayloadAction.CAN_BE_RETRIED);
+    when(strategy.getRetryDelay(any(Payload.class))).thenReturn(60000L);
+
+    Payload payload = new Payload.Builder().build();
+    runFailureStrategy(strategy, null, response, payload);
+
+    // Not back on the queue, and so not sent again by the next flush.
+    assertThat(queue, hasSize(0));
+    verify(sender, times(1)).send(payload);
+  }
+
   @Test
   public void ifPayloadHasBeenTried30TimesItShouldNotBeAddedBackToQueue() {
     SenderFailureStrategy.PayloadAction action = SenderFailureStrategy.PayloadAction.CAN_BE_RETRIED;
@@ -416,6 +852,17 @@ public class BufferedSenderTest {
     taskCaptor.getValue().run();
   }
 
+  private static void runSubmittedTasks(ExecutorService executorService) {
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArgument(0)).run();
+      return CompletableFuture.completedFuture(null);
+    }).when(executorService).submit(any(Runnable.class));
+  }
+
+  private static Payload payload(Level level) {
+    return new Payload.Builder().data(new Data.Builder().level(level).build()).build();
+  }
+
   private void setSenderMockToCallListeners(Sender sender, Response result, Exception exception) {
     List<SenderListener> listeners = new ArrayList<>();
     when(sender.getListeners()).thenReturn(listeners);
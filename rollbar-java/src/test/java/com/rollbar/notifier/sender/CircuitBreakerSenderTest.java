@@ -0,0 +1,259 @@
+package com.rollbar.notifier.sender;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.notifier.sender.CircuitBreakerSender.State;
+import com.rollbar.notifier.sender.SenderFailureStrategy.PayloadAction;
+import com.rollbar.notifier.sender.listener.SenderListener;
+import com.rollbar.notifier.sender.result.Response;
+import com.rollbar.notifier.sender.result.Result;
+import java.net.ConnectException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircuitBreakerSenderTest {
+
+  private FakeSender transport;
+
+  private List<Exception> errors;
+
+  private List<State> transitions;
+
+  @Before
+  public void setUp() {
+    transport = new FakeSender();
+    errors = new ArrayList<>();
+    transitions = new ArrayList<>();
+  }
+
+  @Test
+  public void shouldOpenAfterConsecutiveTransportFailuresAndStopSending() {
+    CircuitBreakerSender sut = circuitBreaker(3, 60000);
+
+    transport.fail(3);
+    for (int i = 0; i < 3; i++) {
+      sut.send(payload());
+    }
+    sut.send(payload());
+
+    assertThat(sut.getState(), is(State.OPEN));
+    assertThat(transitions, contains(State.OPEN));
+    assertThat(transport.sent, is(3));
+    assertThat(errors.size(), is(4));
+    assertThat(CircuitBreakerSender.isRejection(errors.get(3)), is(true));
+    assertThat(sut.failureStrategy().isSendingSuspended(), is(true));
+  }
+
+  @Test
+  public void shouldNotOpenOnTheFailuresThatAreNotConsecutive() {
+    CircuitBreakerSender sut = circuitBreaker(2, 60000);
+
+    transport.fail(1);
+    sut.send(payload());
+    sut.send(payload());
+    transport.fail(1);
+    sut.send(payload());
+
+    assertThat(sut.getState(), is(State.CLOSED));
+    assertThat(transport.sent, is(3));
+  }
+
+  @Test
+  public void shouldNotCountTheClientErrors() {
+    CircuitBreakerSender sut = circuitBreaker(1, 60000);
+
+    transport.reject(400);
+    sut.send(payload());
+
+    assertThat(sut.getState(), is(State.CLOSED));
+    assertThat(errors.size(), is(1));
+  }
+
+  @Test
+  public void shouldSendASingleProbeWhenHalfOpenAndCloseOnSuccess() {
+    final CircuitBreakerSender sut = circuitBreaker(1, 0);
+    transport.fail(1);
+    sut.send(payload());
+    assertThat(sut.getState(), is(State.OPEN));
+
+    // Another payload sent while the probe is in flight is rejected.
+    transport.whileSending = new Runnable() {
+      @Override
+      public void run() {
+        transport.whileSending = null;
+        sut.send(payload());
+      }
+    };
+    sut.send(payload());
+
+    assertThat(transport.sent, is(2));
+    assertThat(errors.size(), is(2));
+    assertThat(CircuitBreakerSender.isRejection(errors.get(1)), is(true));
+    assertThat(sut.getState(), is(State.CLOSED));
+    assertThat(transitions, contains(State.OPEN, State.HALF_OPEN, State.CLOSED));
+  }
+
+  @Test
+  public void shouldOpenAgainWhenTheProbeFails() {
+    CircuitBreakerSender sut = circuitBreaker(2, 0);
+    transport.fail(3);
+    sut.send(payload());
+    sut.send(payload());
+
+    sut.send(payload());
+
+    assertThat(sut.getState(), is(State.OPEN));
+    assertThat(transitions, contains(State.OPEN, State.HALF_OPEN, State.OPEN));
+  }
+
+  @Test
+  public void shouldRecordTheProbeThrownBySenderThatDoesNotNotify() {
+    ThrowingSender throwing = new ThrowingSender();
+    CircuitBreakerSender sut = circuitBreaker(throwing, 1, 0);
+
+    sut.send(payload());
+    sut.send(payload());
+
+    assertThat(throwing.sent, is(2));
+    assertThat(errors.size(), is(2));
+    assertThat(sut.getState(), is(State.OPEN));
+    assertThat(transitions, contains(State.OPEN, State.HALF_OPEN, State.OPEN));
+    assertThat(sut.failureStrategy().isSendingSuspended(), is(false));
+  }
+
+  @Test
+  public void shouldRetryTheRejectedPayloadsOnceTheCircuitBreakerCanProbe() {
+    CircuitBreakerSender sut = circuitBreaker(1, 60000);
+    SenderFailureStrategy strategy = sut.failureStrategy();
+    transport.fail(1);
+    sut.send(payload());
+    sut.send(payload());
+
+    assertThat(strategy.getAction(payload(), errors.get(0)), is(PayloadAction.CAN_BE_RETRIED));
+    assertThat(strategy.getAction(payload(), errors.get(1)), is(PayloadAction.CAN_BE_RETRIED));
+    assertThat(strategy.getRetryDelay(payload()) > 59000, is(true));
+    assertThat(strategy.getAction(payload(),
+        new IllegalStateException("serialization")), is(PayloadAction.NONE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANonPositiveFailureThreshold() {
+    new CircuitBreakerSender.Builder(transport).failureThreshold(0).build();
+  }
+
+  private CircuitBreakerSender circuitBreaker(int failureThreshold, long openTimeout) {
+    return circuitBreaker(transport, failureThreshold, openTimeout);
+  }
+
+  private CircuitBreakerSender circuitBreaker(Sender sender, int failureThreshold,
+                                              long openTimeout) {
+    CircuitBreakerSender sut = new CircuitBreakerSender.Builder(sender)
+        .failureThreshold(failureThreshold)
+        .openTimeout(openTimeout)
+        .build();
+    sut.addListener(new SenderListener() {
+      @Override
+      public void onResponse(Payload payload, Response response) {
+      }
+
+      @Override
+      public void onError(Payload payload, Exception error) {
+        errors.add(error);
+      }
+    });
+    sut.addStateListener(new CircuitBreakerSender.StateListener() {
+      @Override
+      public void onStateChange(State previous, State current) {
+        transitions.add(current);
+      }
+    });
+    return sut;
+  }
+
+  private static Payload payload() {
+    return new Payload.Builder()
+        .data(new Data.Builder().uuid(UUID.randomUUID().toString()).build())
+        .build();
+  }
+
+  private static final class ThrowingSender implements Sender {
+
+    private final List<SenderListener> listeners = new ArrayList<>();
+
+    private int sent;
+
+    @Override
+    public void send(Payload payload) {
+      sent++;
+      throw new IllegalStateException("not notified");
+    }
+
+    @Override
+    public void addListener(SenderListener listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public List<SenderListener> getListeners() {
+      return listeners;
+    }
+
+    @Override
+    public void close(boolean wait) {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static final class FakeSender extends AbstractSender {
+
+    private final Deque<Integer> outcomes = new ArrayDeque<>();
+
+    private Runnable whileSending;
+
+    private int sent;
+
+    void fail(int times) {
+      for (int i = 0; i < times; i++) {
+        outcomes.add(-1);
+      }
+    }
+
+    void reject(int status) {
+      outcomes.add(status);
+    }
+
+    @Override
+    protected Response doSend(Payload payload) throws Exception {
+      sent++;
+      if (whileSending != null) {
+        whileSending.run();
+      }
+      Integer outcome = outcomes.poll();
+      if (outcome == null) {
+        return new Response.Builder()
+            .status(200)
+            .result(new Result.Builder().code(0).body("uuid").build())
+            .build();
+      }
+      if (outcome < 0) {
+        throw new ConnectException("refused");
+      }
+      return new Response.Builder()
+          .status(outcome)
+          .result(new Result.Builder().code(1).body("error").build())
+          .build();
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package com.rollbar.notifier.sender;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.SenderFailureStrategy.PayloadAction;
+import com.rollbar.notifier.sender.exception.ApiException;
+import com.rollbar.notifier.sender.exception.SenderException;
+import com.rollbar.notifier.sender.result.Response;
+import com.rollbar.notifier.sender.result.Result;
+import java.net.ConnectException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RateLimitAwareSenderFailureStrategyTest {
+
+  // Fri, 01 Jan 2021 00:00:00 GMT
+  private static final long NOW_MILLIS = 1609459200000L;
+
+  private FakeTimeProvider time;
+
+  private Payload payload;
+
+  private RateLimitAwareSenderFailureStrategy sut;
+
+  @Before
+  public void setUp() {
+    time = new FakeTimeProvider();
+    payload = new Payload.Builder().build();
+    sut = new RateLimitAwareSenderFailureStrategy(
+        new RateLimitAwareSenderFailureStrategy.Builder()
+            .initialBackoff(1000)
+            .maxBackoff(8000),
+        time, new NoJitter());
+  }
+
+  @Test
+  public void shouldSuspendForTheRetryAfterSeconds() {
+    Response response = error(429).header("Retry-After", "30").build();
+
+    assertThat(sut.getAction(payload, apiError(response)), is(PayloadAction.CAN_BE_RETRIED));
+
+    time.advance(29000);
+    assertThat(sut.isSendingSuspended(), is(true));
+    time.advance(1000);
+    assertThat(sut.isSendingSuspended(), is(false));
+  }
+
+  @Test
+  public void shouldSuspendUntilTheRetryAfterDate() {
+    Response response = error(429).header("Retry-After", "Fri, 01 Jan 2021 00:01:00 GMT").build();
+
+    sut.getAction(payload, apiError(response));
+
+    time.advance(59000);
+    assertThat(sut.isSendingSuspended(), is(true));
+    time.advance(1000);
+    assertThat(sut.isSendingSuspended(), is(false));
+  }
+
+  @Test
+  public void shouldSuspendUntilTheRateLimitResets() {
+    Response response = error(429)
+        .header("X-Rate-Limit-Reset", String.valueOf(NOW_MILLIS / 1000 + 45))
+        .build();
+
+    sut.getAction(payload, apiError(response));
+
+    time.advance(44000);
+    assertThat(sut.isSendingSuspended(), is(true));
+    time.advance(1000);
+    assertThat(sut.isSendingSuspended(), is(false));
+  }
+
+  @Test
+  public void shouldSuspendOnceTheRateLimitIsExhausted() {
+    Response response = new Response.Builder()
+        .status(200)
+        .result(new Result.Builder().code(0).body("uuid").build())
+        .header("X-Rate-Limit-Remaining", "0")
+        .header("X-Rate-Limit-Remaining-Seconds", "10")
+        .build();
+
+    assertThat(sut.getAction(payload, response), is(PayloadAction.NONE));
+
+    assertThat(sut.isSendingSuspended(), is(true));
+    time.advance(10000);
+    assertThat(sut.isSendingSuspended(), is(false));
+  }
+
+  @Test
+  public void shouldBackOffExponentiallyOnServerErrorsUntilASuccess() {
+    Response serverError = error(503).build();
+
+    // Half of each backoff is jitter, none with this random.
+    sut.getAction(payload, apiError(serverError));
+    assertSuspendedFor(500);
+    sut.getAction(payload, apiError(serverError));
+    assertSuspendedFor(1000);
+    sut.getAction(payload, apiError(serverError));
+    assertSuspendedFor(2000);
+    for (int i = 0; i < 10; i++) {
+      sut.getAction(payload, apiError(serverError));
+    }
+    assertSuspendedFor(4000);
+
+    sut.getAction(payload, new Response.Builder()
+        .status(200)
+        .result(new Result.Builder().code(0).body("uuid").build())
+        .build());
+    sut.getAction(payload, apiError(serverError));
+    assertSuspendedFor(500);
+  }
+
+  @Test
+  public void shouldCountTheFailuresOfTheRequestsInFlightTogetherOnce() throws Exception {
+    Response serverError = error(503).build();
+    int inFlight = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[inFlight];
+    for (int i = 0; i < inFlight; i++) {
+      threads[i] = new Thread(() -> {
+        try {
+          start.await();
+          sut.getAction(payload, apiError(serverError));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      threads[i].start();
+    }
+
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertSuspendedFor(500);
+    sut.getAction(payload, apiError(serverError));
+    assertSuspendedFor(1000);
+  }
+
+  @Test
+  public void shouldRetryTheNetworkErrors() {
+    PayloadAction action =
+        sut.getAction(payload, new SenderException(new ConnectException("refused")));
+
+    assertThat(action, is(PayloadAction.CAN_BE_RETRIED));
+    assertThat(sut.isSendingSuspended(), is(true));
+  }
+
+  @Test
+  public void shouldNotRetryTheOtherClientErrors() {
+    assertThat(sut.getAction(payload, apiError(error(400).build())), is(PayloadAction.NONE));
+    assertThat(sut.getAction(payload, new SenderException(new IllegalStateException())),
+        is(PayloadAction.NONE));
+    assertThat(sut.isSendingSuspended(), is(false));
+  }
+
+  @Test
+  public void shouldDelayTheRetriesAtLeastUntilSendingResumes() {
+    sut.getAction(payload, apiError(error(429).header("Retry-After", "30").build()));
+    payload.incrementSendAttemptCount();
+
+    assertThat(sut.getRetryDelay(payload), is(30000L));
+
+    time.advance(30000);
+    for (int i = 0; i < 3; i++) {
+      payload.incrementSendAttemptCount();
+    }
+    assertThat(sut.getRetryDelay(payload), is(4000L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptAMaxBackoffLowerThanTheInitialOne() {
+    new RateLimitAwareSenderFailureStrategy.Builder()
+        .initialBackoff(1000)
+        .maxBackoff(10)
+        .build();
+  }
+
+  private void assertSuspendedFor(long millis) {
+    time.advance(millis - 1);
+    assertThat(sut.isSendingSuspended(), is(true));
+    time.advance(1);
+    assertThat(sut.isSendingSuspended(), is(false));
+    assertThat(sut.getRetryDelay(payload), greaterThanOrEqualTo(0L));
+  }
+
+  private static Response.Builder error(int status) {
+    return new Response.Builder()
+        .status(status)
+        .result(new Result.Builder().code(1).body("error").build());
+  }
+
+  private static Exception apiError(Response response) {
+    return new SenderException(new ApiException(response));
+  }
+
+  private static final class FakeTimeProvider
+      implements RateLimitAwareSenderFailureStrategy.TimeProvider {
+
+    private long elapsedMillis;
+
+    void advance(long millis) {
+      elapsedMillis += millis;
+    }
+
+    @Override
+    public long nanoTime() {
+      return TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return NOW_MILLIS + elapsedMillis;
+    }
+  }
+
+  private static final class NoJitter extends Random {
+    @Override
+    public double nextDouble() {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.rollbar.notifier.sender;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.Test;
+
+public class RequestBodyTest {
+
+  @Test
+  public void shouldNotCompressTheBodyWithinTheThreshold() throws Exception {
+    byte[] json = json(10);
+
+    RequestBody body = RequestBody.acquire(json.length);
+    try {
+      body.write(json, 0, json.length);
+      body.finish();
+
+      assertThat(body.isCompressed(), is(false));
+      assertThat(body.size(), is(json.length));
+      assertThat(body.toByteArray(), is(json));
+    } finally {
+      body.release();
+    }
+  }
+
+  @Test
+  public void shouldCompressTheBodyPastTheThreshold() throws Exception {
+    byte[] json = json(100000);
+
+    RequestBody body = RequestBody.acquire(1024);
+    try {
+      for (int offset = 0; offset < json.length; offset += 8192) {
+        body.write(json, offset, Math.min(8192, json.length - offset));
+      }
+      body.finish();
+
+      assertThat(body.isCompressed(), is(true));
+      assertThat(body.size(), lessThan(json.length));
+      assertThat(gunzip(body.toByteArray()), is(json));
+    } finally {
+      body.release();
+    }
+  }
+
+  @Test
+  public void shouldNeverCompressTheBodyWithoutThreshold() throws Exception {
+    byte[] json = json(100000);
+
+    RequestBody body = RequestBody.acquire(RequestBody.NEVER_COMPRESS);
+    try {
+      body.write(json, 0, json.length);
+      body.finish();
+
+      assertThat(body.isCompressed(), is(false));
+      assertThat(body.toByteArray(), is(json));
+    } finally {
+      body.release();
+    }
+  }
+
+  @Test
+  public void shouldReuseTheBodyOfTheThread() throws Exception {
+    byte[] json = json(1000);
+
+    RequestBody first = RequestBody.acquire(1024);
+    first.write(json, 0, json.length);
+    first.finish();
+    first.release();
+
+    RequestBody second = RequestBody.acquire(1024);
+    try {
+      assertThat(second == first, is(true));
+      second.write(json, 0, json.length);
+      second.finish();
+
+      assertThat(gunzip(second.toByteArray()), is(json));
+    } finally {
+      second.release();
+    }
+  }
+
+  private static byte[] json(int frames) throws IOException {
+    StringBuilder builder = new StringBuilder("{\"frames\":[");
+    for (int i = 0; i < frames; i++) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append("{\"method\":\"method").append(i % 100).append("\"}");
+    }
+    return builder.append("]}").toString().getBytes("UTF-8");
+  }
+
+  private static byte[] gunzip(byte[] bytes) throws IOException {
+    InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
@@ -3,9 +3,13 @@ package com.rollbar.notifier.sender;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -17,19 +21,28 @@ import com.rollbar.notifier.sender.listener.SenderListener;
 import com.rollbar.notifier.sender.result.Response;
 import com.rollbar.notifier.sender.result.Result;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
 
 public class SyncSenderTest {
 
@@ -71,7 +84,7 @@ public class SyncSenderTest {
     when(url.openConnection(eq(Proxy.NO_PROXY))).thenReturn(connection);
     when(connection.getOutputStream()).thenReturn(out);
 
-    when(serializer.toJson(payload)).thenReturn(PAYLOAD_JSON);
+    when(serializer.writeJson(eq(payload), any(OutputStream.class))).thenAnswer(writeJson());
 
     sut = new SyncSender.Builder()
         .url(url)
@@ -96,6 +109,7 @@ public class SyncSenderTest {
     Response expectedResponse = new Response.Builder()
         .status(responseCode)
         .result(result)
+        .bodySize(PAYLOAD_JSON.getBytes(UTF_8).length)
         .build();
 
     verifyHttp();
@@ -103,6 +117,72 @@ public class SyncSenderTest {
     verify(listener).onResponse(payload, expectedResponse);
   }
 
+  @Test
+  public void shouldStreamTheSerializedPayload() throws Exception {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    when(connection.getOutputStream()).thenReturn(body);
+    when(connection.getResponseCode()).thenReturn(200);
+    when(connection.getInputStream())
+        .thenReturn(new ByteArrayInputStream("simulated_response_json".getBytes(UTF_8)));
+
+    sut.send(payload);
+
+    byte[] bytes = PAYLOAD_JSON.getBytes(UTF_8);
+    verify(connection).setFixedLengthStreamingMode(bytes.length);
+    assertThat(body.toByteArray(), is(bytes));
+  }
+
+  @Test
+  public void shouldCompressThePayloadLargerThanTheThreshold() throws Exception {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    when(connection.getOutputStream()).thenReturn(body);
+    when(connection.getResponseCode()).thenReturn(200);
+    when(connection.getInputStream())
+        .thenReturn(new ByteArrayInputStream("simulated_response_json".getBytes(UTF_8)));
+
+    sut = new SyncSender.Builder()
+        .url(url)
+        .jsonSerializer(serializer)
+        .compress(true)
+        .compressionThreshold(PAYLOAD_JSON.length() - 1)
+        .build();
+    sut.addListener(listener);
+    when(serializer.resultFrom("simulated_response_json")).thenReturn(result);
+    sut.send(payload);
+
+    verify(connection).setRequestProperty("Content-Encoding", "gzip");
+    verify(connection).setFixedLengthStreamingMode(body.size());
+    ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+    verify(listener).onResponse(eq(payload), response.capture());
+    assertThat(response.getValue().getBodySize(), is((long) body.size()));
+    GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()));
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+      json.write(buffer, 0, n);
+    }
+    assertThat(json.toString(UTF_8), is(PAYLOAD_JSON));
+  }
+
+  @Test
+  public void shouldNotCompressThePayloadWithinTheThreshold() throws Exception {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    when(connection.getOutputStream()).thenReturn(body);
+    when(connection.getResponseCode()).thenReturn(200);
+    when(connection.getInputStream())
+        .thenReturn(new ByteArrayInputStream("simulated_response_json".getBytes(UTF_8)));
+
+    sut = new SyncSender.Builder()
+        .url(url)
+        .jsonSerializer(serializer)
+        .compress(true)
+        .build();
+    sut.send(payload);
+
+    verify(connection, never()).setRequestProperty(eq("Content-Encoding"), anyString());
+    assertThat(body.toString(UTF_8), is(PAYLOAD_JSON));
+  }
+
   @Test
   public void shouldSendThePayloadWithResponseError() throws Exception {
     int responseCode = 400;
@@ -115,6 +195,7 @@ public class SyncSenderTest {
     Response response = new Response.Builder()
         .status(responseCode)
         .result(result)
+        .bodySize(PAYLOAD_JSON.getBytes(UTF_8).length)
         .build();
 
     ApiException sourceError = new ApiException(response);
@@ -136,13 +217,38 @@ public class SyncSenderTest {
     assertThat(argument.getValue().getCause(), is(sourceError));
   }
 
+  @Test
+  public void shouldReadTheResponseHeaders() throws Exception {
+    String responseJson = "simulated_response_json";
+    Result result = new Result.Builder().code(1).body("rate limited").build();
+    Map<String, List<String>> headers = new HashMap<>();
+    headers.put(null, Collections.singletonList("HTTP/1.1 429 Too Many Requests"));
+    headers.put("Retry-After", Collections.singletonList("30"));
+    headers.put("X-Rate-Limit-Remaining", Arrays.asList("0"));
+
+    when(connection.getResponseCode()).thenReturn(429);
+    when(connection.getHeaderFields()).thenReturn(headers);
+    when(connection.getErrorStream())
+        .thenReturn(new ByteArrayInputStream(responseJson.getBytes(UTF_8)));
+    when(serializer.resultFrom(responseJson)).thenReturn(result);
+
+    sut.send(payload);
+
+    ArgumentCaptor<SenderException> argument = ArgumentCaptor.forClass(SenderException.class);
+    verify(listener).onError(eq(payload), argument.capture());
+
+    Response response = ((ApiException) argument.getValue().getCause()).getResponse();
+    assertThat(response.getStatus(), is(429));
+    assertThat(response.getHeader("retry-after"), is("30"));
+    assertThat(response.getHeader("X-RATE-LIMIT-REMAINING"), is("0"));
+    assertThat(response.getHeaders().size(), is(2));
+  }
+
   @Test
   public void shouldNotifyErrorDuringSend() throws Exception {
     IOException sourceError = new IOException("Error opening the connection.");
 
-    byte[] bytes = PAYLOAD_JSON.getBytes(UTF_8);
-
-    doThrow(sourceError).when(out).write(bytes, 0, bytes.length);
+    doThrow(sourceError).when(out).write(any(byte[].class), anyInt(), anyInt());
 
     sut.send(payload);
 
@@ -168,8 +274,6 @@ public class SyncSenderTest {
     when(url.openConnection(eq(proxy))).thenReturn(connection);
     when(connection.getOutputStream()).thenReturn(out);
 
-    when(serializer.toJson(payload)).thenReturn(PAYLOAD_JSON);
-
     sut = new SyncSender.Builder()
         .url(url)
         .jsonSerializer(serializer)
@@ -191,6 +295,7 @@ public class SyncSenderTest {
     Response expectedResponse = new Response.Builder()
         .status(responseCode)
         .result(result)
+        .bodySize(PAYLOAD_JSON.getBytes(UTF_8).length)
         .build();
 
     verifyHttp();
@@ -198,6 +303,17 @@ public class SyncSenderTest {
     verify(listener).onResponse(payload, expectedResponse);
   }
 
+  private static Answer<Long> writeJson() {
+    return new Answer<Long>() {
+      @Override
+      public Long answer(InvocationOnMock invocation) throws Throwable {
+        byte[] bytes = PAYLOAD_JSON.getBytes(UTF_8);
+        invocation.getArgument(1, OutputStream.class).write(bytes, 0, bytes.length);
+        return (long) bytes.length;
+      }
+    };
+  }
+
   private void verifyHttp() throws Exception {
     verify(connection).setRequestProperty("Accept-Charset", UTF_8);
     verify(connection).setRequestProperty("Content-Type", "application/json; charset=" + UTF_8);
@@ -7,12 +7,23 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.core.Is.is;
 
+import com.rollbar.api.json.JsonSerializable;
 import com.rollbar.api.payload.Payload;
 import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Server;
+import com.rollbar.api.payload.data.Source;
+import com.rollbar.api.payload.data.TelemetryEvent;
+import com.rollbar.api.payload.data.TelemetryType;
 import com.rollbar.notifier.sender.result.Result;
+import com.rollbar.notifier.truncation.TestPayloadBuilder;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class JsonSerializerImplTest {
@@ -137,6 +148,93 @@ public class JsonSerializerImplTest {
     assertThat(result, equalTo("Object(\"quoted\")"));
   }
 
+  @Test
+  public void shouldWriteTheJsonEncodedAsUtf8() throws Exception {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      // ASCII, two, three and four bytes characters, escapes and an unpaired surrogate.
+      text.append("a\u00e9\u20ac\ud83d\ude00\"\n\u2028\ud800");
+    }
+    Payload payload = payloadWithCustom("text", text.toString());
+
+    JsonSerializerImpl sut = new JsonSerializerImpl();
+
+    byte[] expected = sut.toJson(payload).getBytes("UTF-8");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long written = sut.writeJson(payload, out);
+
+    assertThat(written, is((long) expected.length));
+    assertThat(out.toByteArray(), is(expected));
+
+    // The scratch buffer is reused by the next serialization of the thread.
+    out.reset();
+    assertThat(sut.writeJson(payload, out), is((long) expected.length));
+    assertThat(out.toByteArray(), is(expected));
+  }
+
+  @Test
+  public void shouldWriteThePreSerializedJson() throws Exception {
+    String json = "{\"foo\":\"b\u00e4r\"}";
+
+    JsonSerializerImpl sut = new JsonSerializerImpl();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sut.writeJson(new Payload(json), out);
+
+    assertThat(out.toByteArray(), is(json.getBytes("UTF-8")));
+  }
+
+  @Test
+  public void shouldWriteTheSameJsonAsTheMapRepresentation() {
+    Map<String, Object> metadata = new HashMap<>();
+    metadata.put("host", "overridden");
+    metadata.put("region", "eu");
+    Map<String, String> event = new HashMap<>();
+    event.put("message", "telemetry");
+    List<TelemetryEvent> events = new ArrayList<>();
+    events.add(new TelemetryEvent(TelemetryType.LOG, Level.INFO, 1L, Source.SERVER, event));
+    Payload base = new TestPayloadBuilder().createTestPayloadSingleTraceWithTelemetryEvents(20,
+        events);
+    Payload payload = new Payload.Builder(base)
+        .data(new Data.Builder(base.getData())
+            .server(new Server.Builder().host("host").metadata(metadata).build())
+            .build())
+        .build();
+
+    for (boolean prettyPrint : new boolean[] {false, true}) {
+      JsonSerializerImpl sut = new JsonSerializerImpl(prettyPrint);
+
+      String written = sut.toJson(payload);
+      String fromMaps = sut.toJson(asMaps(payload.asJson()));
+
+      assertThat(written.length(), is(fromMaps.length()));
+      assertThat(fromString(written), is(fromString(fromMaps)));
+    }
+  }
+
+  // The map representation the serializer used to build before the payloads wrote themselves.
+  @SuppressWarnings("unchecked")
+  private static <T> T asMaps(Object value) {
+    if (value instanceof JsonSerializable) {
+      return asMaps(((JsonSerializable) value).asJson());
+    }
+    if (value instanceof Map) {
+      Map<String, Object> map = new HashMap<>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        map.put(entry.getKey().toString(), asMaps(entry.getValue()));
+      }
+      return (T) map;
+    }
+    if (value instanceof Collection) {
+      List<Object> list = new ArrayList<>();
+      for (Object element : (Collection<?>) value) {
+        list.add(asMaps(element));
+      }
+      return (T) list;
+    }
+    return (T) value;
+  }
+
   private Payload payloadWithCustom(String key, Object value) {
     Map<String, Object> custom = new HashMap<>();
     custom.put(key, value);
@@ -69,6 +69,33 @@ public class DiskQueueTest {
     assertThat(it.next(), anyOf(equalTo(payload1), equalTo(payload2)));
   }
 
+  @Test
+  public void shouldRemoveThePayloadsFromTheIterator() {
+    sut.add(new Payload.Builder().build());
+    sut.add(new Payload.Builder().build());
+
+    Iterator<Payload> it = sut.iterator();
+    it.next();
+    it.remove();
+
+    assertThat(sut.size(), is(1));
+
+    // The files are listed once, the payloads added after are not iterated.
+    sut.add(new Payload.Builder().build());
+    it.next();
+    it.remove();
+
+    assertThat(it.hasNext(), is(false));
+    assertThat(sut.size(), is(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotRemoveFromTheIteratorBeforeNext() {
+    sut.add(new Payload.Builder().build());
+
+    sut.iterator().remove();
+  }
+
   @Test
   public void shouldOfferEnqueueIfNotFull() {
     Payload payload = new Payload.Builder().build();
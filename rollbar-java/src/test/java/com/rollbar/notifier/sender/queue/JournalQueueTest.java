@@ -0,0 +1,261 @@
+package com.rollbar.notifier.sender.queue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
+import com.rollbar.notifier.sender.queue.JournalQueue.SyncPolicy;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JournalQueueTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final JsonSerializer serializer = new JsonSerializerImpl();
+
+  private File queueFolder;
+
+  @Before
+  public void setUp() throws Exception {
+    queueFolder = folder.newFolder();
+  }
+
+  @Test
+  public void shouldTakeThePayloadsInOrder() {
+    JournalQueue sut = open(JournalQueue.DEFAULT_SEGMENT_SIZE);
+    Payload payload1 = payload();
+    Payload payload2 = payload();
+
+    sut.add(payload1);
+    sut.add(payload2);
+
+    assertThat(sut.size(), is(2));
+    assertThat(sut.peek().json, is(serializer.toJson(payload1)));
+    assertThat(sut.poll().json, is(serializer.toJson(payload1)));
+    assertThat(sut.poll().json, is(serializer.toJson(payload2)));
+    assertThat(sut.poll(), nullValue());
+    assertThat(sut.isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldTakeThePeekedPayloadWithoutReadingItAgain() {
+    JournalQueue sut = open(JournalQueue.DEFAULT_SEGMENT_SIZE);
+    List<Payload> payloads = payloads(2);
+    sut.addAll(payloads);
+
+    Payload peeked = sut.peek();
+
+    assertThat(sut.peek(), is(sameInstance(peeked)));
+    assertThat(sut.poll(), is(sameInstance(peeked)));
+    assertThat(sut.peek().json, is(serializer.toJson(payloads.get(1))));
+    assertThat(sut.poll().json, is(serializer.toJson(payloads.get(1))));
+    assertThat(sut.peek(), nullValue());
+    sut.add(payloads.get(0));
+    assertThat(sut.poll().json, is(serializer.toJson(payloads.get(0))));
+  }
+
+  @Test
+  public void shouldKeepThePayloadsLeftWhenOpenedAgain() {
+    JournalQueue sut = new JournalQueue.Builder()
+        .queueFolder(queueFolder)
+        .syncPolicy(SyncPolicy.ALWAYS)
+        .build();
+    List<Payload> payloads = payloads(3);
+    sut.addAll(payloads);
+    sut.poll();
+    sut.close();
+
+    JournalQueue reopened = open(JournalQueue.DEFAULT_SEGMENT_SIZE);
+
+    assertThat(reopened.size(), is(2));
+    assertThat(takeAll(reopened), is(json(payloads.subList(1, 3))));
+  }
+
+  @Test
+  public void shouldKeepTheSendAttempts() {
+    JournalQueue sut = open(JournalQueue.DEFAULT_SEGMENT_SIZE);
+    Payload payload = payload();
+    payload.incrementSendAttemptCount();
+    payload.incrementSendAttemptCount();
+
+    sut.add(payload);
+
+    assertThat(sut.poll().getSendAttemptCount(), is(2));
+  }
+
+  @Test
+  public void shouldDeleteTheSegmentsOnceTaken() {
+    JournalQueue sut = open(512);
+    List<Payload> payloads = payloads(20);
+
+    sut.addAll(payloads);
+
+    assertThat(segments().length > 1, is(true));
+    assertThat(takeAll(sut), is(json(payloads)));
+    assertThat(segments().length, is(1));
+  }
+
+  @Test
+  public void shouldDiscardTheRecordTornByACrash() throws Exception {
+    JournalQueue sut = open(JournalQueue.DEFAULT_SEGMENT_SIZE);
+    List<Payload> payloads = payloads(2);
+    sut.addAll(payloads);
+    sut.close();
+    File segment = segments()[0];
+    corrupt(segment, recordOffset(segment, 1) + 20);
+
+    JournalQueue reopened = open(JournalQueue.DEFAULT_SEGMENT_SIZE);
+    Payload payload3 = payload();
+    reopened.add(payload3);
+
+    assertThat(reopened.size(), is(2));
+    assertThat(takeAll(reopened), is(json(Arrays.asList(payloads.get(0), payload3))));
+  }
+
+  @Test
+  public void shouldSkipTheCorruptedRecordsOfASegment() throws Exception {
+    JournalQueue sut = open(512);
+    List<Payload> payloads = payloads(20);
+    sut.addAll(payloads);
+    sut.close();
+    File[] segments = segments();
+    int perSegment = recordsIn(segments[0]);
+    corrupt(segments[0], recordOffset(segments[0], 1) + 20);
+
+    JournalQueue reopened = open(512);
+    List<Payload> expected = new ArrayList<>();
+    expected.add(payloads.get(0));
+    expected.addAll(payloads.subList(perSegment, payloads.size()));
+
+    assertThat(takeAll(reopened), is(json(expected)));
+    assertThat(reopened.isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldNotOfferWhenFull() {
+    JournalQueue sut = new JournalQueue.Builder()
+        .queueFolder(queueFolder)
+        .maxSize(1)
+        .build();
+
+    assertThat(sut.offer(payload()), is(true));
+    assertThat(sut.offer(payload()), is(false));
+    assertThat(sut.size(), is(1));
+  }
+
+  @Test
+  public void shouldIterateOverThePayloadsLeft() {
+    JournalQueue sut = open(512);
+    List<Payload> payloads = payloads(10);
+    sut.addAll(payloads);
+    sut.poll();
+
+    List<String> iterated = new ArrayList<>();
+    for (Iterator<Payload> it = sut.iterator(); it.hasNext(); ) {
+      iterated.add(it.next().json);
+    }
+
+    assertThat(iterated, is(json(payloads.subList(1, 10))));
+    assertThat(sut.size(), is(9));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptASegmentSmallerThanARecordHeader() {
+    new JournalQueue.Builder().queueFolder(queueFolder).segmentSize(4).build();
+  }
+
+  private JournalQueue open(int segmentSize) {
+    return new JournalQueue.Builder()
+        .queueFolder(queueFolder)
+        .segmentSize(segmentSize)
+        .build();
+  }
+
+  private File[] segments() {
+    File[] segments = queueFolder.listFiles((dir, name) -> name.endsWith(".segment"));
+    Arrays.sort(segments);
+    return segments;
+  }
+
+  private static int recordOffset(File segment, int record) throws Exception {
+    try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+      int offset = 0;
+      for (int i = 0; i < record; i++) {
+        file.seek(offset);
+        offset += 12 + file.readInt();
+      }
+      return offset;
+    }
+  }
+
+  private static int recordsIn(File segment) throws Exception {
+    try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+      int count = 0;
+      for (long offset = 0; offset + 12 <= file.length(); count++) {
+        file.seek(offset);
+        int length = file.readInt();
+        if (length == 0) {
+          break;
+        }
+        offset += 12 + length;
+      }
+      return count;
+    }
+  }
+
+  private static void corrupt(File segment, long offset) throws Exception {
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      file.seek(offset);
+      int value = file.read();
+      file.seek(offset);
+      file.write(value ^ 0xff);
+    }
+  }
+
+  private List<String> json(List<Payload> payloads) {
+    List<String> json = new ArrayList<>();
+    for (Payload payload : payloads) {
+      json.add(serializer.toJson(payload));
+    }
+    return json;
+  }
+
+  private static List<String> takeAll(JournalQueue queue) {
+    List<String> json = new ArrayList<>();
+    for (Payload payload = queue.poll(); payload != null; payload = queue.poll()) {
+      json.add(payload.json);
+    }
+    return json;
+  }
+
+  private static List<Payload> payloads(int count) {
+    List<Payload> payloads = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      payloads.add(payload());
+    }
+    return payloads;
+  }
+
+  private static Payload payload() {
+    return new Payload.Builder()
+        .data(new Data.Builder().uuid(UUID.randomUUID().toString()).level(Level.ERROR).build())
+        .build();
+  }
+}
@@ -0,0 +1,124 @@
+package com.rollbar.notifier.sender.queue;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Test;
+
+public class PriorityLaneQueueTest {
+
+  @Test
+  public void shouldTakeTheHigherLevelsFirst() {
+    PriorityLaneQueue sut = new PriorityLaneQueue.Builder().build();
+    Payload warning = payload(Level.WARNING, false);
+    Payload debug = payload(Level.DEBUG, false);
+    Payload critical = payload(Level.CRITICAL, false);
+    Payload error = payload(Level.ERROR, false);
+    sut.addAll(asList(warning, debug, critical, error));
+
+    assertThat(sut.peek(), is(critical));
+    assertThat(takeAll(sut), contains(critical, error, warning, debug));
+    assertThat(sut.poll(), nullValue());
+  }
+
+  @Test
+  public void shouldTakeTheUncaughtPayloadsWithTheCriticalOnes() {
+    PriorityLaneQueue sut = new PriorityLaneQueue.Builder().build();
+    Payload error = payload(Level.ERROR, false);
+    Payload uncaught = payload(Level.WARNING, true);
+    sut.addAll(asList(error, uncaught));
+
+    assertThat(sut.getDepth(Level.CRITICAL), is(1));
+    assertThat(takeAll(sut), contains(uncaught, error));
+  }
+
+  @Test
+  public void shouldServeAWaitingLaneOnceTheStarvationThresholdIsReached() {
+    PriorityLaneQueue sut = new PriorityLaneQueue.Builder().starvationThreshold(2).build();
+    List<Payload> errors = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      errors.add(payload(Level.ERROR, false));
+    }
+    Payload info = payload(Level.INFO, false);
+    sut.add(info);
+    sut.addAll(errors);
+
+    assertThat(takeAll(sut), contains(errors.get(0), errors.get(1), info, errors.get(2),
+        errors.get(3), errors.get(4)));
+  }
+
+  @Test
+  public void shouldExposeTheDepthOfEachLane() {
+    PriorityLaneQueue sut = new PriorityLaneQueue.Builder().build();
+    sut.addAll(asList(payload(Level.ERROR, false), payload(Level.ERROR, false),
+        payload(Level.DEBUG, false)));
+
+    Map<Level, Integer> depths = sut.getDepths();
+
+    assertThat(depths.get(Level.CRITICAL), is(0));
+    assertThat(depths.get(Level.ERROR), is(2));
+    assertThat(depths.get(Level.DEBUG), is(1));
+    assertThat(sut.size(), is(3));
+  }
+
+  @Test
+  public void shouldDropWithinTheFullLaneOnly() {
+    PriorityLaneQueue sut = new PriorityLaneQueue.Builder()
+        .laneCapacity(2)
+        .overflowPolicy(RingBufferQueue.OverflowPolicy.DROP_OLDEST)
+        .build();
+    Payload warning1 = payload(Level.WARNING, false);
+    Payload warning2 = payload(Level.WARNING, false);
+    Payload warning3 = payload(Level.WARNING, false);
+    Payload critical = payload(Level.CRITICAL, false);
+    List<Payload> dropped = new ArrayList<>();
+    sut.setDropListener(dropped::add);
+
+    sut.addAll(asList(warning1, warning2, warning3, critical));
+
+    assertThat(dropped, contains(warning1));
+    assertThat(sut.getDroppedCount(Level.WARNING), is(1L));
+    assertThat(sut.getDroppedCount(), is(1L));
+    assertThat(sut, contains(critical, warning2, warning3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptDroppingTheLowestLevelOfALane() {
+    new PriorityLaneQueue.Builder()
+        .overflowPolicy(RingBufferQueue.OverflowPolicy.DROP_LOWEST_LEVEL)
+        .build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANonPositiveStarvationThreshold() {
+    new PriorityLaneQueue.Builder().starvationThreshold(0).build();
+  }
+
+  private static List<Payload> takeAll(PriorityLaneQueue queue) {
+    List<Payload> payloads = new ArrayList<>();
+    for (Payload payload = queue.poll(); payload != null; payload = queue.poll()) {
+      payloads.add(payload);
+    }
+    return payloads;
+  }
+
+  private static Payload payload(Level level, boolean uncaught) {
+    return new Payload.Builder()
+        .data(new Data.Builder()
+            .uuid(UUID.randomUUID().toString())
+            .level(level)
+            .isUncaught(uncaught)
+            .build())
+        .build();
+  }
+}
@@ -0,0 +1,225 @@
+package com.rollbar.notifier.sender.queue;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.notifier.sender.queue.RingBufferQueue.OverflowPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class RingBufferQueueTest {
+
+  @Test
+  public void shouldTakeThePayloadsInOrder() {
+    RingBufferQueue sut = new RingBufferQueue.Builder().capacity(4).build();
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.ERROR);
+
+    sut.add(payload1);
+    sut.add(payload2);
+
+    assertThat(sut.size(), is(2));
+    assertThat(sut.peek(), is(payload1));
+    assertThat(sut.poll(), is(payload1));
+    assertThat(sut.poll(), is(payload2));
+    assertThat(sut.poll(), nullValue());
+    assertThat(sut.isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldRoundTheCapacityUpToAPowerOfTwo() {
+    assertThat(new RingBufferQueue.Builder().capacity(1000).build().capacity(), is(1024));
+    assertThat(new RingBufferQueue.Builder().capacity(1).build().capacity(), is(2));
+  }
+
+  @Test
+  public void shouldDrainInBatches() {
+    RingBufferQueue sut = new RingBufferQueue.Builder().capacity(8).build();
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.ERROR);
+    Payload payload3 = payload(Level.ERROR);
+    sut.addAll(asList(payload1, payload2, payload3));
+
+    List<Payload> batch = new ArrayList<>();
+
+    assertThat(sut.drainTo(batch, 2), is(2));
+    assertThat(batch, contains(payload1, payload2));
+    assertThat(sut, contains(payload3));
+  }
+
+  @Test
+  public void shouldDropTheNewestPayloadWhenFull() {
+    RingBufferQueue sut = new RingBufferQueue.Builder()
+        .capacity(2)
+        .overflowPolicy(OverflowPolicy.DROP_NEWEST)
+        .build();
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.ERROR);
+    List<Payload> dropped = listenDrops(sut);
+
+    sut.offer(payload1);
+    sut.offer(payload2);
+
+    assertThat(sut.offer(payload(Level.CRITICAL)), is(false));
+    assertThat(sut, contains(payload1, payload2));
+    assertThat(sut.getDroppedCount(), is(1L));
+    // The payload not added is reported by the caller.
+    assertThat(dropped.isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldDropTheOldestPayloadWhenFull() {
+    RingBufferQueue sut = new RingBufferQueue.Builder()
+        .capacity(2)
+        .overflowPolicy(OverflowPolicy.DROP_OLDEST)
+        .build();
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.ERROR);
+    Payload payload3 = payload(Level.ERROR);
+    List<Payload> dropped = listenDrops(sut);
+
+    sut.offer(payload1);
+    sut.offer(payload2);
+
+    assertThat(sut.offer(payload3), is(true));
+    assertThat(sut, contains(payload2, payload3));
+    assertThat(sut.getDroppedCount(), is(1L));
+    assertThat(dropped, contains(payload1));
+  }
+
+  @Test
+  public void shouldDropTheOldestPayloadWithTheLowestLevelWhenFull() {
+    RingBufferQueue sut = new RingBufferQueue.Builder()
+        .capacity(4)
+        .overflowPolicy(OverflowPolicy.DROP_LOWEST_LEVEL)
+        .build();
+    Payload error = payload(Level.ERROR);
+    Payload info1 = payload(Level.INFO);
+    Payload warning = payload(Level.WARNING);
+    Payload info2 = payload(Level.INFO);
+    Payload critical = payload(Level.CRITICAL);
+    List<Payload> dropped = listenDrops(sut);
+    sut.addAll(asList(error, info1, warning, info2));
+
+    assertThat(sut.offer(critical), is(true));
+    assertThat(sut, contains(error, critical, warning, info2));
+    assertThat(dropped, contains(info1));
+
+    // No payload has a lower level than the one added.
+    assertThat(sut.offer(payload(Level.DEBUG)), is(false));
+    assertThat(sut.getDroppedCount(), is(2L));
+  }
+
+  @Test
+  public void shouldWaitForRoomUpToTheTimeout() throws Exception {
+    final RingBufferQueue sut = new RingBufferQueue.Builder()
+        .capacity(2)
+        .overflowPolicy(OverflowPolicy.BLOCK)
+        .blockTimeout(5, TimeUnit.SECONDS)
+        .build();
+    Payload payload1 = payload(Level.ERROR);
+    Payload payload2 = payload(Level.ERROR);
+    Payload payload3 = payload(Level.ERROR);
+    sut.offer(payload1);
+    sut.offer(payload2);
+
+    final CountDownLatch taken = new CountDownLatch(1);
+    Thread consumer = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        return;
+      }
+      sut.poll();
+      taken.countDown();
+    });
+    consumer.start();
+
+    assertThat(sut.offer(payload3), is(true));
+    assertThat(taken.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(sut, contains(payload2, payload3));
+
+    RingBufferQueue full = new RingBufferQueue.Builder()
+        .capacity(2)
+        .overflowPolicy(OverflowPolicy.BLOCK)
+        .blockTimeout(10, TimeUnit.MILLISECONDS)
+        .build();
+    full.offer(payload1);
+    full.offer(payload2);
+
+    assertThat(full.offer(payload3), is(false));
+    assertThat(full.getDroppedCount(), is(1L));
+  }
+
+  @Test
+  public void shouldNotLoseNorDuplicatePayloadsAddedConcurrently() throws Exception {
+    final RingBufferQueue sut = new RingBufferQueue.Builder().capacity(64).build();
+    final int producers = 4;
+    final int payloadsPerProducer = 10000;
+    // Each offer to the full queue counts as a drop.
+    final AtomicLong rejected = new AtomicLong();
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < producers; i++) {
+      Thread producer = new Thread(() -> {
+        for (int j = 0; j < payloadsPerProducer; j++) {
+          Payload payload = payload(Level.ERROR);
+          while (!sut.offer(payload)) {
+            rejected.incrementAndGet();
+            Thread.yield();
+          }
+        }
+      });
+      threads.add(producer);
+      producer.start();
+    }
+
+    Set<Payload> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (taken.size() < producers * payloadsPerProducer) {
+      assertThat(System.nanoTime(), lessThan(deadline));
+      Payload payload = sut.poll();
+      if (payload != null) {
+        assertThat(taken.add(payload), is(true));
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(sut.poll(), nullValue());
+    assertThat(sut.getDroppedCount(), is(rejected.get()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANonPositiveCapacity() {
+    new RingBufferQueue.Builder().capacity(0).build();
+  }
+
+  private static List<Payload> listenDrops(RingBufferQueue queue) {
+    List<Payload> dropped = new ArrayList<>();
+    queue.setDropListener(dropped::add);
+    return dropped;
+  }
+
+  private static Payload payload(Level level) {
+    return new Payload.Builder()
+        .data(new Data.Builder().uuid(UUID.randomUUID().toString()).level(level).build())
+        .build();
+  }
+}
@@ -0,0 +1,247 @@
+package com.rollbar.notifier.sender.queue;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.notifier.sender.SenderFailureStrategy;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
+import com.rollbar.notifier.sender.result.Response;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpilloverQueueTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final FakeDiskQueue disk = new FakeDiskQueue();
+
+  @Test
+  public void shouldKeepThePayloadsInMemoryUnderTheThreshold() {
+    SpilloverQueue sut = new SpilloverQueue.Builder().memoryThreshold(2).diskQueue(disk).build();
+    Payload payload1 = payload();
+    Payload payload2 = payload();
+
+    sut.addAll(asList(payload1, payload2));
+
+    assertThat(sut.poll(), is(payload1));
+    assertThat(sut.poll(), is(payload2));
+    assertThat(sut.poll(), nullValue());
+    assertThat(disk.operations, is(0));
+  }
+
+  @Test
+  public void shouldSpillTheOldestPayloadsPastTheThresholdAndTakeThemFirst() {
+    SpilloverQueue sut = new SpilloverQueue.Builder().memoryThreshold(2).diskQueue(disk).build();
+    List<Payload> payloads = payloads(5);
+
+    sut.addAll(payloads);
+
+    assertThat(sut.getMemoryDepth(), is(2));
+    assertThat(sut.getDiskDepth(), is(3));
+    assertThat(disk.payloads, contains(payloads.get(0), payloads.get(1), payloads.get(2)));
+    assertThat(takeAll(sut), is(payloads));
+  }
+
+  @Test
+  public void shouldSpillAllThePayloadsWhileSendingIsSuspended() {
+    FakeStrategy strategy = new FakeStrategy();
+    SpilloverQueue sut = new SpilloverQueue.Builder()
+        .memoryThreshold(10)
+        .diskQueue(disk)
+        .senderFailureStrategy(strategy)
+        .build();
+    List<Payload> payloads = payloads(4);
+    sut.addAll(payloads.subList(0, 2));
+
+    strategy.suspended = true;
+    sut.add(payloads.get(2));
+    strategy.suspended = false;
+    sut.add(payloads.get(3));
+
+    assertThat(sut.getDiskDepth(), is(3));
+    assertThat(sut.getMemoryDepth(), is(1));
+    assertThat(takeAll(sut), is(payloads));
+  }
+
+  @Test
+  public void shouldTakeThePayloadsLeftOnDiskFirst() {
+    Payload left = payload();
+    disk.add(left);
+    SpilloverQueue sut = new SpilloverQueue.Builder().diskQueue(disk).build();
+    Payload payload = payload();
+
+    sut.add(payload);
+
+    assertThat(sut.size(), is(2));
+    assertThat(sut.peek(), is(left));
+    assertThat(takeAll(sut), contains(left, payload));
+  }
+
+  @Test
+  public void shouldRejectThePayloadsWhenTheDiskIsFullAndTheMemoryToo() {
+    disk.capacity = 1;
+    SpilloverQueue sut = new SpilloverQueue.Builder().memoryThreshold(1).diskQueue(disk).build();
+
+    assertThat(sut.offer(payload()), is(true));
+    assertThat(sut.offer(payload()), is(true));
+    assertThat(sut.offer(payload()), is(false));
+    assertThat(sut.size(), is(2));
+  }
+
+  @Test
+  public void shouldNotHoldTheOtherThreadsWhileSpilling() throws Exception {
+    CountDownLatch spilling = new CountDownLatch(1);
+    CountDownLatch written = new CountDownLatch(1);
+    disk.whileOffering = () -> {
+      spilling.countDown();
+      try {
+        written.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    SpilloverQueue sut = new SpilloverQueue.Builder().memoryThreshold(1).diskQueue(disk).build();
+    Payload spilled = payload();
+    Payload payload = payload();
+    sut.add(spilled);
+    Thread producer = new Thread(() -> sut.add(payload));
+    producer.start();
+    spilling.await();
+
+    ExecutorService consumer = Executors.newSingleThreadExecutor();
+    Future<Payload> polled = consumer.submit(sut::poll);
+
+    assertThat(polled.get(5, TimeUnit.SECONDS), is(payload));
+    assertThat(sut.size(), is(1));
+    written.countDown();
+    producer.join();
+    consumer.shutdown();
+    assertThat(sut.poll(), is(spilled));
+  }
+
+  @Test
+  public void shouldSpillToAJournal() throws Exception {
+    JournalQueue journal = new JournalQueue.Builder().queueFolder(folder.newFolder()).build();
+    SpilloverQueue sut = new SpilloverQueue.Builder().memoryThreshold(1).diskQueue(journal).build();
+    Payload spilled = payload();
+    Payload payload = payload();
+
+    sut.addAll(asList(spilled, payload));
+
+    assertThat(journal.size(), is(1));
+    assertThat(sut.poll().json, is(new JsonSerializerImpl().toJson(spilled)));
+    assertThat(sut.poll(), is(payload));
+    sut.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptANonPositiveThreshold() {
+    new SpilloverQueue.Builder().memoryThreshold(0).diskQueue(disk).build();
+  }
+
+  private static List<Payload> takeAll(SpilloverQueue queue) {
+    List<Payload> payloads = new ArrayList<>();
+    for (Payload payload = queue.poll(); payload != null; payload = queue.poll()) {
+      payloads.add(payload);
+    }
+    return payloads;
+  }
+
+  private static List<Payload> payloads(int count) {
+    List<Payload> payloads = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      payloads.add(payload());
+    }
+    return payloads;
+  }
+
+  private static Payload payload() {
+    return new Payload.Builder()
+        .data(new Data.Builder().uuid(UUID.randomUUID().toString()).build())
+        .build();
+  }
+
+  private static final class FakeDiskQueue extends AbstractQueue<Payload> {
+
+    private final ArrayDeque<Payload> payloads = new ArrayDeque<>();
+
+    private int capacity = Integer.MAX_VALUE;
+
+    private int operations;
+
+    private volatile Runnable whileOffering;
+
+    @Override
+    public boolean offer(Payload payload) {
+      operations++;
+      if (whileOffering != null) {
+        whileOffering.run();
+      }
+      return payloads.size() < capacity && payloads.offer(payload);
+    }
+
+    @Override
+    public Payload poll() {
+      operations++;
+      return payloads.poll();
+    }
+
+    @Override
+    public Payload peek() {
+      operations++;
+      return payloads.peek();
+    }
+
+    @Override
+    public Iterator<Payload> iterator() {
+      return payloads.iterator();
+    }
+
+    @Override
+    public int size() {
+      return payloads.size();
+    }
+  }
+
+  private static final class FakeStrategy implements SenderFailureStrategy {
+
+    private boolean suspended;
+
+    @Override
+    public PayloadAction getAction(Payload payload, Response response) {
+      return PayloadAction.NONE;
+    }
+
+    @Override
+    public PayloadAction getAction(Payload payload, Exception error) {
+      return PayloadAction.NONE;
+    }
+
+    @Override
+    public boolean isSendingSuspended() {
+      return suspended;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -30,7 +30,7 @@ public class RollbarTelemetryEventTrackerTest {
   private final TimestampProvider fakeTimestampProvider = new TimestampProviderFake();
   private final TelemetryEventTracker telemetryEventTracker = newEventTracker(MAXIMUM_TELEMETRY_DATA);
   private static final int MINIMUM_CAPACITY_FOR_TELEMETRY_EVENTS = 0;
-  private static final int MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS = 100;
+  private static final int MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS = 1000;
 
   @Test
   public void shouldKeepAllTheEventsDuringSessionIfGetAllIsInvoked() {
@@ -90,11 +90,49 @@ public class RollbarTelemetryEventTrackerTest {
     assertThat(getTrackedEventAsJson(), is(expectedJson));
   }
 
+  @Test
+  public void shouldReturnTheEventsInTheOrderTheyWereRecorded() {
+    telemetryEventTracker.recordLogEventFor(LEVEL, SOURCE, "first");
+    telemetryEventTracker.recordNavigationEventFor(LEVEL, SOURCE, FROM, TO);
+    telemetryEventTracker.recordNetworkEventFor(LEVEL, SOURCE, METHOD, URL, STATUS_CODE);
+
+    List<TelemetryEvent> telemetryEvents = telemetryEventTracker.getAll();
+
+    assertThat(telemetryEvents.size(), is(MAXIMUM_TELEMETRY_DATA));
+    assertThat(telemetryEvents.get(0).asJson(), is(getExpectedJsonForANavigationTelemetryEvent()));
+    assertThat(telemetryEvents.get(1).asJson(), is(getExpectedJsonForANetworkTelemetryEvent()));
+  }
+
+  @Test
+  public void shouldKeepTheLatestEventsWhenRecordingConcurrently() throws Exception {
+    final TelemetryEventTracker telemetryEventTracker = newEventTracker(10);
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            telemetryEventTracker.recordLogEventFor(LEVEL, SOURCE, MESSAGE);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    List<TelemetryEvent> telemetryEvents = telemetryEventTracker.getAll();
+
+    assertThat(telemetryEvents.size(), is(10));
+    verifyContainsOnlyLogEvents(telemetryEvents);
+  }
+
   @Test
   public void shouldSetTheMaximumTelemetryDataLimitedToItsLowerLimit() {
     TelemetryEventTracker telemetryEventTracker = newEventTracker(MINIMUM_CAPACITY_FOR_TELEMETRY_EVENTS - 1);
 
-    List<TelemetryEvent> telemetryEvents = record101EventsAndDump(telemetryEventTracker);
+    List<TelemetryEvent> telemetryEvents = recordEventsAndDump(telemetryEventTracker);
 
     assertThat(telemetryEvents.size(), is(MINIMUM_CAPACITY_FOR_TELEMETRY_EVENTS));
   }
@@ -103,7 +141,7 @@ public class RollbarTelemetryEventTrackerTest {
   public void shouldSetTheMaximumTelemetryDataLimitedToItsUpperLimit() {
     TelemetryEventTracker telemetryEventTracker = newEventTracker(MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS + 1);
 
-    List<TelemetryEvent> telemetryEvents = record101EventsAndDump(telemetryEventTracker);
+    List<TelemetryEvent> telemetryEvents = recordEventsAndDump(telemetryEventTracker);
 
     assertThat(telemetryEvents.size(), is(MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS));
   }
@@ -113,7 +151,7 @@ public class RollbarTelemetryEventTrackerTest {
     int maximumTelemetryEvents = 20;
     TelemetryEventTracker telemetryEventTracker = newEventTracker(maximumTelemetryEvents);
 
-    List<TelemetryEvent> telemetryEvents = record101EventsAndDump(telemetryEventTracker);
+    List<TelemetryEvent> telemetryEvents = recordEventsAndDump(telemetryEventTracker);
 
     assertThat(telemetryEvents.size(), is(maximumTelemetryEvents));
   }
@@ -125,8 +163,8 @@ public class RollbarTelemetryEventTrackerTest {
     );
   }
 
-  private List<TelemetryEvent> record101EventsAndDump(TelemetryEventTracker telemetryEventTracker) {
-    for (int i = 0; i < 101; i++) {
+  private List<TelemetryEvent> recordEventsAndDump(TelemetryEventTracker telemetryEventTracker) {
+    for (int i = 0; i < MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS + 1; i++) {
       telemetryEventTracker.recordManualEventFor(LEVEL, SOURCE, MESSAGE);
     }
     return telemetryEventTracker.getAll();
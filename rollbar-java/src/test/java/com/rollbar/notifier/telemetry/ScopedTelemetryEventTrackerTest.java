@@ -0,0 +1,108 @@
+package com.rollbar.notifier.telemetry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Source;
+import com.rollbar.api.payload.data.TelemetryEvent;
+import com.rollbar.notifier.provider.timestamp.TimestampProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class ScopedTelemetryEventTrackerTest {
+
+  private static final Level LEVEL = Level.DEBUG;
+  private static final Source SOURCE = Source.SERVER;
+  private static final int MAXIMUM_EVENTS_PER_SCOPE = 2;
+  private static final int MAXIMUM_SCOPES = 1;
+
+  private TelemetryEventTracker global;
+  private ScopedTelemetryEventTracker sut;
+
+  @Before
+  public void setUp() {
+    global = new RollbarTelemetryEventTracker(new TimestampProvider(), 10);
+    sut = new ScopedTelemetryEventTracker(global, new TimestampProvider(),
+        MAXIMUM_EVENTS_PER_SCOPE, MAXIMUM_SCOPES);
+  }
+
+  @After
+  public void tearDown() {
+    TelemetryScope scope = TelemetryScope.current();
+    while (scope != null) {
+      scope.close();
+      scope = TelemetryScope.current();
+    }
+  }
+
+  @Test
+  public void shouldUseTheGlobalTrackerOutsideOfAnyScope() {
+    sut.recordLogEventFor(LEVEL, SOURCE, "global");
+
+    assertThat(sut.getAll().size(), is(1));
+    assertThat(global.getAll().size(), is(1));
+  }
+
+  @Test
+  public void shouldOnlyAttachTheEventsOfTheScope() {
+    sut.recordLogEventFor(LEVEL, SOURCE, "global");
+
+    TelemetryScope scope = TelemetryScope.open();
+    assertThat(sut.getAll().size(), is(0));
+
+    sut.recordLogEventFor(LEVEL, SOURCE, "first");
+    sut.recordLogEventFor(LEVEL, SOURCE, "second");
+    sut.recordLogEventFor(LEVEL, SOURCE, "third");
+
+    List<TelemetryEvent> events = sut.getAll();
+    assertThat(events.size(), is(MAXIMUM_EVENTS_PER_SCOPE));
+    assertThat(global.getAll().size(), is(1));
+
+    scope.close();
+
+    assertThat(TelemetryScope.current(), is(nullValue()));
+    assertThat(sut.getScopeCount(), is(0));
+    assertThat(sut.getAll().size(), is(1));
+  }
+
+  @Test
+  public void shouldRestoreTheParentScopeOnClose() {
+    TelemetryScope parent = TelemetryScope.open();
+    sut.recordLogEventFor(LEVEL, SOURCE, "parent");
+
+    TelemetryScope child = TelemetryScope.open();
+    assertThat(TelemetryScope.current(), is(child));
+    child.close();
+
+    assertThat(TelemetryScope.current(), is(parent));
+    assertThat(sut.getAll().size(), is(1));
+  }
+
+  @Test
+  public void shouldShareTheGlobalTrackerPastTheMaximumScopes() throws Exception {
+    TelemetryScope scope = TelemetryScope.open();
+    sut.recordLogEventFor(LEVEL, SOURCE, "scoped");
+
+    Thread other = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        TelemetryScope scope = TelemetryScope.open();
+        sut.recordLogEventFor(LEVEL, SOURCE, "overflow");
+        scope.close();
+      }
+    });
+    other.start();
+    other.join();
+
+    assertThat(global.getAll().size(), is(1));
+    assertThat(sut.getScopeCount(), is(1));
+    scope.close();
+    assertThat(sut.getScopeCount(), is(0));
+  }
+}
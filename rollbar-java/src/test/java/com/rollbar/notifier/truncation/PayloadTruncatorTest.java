@@ -1,12 +1,22 @@
 package com.rollbar.notifier.truncation;
 
 import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Source;
+import com.rollbar.api.payload.data.TelemetryEvent;
+import com.rollbar.api.payload.data.TelemetryType;
+import com.rollbar.api.payload.data.body.Frame;
+import com.rollbar.api.payload.data.body.Trace;
 import com.rollbar.notifier.sender.json.JsonSerializer;
 import com.rollbar.notifier.sender.json.JsonSerializerImpl;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.rollbar.notifier.truncation.TruncationMatchers.hasNoStringsLongerThan;
 import static org.hamcrest.Matchers.*;
@@ -120,4 +130,66 @@ public class PayloadTruncatorTest {
     assertThat(PayloadTruncator.sizeInBytes(updated), lessThanOrEqualTo(maxPayloadSizeBytes));
     assertThat(result, hasNoStringsLongerThan(256));
   }
+
+  @Test
+  public void theFinalSizeShouldMatchTheSizeOfTheTruncatedPayload() {
+    List<TelemetryEvent> events = new ArrayList<>();
+    for (int i = 0; i < 50; ++i) {
+      Map<String, String> body = new HashMap<>();
+      body.put("message", TestPayloadBuilder.makeString("\u00e9", 3000));
+      events.add(new TelemetryEvent(TelemetryType.LOG, Level.INFO, 1L, Source.SERVER, body));
+    }
+    Payload payload = builder.createTestPayloadSingleTraceWithTelemetryEvents(3000, events);
+
+    for (boolean prettyPrint : new boolean[] {false, true}) {
+      JsonSerializer jsonSerializer = new JsonSerializerImpl(prettyPrint);
+      for (int maxSize : new int[] {maxPayloadSizeBytes, 100 * 1024, 20 * 1024}) {
+        PayloadTruncator.PayloadTruncationResult result =
+            new PayloadTruncator(jsonSerializer).truncate(payload, maxSize);
+
+        String updated = jsonSerializer.toJson(result.getPayload());
+        assertThat(result.finalSize, equalTo(PayloadTruncator.sizeInBytes(updated)));
+      }
+    }
+  }
+
+  @Test
+  public void itShouldApplyTheStrategiesInThePolicyOrder() {
+    List<Frame> frames = new ArrayList<>();
+    for (Frame frame : builder.createFrames(100)) {
+      Map<String, Object> locals = new HashMap<>();
+      locals.put("buffer", TestPayloadBuilder.makeString("x", 2000));
+      frames.add(new Frame.Builder(frame).locals(locals).build());
+    }
+    Payload payload = builder.createTestPayloadSingleTrace(frames);
+    int maxSize = 100 * 1024;
+
+    TruncationPolicy policy = new TruncationPolicy.Builder()
+        .maxPayloadSize(maxSize)
+        .strategies(TruncationStrategies.locals(), TruncationStrategies.frames())
+        .build();
+    PayloadTruncator.PayloadTruncationResult result =
+        new PayloadTruncator(serializer, policy).truncate(payload);
+
+    Trace trace = (Trace) result.getPayload().getData().getBody().getContents();
+    assertThat(trace.getFrames().size(), equalTo(100));
+    assertThat(trace.getFrames().get(0).getLocals(), nullValue());
+    assertThat(result.finalSize, lessThanOrEqualTo(maxSize));
+  }
+
+  @Test
+  public void itShouldEnforceTheSectionBudgetsOfThePolicy() {
+    Payload payload = builder.createTestPayloadSingleTrace(100);
+
+    TruncationPolicy policy = new TruncationPolicy.Builder()
+        .sectionBudget(TruncationPolicy.Section.FRAMES, 4 * 1024)
+        .build();
+    PayloadTruncator.PayloadTruncationResult result =
+        new PayloadTruncator(serializer, policy).truncate(payload);
+
+    Trace trace = (Trace) result.getPayload().getData().getBody().getContents();
+    assertThat(trace.getFrames().size(), equalTo(20));
+    assertThat(result.finalSize,
+        equalTo(PayloadTruncator.sizeInBytes(serializer.toJson(result.getPayload()))));
+  }
 }
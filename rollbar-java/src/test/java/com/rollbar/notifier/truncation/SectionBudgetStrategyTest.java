@@ -0,0 +1,181 @@
+package com.rollbar.notifier.truncation;
+
+import com.rollbar.api.payload.Payload;
+import com.rollbar.api.payload.data.Data;
+import com.rollbar.api.payload.data.Level;
+import com.rollbar.api.payload.data.Request;
+import com.rollbar.api.payload.data.Source;
+import com.rollbar.api.payload.data.TelemetryEvent;
+import com.rollbar.api.payload.data.TelemetryType;
+import com.rollbar.api.payload.data.body.Frame;
+import com.rollbar.api.payload.data.body.Trace;
+import com.rollbar.notifier.sender.json.JsonSerializer;
+import com.rollbar.notifier.sender.json.JsonSerializerImpl;
+import com.rollbar.notifier.sender.result.Result;
+import com.rollbar.notifier.truncation.TruncationPolicy.Section;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class SectionBudgetStrategyTest {
+
+  private JsonSerializer serializer;
+  private TestPayloadBuilder payloadBuilder;
+
+  @Before
+  public void setUp() {
+    serializer = new JsonSerializerImpl();
+    payloadBuilder = new TestPayloadBuilder();
+  }
+
+  @Test
+  public void ifTheSectionIsWithinTheBudgetItShouldNotTruncate() {
+    Payload payload = payloadBuilder.createTestPayloadSingleTrace(100);
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.FRAMES, 1024 * 1024, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertFalse(result.wasTruncated);
+  }
+
+  @Test
+  public void ifTheFramesAreOverTheBudgetItShouldKeepTheFirstAndLastFrames() {
+    Payload payload = payloadBuilder.createTestPayloadSingleTrace(100);
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.FRAMES, 4 * 1024, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertTrue(result.wasTruncated);
+    Trace trace = (Trace) result.value.getData().getBody().getContents();
+    assertThat(trace.getFrames().size(), equalTo(20));
+  }
+
+  @Test
+  public void ifTheLocalsAreOverTheBudgetItShouldDropThem() {
+    List<Frame> frames = new ArrayList<>();
+    for (Frame frame : payloadBuilder.createFrames(5)) {
+      frames.add(new Frame.Builder(frame).locals(makeMap(100)).build());
+    }
+    Payload payload = payloadBuilder.createTestPayloadSingleTrace(frames);
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.LOCALS, 1024, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertTrue(result.wasTruncated);
+    Trace trace = (Trace) result.value.getData().getBody().getContents();
+    assertThat(trace.getFrames().size(), equalTo(5));
+    for (Frame frame : trace.getFrames()) {
+      assertNull(frame.getLocals());
+    }
+  }
+
+  @Test
+  public void ifTheTelemetryEventsAreOverTheBudgetItShouldKeepTheFirstThatFit() {
+    List<TelemetryEvent> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Map<String, String> body = new HashMap<>();
+      body.put("message", "Event " + i);
+      events.add(new TelemetryEvent(TelemetryType.LOG, Level.INFO, (long) i, Source.CLIENT, body));
+    }
+    Payload payload = payloadBuilder.createTestPayloadSingleTraceWithTelemetryEvents(1, events);
+    int budget = 2048;
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.TELEMETRY, budget, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertTrue(result.wasTruncated);
+    List<TelemetryEvent> kept = result.value.getData().getBody().getTelemetryEvents();
+    assertThat(kept.size(), allOf(greaterThan(0), lessThan(events.size())));
+    assertThat(kept, equalTo(events.subList(0, kept.size())));
+    assertThat(serializer.sizeInBytes(kept, 3), lessThanOrEqualTo((long) budget));
+  }
+
+  @Test
+  public void ifTheCustomDataIsOverTheBudgetItShouldTruncateItsStrings() {
+    Map<String, Object> custom = new HashMap<>();
+    custom.put("large", TestPayloadBuilder.makeString("a", 10000));
+    Payload payload = withData(payloadBuilder.createTestPayload(),
+        new Data.Builder(payloadBuilder.createTestPayload().getData()).custom(custom));
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.CUSTOM, 2048, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertTrue(result.wasTruncated);
+    assertThat((String) result.value.getData().getCustom().get("large"),
+        equalTo(TestPayloadBuilder.makeString("a", 1024)));
+  }
+
+  @Test
+  public void ifTheCustomDataDoesNotFitTheBudgetItShouldDropIt() {
+    Payload payload = new TestPayloadBuilder(-1, 1000).createTestPayload();
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.CUSTOM, 256, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertTrue(result.wasTruncated);
+    assertNull(result.value.getData().getCustom());
+  }
+
+  @Test
+  public void ifTheRequestIsOverTheBudgetItShouldDropTheHeadersFirst() {
+    Map<String, String> headers = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      headers.put("X-Header-" + i, "value" + i);
+    }
+    Request request = new Request.Builder()
+        .url("https://example.com/path")
+        .method("GET")
+        .headers(headers)
+        .build();
+    Payload payload = withData(payloadBuilder.createTestPayload(),
+        new Data.Builder(payloadBuilder.createTestPayload().getData()).request(request));
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.REQUEST, 1024, serializer);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertTrue(result.wasTruncated);
+    Request truncated = result.value.getData().getRequest();
+    assertNull(truncated.getHeaders());
+    assertThat(truncated.getUrl(), equalTo(request.getUrl()));
+  }
+
+  @Test
+  public void ifTheSerializerCanNotMeasureTheSectionItShouldNotTruncate() {
+    JsonSerializer custom = new JsonSerializer() {
+      @Override
+      public String toJson(Payload payload) {
+        return serializer.toJson(payload);
+      }
+
+      @Override
+      public Result resultFrom(String response) {
+        return serializer.resultFrom(response);
+      }
+    };
+    Payload payload = payloadBuilder.createTestPayloadSingleTrace(100);
+
+    SectionBudgetStrategy sut = new SectionBudgetStrategy(Section.FRAMES, 0, custom);
+    TruncationStrategy.TruncationResult<Payload> result = sut.truncate(payload);
+
+    assertFalse(result.wasTruncated);
+  }
+
+  private static Payload withData(Payload payload, Data.Builder data) {
+    return new Payload.Builder(payload).data(data.build()).build();
+  }
+
+  private static Map<String, Object> makeMap(int size) {
+    Map<String, Object> map = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put("local" + i, "value" + i);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,116 @@
+package com.rollbar.notifier.wrapper;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy.Mode;
+import java.util.Map;
+import org.junit.Test;
+
+public class ThreadStackTraceCaptureTest {
+
+  @Test
+  public void shouldCaptureAllOtherThreadsByDefault() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(ThreadCapturePolicy.defaultPolicy());
+
+    Map<Thread, StackTraceElement[]> result = sut.capture(Thread.currentThread(), false);
+
+    assertThat(result, is(notNullValue()));
+    assertThat(result.isEmpty(), is(false));
+    assertThat(result.containsKey(Thread.currentThread()), is(false));
+  }
+
+  @Test
+  public void shouldNotCaptureWhenOff() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder().mode(Mode.OFF).build());
+
+    assertThat(sut.capture(Thread.currentThread(), true), is(nullValue()));
+  }
+
+  @Test
+  public void shouldCaptureOnlyUncaughtErrors() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder().mode(Mode.UNCAUGHT_ONLY).build());
+
+    assertThat(sut.capture(Thread.currentThread(), false), is(nullValue()));
+    assertThat(sut.capture(Thread.currentThread(), true), is(notNullValue()));
+  }
+
+  @Test
+  public void shouldNotCaptureWhenSampleRateIsZero() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder().mode(Mode.SAMPLED).sampleRate(0).build());
+
+    assertThat(sut.capture(Thread.currentThread(), true), is(nullValue()));
+  }
+
+  @Test
+  public void shouldRateLimitCaptures() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder()
+            .mode(Mode.RATE_LIMITED)
+            .minCaptureInterval(60000)
+            .build());
+
+    assertThat(sut.capture(Thread.currentThread(), false), is(notNullValue()));
+    assertThat(sut.capture(Thread.currentThread(), false), is(nullValue()));
+  }
+
+  @Test
+  public void shouldLimitThreadsAndFrames() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder()
+            .maxThreads(1)
+            .maxFramesPerThread(2)
+            .build());
+
+    Map<Thread, StackTraceElement[]> result = sut.capture(Thread.currentThread(), false);
+
+    assertThat(result.size(), is(1));
+    for (StackTraceElement[] frames : result.values()) {
+      assertThat(frames.length, lessThanOrEqualTo(2));
+    }
+  }
+
+  @Test
+  public void shouldShareTheSnapshotWithinTheReuseWindow() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder().snapshotReuseWindow(60000).build());
+
+    Map<Thread, StackTraceElement[]> first = sut.capture(Thread.currentThread(), false);
+    Map<Thread, StackTraceElement[]> second = sut.capture(Thread.currentThread(), false);
+
+    assertThat(second, is(not(sameInstance(first))));
+    for (Map.Entry<Thread, StackTraceElement[]> entry : first.entrySet()) {
+      assertThat(second.get(entry.getKey()), is(sameInstance(entry.getValue())));
+    }
+  }
+
+  @Test
+  public void shouldCaptureThroughTheThreadMxBeanWithDepthLimit() {
+    ThreadStackTraceCapture sut = new ThreadStackTraceCapture(
+        new ThreadCapturePolicy.Builder()
+            .useThreadMxBean(true)
+            .maxFramesPerThread(1)
+            .build());
+
+    Map<Thread, StackTraceElement[]> result = sut.capture(Thread.currentThread(), false);
+
+    assertThat(result.isEmpty(), is(false));
+    assertThat(result.containsKey(Thread.currentThread()), is(false));
+    for (StackTraceElement[] frames : result.values()) {
+      assertThat(frames.length, lessThanOrEqualTo(1));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidSampleRate() {
+    new ThreadCapturePolicy.Builder().sampleRate(2).build();
+  }
+}
@@ -1,7 +1,7 @@
 package com.rollbar.reactivestreams.notifier.sender.http;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.nio.charset.StandardCharsets;
@@ -46,9 +46,7 @@ public class ReactorAsyncHttpClient implements AsyncHttpClient {
   @Override
   public Publisher<AsyncHttpResponse> send(AsyncHttpRequest httpRequest) {
 
-    ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer();
-    buffer.writeCharSequence(httpRequest.getBody(), StandardCharsets.UTF_8);
-    Mono<ByteBuf> buf = Mono.just(buffer);
+    Mono<ByteBuf> buf = Mono.just(Unpooled.wrappedBuffer(httpRequest.getBodyBytes()));
 
     return httpClient
         .headers(entries -> {
@@ -108,6 +108,29 @@ public class Utils {
     };
   }
 
+  /**
+   * Creates a {@link Publisher} that fails with the provided error.
+   *
+   * @param error The error to signal
+   * @param <T> The type of the element
+   * @return A {@link Publisher} that fails with the error
+   */
+  public static <T> Publisher<T> error(final Throwable error) {
+    return new Publisher<T>() {
+      @Override
+      public void subscribe(final Subscriber<? super T> s) {
+        s.onSubscribe(new CancellableSubscription() {
+          @Override
+          public void request(long n) {
+            if (n > 0 && done.compareAndSet(false, true)) {
+              s.onError(error);
+            }
+          }
+        });
+      }
+    };
+  }
+
   /**
    * Represents a conversion function between two types.
    *
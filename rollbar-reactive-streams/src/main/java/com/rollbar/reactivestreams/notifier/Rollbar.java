@@ -11,6 +11,8 @@ import com.rollbar.reactivestreams.notifier.config.Config;
 import com.rollbar.reactivestreams.notifier.sender.http.AsyncHttpClient;
 import java.util.Map;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,6 +73,7 @@ public class Rollbar extends RollbarBase<Publisher<Response>, Config>
   }
 
   public void close(boolean wait) throws Exception {
+    closeBackgroundWork();
     this.config.asyncSender().close(wait);
   }
 
@@ -84,6 +87,30 @@ public class Rollbar extends RollbarBase<Publisher<Response>, Config>
     return config.asyncSender().send(payload);
   }
 
+  @Override
+  protected void onBackgroundResult(Publisher<Response> result) {
+    // Nobody will subscribe to the result of background occurrences, so we do it to send them.
+    result.subscribe(new Subscriber<Response>() {
+      @Override
+      public void onSubscribe(Subscription s) {
+        s.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(Response response) {
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        LOGGER.error("Error sending background payload to Rollbar.", t);
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+  }
+
   /**
    * Record a critical error.
    *
@@ -443,7 +470,12 @@ public class Rollbar extends RollbarBase<Publisher<Response>, Config>
    */
   public Publisher<Response> log(Throwable error, Map<String, Object> custom,
                                  String description, Level level, boolean isUncaught) {
-    return this.log(wrapThrowable(error), custom, description, level, isUncaught);
+    try {
+      return process(error, null, custom, description, level, isUncaught);
+    } catch (Exception e) {
+      LOGGER.error("Error while processing payload to send to Rollbar: {}", e);
+      return Utils.empty();
+    }
   }
 
   /**
@@ -7,18 +7,23 @@ import com.rollbar.api.payload.data.Person;
 import com.rollbar.api.payload.data.Request;
 import com.rollbar.api.payload.data.Server;
 import com.rollbar.notifier.Rollbar;
+import com.rollbar.notifier.coalescing.CoalescingPolicy;
 import com.rollbar.notifier.config.DefaultLevels;
 import com.rollbar.notifier.filter.Filter;
 import com.rollbar.notifier.fingerprint.FingerprintGenerator;
+import com.rollbar.notifier.provider.CachedProvider;
 import com.rollbar.notifier.provider.Provider;
 import com.rollbar.notifier.provider.notifier.NotifierProvider;
 import com.rollbar.notifier.provider.timestamp.TimestampProvider;
 import com.rollbar.notifier.sender.SyncSender;
 import com.rollbar.notifier.sender.json.JsonSerializer;
 import com.rollbar.notifier.telemetry.RollbarTelemetryEventTracker;
+import com.rollbar.notifier.telemetry.ScopedTelemetryEventTracker;
 import com.rollbar.notifier.telemetry.TelemetryEventTracker;
 import com.rollbar.notifier.transformer.Transformer;
+import com.rollbar.notifier.truncation.TruncationPolicy;
 import com.rollbar.notifier.uuid.UuidGenerator;
+import com.rollbar.notifier.wrapper.ThreadCapturePolicy;
 import com.rollbar.reactivestreams.notifier.sender.AsyncSender;
 import com.rollbar.reactivestreams.notifier.sender.Sender;
 import com.rollbar.reactivestreams.notifier.sender.http.AsyncHttpClient;
@@ -62,8 +67,11 @@ public final class ConfigBuilder {
   private DefaultLevels defaultLevels;
   private boolean truncateLargePayloads;
   private int maximumTelemetryData =
-      RollbarTelemetryEventTracker.MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS;
+      RollbarTelemetryEventTracker.DEFAULT_CAPACITY_FOR_TELEMETRY_EVENTS;
   private TelemetryEventTracker telemetryEventTracker;
+  private ThreadCapturePolicy threadCapturePolicy;
+  private CoalescingPolicy coalescingPolicy;
+  private TruncationPolicy truncationPolicy;
 
 
   /**
@@ -108,6 +116,9 @@ public final class ConfigBuilder {
     this.truncateLargePayloads = config.truncateLargePayloads();
     this.maximumTelemetryData = config.maximumTelemetryData();
     this.telemetryEventTracker = config.telemetryEventTracker();
+    this.threadCapturePolicy = config.threadCapturePolicy();
+    this.coalescingPolicy = config.coalescingPolicy();
+    this.truncationPolicy = config.truncationPolicy();
   }
 
   private ConfigBuilder(Sender sender) {
@@ -253,7 +264,8 @@ public final class ConfigBuilder {
   }
 
   /**
-   * The provider to retrieve the {@link Server server}.
+   * The provider to retrieve the {@link Server server}. Providers of sections that rarely change
+   * can be wrapped in a {@link CachedProvider} so they are not computed for every occurrence.
    *
    * @param server the server provider.
    * @return the builder instance.
@@ -473,7 +485,8 @@ public final class ConfigBuilder {
    * <p>
    * Maximum Telemetry events sent in a payload, only for the default TelemetryEventTracker, if
    * a custom implementation is used this value will be ignored. Default is
-   * {@value RollbarTelemetryEventTracker#MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS}.
+   * {@value RollbarTelemetryEventTracker#DEFAULT_CAPACITY_FOR_TELEMETRY_EVENTS}, and it can be
+   * raised up to {@value RollbarTelemetryEventTracker#MAXIMUM_CAPACITY_FOR_TELEMETRY_EVENTS}.
    * </p>
    * @param maximumTelemetryData max quantity of telemetry events sent.
    * @return the builder instance.
@@ -486,7 +499,9 @@ public final class ConfigBuilder {
   /**
    * <p>
    * Set a {@link TelemetryEventTracker} implementation.
-   * Default: {@link RollbarTelemetryEventTracker} with a {@link TimestampProvider}.
+   * Default: {@link ScopedTelemetryEventTracker} over a {@link RollbarTelemetryEventTracker},
+   * both with a {@link TimestampProvider}, so the events recorded inside a
+   * {@link com.rollbar.notifier.telemetry.TelemetryScope} are only attached to its occurrences.
    * </p>
    * @param telemetryEventTracker the TelemetryEventTracker implementation.
    * @return the builder instance.
@@ -496,6 +511,48 @@ public final class ConfigBuilder {
     return this;
   }
 
+  /**
+   * <p>
+   * The {@link ThreadCapturePolicy policy} used to capture the stack traces of all the live
+   * threads along with an error. Default: {@link ThreadCapturePolicy#defaultPolicy()}, which
+   * captures every thread for every error.
+   * </p>
+   * @param threadCapturePolicy the thread capture policy.
+   * @return the builder instance.
+   */
+  public ConfigBuilder threadCapturePolicy(ThreadCapturePolicy threadCapturePolicy) {
+    this.threadCapturePolicy = threadCapturePolicy;
+    return this;
+  }
+
+  /**
+   * <p>
+   * The {@link CoalescingPolicy policy} used to coalesce repeated occurrences of the same error.
+   * Only the first occurrences of an error inside a window are sent, the rest are reported by a
+   * summary occurrence when the window ends. Default: null, nothing is coalesced.
+   * </p>
+   * @param coalescingPolicy the coalescing policy.
+   * @return the builder instance.
+   */
+  public ConfigBuilder coalescingPolicy(CoalescingPolicy coalescingPolicy) {
+    this.coalescingPolicy = coalescingPolicy;
+    return this;
+  }
+
+  /**
+   * The {@link TruncationPolicy policy} used to truncate large payloads when
+   * {@link #truncateLargePayloads(boolean) truncation is enabled}. It sets the maximum size of the
+   * payload, the budgets of its sections, like the threads, the locals or the request, and the
+   * order of the strategies applied. Default: {@link TruncationPolicy#defaultPolicy()}.
+   *
+   * @param truncationPolicy the truncation policy.
+   * @return the builder instance.
+   */
+  public ConfigBuilder truncationPolicy(TruncationPolicy truncationPolicy) {
+    this.truncationPolicy = truncationPolicy;
+    return this;
+  }
+
   /**
    * Builds the {@link Config config}.
    *
@@ -530,8 +587,18 @@ public final class ConfigBuilder {
     }
 
     if (telemetryEventTracker == null) {
-      telemetryEventTracker =
-          new RollbarTelemetryEventTracker(new TimestampProvider(), maximumTelemetryData);
+      telemetryEventTracker = new ScopedTelemetryEventTracker(
+          new RollbarTelemetryEventTracker(new TimestampProvider(), maximumTelemetryData),
+          new TimestampProvider(), maximumTelemetryData,
+          ScopedTelemetryEventTracker.DEFAULT_MAXIMUM_SCOPES);
+    }
+
+    if (this.threadCapturePolicy == null) {
+      this.threadCapturePolicy = ThreadCapturePolicy.defaultPolicy();
+    }
+
+    if (this.truncationPolicy == null) {
+      this.truncationPolicy = TruncationPolicy.defaultPolicy();
     }
 
     return new ConfigImpl(this);
@@ -567,6 +634,9 @@ public final class ConfigBuilder {
     private final boolean truncateLargePayloads;
     private final int maximumTelemetryData;
     private final TelemetryEventTracker telemetryEventTracker;
+    private final ThreadCapturePolicy threadCapturePolicy;
+    private final CoalescingPolicy coalescingPolicy;
+    private final TruncationPolicy truncationPolicy;
 
     ConfigImpl(ConfigBuilder builder) {
       this.accessToken = builder.accessToken;
@@ -601,6 +671,9 @@ public final class ConfigBuilder {
       this.truncateLargePayloads = builder.truncateLargePayloads;
       this.maximumTelemetryData = builder.maximumTelemetryData;
       this.telemetryEventTracker = builder.telemetryEventTracker;
+      this.threadCapturePolicy = builder.threadCapturePolicy;
+      this.coalescingPolicy = builder.coalescingPolicy;
+      this.truncationPolicy = builder.truncationPolicy;
     }
 
     @Override
@@ -752,5 +825,20 @@ public final class ConfigBuilder {
     public TelemetryEventTracker telemetryEventTracker() {
       return this.telemetryEventTracker;
     }
+
+    @Override
+    public ThreadCapturePolicy threadCapturePolicy() {
+      return this.threadCapturePolicy;
+    }
+
+    @Override
+    public CoalescingPolicy coalescingPolicy() {
+      return this.coalescingPolicy;
+    }
+
+    @Override
+    public TruncationPolicy truncationPolicy() {
+      return this.truncationPolicy;
+    }
   }
 }
@@ -1,6 +1,7 @@
 package com.rollbar.reactivestreams.notifier.sender;
 
 import com.rollbar.api.payload.Payload;
+import com.rollbar.notifier.sender.RequestBody;
 import com.rollbar.notifier.sender.SyncSender;
 import com.rollbar.notifier.sender.json.JsonSerializer;
 import com.rollbar.notifier.sender.json.JsonSerializerImpl;
@@ -10,9 +11,11 @@ import com.rollbar.reactivestreams.Utils;
 import com.rollbar.reactivestreams.notifier.sender.http.AsyncHttpClient;
 import com.rollbar.reactivestreams.notifier.sender.http.AsyncHttpRequest;
 import com.rollbar.reactivestreams.notifier.sender.http.AsyncHttpResponse;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import org.reactivestreams.Publisher;
 
 /**
@@ -23,12 +26,15 @@ public class AsyncSender implements Sender {
   private final String url;
   private final JsonSerializer jsonSerializer;
   private final String accessToken;
+  private final int compressionThreshold;
 
   AsyncSender(Builder builder) {
     this.httpClient = builder.httpClient;
     this.url = builder.url.toExternalForm();
     this.jsonSerializer = builder.jsonSerializer;
     this.accessToken = builder.accessToken;
+    this.compressionThreshold = builder.compress
+        ? builder.compressionThreshold : RequestBody.NEVER_COMPRESS;
   }
 
   /**
@@ -49,17 +55,43 @@ public class AsyncSender implements Sender {
     headers.put("Content-Type", "application/json; charset=" + SyncSender.UTF_8);
     headers.put("Accept", "application/json");
 
-    String reqBody = jsonSerializer.toJson(payload);
+    // The request outlives the body of the thread, so it takes a copy of it.
+    byte[] reqBody;
+    boolean compressed;
+    RequestBody body = RequestBody.acquire(compressionThreshold);
+    try {
+      jsonSerializer.writeJson(payload, body);
+      body.finish();
+      reqBody = body.toByteArray();
+      compressed = body.isCompressed();
+    } catch (IOException e) {
+      return Utils.error(e);
+    } finally {
+      body.release();
+    }
+
+    if (compressed) {
+      headers.put("Content-Encoding", "gzip");
+    }
 
     AsyncHttpRequest request =
-        AsyncHttpRequest.Builder.build(this.url, headers.entrySet(), reqBody);
+        AsyncHttpRequest.Builder.build(this.url, headers.entrySet(), reqBody, compressed);
 
     return Utils.map(httpClient.send(request),
         new Utils.Converter<AsyncHttpResponse, Response>() {
           @Override
           public Response convert(AsyncHttpResponse from) {
             Result result = jsonSerializer.resultFrom(from.getBody());
-            return new Response.Builder().result(result).status(from.getStatusCode()).build();
+            Response.Builder response = new Response.Builder()
+                .result(result)
+                .status(from.getStatusCode())
+                .bodySize(reqBody.length);
+            if (from.getHeaders() != null) {
+              for (Map.Entry<String, String> header : from.getHeaders()) {
+                response.header(header.getKey(), header.getValue());
+              }
+            }
+            return response.build();
           }
         });
   }
@@ -82,6 +114,8 @@ public class AsyncSender implements Sender {
     private URL url;
     private JsonSerializer jsonSerializer;
     private String accessToken;
+    private boolean compress;
+    private int compressionThreshold;
 
     /**
      * Constructor.
@@ -102,6 +136,8 @@ public class AsyncSender implements Sender {
       this.httpClient = httpClient;
       this.url = parseUrl(url);
       this.jsonSerializer = new JsonSerializerImpl();
+      this.compress = false;
+      this.compressionThreshold = SyncSender.DEFAULT_COMPRESSION_THRESHOLD;
     }
 
     /**
@@ -148,12 +184,38 @@ public class AsyncSender implements Sender {
       return this;
     }
 
+    /**
+     * Whether to compress the request bodies larger than the
+     * {@link #compressionThreshold(int) threshold} with gzip. Default: false.
+     *
+     * @param compress true to compress the request bodies.
+     * @return the builder instance.
+     */
+    public Builder compress(boolean compress) {
+      this.compress = compress;
+      return this;
+    }
+
+    /**
+     * The size, in bytes, past which the request body is compressed when
+     * {@link #compress(boolean) compression} is enabled. Default:
+     * {@link SyncSender#DEFAULT_COMPRESSION_THRESHOLD}.
+     *
+     * @param compressionThreshold the threshold in bytes.
+     * @return the builder instance.
+     */
+    public Builder compressionThreshold(int compressionThreshold) {
+      this.compressionThreshold = compressionThreshold;
+      return this;
+    }
+
     /**
      * Builds the {@link AsyncSender} async sender.
      *
      * @return the async sender.
      */
     public AsyncSender build() {
+      validate();
       return new AsyncSender(this);
     }
 
@@ -173,9 +235,16 @@ public class AsyncSender implements Sender {
      * @return the sync sender.
      */
     public com.rollbar.notifier.sender.Sender buildSync() {
+      validate();
       return new SyncSenderWrapper(this);
     }
 
+    private void validate() {
+      if (compressionThreshold < 0) {
+        throw new IllegalArgumentException("The compression threshold can not be negative");
+      }
+    }
+
     private static URL parseUrl(String url) {
       try {
         return new URL(url);
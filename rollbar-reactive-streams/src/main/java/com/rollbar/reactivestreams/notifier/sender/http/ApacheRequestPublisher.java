@@ -102,7 +102,7 @@ class ApacheRequestPublisher implements Publisher<SimpleHttpResponse> {
         req.setHeader(header.getKey(), header.getValue());
       }
 
-      req.setBody(request.getBody(), ContentType.APPLICATION_JSON);
+      req.setBody(request.getBodyBytes(), ContentType.APPLICATION_JSON);
 
       return SimpleRequestProducer.create(req);
     }
@@ -1,5 +1,6 @@
 package com.rollbar.reactivestreams.notifier.sender.http;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Set;
 
@@ -11,12 +12,41 @@ public interface AsyncHttpRequest {
 
   Iterable<Map.Entry<String, String>> getHeaders();
 
+  /**
+   * The body as text.
+   *
+   * @return the body, or null if it is compressed.
+   */
   String getBody();
 
+  /**
+   * The body encoded as UTF-8, and compressed if the headers include a {@code Content-Encoding}.
+   *
+   * @return the body.
+   */
+  default byte[] getBodyBytes() {
+    String body = getBody();
+    return body != null ? body.getBytes(StandardCharsets.UTF_8) : null;
+  }
+
   class Builder {
     public static AsyncHttpRequest build(String url, Set<Map.Entry<String, String>> headers,
                                          String reqBody) {
       return new AsyncHttpRequestImpl(url, headers, reqBody);
     }
+
+    /**
+     * Builds a request with a body already encoded.
+     *
+     * @param url the url.
+     * @param headers the headers.
+     * @param reqBody the body encoded as UTF-8, and compressed if it is.
+     * @param compressed whether the body is compressed.
+     * @return the request.
+     */
+    public static AsyncHttpRequest build(String url, Set<Map.Entry<String, String>> headers,
+                                         byte[] reqBody, boolean compressed) {
+      return new AsyncHttpRequestImpl(url, headers, reqBody, compressed);
+    }
   }
 }
@@ -1,5 +1,6 @@
 package com.rollbar.reactivestreams.notifier.sender.http;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -9,6 +10,8 @@ class AsyncHttpRequestImpl implements AsyncHttpRequest {
   private final String url;
   private final Iterable<Map.Entry<String, String>> headers;
   private final String body;
+  private final byte[] bodyBytes;
+  private final boolean compressed;
 
   /**
    * Constructor.
@@ -22,6 +25,25 @@ class AsyncHttpRequestImpl implements AsyncHttpRequest {
     this.url = url;
     this.headers = headers;
     this.body = body;
+    this.bodyBytes = null;
+    this.compressed = false;
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param url The URL to connect to.
+   * @param headers Request headers.
+   * @param bodyBytes Request body encoded as UTF-8, and compressed if it is.
+   * @param compressed Whether the body is compressed.
+   */
+  public AsyncHttpRequestImpl(String url, Iterable<Map.Entry<String, String>> headers,
+                              byte[] bodyBytes, boolean compressed) {
+    this.url = url;
+    this.headers = headers;
+    this.body = null;
+    this.bodyBytes = bodyBytes;
+    this.compressed = compressed;
   }
 
   @Override
@@ -36,6 +58,14 @@ class AsyncHttpRequestImpl implements AsyncHttpRequest {
 
   @Override
   public String getBody() {
+    if (body == null && bodyBytes != null && !compressed) {
+      return new String(bodyBytes, StandardCharsets.UTF_8);
+    }
     return body;
   }
+
+  @Override
+  public byte[] getBodyBytes() {
+    return bodyBytes != null ? bodyBytes : AsyncHttpRequest.super.getBodyBytes();
+  }
 }
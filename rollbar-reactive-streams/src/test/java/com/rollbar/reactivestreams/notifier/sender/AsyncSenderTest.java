@@ -19,8 +19,15 @@ import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
@@ -99,6 +106,51 @@ public class AsyncSenderTest {
     assertThat(asyncCapture.value.getResult().getContent(), equalTo("1234"));
   }
 
+  @Test
+  public void ifCompressionIsEnabledItShouldSendTheBodyCompressed() {
+    sender = new AsyncSender.Builder(httpClient)
+            .accessToken(ACCESS_TOKEN)
+            .compress(true)
+            .compressionThreshold(0)
+            .build();
+
+    AsyncHttpRequest gzipMatcher = argThat(item -> {
+      if (item == null) {
+        return false;
+      }
+      boolean encoded = false;
+      for (Map.Entry<String, String> header : item.getHeaders()) {
+        encoded |= header.getKey().equals("Content-Encoding") && header.getValue().equals("gzip");
+      }
+      Map<String, Object> result = jsonToMap(gunzip(item.getBodyBytes()));
+      return encoded && ACCESS_TOKEN.equals(result.get("access_token"));
+    });
+
+    when(httpClient.send(gzipMatcher)).thenReturn(Mono.just(response));
+
+    CaptureSubscriber<Response> asyncCapture = new CaptureSubscriber<>();
+
+    sender.send(createPayload()).subscribe(asyncCapture);
+
+    asyncCapture.blockWithoutThrowing();
+
+    assertThat(asyncCapture.error, nullValue());
+    assertThat(asyncCapture.value.getResult().getContent(), equalTo("1234"));
+  }
+
+  private static String gunzip(byte[] bytes) {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1024];
+      for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+        out.write(buffer, 0, n);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private Map<String, Object> jsonToMap(String body) {
     return (Map<String, Object>) new Gson().fromJson(body, Map.class);
@@ -7,6 +7,7 @@ import com.rollbar.notifier.config.Config;
 import com.rollbar.notifier.config.ConfigBuilder;
 import com.rollbar.notifier.config.ConfigProvider;
 import com.rollbar.notifier.config.ConfigProviderHelper;
+import com.rollbar.notifier.telemetry.TelemetryScope;
 import com.rollbar.web.provider.PersonProvider;
 import com.rollbar.web.provider.RequestProvider;
 import java.io.IOException;
@@ -73,11 +74,17 @@ public class RollbarFilter implements Filter {
   @Override
   public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
       throws IOException, ServletException {
+    // Scope the telemetry to the request, unless the request listener already did.
+    TelemetryScope scope = TelemetryScope.current() == null ? TelemetryScope.open() : null;
     try {
       chain.doFilter(request, response);
     } catch (Exception e) {
       sendToRollbar(e);
       throw e;
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
     }
   }
 
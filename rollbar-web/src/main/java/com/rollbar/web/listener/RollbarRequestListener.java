@@ -1,13 +1,21 @@
 package com.rollbar.web.listener;
 
+import com.rollbar.notifier.telemetry.TelemetryScope;
 import javax.servlet.ServletRequestEvent;
 import javax.servlet.ServletRequestListener;
 import javax.servlet.http.HttpServletRequest;
 
+/**
+ * Listener that binds the current request to the thread handling it, and opens a
+ * {@link TelemetryScope} for the request so the telemetry events recorded while handling it are
+ * only attached to its occurrences.
+ */
 public class RollbarRequestListener implements ServletRequestListener {
 
   private static final ThreadLocal<HttpServletRequest> CURRENT_REQUEST = new ThreadLocal<>();
 
+  private static final ThreadLocal<TelemetryScope> CURRENT_SCOPE = new ThreadLocal<>();
+
   public static HttpServletRequest getServletRequest() {
     return CURRENT_REQUEST.get();
   }
@@ -17,10 +25,22 @@ public class RollbarRequestListener implements ServletRequestListener {
     if (sre.getServletRequest() instanceof HttpServletRequest) {
       CURRENT_REQUEST.set((HttpServletRequest) sre.getServletRequest());
     }
+    // Close the scope of a previous request that was not destroyed on this thread.
+    closeScope();
+    CURRENT_SCOPE.set(TelemetryScope.open());
   }
 
   @Override
   public void requestDestroyed(ServletRequestEvent sre) {
     CURRENT_REQUEST.remove();
+    closeScope();
+  }
+
+  private static void closeScope() {
+    TelemetryScope scope = CURRENT_SCOPE.get();
+    if (scope != null) {
+      scope.close();
+      CURRENT_SCOPE.remove();
+    }
   }
 }
@@ -2,12 +2,15 @@ package com.rollbar.web.listener;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
+import com.rollbar.notifier.telemetry.TelemetryScope;
 import javax.servlet.ServletRequestEvent;
 import javax.servlet.http.HttpServletRequest;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -35,6 +38,11 @@ public class RollbarRequestListenerTest {
     sut = new RollbarRequestListener();
   }
 
+  @After
+  public void tearDown() {
+    sut.requestDestroyed(requestEvent);
+  }
+
   @Test
   public void shouldSetTheRequest() {
     sut.requestInitialized(requestEvent);
@@ -49,4 +57,15 @@ public class RollbarRequestListenerTest {
 
     assertNull(RollbarRequestListener.getServletRequest());
   }
+
+  @Test
+  public void shouldScopeTheTelemetryToTheRequest() {
+    sut.requestInitialized(requestEvent);
+
+    assertNotNull(TelemetryScope.current());
+
+    sut.requestDestroyed(requestEvent);
+
+    assertNull(TelemetryScope.current());
+  }
 }
\ No newline at end of file
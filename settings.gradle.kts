@@ -34,6 +34,7 @@ dependencyResolutionManagement {
 include(
     ":rollbar-api",
     ":rollbar-java",
+    ":rollbar-java-httpclient",
     ":rollbar-web",
     ":rollbar-jakarta-web",
     ":rollbar-log4j2",